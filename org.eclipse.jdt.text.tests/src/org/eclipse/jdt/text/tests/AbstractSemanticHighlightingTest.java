@@ -139,7 +139,16 @@ public class AbstractSemanticHighlightingTest extends TestCase {
 
 	protected void setUpSemanticHighlighting(String semanticHighlighting) {
 		enableSemanticHighlighting(semanticHighlighting);
-		EditorTestHelper.forceReconcile(fSourceViewer);
+		reconcile(true);
+	}
+
+	protected IDocument getDocument() {
+		return fSourceViewer.getDocument();
+	}
+
+	protected void reconcile(boolean force) {
+		if (force)
+			EditorTestHelper.forceReconcile(fSourceViewer);
 		assertTrue(EditorTestHelper.joinReconciler(fSourceViewer, 0, 10000, 100));
 		EditorTestHelper.runEventQueue(100);
 	}
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.text.tests.performance.DisplayHelper;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+
+
+/**
+ * Tests that the folding structure of the Java editor is updated after reconciling.
+ *
+ * @since 3.7.1
+ */
+public class FoldingTest extends TestCase {
+
+	private static final String PROJECT= "FoldingTest";
+	private static final String CU_NAME= "A.java";
+	private static final String CU_CONTENTS= "package p;\n" +
+			"\n" +
+			"public class A {\n" +
+			"	int fField;\n" +
+			"\n" +
+			"	void foo() {\n" +
+			"		fField++;\n" +
+			"	}\n" +
+			"\n" +
+			"	void bar() {\n" +
+			"		fField--;\n" +
+			"	}\n" +
+			"}\n";
+
+	private static final String JAVADOC= "	/**\n" +
+			"	 * Javadoc.\n" +
+			"	 */\n";
+
+	public static Test suite() {
+		return new TestSuite(FoldingTest.class);
+	}
+
+	private IJavaProject fProject;
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private ProjectionAnnotationModel fModel;
+	private boolean fWasFoldingEnabled;
+
+	protected void setUp() throws Exception {
+		fWasFoldingEnabled= EditorTestHelper.enableFolding(true);
+		fProject= JavaProjectHelper.createJavaProject(PROJECT, "bin");
+		JavaProjectHelper.addRTJar(fProject);
+		IPackageFragmentRoot root= JavaProjectHelper.addSourceContainer(fProject, "src");
+		IPackageFragment fragment= root.createPackageFragment("p", true, null);
+		fragment.createCompilationUnit(CU_NAME, CU_CONTENTS, true, new NullProgressMonitor());
+
+		IFile file= ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/" + PROJECT + "/src/p/" + CU_NAME));
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor(file, true);
+		assertNotNull(fEditor);
+		fDocument= EditorTestHelper.getDocument(fEditor);
+		fModel= (ProjectionAnnotationModel) fEditor.getAdapter(ProjectionAnnotationModel.class);
+		assertNotNull(fModel);
+		assertTrue(waitForFoldingRegion(getLinesRegion("	void foo", 3)));
+	}
+
+	protected void tearDown() throws Exception {
+		EditorTestHelper.closeAllEditors();
+		fEditor= null;
+		if (fProject != null) {
+			JavaProjectHelper.delete(fProject);
+			fProject= null;
+		}
+		EditorTestHelper.enableFolding(fWasFoldingEnabled);
+	}
+
+	public void testAddJavadocBeforeMethod() throws Exception {
+		fDocument.replace(fDocument.get().indexOf("	void bar"), 0, JAVADOC);
+
+		assertTrue(waitForFoldingRegion(getLinesRegion("	/**", 3)));
+		assertTrue(waitForFoldingRegion(getLinesRegion("	void bar", 3)));
+	}
+
+	public void testAddJavadocAndChangeField() throws Exception {
+		fDocument.replace(fDocument.get().indexOf("	void bar"), 0, JAVADOC);
+		fDocument.replace(fDocument.get().indexOf("fField;"), "fField;".length(), "fField= 1;");
+
+		assertTrue(waitForFoldingRegion(getLinesRegion("	/**", 3)));
+		assertTrue(waitForFoldingRegion(getLinesRegion("	void bar", 3)));
+	}
+
+	public void testRemoveJavadocBeforeMethod() throws Exception {
+		fDocument.replace(fDocument.get().indexOf("	void bar"), 0, JAVADOC);
+		Position javadoc= getLinesRegion("	/**", 3);
+		assertTrue(waitForFoldingRegion(javadoc));
+
+		fDocument.replace(javadoc.getOffset(), javadoc.getLength(), "");
+
+		DisplayHelper helper= new DisplayHelper() {
+			protected boolean condition() {
+				return getFoldingRegions().size() == 2;
+			}
+		};
+		assertTrue(helper.waitForCondition(EditorTestHelper.getActiveDisplay(), 10000));
+	}
+
+	private Position getLinesRegion(String start, int lines) throws BadLocationException {
+		int offset= fDocument.get().indexOf(start);
+		assertTrue(offset != -1);
+		int line= fDocument.getLineOfOffset(offset);
+		int end= fDocument.getLineOffset(line + lines);
+		return new Position(fDocument.getLineOffset(line), end - fDocument.getLineOffset(line));
+	}
+
+	private boolean waitForFoldingRegion(final Position region) {
+		DisplayHelper helper= new DisplayHelper() {
+			protected boolean condition() {
+				return getFoldingRegions().contains(region);
+			}
+		};
+		return helper.waitForCondition(EditorTestHelper.getActiveDisplay(), 10000);
+	}
+
+	private List<Position> getFoldingRegions() {
+		List<Position> regions= new ArrayList<Position>();
+		for (Iterator<Annotation> iter= fModel.getAnnotationIterator(); iter.hasNext();) {
+			Position position= fModel.getPosition(iter.next());
+			if (position != null)
+				regions.add(new Position(position.getOffset(), position.getLength()));
+		}
+		return regions;
+	}
+}
@@ -60,6 +60,7 @@ public class JdtTextTestSuite {
 		suite.addTest(ContentAssistTestSuite.suite());
 		suite.addTest(IndentActionTest.suite());
 		suite.addTest(TemplatesTestSuite.suite());
+		suite.addTest(FoldingTest.suite());
 		//$JUnit-END$
 
 		return suite;
@@ -14,6 +14,7 @@ package org.eclipse.jdt.text.tests;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
+import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
 
 import org.eclipse.jdt.internal.ui.javaeditor.SemanticHighlightings;
@@ -92,6 +93,44 @@ public class SemanticHighlightingTest extends AbstractSemanticHighlightingTest {
 		assertEqualPositions(expected, actual);
 	}
 
+	public void testIncrementalFieldHighlighting() throws Exception {
+		setUpSemanticHighlighting(SemanticHighlightings.FIELD);
+		IDocument document= getDocument();
+		int offset= document.getLineOffset(9);
+		String statement= "\t\tfield++;\n";
+		document.replace(offset, 0, statement);
+		try {
+			// the edit is inside of the body of method(), only that body is visited again
+			reconcile(false);
+			Position[] expected= new Position[] {
+					createPosition(3, 5, 5),
+					createPosition(4, 12, 11),
+					createPosition(5, 11, 10),
+					createPosition(6, 18, 16),
+					createPosition(9, 2, 5),
+					createPosition(23, 5, 15),
+					createPosition(26, 2, 15),
+					createPosition(32, 9, 6),
+					createPosition(33, 6, 11),
+					createPosition(33, 31, 5),
+					createPosition(34, 6, 17),
+					createPosition(34, 32, 11),
+					createPosition(35, 6, 16),
+					createPosition(35, 36, 10),
+					createPosition(36, 6, 22),
+					createPosition(36, 37, 16),
+			};
+			assertEqualPositions(expected, getSemanticHighlightingPositions());
+
+			// a full reconcile finds the same positions
+			reconcile(true);
+			assertEqualPositions(expected, getSemanticHighlightingPositions());
+		} finally {
+			document.replace(offset, statement.length(), "");
+			reconcile(true);
+		}
+	}
+
 	public void testNumberHighlighting() throws Exception {
 		setUpSemanticHighlighting(SemanticHighlightings.NUMBER);
 		Position[] expected= new Position[] {
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.DefaultPhoneticDistanceAlgorithm;
+
+/**
+ * Compares the distances of {@link DefaultPhoneticDistanceAlgorithm} with those of the full edit
+ * matrix, which is how the algorithm computed them before.
+ *
+ * @since 3.7.1
+ */
+public class DefaultPhoneticDistanceAlgorithmTest extends TestCase {
+
+	private static final int[] BOUNDS= { 0, 10, 95, 160, 300, Integer.MAX_VALUE };
+
+	public static Test suite() {
+		return new TestSuite(DefaultPhoneticDistanceAlgorithmTest.class);
+	}
+
+	private final DefaultPhoneticDistanceAlgorithm fAlgorithm= new DefaultPhoneticDistanceAlgorithm();
+
+	/**
+	 * Computes the distance with the full edit matrix.
+	 *
+	 * @param from the first word
+	 * @param to the second word
+	 * @return the distance
+	 */
+	private static int getExpectedDistance(String from, String to) {
+		final char[] first= (" " + from).toCharArray(); //$NON-NLS-1$
+		final char[] second= (" " + to).toCharArray(); //$NON-NLS-1$
+
+		final int rows= first.length;
+		final int columns= second.length;
+
+		final int[][] metric= new int[rows][columns];
+		for (int column= 1; column < columns; column++)
+			metric[0][column]= metric[0][column - 1] + DefaultPhoneticDistanceAlgorithm.COST_REMOVE;
+
+		for (int row= 1; row < rows; row++)
+			metric[row][0]= metric[row - 1][0] + DefaultPhoneticDistanceAlgorithm.COST_INSERT;
+
+		for (int row= 1; row < rows; row++) {
+			char source= first[row];
+			for (int column= 1; column < columns; column++) {
+				char target= second[column];
+				int diagonal= metric[row - 1][column - 1];
+				if (source == target) {
+					metric[row][column]= diagonal;
+					continue;
+				}
+
+				int minimum= DefaultPhoneticDistanceAlgorithm.COST_SUBSTITUTE + diagonal;
+				if (row != 1 && column != 1 && source == second[column - 1] && first[row - 1] == target)
+					minimum= Math.min(minimum, DefaultPhoneticDistanceAlgorithm.COST_SWAP + metric[row - 2][column - 2]);
+				minimum= Math.min(minimum, DefaultPhoneticDistanceAlgorithm.COST_REMOVE + metric[row][column - 1]);
+				minimum= Math.min(minimum, DefaultPhoneticDistanceAlgorithm.COST_INSERT + metric[row - 1][column]);
+				if (Character.toLowerCase(source) == Character.toLowerCase(target))
+					minimum= Math.min(minimum, DefaultPhoneticDistanceAlgorithm.COST_CASE + diagonal);
+				metric[row][column]= minimum;
+			}
+		}
+		return metric[rows - 1][columns - 1];
+	}
+
+	private void assertDistance(String from, String to) {
+		int expected= getExpectedDistance(from, to);
+		assertEquals(from + " -> " + to, expected, fAlgorithm.getDistance(from, to)); //$NON-NLS-1$
+
+		char[] fromChars= (from + "padding").toCharArray(); //$NON-NLS-1$
+		char[] toChars= (to + "padding").toCharArray(); //$NON-NLS-1$
+		for (int index= 0; index < BOUNDS.length; index++) {
+			int bound= BOUNDS[index];
+			int distance= fAlgorithm.getDistance(fromChars, from.length(), toChars, to.length(), bound);
+			if (expected < bound)
+				assertEquals(from + " -> " + to + " < " + bound, expected, distance); //$NON-NLS-1$ //$NON-NLS-2$
+			else
+				assertTrue(from + " -> " + to + " >= " + bound, distance >= bound); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	private static List<String> readWords(int step) throws Exception {
+		Enumeration locations= SpellCheckEngine.getDictionaryLocations();
+		assertTrue(locations.hasMoreElements());
+		URL url= new URL((URL)locations.nextElement(), "en_US.dictionary"); //$NON-NLS-1$
+
+		List<String> words= new ArrayList<String>();
+		BufferedReader reader= new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8")); //$NON-NLS-1$
+		try {
+			int line= 0;
+			for (String word= reader.readLine(); word != null; word= reader.readLine(), line++) {
+				if (line % step == 0)
+					words.add(word);
+			}
+		} finally {
+			reader.close();
+		}
+		assertFalse(words.isEmpty());
+		return words;
+	}
+
+	public void testEdits() throws Exception {
+		String[] words= { "", "a", "ab", "truck", "Truck", "TRUCK" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+		for (int from= 0; from < words.length; from++) {
+			for (int to= 0; to < words.length; to++)
+				assertDistance(words[from], words[to]);
+		}
+		assertEquals(0, fAlgorithm.getDistance("truck", "truck")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(DefaultPhoneticDistanceAlgorithm.COST_CASE, fAlgorithm.getDistance("truck", "Truck")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(DefaultPhoneticDistanceAlgorithm.COST_SWAP, fAlgorithm.getDistance("truck", "rtuck")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(DefaultPhoneticDistanceAlgorithm.COST_SUBSTITUTE, fAlgorithm.getDistance("truck", "trick")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(DefaultPhoneticDistanceAlgorithm.COST_INSERT, fAlgorithm.getDistance("trucks", "truck")); //$NON-NLS-1$ //$NON-NLS-2$
+		assertEquals(DefaultPhoneticDistanceAlgorithm.COST_REMOVE, fAlgorithm.getDistance("truck", "trucks")); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	public void testWordList() throws Exception {
+		List<String> words= readWords(25);
+		for (int index= 0; index < words.size(); index++) {
+			String word= words.get(index);
+			for (int other= index; other < Math.min(words.size(), index + 10); other++)
+				assertDistance(word, words.get(other));
+
+			if (word.length() > 1) {
+				assertDistance(word, word.charAt(1) + word.substring(0, 1) + word.substring(2));
+				assertDistance(word, word.substring(1));
+				assertDistance(word, word.toUpperCase());
+				assertDistance(word + "s", word); //$NON-NLS-1$
+			}
+		}
+	}
+}
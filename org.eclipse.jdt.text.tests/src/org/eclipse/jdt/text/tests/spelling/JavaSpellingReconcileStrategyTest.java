@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.text.tests.JUnitProjectTestSetup;
+import org.eclipse.jdt.text.tests.performance.EditorTestHelper;
+
+import org.eclipse.core.runtime.Path;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jface.preference.IPreferenceStore;
+
+import org.eclipse.jface.text.Document;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.Region;
+
+import org.eclipse.ui.editors.text.EditorsUI;
+
+import org.eclipse.ui.texteditor.spelling.SpellingService;
+
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.javaeditor.JavaEditor;
+import org.eclipse.jdt.internal.ui.text.spelling.JavaSpellingReconcileStrategy;
+
+/**
+ * Tests that {@link JavaSpellingReconcileStrategy} only checks the changed comments again.
+ *
+ * @since 3.7.1
+ */
+public class JavaSpellingReconcileStrategyTest extends TestCase {
+
+	private static final String CONTENT=
+		"/**\n" +
+		" * This is a qwertzu comment.\n" +
+		" */\n" +
+		"public class A {\n" +
+		"\t// an asdfghj comment\n" +
+		"}\n";
+
+	private JavaEditor fEditor;
+	private IDocument fDocument;
+	private JavaSpellingReconcileStrategy fStrategy;
+	private boolean fWasSpellingEnabled;
+
+	public static Test setUpTest(Test someTest) {
+		return new JUnitProjectTestSetup(someTest);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(JavaSpellingReconcileStrategyTest.class));
+	}
+
+	protected void setUp() throws Exception {
+		IPreferenceStore store= EditorsUI.getPreferenceStore();
+		fWasSpellingEnabled= store.getBoolean(SpellingService.PREFERENCE_SPELLING_ENABLED);
+		store.setValue(SpellingService.PREFERENCE_SPELLING_ENABLED, true);
+
+		// the strategy reports to the annotation model of the editor
+		IFile file= ResourcesPlugin.getWorkspace().getRoot().getFile(new Path("/" + JUnitProjectTestSetup.getProject().getElementName() + "/src/junit/framework/TestCase.java"));
+		fEditor= (JavaEditor) EditorTestHelper.openInEditor(file, true);
+
+		fDocument= new Document(CONTENT);
+		JavaPlugin.getDefault().getJavaTextTools().setupJavaDocumentPartitioner(fDocument, IJavaPartitions.JAVA_PARTITIONING);
+		fStrategy= new JavaSpellingReconcileStrategy(fEditor.getViewer(), fEditor);
+		fStrategy.setDocument(fDocument);
+		reconcile();
+	}
+
+	protected void tearDown() throws Exception {
+		fStrategy.dispose();
+		EditorTestHelper.closeAllEditors();
+		EditorsUI.getPreferenceStore().setValue(SpellingService.PREFERENCE_SPELLING_ENABLED, fWasSpellingEnabled);
+	}
+
+	private void reconcile() {
+		fStrategy.reconcile(new Region(0, fDocument.getLength()));
+	}
+
+	private List<String> getProblemWords() throws Exception {
+		IRegion[] regions= fStrategy.getCheckedProblemRegions();
+		assertNotNull(regions);
+		List<String> words= new ArrayList<String>();
+		for (int i= 0; i < regions.length; i++)
+			words.add(fDocument.get(regions[i].getOffset(), regions[i].getLength()));
+		return words;
+	}
+
+	private int getCommentEnd() {
+		return fDocument.get().indexOf("*/") + 2;
+	}
+
+	public void testInitialCheck() throws Exception {
+		assertEquals(Arrays.asList(new String[] { "qwertzu", "asdfghj" }), getProblemWords());
+		assertEquals(0, fStrategy.getDirtyRegions().length);
+	}
+
+	public void testChangedCommentChecked() throws Exception {
+		// a line before the second comment moves its problem
+		fDocument.replace(CONTENT.indexOf("public"), 0, "\n");
+		IRegion[] regions= fStrategy.getCheckedProblemRegions();
+		assertEquals(fDocument.get().indexOf("asdfghj"), regions[1].getOffset());
+
+		fDocument.replace(fDocument.get().indexOf("asdfghj"), 7, "yxcvbnm");
+		assertEquals(Arrays.asList(new String[] { "qwertzu" }), getProblemWords());
+
+		reconcile();
+		assertEquals(Arrays.asList(new String[] { "qwertzu", "yxcvbnm" }), getProblemWords());
+		assertEquals(fDocument.get().indexOf("yxcvbnm"), fStrategy.getCheckedProblemRegions()[1].getOffset());
+		assertEquals(0, fStrategy.getDirtyRegions().length);
+	}
+
+	public void testDirtyRegionWidenedToComment() throws Exception {
+		fDocument.replace(CONTENT.indexOf("This"), 4, "That");
+
+		// the whole comment is checked again, not only the changed line
+		IRegion[] dirtyRegions= fStrategy.getDirtyRegions();
+		assertEquals(1, dirtyRegions.length);
+		assertEquals(new Region(0, getCommentEnd()), dirtyRegions[0]);
+		assertEquals(Arrays.asList(new String[] { "asdfghj" }), getProblemWords());
+
+		reconcile();
+		assertEquals(Arrays.asList(new String[] { "qwertzu", "asdfghj" }), getProblemWords());
+	}
+
+	public void testClosedComment() throws Exception {
+		int oldCommentEnd= getCommentEnd();
+		fDocument.replace(CONTENT.indexOf(" qwertzu"), 0, "*/");
+
+		// the text after the new comment end used to be part of the comment
+		IRegion[] dirtyRegions= fStrategy.getDirtyRegions();
+		assertEquals(1, dirtyRegions.length);
+		assertEquals(new Region(0, oldCommentEnd + 2), dirtyRegions[0]);
+
+		reconcile();
+		assertEquals(Arrays.asList(new String[] { "asdfghj" }), getProblemWords());
+	}
+
+	public void testOpenedComment() throws Exception {
+		int start= CONTENT.indexOf("public");
+		fDocument.replace(start, 0, "/* ");
+
+		// the new comment is not closed, it swallows the rest of the document
+		IRegion[] dirtyRegions= fStrategy.getDirtyRegions();
+		assertEquals(1, dirtyRegions.length);
+		assertEquals(new Region(start, fDocument.getLength() - start), dirtyRegions[0]);
+	}
+
+	public void testDispose() throws Exception {
+		fStrategy.dispose();
+		fDocument.replace(CONTENT.indexOf("This"), 4, "That");
+		assertEquals(0, fStrategy.getDirtyRegions().length);
+		assertNull(fStrategy.getCheckedProblemRegions());
+	}
+}
@@ -10,8 +10,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.text.tests.spelling;
 
+import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Enumeration;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Set;
@@ -29,6 +31,7 @@ import org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.DefaultPhoneticDistanceAlgorithm;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellCheckEngine;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.ISpellChecker;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary;
 import org.eclipse.jdt.internal.ui.text.spelling.engine.RankedWordProposal;
 
 public class SpellCheckEngineTestCase extends TestCase {
@@ -50,6 +53,20 @@ public class SpellCheckEngineTestCase extends TestCase {
 		}
 	}
 
+	protected static class CompiledDictionary extends LocaleSensitiveSpellDictionary {
+
+		public CompiledDictionary(Locale locale, URL location) {
+			super(locale, location);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary#getCompiledFile()
+		 */
+		public File getCompiledFile() {
+			return super.getCompiledFile();
+		}
+	}
+
 	public static final String GLOBAL= "Global"; //$NON-NLS-1$
 	public static final String LASTWAGEN= "Lastwagen"; //$NON-NLS-1$
 	public static final String LORRY= "Lorry"; //$NON-NLS-1$
@@ -123,6 +140,30 @@ public class SpellCheckEngineTestCase extends TestCase {
 		assertTrue(result.size() >= 0);
 	}
 
+	public void testCompiledDictionary() throws Exception {
+		Enumeration locations= SpellCheckEngine.getDictionaryLocations();
+		assertNotNull(locations);
+		assertTrue(locations.hasMoreElements());
+
+		CompiledDictionary dictionary= new CompiledDictionary(Locale.US, (URL)locations.nextElement());
+		File compiledFile= dictionary.getCompiledFile();
+		assertNotNull(compiledFile);
+		compiledFile.delete();
+		try {
+			assertTrue(dictionary.isCorrect("truck")); //$NON-NLS-1$
+			assertFalse(dictionary.isCorrect("trukc")); //$NON-NLS-1$
+			assertTrue(compiledFile.isFile());
+
+			dictionary.unload();
+			assertTrue(dictionary.isCorrect("truck")); //$NON-NLS-1$
+			assertTrue(dictionary.isCorrect("Trucks")); //$NON-NLS-1$
+			assertFalse(dictionary.isCorrect("trukc")); //$NON-NLS-1$
+			assertTrue(contains(dictionary.getProposals("trukc", false), "truck")); //$NON-NLS-1$ //$NON-NLS-2$
+		} finally {
+			dictionary.unload();
+		}
+	}
+
 	public void testDefaultLocale() {
 		assertTrue(SpellCheckEngine.getDefaultLocale().equals(Locale.getDefault()));
 	}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.text.tests.spelling;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.text.spelling.SpellCheckEngine;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.IPhoneticHashProvider;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary;
+import org.eclipse.jdt.internal.ui.text.spelling.engine.RankedWordProposal;
+
+/**
+ * Compares the lookups of a spell dictionary with those of a plain hash map from phonetic hashes
+ * to the words in load order, which is how dictionaries stored their words before, and checks
+ * that at most 500 words of a hash are ranked as proposals, see
+ * https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357.
+ *
+ * @since 3.7.1
+ */
+public class SpellDictionaryTableTest extends TestCase {
+
+	private static class TableDictionary extends LocaleSensitiveSpellDictionary {
+
+		public TableDictionary(Locale locale, URL location) {
+			super(locale, location);
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.LocaleSensitiveSpellDictionary#getCompiledFile()
+		 */
+		public File getCompiledFile() {
+			return super.getCompiledFile();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#addWord(java.lang.String)
+		 */
+		public void addWord(String word) {
+			hashWord(word);
+		}
+
+		public List<String> getWords(String hash) {
+			return getCandidates(hash);
+		}
+
+		public String getHash(String word) {
+			return getHashProvider().getHash(word);
+		}
+
+		public URL getWordList() throws MalformedURLException {
+			return getURL();
+		}
+
+		public String getWordListEncoding() {
+			return getEncoding();
+		}
+	}
+
+	/**
+	 * Puts all words into the same bucket.
+	 */
+	private static class SameHashDictionary extends AbstractSpellDictionary {
+
+		private final URL fURL;
+
+		public SameHashDictionary(URL url) {
+			fURL= url;
+			setHashProvider(new IPhoneticHashProvider() {
+				public String getHash(String word) {
+					return "X"; //$NON-NLS-1$
+				}
+
+				public char[] getMutators() {
+					return new char[0];
+				}
+			});
+		}
+
+		/*
+		 * @see org.eclipse.jdt.internal.ui.text.spelling.engine.AbstractSpellDictionary#getURL()
+		 */
+		protected URL getURL() {
+			return fURL;
+		}
+	}
+
+	public static Test suite() {
+		return new TestSuite(SpellDictionaryTableTest.class);
+	}
+
+	private TableDictionary fDictionary;
+
+	/** The mapping from phonetic hashes to the words of the dictionary, in load order */
+	private Map<String, List<String>> fExpected;
+
+	protected void setUp() throws Exception {
+		Enumeration locations= SpellCheckEngine.getDictionaryLocations();
+		assertTrue(locations.hasMoreElements());
+		fDictionary= new TableDictionary(Locale.US, (URL)locations.nextElement());
+		fDictionary.getCompiledFile().delete();
+
+		fExpected= new HashMap<String, List<String>>();
+		BufferedReader reader= new BufferedReader(new InputStreamReader(fDictionary.getWordList().openStream(), fDictionary.getWordListEncoding()));
+		try {
+			for (String word= reader.readLine(); word != null; word= reader.readLine())
+				addExpected(word);
+		} finally {
+			reader.close();
+		}
+		assertFalse(fExpected.isEmpty());
+	}
+
+	protected void tearDown() throws Exception {
+		fDictionary.unload();
+		fDictionary.getCompiledFile().delete();
+	}
+
+	private void addExpected(String word) {
+		String hash= fDictionary.getHash(word);
+		List<String> words= fExpected.get(hash);
+		if (words == null) {
+			words= new ArrayList<String>();
+			fExpected.put(hash, words);
+		}
+		words.add(word);
+	}
+
+	private boolean isExpected(String word) {
+		List<String> words= fExpected.get(fDictionary.getHash(word));
+		return words != null && (words.contains(word) || words.contains(word.toLowerCase()));
+	}
+
+	private void assertLookups() {
+		for (Iterator<Map.Entry<String, List<String>>> iterator= fExpected.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, List<String>> entry= iterator.next();
+			assertEquals(entry.getKey(), entry.getValue(), fDictionary.getWords(entry.getKey()));
+		}
+
+		int checked= 0;
+		for (Iterator<List<String>> iterator= fExpected.values().iterator(); iterator.hasNext();) {
+			for (Iterator<String> words= iterator.next().iterator(); words.hasNext(); checked++) {
+				String word= words.next();
+				if (checked % 50 != 0 || word.length() < 3 || !isLetters(word))
+					continue;
+
+				assertTrue(word, fDictionary.isCorrect(word));
+				String swapped= word.charAt(1) + word.substring(0, 1) + word.substring(2);
+				assertEquals(swapped, isExpected(swapped), fDictionary.isCorrect(swapped));
+				String truncated= word.substring(0, word.length() - 1);
+				assertEquals(truncated, isExpected(truncated), fDictionary.isCorrect(truncated));
+			}
+		}
+		assertTrue(checked > 0);
+	}
+
+	private static boolean isLetters(String word) {
+		for (int index= 0; index < word.length(); index++) {
+			if (!Character.isLetter(word.charAt(index)))
+				return false;
+		}
+		return true;
+	}
+
+	public void testLoadedLookups() throws Exception {
+		assertTrue(fDictionary.isCorrect("truck")); //$NON-NLS-1$
+		assertLookups();
+	}
+
+	public void testMappedLookups() throws Exception {
+		assertTrue(fDictionary.isCorrect("truck")); //$NON-NLS-1$
+		assertTrue(fDictionary.getCompiledFile().isFile());
+
+		fDictionary.unload();
+		assertTrue(fDictionary.isCorrect("truck")); //$NON-NLS-1$
+		assertLookups();
+	}
+
+	public void testAddedWords() throws Exception {
+		assertTrue(fDictionary.isCorrect("truck")); //$NON-NLS-1$
+
+		// added words follow the loaded words with the same hash
+		String[] added= { "qwertzu", "truckx", "Trucking" }; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		for (int index= 0; index < added.length; index++) {
+			fDictionary.addWord(added[index]);
+			addExpected(added[index]);
+		}
+		assertLookups();
+	}
+
+	public void testCappedBucket() throws Exception {
+		File wordList= File.createTempFile("words", ".dictionary"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			PrintWriter writer= new PrintWriter(new FileWriter(wordList));
+			try {
+				// a worse match for the misspelled last word among the first words of the bucket
+				writer.println(getWord(999) + "xy"); //$NON-NLS-1$
+				for (int index= 0; index < 1000; index++)
+					writer.println(getWord(index));
+			} finally {
+				writer.close();
+			}
+
+			SameHashDictionary dictionary= new SameHashDictionary(wordList.toURI().toURL());
+			try {
+				// all words of the hash are kept, only the words ranked as proposals are capped
+				assertTrue(dictionary.isCorrect(getWord(999)));
+				assertTrue(contains(dictionary.getProposals(getWord(10) + "x", false), getWord(10))); //$NON-NLS-1$
+				Set<RankedWordProposal> proposals= dictionary.getProposals(getWord(999) + "x", false); //$NON-NLS-1$
+				assertTrue(contains(proposals, getWord(999) + "xy")); //$NON-NLS-1$
+				assertFalse(contains(proposals, getWord(999)));
+			} finally {
+				dictionary.unload();
+			}
+		} finally {
+			wordList.delete();
+		}
+	}
+
+	private static String getWord(int index) {
+		return "word" + (char)('a' + index / 676) + (char)('a' + index / 26 % 26) + (char)('a' + index % 26); //$NON-NLS-1$
+	}
+
+	private static boolean contains(Set<RankedWordProposal> proposals, String word) {
+		for (Iterator<RankedWordProposal> iterator= proposals.iterator(); iterator.hasNext();) {
+			if (iterator.next().getText().equals(word))
+				return true;
+		}
+		return false;
+	}
+}
@@ -26,6 +26,9 @@ public class SpellingTestSuite {
 		TestSuite suite = new TestSuite("Test Suite org.eclipse.jdt.text.tests.spelling"); //$NON-NLS-1$
 		//$JUnit-BEGIN$
 		suite.addTest(SpellCheckEngineTestCase.suite());
+		suite.addTest(SpellDictionaryTableTest.suite());
+		suite.addTest(DefaultPhoneticDistanceAlgorithmTest.suite());
+		suite.addTest(JavaSpellingReconcileStrategyTest.suite());
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,24 @@
+package p;
+interface I {
+	void /*target*/m();
+}
+class R {
+	public void /*ripple*/m() {}
+}
+class C extends R implements I {
+	public void /*ripple*/m() {}
+}
+
+// subtype of I, but not of R: marries E
+class E {
+	public void /*ripple*/m() {}
+}
+abstract class D extends E implements I {
+}
+
+// subtype of R, but not of I: marries J
+interface J {
+	void /*ripple*/m();
+}
+abstract class F extends R implements J {
+}
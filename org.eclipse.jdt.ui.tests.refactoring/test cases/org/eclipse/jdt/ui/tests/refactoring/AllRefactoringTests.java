@@ -78,6 +78,7 @@ public class AllRefactoringTests {
 		//--fields
 		suite.addTest(RenamePrivateFieldTests.suite());
 		suite.addTest(RenameNonPrivateFieldTests.suite());
+		suite.addTest(TextChangeManagerTests.suite());
 
 		//--projects
 		suite.addTest(RenameJavaProjectTests.suite());
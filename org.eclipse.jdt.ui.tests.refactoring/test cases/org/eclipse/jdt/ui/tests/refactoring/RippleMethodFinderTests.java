@@ -133,5 +133,9 @@ public class RippleMethodFinderTests extends AbstractCUTestCase {
 	public void test12() throws Exception {
 		perform();
 	}
+	public void test13() throws Exception {
+		// the hierarchies of I and R both contain the other type, but not all of its subtypes
+		perform();
+	}
 
 }
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.refactoring;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.text.edits.ReplaceEdit;
+
+import org.eclipse.ltk.core.refactoring.TextChange;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+
+import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
+import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+
+/**
+ * Tests that the changes of compilation units analyzed by rename refactorings are not kept by
+ * the {@link TextChangeManager} before the refactoring creates its change.
+ *
+ * @since 3.7.1
+ */
+public class TextChangeManagerTests extends RefactoringTest {
+
+	private static final Class clazz= TextChangeManagerTests.class;
+
+	public TextChangeManagerTests(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new RefactoringTestSetup(new TestSuite(clazz));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new RefactoringTestSetup(someTest);
+	}
+
+	private ICompilationUnit[] createUnits(int count) throws Exception {
+		ICompilationUnit[] cus= new ICompilationUnit[count];
+		for (int i= 0; i < count; i++) {
+			cus[i]= createCU(getPackageP(), "A" + i + ".java", "package p;\nclass A" + i + " {\n\tint foo;\n\tint bar() { return foo; }\n}\n");
+		}
+		return cus;
+	}
+
+	private static void addReferenceEdits(TextChangeManager manager, ICompilationUnit cu) throws Exception {
+		String source= cu.getSource();
+		int declaration= source.indexOf("foo");
+		int reference= source.indexOf("foo", declaration + 1);
+		manager.addReplaceEdit(cu, "reference", declaration, 3, "baz", null, false);
+		manager.addReplaceEdit(cu, "reference", reference, 3, "baz", null, false);
+	}
+
+	public void testAnalysisChangesAreNotKept() throws Exception {
+		ICompilationUnit[] cus= createUnits(5);
+		TextChangeManager manager= new TextChangeManager(true);
+		for (int i= 0; i < cus.length; i++)
+			addReferenceEdits(manager, cus[i]);
+
+		for (int i= 0; i < cus.length; i++) {
+			TextChange change= manager.getAnalysisChange(cus[i]);
+			String preview= change.getPreviewContent(new NullProgressMonitor());
+			assertTrue(preview.indexOf("int baz;") != -1);
+			assertTrue(preview.indexOf("return baz;") != -1);
+			assertEquals(2, change.getTextEditChangeGroups().length);
+			// the analyzed change is the only one alive, the manager does not hold any
+			assertEquals(0, manager.getChangeCount());
+			assertNotSame(change, manager.getAnalysisChange(cus[i]));
+			assertTrue(manager.containsChangesIn(cus[i]));
+		}
+
+		TextChange[] changes= manager.getAllChanges();
+		assertEquals(cus.length, changes.length);
+		assertEquals(cus.length, manager.getChangeCount());
+		for (int i= 0; i < changes.length; i++) {
+			String preview= changes[i].getPreviewContent(new NullProgressMonitor());
+			assertTrue(preview.indexOf("int baz;") != -1);
+			assertTrue(preview.indexOf("return baz;") != -1);
+		}
+	}
+
+	public void testAnalysisChangeOfManagedUnit() throws Exception {
+		ICompilationUnit cu= createUnits(1)[0];
+		TextChangeManager manager= new TextChangeManager(true);
+		String source= cu.getSource();
+		TextChangeCompatibility.addTextEdit(manager.get(cu), "declaration", new ReplaceEdit(source.indexOf("A0"), 2, "B0"));
+		addReferenceEdits(manager, cu);
+
+		TextChange change= manager.getAnalysisChange(cu);
+		assertSame(manager.get(cu), change);
+		assertEquals(1, manager.getChangeCount());
+		String preview= change.getPreviewContent(new NullProgressMonitor());
+		assertTrue(preview.indexOf("class B0") != -1);
+		assertTrue(preview.indexOf("int baz;") != -1);
+		assertTrue(preview.indexOf("return baz;") != -1);
+	}
+}
@@ -12,7 +12,9 @@ package org.eclipse.jdt.ui.tests.performance.views;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 
 import junit.extensions.TestSetup;
 import junit.framework.Test;
@@ -25,6 +27,11 @@ import org.eclipse.test.performance.PerformanceMeter;
 
 import org.eclipse.core.runtime.NullProgressMonitor;
 
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.ltk.core.refactoring.CheckConditionsOperation;
+import org.eclipse.ltk.core.refactoring.PerformRefactoringOperation;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
@@ -34,10 +41,15 @@ import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 
 import org.eclipse.jdt.internal.corext.codemanipulation.OrganizeImportsOperation;
+import org.eclipse.jdt.internal.corext.fix.CleanUpConstants;
+import org.eclipse.jdt.internal.corext.fix.CleanUpRefactoring;
 
 import org.eclipse.jdt.ui.SharedASTProvider;
+import org.eclipse.jdt.ui.cleanup.CleanUpOptions;
 import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
 
+import org.eclipse.jdt.internal.ui.fix.ImportsCleanUp;
+
 public class OrganizeImportsPerfTest extends JdtPerformanceTestCase {
 
 	private static class MyTestSetup extends TestSetup {
@@ -104,6 +116,39 @@ public class OrganizeImportsPerfTest extends JdtPerformanceTestCase {
 		Performance.getDefault().assertPerformance(fPerformanceMeter);
 	}
 
+	public void testOrganizeImportMultiFile() throws Exception {
+		measureMultiFile(Performance.getDefault().getNullPerformanceMeter(), 10);
+		measureMultiFile(fPerformanceMeter, 10);
+
+		commitMeasurements();
+		Performance.getDefault().assertPerformance(fPerformanceMeter);
+	}
+
+	private void measureMultiFile(PerformanceMeter performanceMeter, int runs) throws Exception {
+		for (int j= 0; j < runs; j++) {
+			List cusList= new ArrayList();
+			addAllCUs(MyTestSetup.fJProject1.getChildren(), cusList);
+
+			// same set up as the Organize Imports action on many files
+			CleanUpRefactoring refactoring= new CleanUpRefactoring();
+			refactoring.setWorkerCount(Runtime.getRuntime().availableProcessors());
+			for (int i= 0; i < cusList.size(); i++) {
+				refactoring.addCompilationUnit((ICompilationUnit)cusList.get(i));
+			}
+			Map settings= new Hashtable();
+			settings.put(CleanUpConstants.ORGANIZE_IMPORTS, CleanUpOptions.TRUE);
+			refactoring.addCleanUp(new ImportsCleanUp(settings));
+			PerformRefactoringOperation operation= new PerformRefactoringOperation(refactoring, CheckConditionsOperation.ALL_CONDITIONS);
+
+			joinBackgroudActivities();
+
+			performanceMeter.start();
+			ResourcesPlugin.getWorkspace().run(operation, null);
+			performanceMeter.stop();
+			assertTrue(operation.getValidationStatus().isOK());
+		}
+	}
+
 	private void measure(PerformanceMeter performanceMeter, int runs) throws Exception {
 		for (int j= 0; j < runs; j++) {
 			List cusList= new ArrayList();
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.performance.views;
+
+import junit.extensions.TestSetup;
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+
+import org.eclipse.jdt.ui.ProblemsLabelDecorator;
+import org.eclipse.jdt.ui.tests.performance.JdtPerformanceTestCase;
+
+/**
+ * Measures computing the error ticks of the containers of a project with many packages, as done
+ * when the Package Explorer is refreshed.
+ */
+public class ProblemsLabelDecoratorPerfTest extends JdtPerformanceTestCase {
+
+	private static final int PACKAGES= 1000;
+
+	private static class MyTestSetup extends TestSetup {
+		public static final String SRC_CONTAINER= "src";
+
+		public static IJavaProject fJProject1;
+		public static IPackageFragmentRoot fSourceFolder;
+
+		public MyTestSetup(Test test) {
+			super(test);
+		}
+
+		protected void setUp() throws Exception {
+			fJProject1= JavaProjectHelper.createJavaProject("TestProject1", "bin");
+			fSourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, SRC_CONTAINER);
+			ResourcesPlugin.getWorkspace().run(new IWorkspaceRunnable() {
+				public void run(IProgressMonitor monitor) throws CoreException {
+					for (int i= 0; i < PACKAGES; i++) {
+						IPackageFragment pack= fSourceFolder.createPackageFragment("pack" + i, true, null);
+						ICompilationUnit cu= pack.createCompilationUnit("A.java", "package pack" + i + ";\npublic class A {\n}\n", true, null);
+						if (i % 10 == 0) {
+							IMarker marker= cu.getResource().createMarker(IMarker.PROBLEM);
+							marker.setAttribute(IMarker.SEVERITY, i % 20 == 0 ? IMarker.SEVERITY_ERROR : IMarker.SEVERITY_WARNING);
+						}
+					}
+				}
+			}, null);
+		}
+
+		protected void tearDown() throws Exception {
+			if (fJProject1 != null && fJProject1.exists())
+				JavaProjectHelper.delete(fJProject1);
+		}
+	}
+
+	private static class MyProblemsLabelDecorator extends ProblemsLabelDecorator {
+		public int getAdornmentFlags(Object element) {
+			return computeAdornmentFlags(element);
+		}
+	}
+
+	public static Test suite() {
+		return new MyTestSetup(new TestSuite(ProblemsLabelDecoratorPerfTest.class));
+	}
+
+	public static Test setUpTest(Test someTest) {
+		return new MyTestSetup(someTest);
+	}
+
+	public void testErrorTicksOfPackages() throws Exception {
+		MyProblemsLabelDecorator decorator= new MyProblemsLabelDecorator();
+		// registered like in a viewer, so that the decorator tracks problem changes
+		ILabelProviderListener listener= new ILabelProviderListener() {
+			public void labelProviderChanged(LabelProviderChangedEvent event) {
+			}
+		};
+		decorator.addListener(listener);
+		try {
+			IJavaElement[] packages= MyTestSetup.fSourceFolder.getChildren();
+			joinBackgroudActivities();
+
+			computeErrorTicks(decorator, packages);
+			for (int i= 0; i < 10; i++) {
+				startMeasuring();
+				computeErrorTicks(decorator, packages);
+				stopMeasuring();
+			}
+			commitMeasurements();
+			assertPerformance();
+		} finally {
+			decorator.removeListener(listener);
+			decorator.dispose();
+		}
+	}
+
+	private void computeErrorTicks(MyProblemsLabelDecorator decorator, IJavaElement[] packages) {
+		int ticks= decorator.getAdornmentFlags(MyTestSetup.fJProject1);
+		ticks|= decorator.getAdornmentFlags(MyTestSetup.fSourceFolder);
+		for (int i= 0; i < packages.length; i++) {
+			ticks|= decorator.getAdornmentFlags(packages[i]);
+		}
+		assertTrue(ticks != 0);
+	}
+}
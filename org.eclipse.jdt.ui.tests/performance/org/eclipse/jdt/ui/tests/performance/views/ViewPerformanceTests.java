@@ -21,6 +21,7 @@ public class ViewPerformanceTests extends TestCase {
 		suite.addTest(PackageExplorerColdPerfTest.suite());
 		suite.addTest(PackageExplorerEmptyPerfTest.suite());
 		suite.addTest(PackageExplorerWarmPerfTest.suite());
+		suite.addTest(ProblemsLabelDecoratorPerfTest.suite());
 		suite.addTest(PackageExplorerWorkspacePerfTest.suite());
 		suite.addTest(PackageExplorerWorkspaceWarmPerfTest.suite());
 		suite.addTest(TypeHierarchyPerfTest.suite());
@@ -22,6 +22,7 @@ import org.eclipse.jdt.ui.tests.browsing.PackagesViewContentProviderTests2;
 import org.eclipse.jdt.ui.tests.browsing.PackagesViewDeltaTests;
 import org.eclipse.jdt.ui.tests.buildpath.BuildpathModifierActionTest;
 import org.eclipse.jdt.ui.tests.callhierarchy.CallHierarchyContentProviderTest;
+import org.eclipse.jdt.ui.tests.callhierarchy.CallerSearchCacheTest;
 import org.eclipse.jdt.ui.tests.core.CoreTests;
 import org.eclipse.jdt.ui.tests.jarexport.JarExportTests;
 import org.eclipse.jdt.ui.tests.model.ContentProviderTests;
@@ -66,6 +67,7 @@ public class AutomatedSuite extends TestSuite {
 		addTest(ContentProviderTests.suite());
 
 		addTest(CallHierarchyContentProviderTest.suite());
+		addTest(CallerSearchCacheTest.suite());
 
 		addTest(SearchTest.suite());
 		addTest(JUnitJUnitTests.suite());
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.callhierarchy;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.IAdaptable;
+import org.eclipse.core.runtime.NullProgressMonitor;
+
+import org.eclipse.ui.IWorkingSet;
+import org.eclipse.ui.IWorkingSetManager;
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.search.SearchEngine;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallHierarchy;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+/**
+ * Tests that the callers cached by {@link CallHierarchy} are searched again after the sources or
+ * the search scope changed.
+ *
+ * @since 3.7.1
+ */
+public class CallerSearchCacheTest extends TestCase {
+
+    private static final Class THIS= CallerSearchCacheTest.class;
+
+    private CallHierarchyTestHelper helper;
+
+    public CallerSearchCacheTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new TestSuite(THIS);
+    }
+
+    protected void setUp() throws Exception {
+        helper= new CallHierarchyTestHelper();
+        helper.setUp();
+        helper.createSimpleClasses();
+    }
+
+    protected void tearDown() throws Exception {
+        CallHierarchy.getDefault().setSearchScope(SearchEngine.createWorkspaceScope());
+        helper.tearDown();
+        helper= null;
+    }
+
+    private static MethodWrapper[] getCallers(IMethod method) {
+        return CallHierarchy.getDefault().getCallerRoots(new IMember[] { method })[0].getCalls(new NullProgressMonitor());
+    }
+
+    public void testCallersAddedInWorkingCopy() throws Exception {
+        CallHierarchy.getDefault().setSearchScope(SearchEngine.createWorkspaceScope());
+        helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3() }, getCallers(helper.getMethod1()));
+
+        ICompilationUnit cu= helper.getType2().getCompilationUnit();
+        cu.becomeWorkingCopy(null);
+        try {
+            IBuffer buffer= cu.getBuffer();
+            String source= buffer.getContents();
+            buffer.replace(source.lastIndexOf('}'), 0, "public void method5() { method1(); }\n"); //$NON-NLS-1$
+            cu.reconcile(ICompilationUnit.NO_AST, false, null, null);
+
+            IMethod method5= helper.getType2().getMethod("method5", new String[0]); //$NON-NLS-1$
+            helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3(), method5 }, getCallers(helper.getMethod1()));
+        } finally {
+            cu.discardWorkingCopy();
+        }
+    }
+
+    public void testWorkingSetContentChange() throws Exception {
+        IJavaProject project1= helper.getType1().getJavaProject();
+        IJavaProject project2= helper.getJavaProject2();
+        IWorkingSetManager manager= PlatformUI.getWorkbench().getWorkingSetManager();
+        IWorkingSet workingSet= manager.createWorkingSet("CallerSearchCacheTest", new IAdaptable[] { project1 }); //$NON-NLS-1$
+        manager.addWorkingSet(workingSet);
+        try {
+            // the key stays the same, as it does for a working set scope whose contents change
+            CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { project1 }), "CallerSearchCacheTest"); //$NON-NLS-1$
+            helper.assertCalls(new IMember[] { helper.getMethod2() }, getCallers(helper.getMethod1()));
+
+            workingSet.setElements(new IAdaptable[] { project1, project2 });
+            CallHierarchy.getDefault().setSearchScope(SearchEngine.createJavaSearchScope(new IJavaElement[] { project1, project2 }), "CallerSearchCacheTest"); //$NON-NLS-1$
+            helper.assertCalls(new IMember[] { helper.getMethod2(), helper.getMethod3() }, getCallers(helper.getMethod1()));
+        } finally {
+            manager.removeWorkingSet(workingSet);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.corext.dom.ASTBatchParser;
+
+/**
+ * Tests how {@link ASTBatchParser} sizes its batches.
+ *
+ * @since 3.7.1
+ */
+public class ASTBatchParserTest extends TestCase {
+
+	private static final Class THIS= ASTBatchParserTest.class;
+
+	private static final long MAX_MEMORY= 1024L * 1024 * 1024;
+
+	private static final long SIZE= 1024 * 1024;
+
+	public ASTBatchParserTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	public void testShrinkWhenLiveHeapIsHigh() throws Exception {
+		assertEquals(SIZE / 2, ASTBatchParser.adaptBatchSourceSize(SIZE, MAX_MEMORY * 8 / 10, MAX_MEMORY));
+	}
+
+	public void testGrowWhenLiveHeapIsLow() throws Exception {
+		assertEquals(SIZE + SIZE / 2, ASTBatchParser.adaptBatchSourceSize(SIZE, MAX_MEMORY / 10, MAX_MEMORY));
+	}
+
+	public void testKeepWhenLiveHeapIsModerate() throws Exception {
+		assertEquals(SIZE, ASTBatchParser.adaptBatchSourceSize(SIZE, MAX_MEMORY / 2, MAX_MEMORY));
+	}
+
+	public void testKeepWhenLiveHeapIsUnknown() throws Exception {
+		// no heap pool has been collected yet
+		assertEquals(SIZE, ASTBatchParser.adaptBatchSourceSize(SIZE, -1, MAX_MEMORY));
+	}
+
+	public void testBounds() throws Exception {
+		long size= SIZE;
+		for (int i= 0; i < 100; i++) {
+			size= ASTBatchParser.adaptBatchSourceSize(size, MAX_MEMORY, MAX_MEMORY);
+		}
+		long min= size;
+		assertTrue(min > 0);
+		assertEquals(min, ASTBatchParser.adaptBatchSourceSize(min, MAX_MEMORY, MAX_MEMORY));
+
+		for (int i= 0; i < 100; i++) {
+			size= ASTBatchParser.adaptBatchSourceSize(size, 0, MAX_MEMORY);
+		}
+		long max= size;
+		assertTrue(max < MAX_MEMORY);
+		assertEquals(max, ASTBatchParser.adaptBatchSourceSize(max, 0, MAX_MEMORY));
+	}
+
+	public void testBudgetSharedByActiveParsers() throws Exception {
+		assertEquals(SIZE, ASTBatchParser.getBatchSourceSize(SIZE, 0));
+		assertEquals(SIZE, ASTBatchParser.getBatchSourceSize(SIZE, 1));
+		assertEquals(SIZE / 2, ASTBatchParser.getBatchSourceSize(SIZE, 2));
+		assertEquals(SIZE / 4, ASTBatchParser.getBatchSourceSize(SIZE, 4));
+
+		// a parser never gets less than the minimal batch
+		long min= ASTBatchParser.getBatchSourceSize(SIZE, 10000);
+		assertTrue(min > SIZE / 10000);
+		assertEquals(min, ASTBatchParser.getBatchSourceSize(SIZE, 20000));
+	}
+}
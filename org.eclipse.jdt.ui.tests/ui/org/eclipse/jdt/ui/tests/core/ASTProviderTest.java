@@ -28,6 +28,7 @@ import org.eclipse.ltk.core.refactoring.PerformChangeOperation;
 import org.eclipse.ltk.core.refactoring.Refactoring;
 import org.eclipse.ltk.core.refactoring.RefactoringStatus;
 
+import org.eclipse.jdt.core.IBuffer;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
@@ -38,6 +39,8 @@ import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 import org.eclipse.jdt.ui.JavaUI;
 import org.eclipse.jdt.ui.SharedASTProvider;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
 
 /**
  * Tests the AST provider.
@@ -138,6 +141,34 @@ public class ASTProviderTest extends CoreTests {
 		cu.getBuffer().save(null, true);
 	}
 
+	public void testRecentASTOfReconciledWorkingCopy() throws Exception {
+		IPackageFragment pack1= fSourceFolder.createPackageFragment("test1", false, null);
+		ICompilationUnit cu1= pack1.createCompilationUnit("E1.java", "package test1;\npublic class E1 {\n}\n", false, null);
+		ICompilationUnit cu2= pack1.createCompilationUnit("E2.java", "package test1;\npublic class E2 {\n}\n", false, null);
+
+		try {
+			JavaUI.openInEditor(cu1);
+			CompilationUnit ast1= SharedASTProvider.getAST(cu1, SharedASTProvider.WAIT_ACTIVE_ONLY, null);
+			assertNotNull(ast1);
+
+			// the AST of the editor which is no longer active is kept
+			JavaUI.openInEditor(cu2);
+			assertSame(ast1, SharedASTProvider.getAST(cu1, SharedASTProvider.WAIT_NO, null));
+
+			IBuffer buffer= cu1.getBuffer();
+			buffer.replace(buffer.getContents().lastIndexOf('}'), 0, "  private int a;\n");
+			cu1.reconcile(ICompilationUnit.NO_AST, false, null, null);
+
+			assertNotSame(ast1, SharedASTProvider.getAST(cu1, SharedASTProvider.WAIT_NO, null));
+			CompilationUnit ast= SharedASTProvider.getAST(cu1, SharedASTProvider.WAIT_YES, null);
+			assertNotNull(ast);
+			assertNotSame(ast1, ast);
+			assertEquals(cu1.getBuffer().getContents(), ast.toString());
+		} finally {
+			JavaPlugin.getActivePage().closeAllEditors(false);
+		}
+	}
+
 	private static String getNormalizeNumber(int number) {
 		if (number < 10) {
 			return "000" + number;
@@ -46,6 +46,9 @@ public class CoreTests extends TestCase {
 		suite.addTest(ImportOrganizeTest.suite());
 		suite.addTest(JavaElementLabelsTest.suite());
 		suite.addTest(JavaElementLabelsTest17.suite());
+		suite.addTest(DeferredJavaElementLabelsTest.suite());
+		suite.addTest(ImageDescriptorRegistryTest.suite());
+		suite.addTest(ProblemSeverityIndexTest.suite());
 		suite.addTest(JavaElementPropertyTesterTest.suite());
 		suite.addTest(JavaModelUtilTest.suite());
 		suite.addTest(MethodOverrideTest.suite());
@@ -55,12 +58,14 @@ public class CoreTests extends TestCase {
 		suite.addTest(ScopeAnalyzerTest.suite());
 		suite.addTest(TemplateStoreTest.suite());
 		suite.addTest(TypeHierarchyTest.suite());
+		suite.addTest(SuperTypeHierarchyCacheTest.suite());
 		suite.addTest(TypeRulesTest.suite());
 		suite.addTest(TypeInfoTest.suite());
 		suite.addTest(StringsTest.suite());
 		suite.addTest(IndentManipulationTest.suite());
 		suite.addTest(SelectionHistoryTest.suite());
 		suite.addTest(ASTProviderTest.suite());
+		suite.addTest(ASTBatchParserTest.suite());
 
 		return new ProjectTestSetup(suite);
 	}
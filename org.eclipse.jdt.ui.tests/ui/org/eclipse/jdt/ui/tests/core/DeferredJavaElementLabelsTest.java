@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.jface.viewers.ILabelProviderListener;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IMethod;
+import org.eclipse.jdt.core.IType;
+
+import org.eclipse.jdt.internal.ui.viewsupport.JavaUILabelProvider;
+
+/**
+ * Tests that {@link JavaUILabelProvider} computes the labels of binary members in the background
+ * when asked to.
+ *
+ * @since 3.7.1
+ */
+public class DeferredJavaElementLabelsTest extends TestCase {
+
+	private static final Class THIS= DeferredJavaElementLabelsTest.class;
+
+	private static final long TIMEOUT= 10000;
+
+	private IJavaProject fJProject1;
+
+	public DeferredJavaElementLabelsTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+	}
+
+	public void testBinaryMemberLabel() throws Exception {
+		IType type= fJProject1.findType("java.util.Vector");
+		IMethod method= type.getMethod("size", new String[0]);
+		type.getClassFile().close();
+		assertFalse(type.getClassFile().isOpen());
+
+		final List events= new ArrayList();
+		JavaUILabelProvider provider= new JavaUILabelProvider();
+		provider.addListener(new ILabelProviderListener() {
+			public void labelProviderChanged(LabelProviderChangedEvent event) {
+				events.add(event);
+			}
+		});
+		provider.setComputeInBackground(true);
+		try {
+			// the placeholder only shows the name
+			assertEquals("size", provider.getText(method));
+
+			Display display= Display.getCurrent();
+			long end= System.currentTimeMillis() + TIMEOUT;
+			while (events.isEmpty() && System.currentTimeMillis() < end) {
+				if (!display.readAndDispatch())
+					Thread.sleep(10);
+			}
+			assertEquals(1, events.size());
+			Object[] elements= ((LabelProviderChangedEvent) events.get(0)).getElements();
+			assertEquals(1, elements.length);
+			assertEquals(method, elements[0]);
+
+			assertEquals("size()", provider.getText(method));
+		} finally {
+			provider.dispose();
+		}
+	}
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
+import org.eclipse.jdt.ui.JavaElementImageDescriptor;
+
+import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
+
+/**
+ * Tests that {@link ImageDescriptorRegistry} disposes the images which are no longer shown by
+ * any item.
+ *
+ * @since 3.7.1
+ */
+public class ImageDescriptorRegistryTest extends TestCase {
+
+	private static final Class THIS= ImageDescriptorRegistryTest.class;
+
+	private static final int ITEMS= 50;
+
+	private ImageDescriptorRegistry fRegistry;
+
+	public ImageDescriptorRegistryTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	protected void setUp() throws Exception {
+		fRegistry= new ImageDescriptorRegistry();
+	}
+
+	protected void tearDown() throws Exception {
+		fRegistry.dispose();
+		fRegistry= null;
+	}
+
+	private static ImageDescriptor createOverlay(int flags, int width, int height) {
+		return new JavaElementImageDescriptor(JavaPluginImages.DESC_OBJS_CUNIT, flags, new Point(width, height));
+	}
+
+	public void testReplacedImagesAreReleased() throws Exception {
+		Object owner= new Object();
+		Image error= fRegistry.get(createOverlay(JavaElementImageDescriptor.ERROR, 16, 16), owner, "A"); //$NON-NLS-1$
+		assertSame(error, fRegistry.get(createOverlay(JavaElementImageDescriptor.ERROR, 16, 16), owner, "B")); //$NON-NLS-1$
+		assertEquals(0, fRegistry.getUnusedImageCount());
+
+		// the error tick of A is replaced by a warning, B still shows the error
+		fRegistry.get(createOverlay(JavaElementImageDescriptor.WARNING, 16, 16), owner, "A"); //$NON-NLS-1$
+		assertEquals(0, fRegistry.getUnusedImageCount());
+
+		fRegistry.release(owner, "B"); //$NON-NLS-1$
+		assertEquals(1, fRegistry.getUnusedImageCount());
+		assertFalse(error.isDisposed());
+
+		// an unused image is reused
+		assertSame(error, fRegistry.get(createOverlay(JavaElementImageDescriptor.ERROR, 16, 16), owner, "B")); //$NON-NLS-1$
+		assertEquals(0, fRegistry.getUnusedImageCount());
+
+		fRegistry.release(owner);
+		assertEquals(2, fRegistry.getUnusedImageCount());
+		assertEquals(2, fRegistry.getImageCount());
+	}
+
+	public void testImageCountBoundedWhileLabelsChurn() throws Exception {
+		Object owner= new Object();
+		int rounds= 2 * ImageDescriptorRegistry.MAX_UNUSED_IMAGES / ITEMS + 4;
+		for (int round= 0; round < rounds; round++) {
+			// every item gets another overlay in every round, like error ticks which come and go
+			for (int item= 0; item < ITEMS; item++) {
+				int flags= round % 2 == 0 ? JavaElementImageDescriptor.ERROR : JavaElementImageDescriptor.WARNING;
+				Image image= fRegistry.get(createOverlay(flags, 16 + item, 16 + round), owner, new Integer(item));
+				assertFalse(image.isDisposed());
+			}
+			assertTrue(fRegistry.getImageCount() <= ITEMS + ImageDescriptorRegistry.MAX_UNUSED_IMAGES);
+		}
+		assertTrue(fRegistry.getEvictionCount() > 0);
+
+		// the images still shown are never disposed
+		for (int item= 0; item < ITEMS; item++) {
+			int round= rounds - 1;
+			int flags= round % 2 == 0 ? JavaElementImageDescriptor.ERROR : JavaElementImageDescriptor.WARNING;
+			int misses= fRegistry.getMissCount();
+			assertFalse(fRegistry.get(createOverlay(flags, 16 + item, 16 + round), owner, new Integer(item)).isDisposed());
+			assertEquals(misses, fRegistry.getMissCount());
+		}
+		fRegistry.release(owner);
+		assertTrue(fRegistry.getImageCount() <= ImageDescriptorRegistry.MAX_UNUSED_IMAGES);
+	}
+}
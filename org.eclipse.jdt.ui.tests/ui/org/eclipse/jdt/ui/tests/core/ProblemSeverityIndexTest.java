@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import java.io.ByteArrayInputStream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IJavaModelMarker;
+
+import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
+import org.eclipse.jdt.internal.ui.viewsupport.ProblemMarkerManager;
+
+/**
+ * Tests that the problem severities looked up in the index of {@link ProblemMarkerManager} are the
+ * same as those of {@link IResource#findMaxProblemSeverity(String, boolean, int)}.
+ *
+ * @since 3.7.1
+ */
+public class ProblemSeverityIndexTest extends TestCase {
+
+	private static final Class THIS= ProblemSeverityIndexTest.class;
+
+	private static final int[] DEPTHS= { IResource.DEPTH_ZERO, IResource.DEPTH_ONE, IResource.DEPTH_INFINITE };
+
+	private ProblemMarkerManager fManager;
+	private IProblemChangedListener fListener;
+
+	private IProject fProject;
+	private IFolder fFolder;
+	private IFolder fSubfolder;
+	private IFile fFileA;
+	private IFile fFileB;
+	private IFile fFileC;
+
+	public ProblemSeverityIndexTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	protected void setUp() throws Exception {
+		// a plain project, no builder changes its markers while the severities are compared
+		fProject= ResourcesPlugin.getWorkspace().getRoot().getProject("ProblemSeverityIndexTest");
+		fProject.create(null);
+		fProject.open(null);
+		fFolder= fProject.getFolder("folder");
+		fFolder.create(true, true, null);
+		fSubfolder= fFolder.getFolder("subfolder");
+		fSubfolder.create(true, true, null);
+		fFileA= createFile(fSubfolder.getFile("a.txt"));
+		fFileB= createFile(fFolder.getFile("b.txt"));
+		fFileC= createFile(fProject.getFile("c.txt"));
+
+		fManager= new ProblemMarkerManager();
+		fListener= new IProblemChangedListener() {
+			public void problemsChanged(IResource[] changedResources, boolean isMarkerChange) {
+			}
+		};
+		// the index is only used while there are listeners
+		fManager.addListener(fListener);
+	}
+
+	protected void tearDown() throws Exception {
+		fManager.removeListener(fListener);
+		fProject.delete(true, true, null);
+	}
+
+	private static IFile createFile(IFile file) throws CoreException {
+		file.create(new ByteArrayInputStream(new byte[0]), true, null);
+		return file;
+	}
+
+	private static IMarker createMarker(IResource resource, String type, int severity) throws CoreException {
+		IMarker marker= resource.createMarker(type);
+		marker.setAttribute(IMarker.SEVERITY, severity);
+		return marker;
+	}
+
+	private void assertSeverities(int expectedProjectSeverity) throws CoreException {
+		IResource[] resources= { fProject, fFolder, fSubfolder, fFileA, fFileB, fFileC };
+		for (int i= 0; i < resources.length; i++) {
+			IResource resource= resources[i];
+			if (!resource.exists())
+				continue;
+			for (int j= 0; j < DEPTHS.length; j++) {
+				int expected= resource.findMaxProblemSeverity(IMarker.PROBLEM, true, DEPTHS[j]);
+				assertEquals(resource.getFullPath() + ", depth " + DEPTHS[j], expected, fManager.findMaxProblemSeverity(resource, DEPTHS[j]));
+			}
+		}
+		assertEquals(expectedProjectSeverity, fManager.findMaxProblemSeverity(fProject, IResource.DEPTH_INFINITE));
+	}
+
+	public void testAddedMarkers() throws Exception {
+		assertSeverities(-1);
+
+		createMarker(fFileC, IMarker.PROBLEM, IMarker.SEVERITY_INFO);
+		assertSeverities(IMarker.SEVERITY_INFO);
+		createMarker(fFileB, IJavaModelMarker.JAVA_MODEL_PROBLEM_MARKER, IMarker.SEVERITY_WARNING);
+		assertSeverities(IMarker.SEVERITY_WARNING);
+		createMarker(fSubfolder, IMarker.PROBLEM, IMarker.SEVERITY_WARNING);
+		assertSeverities(IMarker.SEVERITY_WARNING);
+		createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_ERROR);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+
+		// not a problem marker
+		createMarker(fFolder, IMarker.TASK, IMarker.SEVERITY_ERROR);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+	}
+
+	public void testChangedMarkers() throws Exception {
+		IMarker marker= createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_ERROR);
+		createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_INFO);
+		createMarker(fFileB, IMarker.PROBLEM, IMarker.SEVERITY_WARNING);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_INFO);
+		assertSeverities(IMarker.SEVERITY_WARNING);
+
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+	}
+
+	public void testDeletedMarkers() throws Exception {
+		IMarker error= createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_ERROR);
+		IMarker folderWarning= createMarker(fSubfolder, IMarker.PROBLEM, IMarker.SEVERITY_WARNING);
+		IMarker warning= createMarker(fFileB, IMarker.PROBLEM, IMarker.SEVERITY_WARNING);
+		createMarker(fFileC, IMarker.PROBLEM, IMarker.SEVERITY_INFO);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+
+		error.delete();
+		assertSeverities(IMarker.SEVERITY_WARNING);
+		warning.delete();
+		assertSeverities(IMarker.SEVERITY_WARNING);
+		folderWarning.delete();
+		assertSeverities(IMarker.SEVERITY_INFO);
+
+		fFileC.deleteMarkers(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertSeverities(-1);
+	}
+
+	public void testDeletedResources() throws Exception {
+		createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_ERROR);
+		createMarker(fFileB, IMarker.PROBLEM, IMarker.SEVERITY_WARNING);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+
+		// the markers are removed together with the resources
+		fSubfolder.delete(true, null);
+		assertSeverities(IMarker.SEVERITY_WARNING);
+
+		fSubfolder.create(true, true, null);
+		fFileA= createFile(fSubfolder.getFile("a.txt"));
+		assertSeverities(IMarker.SEVERITY_WARNING);
+		createMarker(fFileA, IMarker.PROBLEM, IMarker.SEVERITY_ERROR);
+		assertSeverities(IMarker.SEVERITY_ERROR);
+
+		fFolder.delete(true, null);
+		assertSeverities(-1);
+	}
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.core;
+
+import junit.framework.Test;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IPackageFragment;
+import org.eclipse.jdt.core.IPackageFragmentRoot;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+
+import org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache;
+
+/**
+ * Tests the super type hierarchy cache.
+ *
+ * @since 3.7.1
+ */
+public class SuperTypeHierarchyCacheTest extends CoreTests {
+
+	private static final Class THIS= SuperTypeHierarchyCacheTest.class;
+
+	private static final int WAITERS= 8;
+
+	private IJavaProject fJProject1;
+	private IPackageFragment fPack;
+
+	public SuperTypeHierarchyCacheTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return setUpTest(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	protected void setUp() throws Exception {
+		fJProject1= ProjectTestSetup.getProject();
+		IPackageFragmentRoot sourceFolder= JavaProjectHelper.addSourceContainer(fJProject1, "src");
+		fPack= sourceFolder.createPackageFragment("test1", false, null);
+	}
+
+	protected void tearDown() throws Exception {
+		SuperTypeHierarchyCache.setCacheSize(SuperTypeHierarchyCache.DEFAULT_CACHE_SIZE);
+		JavaProjectHelper.clear(fJProject1, ProjectTestSetup.getDefaultClasspath());
+	}
+
+	private IType createType(String name) throws Exception {
+		String source= "package test1;\npublic class " + name + " {\n}\n";
+		return fPack.createCompilationUnit(name + ".java", source, false, null).getType(name);
+	}
+
+	public void testEviction() throws Exception {
+		IType a= createType("A");
+		IType b= createType("B");
+		IType c= createType("C");
+
+		SuperTypeHierarchyCache.setCacheSize(2);
+		SuperTypeHierarchyCache.getTypeHierarchy(a);
+		SuperTypeHierarchyCache.getTypeHierarchy(b);
+		assertTrue(SuperTypeHierarchyCache.hasInCache(b));
+		Thread.sleep(20);
+		// touches A, so B has been accessed least recently
+		assertTrue(SuperTypeHierarchyCache.hasInCache(a));
+
+		int evictions= SuperTypeHierarchyCache.getCacheEvictions();
+		SuperTypeHierarchyCache.getTypeHierarchy(c);
+		assertEquals(evictions + 1, SuperTypeHierarchyCache.getCacheEvictions());
+		assertFalse(SuperTypeHierarchyCache.hasInCache(b));
+		assertTrue(SuperTypeHierarchyCache.hasInCache(a));
+		assertTrue(SuperTypeHierarchyCache.hasInCache(c));
+
+		int misses= SuperTypeHierarchyCache.getCacheMisses();
+		SuperTypeHierarchyCache.getTypeHierarchy(b);
+		assertEquals(misses + 1, SuperTypeHierarchyCache.getCacheMisses());
+	}
+
+	public void testConcurrentWaiters() throws Exception {
+		final IType type= createType("D");
+		final ITypeHierarchy[] results= new ITypeHierarchy[WAITERS];
+		final Throwable[] errors= new Throwable[WAITERS];
+		final Object startLock= new Object();
+		final boolean[] started= new boolean[1];
+
+		Thread[] threads= new Thread[WAITERS];
+		for (int i= 0; i < WAITERS; i++) {
+			final int index= i;
+			threads[i]= new Thread("SuperTypeHierarchyCacheTest " + i) {
+				public void run() {
+					try {
+						synchronized (startLock) {
+							while (!started[0])
+								startLock.wait();
+						}
+						results[index]= SuperTypeHierarchyCache.getTypeHierarchy(type);
+					} catch (Throwable e) {
+						errors[index]= e;
+					}
+				}
+			};
+			threads[i].start();
+		}
+
+		int misses= SuperTypeHierarchyCache.getCacheMisses();
+		synchronized (startLock) {
+			started[0]= true;
+			startLock.notifyAll();
+		}
+		for (int i= 0; i < WAITERS; i++) {
+			threads[i].join();
+		}
+
+		// the hierarchy is computed once, all threads get the same one
+		assertEquals(misses + 1, SuperTypeHierarchyCache.getCacheMisses());
+		for (int i= 0; i < WAITERS; i++) {
+			assertNull(errors[i]);
+			assertNotNull(results[i]);
+			assertSame(results[0], results[i]);
+		}
+		assertTrue(results[0].contains(type));
+	}
+}
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.jarexport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.jar.JarEntry;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.testplugin.JavaProjectHelper;
+import org.eclipse.jdt.testplugin.JavaTestPlugin;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+
+import org.eclipse.jdt.core.IJavaProject;
+
+import org.eclipse.jdt.ui.jarpackager.IManifestProvider;
+import org.eclipse.jdt.ui.jarpackager.JarPackageData;
+import org.eclipse.jdt.ui.jarpackager.JarWriter3;
+import org.eclipse.jdt.ui.tests.core.ProjectTestSetup;
+
+/**
+ * Tests that an incremental JAR export copies the unchanged entries from the previous JAR.
+ *
+ * @since 3.8
+ */
+public class IncrementalJarExportTests extends TestCase {
+
+	private static final Class THIS= IncrementalJarExportTests.class;
+
+	public static Test suite() {
+		return new ProjectTestSetup(new TestSuite(THIS));
+	}
+
+	public static Test setUpTest(Test test) {
+		return new ProjectTestSetup(test);
+	}
+
+	/**
+	 * Records the entries copied from the previous JAR.
+	 */
+	private static class RecordingJarWriter extends JarWriter3 {
+
+		private List<String> fCopiedEntries;
+
+		public RecordingJarWriter(JarPackageData jarPackage) throws CoreException {
+			super(jarPackage, null);
+		}
+
+		protected void addRawEntry(JarEntry entry, byte[] compressedContent) throws IOException {
+			if (fCopiedEntries == null)
+				fCopiedEntries= new ArrayList<String>();
+			fCopiedEntries.add(entry.getName());
+			super.addRawEntry(entry, compressedContent);
+		}
+
+		public List<String> getCopiedEntries() {
+			return fCopiedEntries == null ? new ArrayList<String>() : fCopiedEntries;
+		}
+	}
+
+	private IJavaProject fProject;
+	private JarPackageData fData;
+	private IFile fFileA;
+	private IFile fFileB;
+	private IFile fFileC;
+
+	protected void setUp() throws Exception {
+		fProject= ProjectTestSetup.getProject();
+		IProject project= fProject.getProject();
+		fFileA= createFile(project.getFile("a.txt"), "first file");
+		fFileB= createFile(project.getFile("b.txt"), "second file");
+		fFileC= createFile(project.getFile("c.txt"), "third file");
+
+		fData= new JarPackageData();
+		fData.setJarLocation(ResourcesPlugin.getWorkspace().getRoot().getLocation().append(getName() + ".jar"));
+		fData.setDescriptionLocation(project.getFullPath().append(getName() + ".jardesc"));
+		fData.setOverwrite(true);
+		fData.setIncrementalExport(true);
+	}
+
+	protected void tearDown() throws Exception {
+		IPath jarLocation= fData.getAbsoluteJarLocation();
+		jarLocation.toFile().delete();
+		new File(jarLocation.toOSString() + ".previous").delete();
+		JavaProjectHelper.clear(fProject, ProjectTestSetup.getDefaultClasspath());
+		IProject project= fProject.getProject();
+		IFile indexFile= project.getFile(getName() + ".jarindex");
+		if (indexFile.exists())
+			indexFile.delete(true, null);
+		fFileA.delete(true, null);
+		fFileB.delete(true, null);
+		if (fFileC.exists())
+			fFileC.delete(true, null);
+	}
+
+	private static IFile createFile(IFile file, String content) throws CoreException {
+		file.create(new ByteArrayInputStream(content.getBytes()), true, null);
+		return file;
+	}
+
+	private List<String> export(IFile[] files) throws Exception {
+		RecordingJarWriter writer= new RecordingJarWriter(fData);
+		try {
+			for (int i= 0; i < files.length; i++)
+				writer.write(files[i], new Path(files[i].getName()));
+		} finally {
+			writer.close();
+		}
+		return writer.getCopiedEntries();
+	}
+
+	private Map<String, String> readEntries() throws Exception {
+		Map<String, String> entries= new TreeMap<String, String>();
+		ZipFile jar= new ZipFile(fData.getAbsoluteJarLocation().toFile());
+		try {
+			for (Enumeration<? extends ZipEntry> iterator= jar.entries(); iterator.hasMoreElements();) {
+				ZipEntry entry= iterator.nextElement();
+				if (entry.getName().startsWith("META-INF/"))
+					continue;
+				InputStream input= jar.getInputStream(entry);
+				try {
+					ByteArrayOutputStream output= new ByteArrayOutputStream();
+					byte[] buffer= new byte[1024];
+					for (int read= input.read(buffer); read != -1; read= input.read(buffer))
+						output.write(buffer, 0, read);
+					entries.put(entry.getName(), output.toString());
+				} finally {
+					input.close();
+				}
+			}
+		} finally {
+			jar.close();
+		}
+		return entries;
+	}
+
+	private static List<String> asList(String[] names) {
+		return Arrays.asList(names);
+	}
+
+	public void testUnchangedEntriesReused() throws Exception {
+		IFile[] files= { fFileA, fFileB, fFileC };
+		assertEquals(asList(new String[0]), export(files));
+		Map<String, String> entries= readEntries();
+		assertEquals(3, entries.size());
+
+		assertEquals(asList(new String[] { "a.txt", "b.txt", "c.txt" }), export(files));
+		assertEquals(entries, readEntries());
+	}
+
+	public void testChangedEntryRewritten() throws Exception {
+		IFile[] files= { fFileA, fFileB };
+		export(files);
+
+		fFileB.setContents(new ByteArrayInputStream("changed second file".getBytes()), true, false, null);
+		assertEquals(asList(new String[] { "a.txt" }), export(files));
+		Map<String, String> entries= readEntries();
+		assertEquals("first file", entries.get("a.txt"));
+		assertEquals("changed second file", entries.get("b.txt"));
+	}
+
+	public void testRemovedEntryDropped() throws Exception {
+		export(new IFile[] { fFileA, fFileB, fFileC });
+
+		fFileC.delete(true, null);
+		assertEquals(asList(new String[] { "a.txt", "b.txt" }), export(new IFile[] { fFileA, fFileB }));
+		Map<String, String> entries= readEntries();
+		assertEquals(asList(new String[] { "a.txt", "b.txt" }), new ArrayList<String>(entries.keySet()));
+	}
+
+	public void testPreviousJarRestoredOnFailure() throws Exception {
+		IFile[] files= { fFileA, fFileB };
+		export(files);
+		Map<String, String> entries= readEntries();
+
+		fData.setManifestProvider(new IManifestProvider() {
+			public Manifest create(JarPackageData jarPackage) throws CoreException {
+				throw new CoreException(new Status(IStatus.ERROR, JavaTestPlugin.getPluginId(), "manifest failure"));
+			}
+
+			public Manifest createDefault(String manifestVersion) {
+				return new Manifest();
+			}
+		});
+		try {
+			new RecordingJarWriter(fData);
+			fail();
+		} catch (CoreException e) {
+			// expected
+		}
+		assertEquals(entries, readEntries());
+		assertFalse(new File(fData.getAbsoluteJarLocation().toOSString() + ".previous").exists());
+
+		// the restored JAR still matches its index
+		fData.setManifestProvider(null);
+		assertEquals(asList(new String[] { "a.txt", "b.txt" }), export(files));
+	}
+
+	public void testWithoutDescription() throws Exception {
+		// like a runnable JAR, the index is kept in the state location
+		fData.setDescriptionLocation(Path.EMPTY);
+		IFile[] files= { fFileA, fFileB };
+		assertEquals(asList(new String[0]), export(files));
+		assertEquals(asList(new String[] { "a.txt", "b.txt" }), export(files));
+	}
+}
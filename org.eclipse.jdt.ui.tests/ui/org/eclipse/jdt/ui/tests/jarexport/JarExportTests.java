@@ -21,6 +21,8 @@ public class JarExportTests {
 		//$JUnit-BEGIN$
 		suite.addTest(PlainJarExportTests.suite());
 		suite.addTest(FatJarExportTests.suite());
+		suite.addTest(IncrementalJarExportTests.suite());
+		suite.addTest(JarOutputPipelineTests.suite());
 		//$JUnit-END$
 		return suite;
 	}
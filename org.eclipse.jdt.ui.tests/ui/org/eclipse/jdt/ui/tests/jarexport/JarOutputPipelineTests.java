@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.jarexport;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.jar.Attributes;
+import java.util.jar.JarInputStream;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.jarpackager.JarOutputPipeline;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipFile;
+
+/**
+ * Writes archives with {@link JarOutputPipeline} and reads them back with <code>java.util.zip</code>.
+ *
+ * @since 3.8
+ */
+public class JarOutputPipelineTests extends TestCase {
+
+	private static final Class THIS= JarOutputPipelineTests.class;
+
+	private static final int WORKERS= 4;
+
+	/** Larger than the entries the pipeline keeps in memory */
+	private static final int LARGE_SIZE= 5 * 1024 * 1024;
+
+	/** Does not fit into the 32 bit size fields of a ZIP file */
+	private static final long ZIP64_SIZE= 0x100000000L + 1024;
+
+	/** Does not fit into the 16 bit entry count of a ZIP file */
+	private static final int ZIP64_COUNT= 0x10000 + 10;
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	/**
+	 * Provides the given number of zero bytes without keeping them in memory.
+	 */
+	private static class ZeroInputStream extends InputStream {
+
+		private long fRemaining;
+
+		public ZeroInputStream(long size) {
+			fRemaining= size;
+		}
+
+		public int read() {
+			if (fRemaining == 0)
+				return -1;
+			fRemaining--;
+			return 0;
+		}
+
+		public int read(byte[] buffer, int offset, int length) {
+			if (fRemaining == 0)
+				return -1;
+			int count= (int) Math.min(length, fRemaining);
+			for (int i= 0; i < count; i++)
+				buffer[offset + i]= 0;
+			fRemaining-= count;
+			return count;
+		}
+	}
+
+	private File fFile;
+	private File fCopy;
+
+	protected void setUp() throws Exception {
+		fFile= File.createTempFile("JarOutputPipelineTests", ".jar");
+		fCopy= File.createTempFile("JarOutputPipelineTests", ".jar");
+	}
+
+	protected void tearDown() throws Exception {
+		fFile.delete();
+		fCopy.delete();
+	}
+
+	private static byte[] createContent(int size, int seed) {
+		// few distinct values, so that the content can be deflated
+		Random random= new Random(seed);
+		byte[] content= new byte[size];
+		for (int i= 0; i < size; i++)
+			content[i]= (byte) random.nextInt(4);
+		return content;
+	}
+
+	private static ZipEntry createEntry(String name, int method) {
+		ZipEntry entry= new ZipEntry(name);
+		entry.setMethod(method);
+		return entry;
+	}
+
+	private static byte[] read(ZipFile zipFile, ZipEntry entry) throws IOException {
+		InputStream input= zipFile.getInputStream(entry);
+		try {
+			ByteArrayOutputStream output= new ByteArrayOutputStream();
+			byte[] buffer= new byte[8192];
+			int count;
+			while ((count= input.read(buffer)) != -1)
+				output.write(buffer, 0, count);
+			return output.toByteArray();
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void assertContent(byte[] expected, ZipFile zipFile, String name, int method) throws IOException {
+		ZipEntry entry= zipFile.getEntry(name);
+		assertNotNull(name, entry);
+		assertEquals(name, method, entry.getMethod());
+		assertEquals(name, expected.length, entry.getSize());
+		CRC32 crc= new CRC32();
+		crc.update(expected);
+		assertEquals(name, crc.getValue(), entry.getCrc());
+		byte[] content= read(zipFile, entry);
+		assertEquals(name, expected.length, content.length);
+		for (int i= 0; i < content.length; i++) {
+			if (content[i] != expected[i])
+				fail(name + " differs at " + i);
+		}
+	}
+
+	public void testEntries() throws Exception {
+		Manifest manifest= new Manifest();
+		manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, "p.Main");
+		byte[] small= "small".getBytes();
+		byte[] medium= createContent(64 * 1024, 1);
+
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), manifest, WORKERS);
+		pipeline.setComment("comment");
+		pipeline.putEntry(createEntry("p/", ZipEntry.STORED), new ByteArrayInputStream(new byte[0]));
+		pipeline.putEntry(createEntry("p/small.txt", ZipEntry.DEFLATED), new ByteArrayInputStream(small));
+		pipeline.putEntry(createEntry("p/medium.bin", ZipEntry.DEFLATED), new ByteArrayInputStream(medium));
+		pipeline.putEntry(createEntry("p/stored.txt", ZipEntry.STORED), new ByteArrayInputStream(small));
+		pipeline.putEntry(createEntry("p/storedMedium.bin", ZipEntry.STORED), new ByteArrayInputStream(medium));
+		pipeline.close();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals(6, zipFile.size());
+			assertContent(new byte[0], zipFile, "p/", ZipEntry.STORED);
+			assertContent(small, zipFile, "p/small.txt", ZipEntry.DEFLATED);
+			assertContent(medium, zipFile, "p/medium.bin", ZipEntry.DEFLATED);
+			assertContent(small, zipFile, "p/stored.txt", ZipEntry.STORED);
+			assertContent(medium, zipFile, "p/storedMedium.bin", ZipEntry.STORED);
+		} finally {
+			zipFile.close();
+		}
+
+		// the local headers are consistent too, and the manifest comes first
+		JarInputStream input= new JarInputStream(new FileInputStream(fFile));
+		try {
+			assertEquals("p.Main", input.getManifest().getMainAttributes().getValue(Attributes.Name.MAIN_CLASS));
+			String[] names= { "p/", "p/small.txt", "p/medium.bin", "p/stored.txt", "p/storedMedium.bin" };
+			for (int i= 0; i < names.length; i++)
+				assertEquals(names[i], input.getNextJarEntry().getName());
+			assertNull(input.getNextJarEntry());
+		} finally {
+			input.close();
+		}
+	}
+
+	public void testRawCopy() throws Exception {
+		byte[] medium= createContent(64 * 1024, 2);
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), null, WORKERS);
+		pipeline.putEntry(createEntry("deflated.bin", ZipEntry.DEFLATED), new ByteArrayInputStream(medium));
+		pipeline.putEntry(createEntry("stored.bin", ZipEntry.STORED), new ByteArrayInputStream(medium));
+		pipeline.close();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		RawZipFile rawZipFile= new RawZipFile(fFile.getPath());
+		try {
+			pipeline= new JarOutputPipeline(new FileOutputStream(fCopy), null, WORKERS);
+			String[] names= { "deflated.bin", "stored.bin" };
+			for (int i= 0; i < names.length; i++) {
+				ZipEntry entry= zipFile.getEntry(names[i]);
+				byte[] data= rawZipFile.readRawContent(entry);
+				assertNotNull(data);
+				assertEquals(entry.getCompressedSize(), data.length);
+				ZipEntry copy= createEntry("copy/" + names[i], entry.getMethod());
+				copy.setCrc(entry.getCrc());
+				copy.setSize(entry.getSize());
+				copy.setCompressedSize(data.length);
+				pipeline.putRawEntry(copy, data);
+			}
+			pipeline.close();
+		} finally {
+			rawZipFile.close();
+			zipFile.close();
+		}
+
+		zipFile= new ZipFile(fCopy);
+		try {
+			assertContent(medium, zipFile, "copy/deflated.bin", ZipEntry.DEFLATED);
+			assertContent(medium, zipFile, "copy/stored.bin", ZipEntry.STORED);
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void testLargeEntries() throws Exception {
+		byte[] small= "small".getBytes();
+		byte[] large= createContent(LARGE_SIZE, 3);
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), null, WORKERS);
+		pipeline.putEntry(createEntry("before.txt", ZipEntry.DEFLATED), new ByteArrayInputStream(small));
+		pipeline.putEntry(createEntry("large.bin", ZipEntry.DEFLATED), new ByteArrayInputStream(large));
+		pipeline.putEntry(createEntry("largeStored.bin", ZipEntry.STORED), new ByteArrayInputStream(large));
+		pipeline.putEntry(createEntry("after.txt", ZipEntry.DEFLATED), new ByteArrayInputStream(small));
+		pipeline.close();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertContent(small, zipFile, "before.txt", ZipEntry.DEFLATED);
+			assertContent(large, zipFile, "large.bin", ZipEntry.DEFLATED);
+			assertContent(large, zipFile, "largeStored.bin", ZipEntry.STORED);
+			assertContent(small, zipFile, "after.txt", ZipEntry.DEFLATED);
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void testZip64Size() throws Exception {
+		byte[] small= "small".getBytes();
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), null, WORKERS);
+		pipeline.putEntry(createEntry("zeros.bin", ZipEntry.DEFLATED), new ZeroInputStream(ZIP64_SIZE));
+		pipeline.putEntry(createEntry("after.txt", ZipEntry.DEFLATED), new ByteArrayInputStream(small));
+		pipeline.close();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			ZipEntry entry= zipFile.getEntry("zeros.bin");
+			assertEquals(ZIP64_SIZE, entry.getSize());
+			CRC32 crc= new CRC32();
+			long size= 0;
+			InputStream input= zipFile.getInputStream(entry);
+			try {
+				byte[] buffer= new byte[64 * 1024];
+				int count;
+				while ((count= input.read(buffer)) != -1) {
+					crc.update(buffer, 0, count);
+					size+= count;
+				}
+			} finally {
+				input.close();
+			}
+			assertEquals(ZIP64_SIZE, size);
+			assertEquals(entry.getCrc(), crc.getValue());
+			assertContent(small, zipFile, "after.txt", ZipEntry.DEFLATED);
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void testZip64Count() throws Exception {
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), null, WORKERS);
+		for (int i= 0; i < ZIP64_COUNT; i++)
+			pipeline.putEntry(createEntry("e" + i, ZipEntry.DEFLATED), new ByteArrayInputStream(String.valueOf(i).getBytes()));
+		pipeline.close();
+
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals(ZIP64_COUNT, zipFile.size());
+			assertContent(String.valueOf(ZIP64_COUNT - 1).getBytes(), zipFile, "e" + (ZIP64_COUNT - 1), ZipEntry.DEFLATED);
+		} finally {
+			zipFile.close();
+		}
+	}
+
+	public void testDuplicateEntry() throws Exception {
+		byte[] small= "small".getBytes();
+		JarOutputPipeline pipeline= new JarOutputPipeline(new FileOutputStream(fFile), null, WORKERS);
+		try {
+			pipeline.putEntry(createEntry("a.txt", ZipEntry.DEFLATED), new ByteArrayInputStream(small));
+			try {
+				pipeline.putEntry(createEntry("a.txt", ZipEntry.STORED), new ByteArrayInputStream(small));
+				fail();
+			} catch (ZipException e) {
+				// expected
+			}
+			ZipEntry raw= createEntry("a.txt", ZipEntry.STORED);
+			CRC32 crc= new CRC32();
+			crc.update(small);
+			raw.setCrc(crc.getValue());
+			raw.setSize(small.length);
+			try {
+				pipeline.putRawEntry(raw, small);
+				fail();
+			} catch (ZipException e) {
+				// expected
+			}
+		} finally {
+			pipeline.close();
+		}
+
+		// the rejected entries are not written
+		ZipFile zipFile= new ZipFile(fFile);
+		try {
+			assertEquals(1, zipFile.size());
+			assertContent(small, zipFile, "a.txt", ZipEntry.DEFLATED);
+		} finally {
+			zipFile.close();
+		}
+	}
+}
@@ -27,6 +27,7 @@ public class PackageExplorerTests {
 		suite.addTest(PackageExplorerShowInTests.suite());
 		suite.addTestSuite(WorkingSetDropAdapterTest.class);
 		suite.addTest(HierarchicalContentProviderTests.suite());
+		suite.addTest(PackageExplorerUpdateQueueTest.suite());
 		//$JUnit-END$
 		return suite;
 	}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.ui.tests.packageview;
+
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+import org.eclipse.jdt.internal.ui.packageview.PackageExplorerUpdateQueue;
+
+/**
+ * Tests how the updates of the package explorer are merged while they wait in a
+ * {@link PackageExplorerUpdateQueue}.
+ *
+ * @since 3.7.1
+ */
+public class PackageExplorerUpdateQueueTest extends TestCase {
+
+	private static final Class THIS= PackageExplorerUpdateQueueTest.class;
+
+	private static class TestUpdate extends PackageExplorerUpdateQueue.Update {
+
+		public TestUpdate(int kind, Object element, Object parent) {
+			super(kind, element, parent);
+		}
+
+		public void run() {
+		}
+	}
+
+	private static class TestRunnable implements Runnable {
+		public void run() {
+		}
+	}
+
+	private final Runnable fFullRefresh= new TestRunnable();
+	private PackageExplorerUpdateQueue fQueue;
+
+	public PackageExplorerUpdateQueueTest(String name) {
+		super(name);
+	}
+
+	public static Test suite() {
+		return new TestSuite(THIS);
+	}
+
+	protected void setUp() throws Exception {
+		fQueue= new PackageExplorerUpdateQueue(fFullRefresh);
+	}
+
+	private static TestUpdate add(String element, String parent) {
+		return new TestUpdate(PackageExplorerUpdateQueue.ADD, element, parent);
+	}
+
+	private static TestUpdate remove(String element) {
+		return new TestUpdate(PackageExplorerUpdateQueue.REMOVE, element, null);
+	}
+
+	private static TestUpdate refresh(String[] elements) {
+		return new TestUpdate(PackageExplorerUpdateQueue.REFRESH, Arrays.asList(elements), null);
+	}
+
+	private void assertNext(Runnable[] expected) {
+		for (int i= 0; i < expected.length; i++)
+			assertSame("update " + i, expected[i], fQueue.next());
+		assertNull(fQueue.next());
+		assertTrue(fQueue.isEmpty());
+	}
+
+	public void testEqualUpdateReplaced() throws Exception {
+		TestUpdate first= remove("a");
+		TestUpdate other= remove("b");
+		TestRunnable runnable= new TestRunnable();
+		TestUpdate second= remove("a");
+		fQueue.add(first);
+		fQueue.add(other);
+		fQueue.add(runnable);
+		fQueue.add(second);
+		assertEquals(1, fQueue.getMergedCount());
+
+		// the later update runs at its own position
+		assertNext(new Runnable[] { other, runnable, second });
+		assertEquals(3, fQueue.getExecutedCount());
+	}
+
+	public void testUpdatesOfOtherKindsKept() throws Exception {
+		TestUpdate addition= add("a", "p");
+		TestUpdate removal= remove("a");
+		TestUpdate otherParent= add("a", "q");
+		fQueue.add(addition);
+		fQueue.add(removal);
+		fQueue.add(otherParent);
+		assertEquals(0, fQueue.getMergedCount());
+		assertNext(new Runnable[] { addition, removal, otherParent });
+	}
+
+	public void testRefreshReplacesAdditions() throws Exception {
+		TestUpdate first= add("a", "p");
+		TestUpdate otherParent= add("b", "q");
+		TestUpdate second= add("c", "p");
+		TestUpdate removal= remove("p");
+		TestUpdate refresh= refresh(new String[] { "p", "r" });
+		fQueue.add(first);
+		fQueue.add(otherParent);
+		fQueue.add(second);
+		fQueue.add(removal);
+		fQueue.add(refresh);
+		assertEquals(2, fQueue.getMergedCount());
+		assertNext(new Runnable[] { otherParent, removal, refresh });
+
+		// additions queued after a refresh ran are replaced again
+		TestUpdate later= refresh(new String[] { "p" });
+		fQueue.add(add("d", "p"));
+		fQueue.add(later);
+		assertEquals(3, fQueue.getMergedCount());
+		assertNext(new Runnable[] { later });
+	}
+
+	public void testRefreshesMerged() throws Exception {
+		List<String> elements= Arrays.asList(new String[] { "p", "q" });
+		TestUpdate first= new TestUpdate(PackageExplorerUpdateQueue.REFRESH, elements, null);
+		TestUpdate second= new TestUpdate(PackageExplorerUpdateQueue.REFRESH, elements, null);
+		fQueue.add(first);
+		fQueue.add(second);
+		assertEquals(1, fQueue.getMergedCount());
+		assertNext(new Runnable[] { second });
+	}
+
+	public void testCollapsedToFullRefresh() throws Exception {
+		TestRunnable runnable= new TestRunnable();
+		fQueue.add(runnable);
+		for (int i= 1; i < PackageExplorerUpdateQueue.MAX_PENDING_UPDATES; i++)
+			fQueue.add(remove(String.valueOf(i)));
+		assertEquals(0, fQueue.getMergedCount());
+
+		fQueue.add(remove("last"));
+		assertEquals(PackageExplorerUpdateQueue.MAX_PENDING_UPDATES, fQueue.getMergedCount());
+
+		// the pending full refresh replaces later updates, but not other runnables
+		TestRunnable later= new TestRunnable();
+		fQueue.add(add("a", "p"));
+		fQueue.add(later);
+		assertEquals(PackageExplorerUpdateQueue.MAX_PENDING_UPDATES + 1, fQueue.getMergedCount());
+		assertNext(new Runnable[] { runnable, fFullRefresh, later });
+
+		// once the full refresh ran, updates are queued again
+		TestUpdate update= remove("a");
+		fQueue.add(update);
+		assertNext(new Runnable[] { update });
+	}
+}
@@ -50,6 +50,7 @@ public class CallHierarchy {
     private static CallHierarchy fgInstance;
     private IJavaSearchScope fSearchScope;
     private StringMatcher[] fFilters;
+    private final CallerSearchCache fCallerCache= new CallerSearchCache();
 
     public static CallHierarchy getDefault() {
         if (fgInstance == null) {
@@ -174,7 +175,38 @@ public class CallHierarchy {
     }
 
     public void setSearchScope(IJavaSearchScope searchScope) {
+        setSearchScope(searchScope, SearchEngine.createWorkspaceScope().equals(searchScope) ? "workspace" : null); //$NON-NLS-1$
+    }
+
+    /**
+     * Sets the search scope.
+     *
+     * @param searchScope the search scope
+     * @param scopeKey a key which is equal for scopes containing the same elements, e.g. a
+     *            description of the scope, or <code>null</code> if not known. The callers found in
+     *            the previous scope are kept if the keys are equal.
+     * @since 3.7.1
+     */
+    public void setSearchScope(IJavaSearchScope searchScope, String scopeKey) {
         this.fSearchScope = searchScope;
+        fCallerCache.setScopeKey(scopeKey);
+    }
+
+    /**
+     * Drops the callers found so far, so that they are searched again.
+     *
+     * @since 3.7.1
+     */
+    public void clearCallerCache() {
+        fCallerCache.clear();
+    }
+
+    /**
+     * @return the cache of the callers found in the current search scope
+     * @since 3.7.1
+     */
+    CallerSearchCache getCallerCache() {
+        return fCallerCache;
     }
 
 	/**
@@ -206,6 +238,7 @@ public class CallHierarchy {
     public void setFilterEnabled(boolean filterEnabled) {
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_USE_FILTERS, filterEnabled);
+        fCallerCache.clear();
     }
 
     /**
@@ -223,6 +256,7 @@ public class CallHierarchy {
 
         IPreferenceStore settings = JavaPlugin.getDefault().getPreferenceStore();
         settings.setValue(PREF_FILTERS_LIST, filters);
+        fCallerCache.clear();
     }
 
     /**
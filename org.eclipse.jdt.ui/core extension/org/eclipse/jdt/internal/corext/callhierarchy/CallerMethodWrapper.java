@@ -13,7 +13,10 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.callhierarchy;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.eclipse.core.runtime.CoreException;
@@ -41,6 +44,14 @@ import org.eclipse.jdt.internal.corext.util.SearchUtils;
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 
 public class CallerMethodWrapper extends MethodWrapper {
+	/**
+	 * The maximal number of uncached siblings whose callers are searched together with the
+	 * callers of an expanded node.
+	 *
+	 * @since 3.7.1
+	 */
+	private static final int MAX_SIBLINGS= 32;
+
 	/**
 	 * Value of the expand with constructors mode.
 	 * 
@@ -56,6 +67,15 @@ public class CallerMethodWrapper extends MethodWrapper {
 	 */
 	private boolean fIsExpandWithConstructorsSet;
 
+	/**
+	 * Tells whether the callers of the uncached siblings are searched in the background after
+	 * the callers of this member.
+	 *
+	 * @see #setSearchSiblings(boolean)
+	 * @since 3.7.1
+	 */
+	private boolean fSearchSiblings= true;
+
 	public CallerMethodWrapper(MethodWrapper parent, MethodCall methodCall) {
 		super(parent, methodCall);
 	}
@@ -98,12 +118,109 @@ public class CallerMethodWrapper extends MethodWrapper {
 	 */
 	@Override
 	protected Map<String, MethodCall> findChildren(IProgressMonitor progressMonitor) {
-		try {
+		CallerSearchCache cache= CallHierarchy.getDefault().getCallerCache();
+		Map<String, MethodCall> callers= cache.get(getMember(), getLimitTo());
+		if (callers != null)
+			return callers;
+
+		IProgressMonitor monitor= new SubProgressMonitor(progressMonitor, 95, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL);
+
+		checkCanceled(progressMonitor);
+
+		// the siblings are likely to be expanded next, search their callers in the background
+		List<CallerMethodWrapper> wrappers= fSearchSiblings ? getUncachedSiblings(cache) : Collections.singletonList(this);
+		return new CallerSearch(wrappers, cache).search(this, monitor);
+	}
+
+	/**
+	 * Sets whether searching the callers of this member also starts searches for the callers of
+	 * its siblings in the background. This is the default, since the siblings are likely to be
+	 * expanded next.
+	 *
+	 * @param searchSiblings <code>true</code> to search the callers of the siblings as well
+	 * @since 3.7.1
+	 */
+	public void setSearchSiblings(boolean searchSiblings) {
+		fSearchSiblings= searchSiblings;
+	}
+
+	/**
+	 * Returns this wrapper and the siblings whose callers are not cached yet.
+	 *
+	 * @param cache the cache
+	 * @return the wrappers to search the callers for
+	 * @since 3.7.1
+	 */
+	private List<CallerMethodWrapper> getUncachedSiblings(CallerSearchCache cache) {
+		List<CallerMethodWrapper> result= new ArrayList<CallerMethodWrapper>();
+		result.add(this);
+		MethodWrapper parent= getParent();
+		MethodWrapper[] siblings= parent != null ? parent.getCachedCalls() : null;
+		if (siblings == null)
+			return result;
+
+		for (int i= 0; i < siblings.length && result.size() < MAX_SIBLINGS; i++) {
+			if (!(siblings[i] instanceof CallerMethodWrapper))
+				continue;
+			CallerMethodWrapper sibling= (CallerMethodWrapper) siblings[i];
+			IMember member= sibling.getMember();
+			if (!member.equals(getMember()) && sibling.canHaveChildren() && !sibling.isRecursive() && !cache.contains(member, sibling.getLimitTo()))
+				result.add(sibling);
+		}
+		return result;
+	}
 
-			IProgressMonitor monitor= new SubProgressMonitor(progressMonitor, 95, SubProgressMonitor.SUPPRESS_SUBTASK_LABEL);
+	/**
+	 * @return the search limit for the member
+	 * @since 3.7.1
+	 */
+	int getLimitTo() {
+		if (getMember().getElementType() == IJavaElement.FIELD)
+			return getFieldSearchMode();
+		return IJavaSearchConstants.REFERENCES;
+	}
 
-			checkCanceled(progressMonitor);
+	/**
+	 * Tells whether the callers of the member can be searched together with the callers of other
+	 * members, see {@link CallerSearch}. This is the case for methods and fields which are searched
+	 * in the default scope.
+	 *
+	 * @return <code>true</code> if the member can be searched with others
+	 * @since 3.7.1
+	 */
+	boolean isBatchable() {
+		IMember member= getMember();
+		try {
+			if (member instanceof IMethod)
+				return !((IMethod) member).isConstructor() && !JdtFlags.isPrivate(member);
+			if (member instanceof IField)
+				return !JdtFlags.isPrivate(member);
+		} catch (JavaModelException e) {
+			// search separately
+		}
+		return false;
+	}
 
+	/**
+	 * Creates the pattern to search the callers of a member for which {@link #isBatchable()}
+	 * holds.
+	 *
+	 * @return the pattern or <code>null</code> if none could be created
+	 * @since 3.7.1
+	 */
+	SearchPattern createSearchPattern() {
+		return SearchPattern.createPattern(getMember(), getLimitTo(), SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+	}
+
+	/**
+	 * Searches the callers of the member.
+	 *
+	 * @param monitor the progress monitor
+	 * @return a map from handle identifier to {@link MethodCall}
+	 * @since 3.7.1
+	 */
+	Map<String, MethodCall> searchCallers(IProgressMonitor monitor) {
+		try {
 			IMember member= getMember();
 			SearchPattern pattern= null;
 			IType type= null;
@@ -138,10 +255,7 @@ public class CallerMethodWrapper extends MethodWrapper {
 				}
 			}
 			if (pattern == null) {
-				int limitTo= IJavaSearchConstants.REFERENCES;
-				if (member.getElementType() == IJavaElement.FIELD)
-					limitTo= getFieldSearchMode();
-				pattern= SearchPattern.createPattern(member, limitTo, SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
+				pattern= SearchPattern.createPattern(member, getLimitTo(), SearchUtils.GENERICS_AGNOSTIC_MATCH_RULE);
 			}
 			if (pattern == null) { // e.g. for initializers
 				return new HashMap<String, MethodCall>(0);
@@ -213,4 +327,13 @@ public class CallerMethodWrapper extends MethodWrapper {
 		return fIsExpandWithConstructorsSet;
 	}
 
+	/*
+	 * @see org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper#removeFromCache()
+	 */
+	@Override
+	public void removeFromCache() {
+		super.removeFromCache();
+		CallHierarchy.getDefault().getCallerCache().remove(getMember(), getLimitTo());
+	}
+
 }
@@ -0,0 +1,345 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubProgressMonitor;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.core.IBuffer;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IOpenable;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.SearchMatch;
+import org.eclipse.jdt.core.search.SearchParticipant;
+import org.eclipse.jdt.core.search.SearchPattern;
+import org.eclipse.jdt.core.search.SearchRequestor;
+
+import org.eclipse.jdt.internal.corext.util.ParallelWorkQueue;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Searches the callers of several members at once, typically the siblings of a node in the caller
+ * hierarchy, and stores them in the {@link CallerSearchCache}.
+ * <p>
+ * Methods and fields with distinct names are searched with a single search for all of them, which
+ * locates the candidate compilation units only once. A match is attributed to a member by the name
+ * at its location; if a match cannot be attributed, the members of the batch are searched one by
+ * one. Constructors, types, private and overloaded members are always searched one by one.
+ * </p>
+ * <p>
+ * Only the search including the requested member runs in the calling thread. The other searches
+ * are speculative: they run in the background after the callers of the requested member have been
+ * returned, and stop when the cache is cleared.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class CallerSearch {
+
+	/**
+	 * The maximal number of concurrent speculative searches.
+	 */
+	private static final int MAX_WORKERS= 3;
+
+	/**
+	 * The searches to run, either a {@link CallerMethodWrapper} or a {@link List} of them which
+	 * are searched together.
+	 */
+	private final LinkedList<Object> fTasks= new LinkedList<Object>();
+
+	private final Map<CallerMethodWrapper, Map<String, MethodCall>> fResults= Collections.synchronizedMap(new HashMap<CallerMethodWrapper, Map<String, MethodCall>>());
+	private final CallerSearchCache fCache;
+	private final int fGeneration;
+
+	/**
+	 * Runs the speculative searches.
+	 */
+	private final class SpeculativeSearchQueue extends ParallelWorkQueue<Object> {
+
+		public SpeculativeSearchQueue(List<Object> tasks) {
+			super(CallHierarchyMessages.CallerMethodWrapper_taskname, tasks);
+		}
+
+		@Override
+		protected void process(Object task, IProgressMonitor monitor) {
+			if (fCache.getGeneration() != fGeneration) {
+				cancel(); // the results would be dropped
+				return;
+			}
+			List<CallerMethodWrapper> retry= runTask(task, monitor);
+			for (Iterator<CallerMethodWrapper> iterator= retry.iterator(); iterator.hasNext();)
+				addItem(iterator.next());
+			monitor.worked(1);
+		}
+	}
+
+	/**
+	 * @param wrappers the members to search the callers for
+	 * @param cache the cache to store the callers in
+	 */
+	public CallerSearch(List<CallerMethodWrapper> wrappers, CallerSearchCache cache) {
+		fCache= cache;
+		fGeneration= cache.getGeneration();
+
+		Map<String, List<CallerMethodWrapper>> batchableByName= new HashMap<String, List<CallerMethodWrapper>>();
+		for (Iterator<CallerMethodWrapper> iterator= wrappers.iterator(); iterator.hasNext();) {
+			CallerMethodWrapper wrapper= iterator.next();
+			if (wrapper.isBatchable()) {
+				String name= wrapper.getMember().getElementName();
+				List<CallerMethodWrapper> sameName= batchableByName.get(name);
+				if (sameName == null) {
+					sameName= new ArrayList<CallerMethodWrapper>(1);
+					batchableByName.put(name, sameName);
+				}
+				sameName.add(wrapper);
+			} else {
+				fTasks.add(wrapper);
+			}
+		}
+
+		List<CallerMethodWrapper> batch= new ArrayList<CallerMethodWrapper>();
+		for (Iterator<List<CallerMethodWrapper>> iterator= batchableByName.values().iterator(); iterator.hasNext();) {
+			List<CallerMethodWrapper> sameName= iterator.next();
+			if (sameName.size() == 1)
+				batch.add(sameName.get(0));
+			else
+				fTasks.addAll(sameName);
+		}
+		if (batch.size() == 1)
+			fTasks.add(batch.get(0));
+		else if (batch.size() > 1)
+			fTasks.addFirst(batch);
+	}
+
+	/**
+	 * Searches the callers of the given member and starts the searches for the other members in
+	 * the background.
+	 *
+	 * @param wrapper one of the searched members
+	 * @param pm the progress monitor
+	 * @return a map from handle identifier to {@link MethodCall}
+	 * @throws OperationCanceledException if the search has been canceled
+	 */
+	public Map<String, MethodCall> search(CallerMethodWrapper wrapper, IProgressMonitor pm) {
+		pm.beginTask("", 2); //$NON-NLS-1$
+		try {
+			Object task= removeTask(wrapper);
+			if (task != null)
+				fTasks.addAll(runTask(task, new SubProgressMonitor(pm, 1)));
+
+			Map<String, MethodCall> result= fResults.get(wrapper);
+			if (result == null) {
+				// the callers could not be attributed in a batch, search them alone
+				fTasks.remove(wrapper);
+				result= wrapper.searchCallers(new SubProgressMonitor(pm, 1));
+				setResult(wrapper, result);
+			}
+
+			searchInBackground();
+			return result;
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Removes the search including the given member from the tasks.
+	 *
+	 * @param wrapper the member
+	 * @return the task or <code>null</code> if there is none
+	 */
+	private Object removeTask(CallerMethodWrapper wrapper) {
+		for (Iterator<Object> iterator= fTasks.iterator(); iterator.hasNext();) {
+			Object task= iterator.next();
+			if (task == wrapper || task instanceof List<?> && ((List<?>) task).contains(wrapper)) {
+				iterator.remove();
+				return task;
+			}
+		}
+		return null;
+	}
+
+	private void searchInBackground() {
+		if (fTasks.isEmpty())
+			return;
+
+		final SpeculativeSearchQueue queue= new SpeculativeSearchQueue(fTasks);
+		Job job= new Job(CallHierarchyMessages.CallerMethodWrapper_taskname) {
+			@Override
+			protected IStatus run(IProgressMonitor monitor) {
+				monitor.beginTask("", IProgressMonitor.UNKNOWN); //$NON-NLS-1$
+				try {
+					queue.run(Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors()), monitor);
+				} catch (OperationCanceledException e) {
+					return Status.CANCEL_STATUS;
+				} catch (CoreException e) {
+					JavaPlugin.log(e);
+				} finally {
+					monitor.done();
+				}
+				return Status.OK_STATUS;
+			}
+		};
+		job.setSystem(true);
+		job.setPriority(Job.DECORATE);
+		job.schedule();
+	}
+
+	/**
+	 * Runs a search.
+	 *
+	 * @param task a {@link CallerMethodWrapper} or a {@link List} of them
+	 * @param monitor the progress monitor
+	 * @return the members whose callers have to be searched one by one
+	 */
+	private List<CallerMethodWrapper> runTask(Object task, IProgressMonitor monitor) {
+		if (task instanceof CallerMethodWrapper) {
+			CallerMethodWrapper wrapper= (CallerMethodWrapper) task;
+			setResult(wrapper, wrapper.searchCallers(monitor));
+			return Collections.emptyList();
+		}
+		@SuppressWarnings("unchecked")
+		List<CallerMethodWrapper> batch= (List<CallerMethodWrapper>) task;
+		return searchBatch(batch, monitor);
+	}
+
+	private List<CallerMethodWrapper> searchBatch(List<CallerMethodWrapper> batch, IProgressMonitor monitor) {
+		List<CallerMethodWrapper> retry= new ArrayList<CallerMethodWrapper>();
+		Map<String, CallerMethodWrapper> wrappersByName= new HashMap<String, CallerMethodWrapper>();
+		SearchPattern pattern= null;
+		try {
+			for (Iterator<CallerMethodWrapper> iterator= batch.iterator(); iterator.hasNext();) {
+				CallerMethodWrapper wrapper= iterator.next();
+				SearchPattern memberPattern= wrapper.createSearchPattern();
+				if (memberPattern == null) {
+					retry.add(wrapper);
+					continue;
+				}
+				wrappersByName.put(wrapper.getMember().getElementName(), wrapper);
+				pattern= pattern == null ? memberPattern : SearchPattern.createOrPattern(pattern, memberPattern);
+			}
+			if (pattern == null)
+				return retry;
+
+			BatchRequestor requestor= new BatchRequestor(wrappersByName);
+			new SearchEngine().search(pattern, new SearchParticipant[] { SearchEngine.getDefaultSearchParticipant() }, CallHierarchy.getDefault().getSearchScope(), requestor,
+					monitor);
+			if (requestor.isAmbiguous()) {
+				retry.addAll(wrappersByName.values());
+				return retry;
+			}
+			for (Iterator<CallerMethodWrapper> iterator= wrappersByName.values().iterator(); iterator.hasNext();) {
+				CallerMethodWrapper wrapper= iterator.next();
+				setResult(wrapper, requestor.getCallers(wrapper.getMember().getElementName()));
+			}
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			retry.addAll(wrappersByName.values());
+		}
+		return retry;
+	}
+
+	private void setResult(CallerMethodWrapper wrapper, Map<String, MethodCall> callers) {
+		fResults.put(wrapper, callers);
+		fCache.put(wrapper.getMember(), wrapper.getLimitTo(), callers, fGeneration);
+	}
+
+	/**
+	 * Collects the matches of a search for several members with distinct names.
+	 */
+	private static final class BatchRequestor extends SearchRequestor {
+
+		private final Map<String, CallSearchResultCollector> fCollectors= new HashMap<String, CallSearchResultCollector>();
+		private boolean fAmbiguous;
+
+		public BatchRequestor(Map<String, CallerMethodWrapper> wrappersByName) {
+			for (Iterator<String> iterator= wrappersByName.keySet().iterator(); iterator.hasNext();)
+				fCollectors.put(iterator.next(), new CallSearchResultCollector());
+		}
+
+		public boolean isAmbiguous() {
+			return fAmbiguous;
+		}
+
+		public Map<String, MethodCall> getCallers(String name) {
+			return fCollectors.get(name).getCallers();
+		}
+
+		/*
+		 * @see org.eclipse.jdt.core.search.SearchRequestor#acceptSearchMatch(org.eclipse.jdt.core.search.SearchMatch)
+		 */
+		@Override
+		public void acceptSearchMatch(SearchMatch match) {
+			// same filtering as MethodReferencesSearchRequestor
+			if (fAmbiguous || match.getAccuracy() != SearchMatch.A_ACCURATE || match.isInsideDocComment())
+				return;
+			if (!(match.getElement() instanceof IMember))
+				return;
+
+			IMember member= (IMember) match.getElement();
+			switch (member.getElementType()) {
+				case IJavaElement.METHOD:
+				case IJavaElement.TYPE:
+				case IJavaElement.FIELD:
+				case IJavaElement.INITIALIZER:
+					CallSearchResultCollector collector= fCollectors.get(getReferencedName(member, match));
+					if (collector == null)
+						fAmbiguous= true;
+					else
+						collector.addMember(member, member, match.getOffset(), match.getOffset() + match.getLength());
+					break;
+			}
+		}
+
+		/**
+		 * Returns the identifier at the start of the match, which is the name of the referenced
+		 * method or field.
+		 *
+		 * @param member the member containing the match
+		 * @param match the match
+		 * @return the name or <code>null</code> if it is not known
+		 */
+		private static String getReferencedName(IMember member, SearchMatch match) {
+			int offset= match.getOffset();
+			int end= offset + match.getLength();
+			IOpenable openable= member.getOpenable();
+			if (openable == null || offset < 0)
+				return null;
+			try {
+				IBuffer buffer= openable.getBuffer();
+				if (buffer == null || end > buffer.getLength())
+					return null;
+				int index= offset;
+				while (index < end && Character.isJavaIdentifierPart(buffer.getChar(index)))
+					index++;
+				return index > offset ? buffer.getText(offset, index - offset) : null;
+			} catch (JavaModelException e) {
+				return null;
+			}
+		}
+	}
+}
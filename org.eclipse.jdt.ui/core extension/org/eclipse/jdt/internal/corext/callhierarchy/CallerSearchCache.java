@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.callhierarchy;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.jface.util.IPropertyChangeListener;
+import org.eclipse.jface.util.PropertyChangeEvent;
+
+import org.eclipse.ui.IWorkingSetManager;
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.JavaCore;
+
+/**
+ * Caches the callers found for members, independent of a particular call hierarchy, so that they
+ * survive refreshes of the view and new hierarchies on the same members.
+ * <p>
+ * The callers are found with the search scope and the filters of {@link CallHierarchy}. The cache
+ * is cleared when those change, when the contents of a working set change, since the key of a
+ * working set scope does not change with its contents, and whenever Java elements change. Both
+ * {@link ElementChangedEvent#POST_CHANGE} and {@link ElementChangedEvent#POST_RECONCILE} events
+ * clear the whole cache: the search also finds calls in working copies, and a new call in one
+ * compilation unit can add a caller to any cached member. Results of a search which was running
+ * while the cache was cleared are dropped, see {@link #getGeneration()}.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class CallerSearchCache implements IElementChangedListener, IPropertyChangeListener {
+
+	/**
+	 * The maximal number of members whose callers are cached.
+	 */
+	private static final int MAX_ENTRIES= 2000;
+
+	private final Map<String, Map<String, MethodCall>> fCallers;
+	private String fScopeKey;
+	private int fGeneration;
+
+	public CallerSearchCache() {
+		fCallers= new LinkedHashMap<String, Map<String, MethodCall>>(64, 0.75f, true) {
+			private static final long serialVersionUID= 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Map<String, MethodCall>> eldest) {
+				return size() > MAX_ENTRIES;
+			}
+		};
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+		if (PlatformUI.isWorkbenchRunning())
+			PlatformUI.getWorkbench().getWorkingSetManager().addPropertyChangeListener(this);
+	}
+
+	/**
+	 * Returns the cached callers of a member.
+	 *
+	 * @param member the member
+	 * @param limitTo the search limit, see {@link MethodWrapper#getFieldSearchMode()}
+	 * @return a map from handle identifier to {@link MethodCall}, or <code>null</code> if the
+	 *         callers are not cached
+	 */
+	public synchronized Map<String, MethodCall> get(IMember member, int limitTo) {
+		Map<String, MethodCall> callers= fCallers.get(getKey(member, limitTo));
+		return callers != null ? new HashMap<String, MethodCall>(callers) : null;
+	}
+
+	public synchronized boolean contains(IMember member, int limitTo) {
+		return fCallers.containsKey(getKey(member, limitTo));
+	}
+
+	/**
+	 * Caches the callers of a member unless the cache has been cleared since the given
+	 * generation.
+	 *
+	 * @param member the member
+	 * @param limitTo the search limit
+	 * @param callers a map from handle identifier to {@link MethodCall}
+	 * @param generation the generation at the start of the search
+	 */
+	public synchronized void put(IMember member, int limitTo, Map<String, MethodCall> callers, int generation) {
+		if (generation == fGeneration)
+			fCallers.put(getKey(member, limitTo), new HashMap<String, MethodCall>(callers));
+	}
+
+	public synchronized void remove(IMember member, int limitTo) {
+		fCallers.remove(getKey(member, limitTo));
+	}
+
+	/**
+	 * @return the generation of the cache, which changes whenever the cache is cleared
+	 */
+	public synchronized int getGeneration() {
+		return fGeneration;
+	}
+
+	/**
+	 * Sets the key of the search scope the callers are found in. The cache is cleared if the key
+	 * changes.
+	 *
+	 * @param scopeKey the key of the search scope, or <code>null</code> if the scope cannot be
+	 *            compared with other scopes
+	 */
+	public synchronized void setScopeKey(String scopeKey) {
+		if (scopeKey == null || !scopeKey.equals(fScopeKey))
+			clear();
+		fScopeKey= scopeKey;
+	}
+
+	public synchronized void clear() {
+		fCallers.clear();
+		fGeneration++;
+	}
+
+	/*
+	 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		// also clear an empty cache, to drop the results of running searches
+		if (affectsCalls(event.getDelta()))
+			clear();
+	}
+
+	/*
+	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
+	 */
+	public void propertyChange(PropertyChangeEvent event) {
+		String property= event.getProperty();
+		if (IWorkingSetManager.CHANGE_WORKING_SET_CONTENT_CHANGE.equals(property) || IWorkingSetManager.CHANGE_WORKING_SET_REMOVE.equals(property))
+			clear();
+	}
+
+	private static boolean affectsCalls(IJavaElementDelta delta) {
+		if (delta.getKind() != IJavaElementDelta.CHANGED)
+			return true;
+		// a reconcile which only created an AST does not change any calls
+		int flags= delta.getFlags() & ~(IJavaElementDelta.F_CHILDREN | IJavaElementDelta.F_PRIMARY_WORKING_COPY | IJavaElementDelta.F_AST_AFFECTED);
+		if (flags != 0)
+			return true;
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			if (affectsCalls(children[i]))
+				return true;
+		}
+		return false;
+	}
+
+	private static String getKey(IMember member, int limitTo) {
+		return member.getHandleIdentifier() + '|' + limitTo;
+	}
+}
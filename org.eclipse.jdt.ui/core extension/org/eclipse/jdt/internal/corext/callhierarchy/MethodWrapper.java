@@ -95,6 +95,19 @@ public abstract class MethodWrapper extends PlatformObject {
         return result;
     }
 
+    /**
+     * Returns the children if they have already been found.
+     *
+     * @return the children or <code>null</code> if they have not been searched yet
+     * @since 3.7.1
+     */
+    MethodWrapper[] getCachedCalls() {
+        if (fElements == null) {
+            return null;
+        }
+        return getCalls(null);
+    }
+
     public int getLevel() {
         return fLevel;
     }
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.codemanipulation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaModelException;
+import org.eclipse.jdt.core.search.IJavaSearchConstants;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.eclipse.jdt.core.search.TypeNameMatch;
+
+import org.eclipse.jdt.internal.corext.util.TypeNameMatchCollector;
+
+/**
+ * Caches the types found for simple type names in a project, so that organizing the imports of
+ * many compilation units searches a type name which is unresolved in several of them only once.
+ * <p>
+ * The names missing from the cache are searched together with one type name search. The cache is
+ * meant to live as long as one operation over many compilation units, since it does not notice
+ * types being added or removed, and can be shared by operations running concurrently.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+public final class TypeNameSearchCache {
+
+	private final Map<IJavaProject, Map<String, List<TypeNameMatch>>> fMatches= new HashMap<IJavaProject, Map<String, List<TypeNameMatch>>>();
+
+	/**
+	 * Returns the types with the given simple names in the given project.
+	 *
+	 * @param project the project to search in
+	 * @param simpleNames the simple type names
+	 * @param monitor the progress monitor
+	 * @return the types found, in no particular order
+	 * @throws JavaModelException if the search failed
+	 */
+	public List<TypeNameMatch> findTypes(IJavaProject project, Collection<String> simpleNames, IProgressMonitor monitor) throws JavaModelException {
+		List<TypeNameMatch> result= new ArrayList<TypeNameMatch>();
+		List<String> missing= new ArrayList<String>();
+		synchronized (this) {
+			Map<String, List<TypeNameMatch>> cached= fMatches.get(project);
+			for (Iterator<String> iter= simpleNames.iterator(); iter.hasNext();) {
+				String name= iter.next();
+				List<TypeNameMatch> matches= cached != null ? cached.get(name) : null;
+				if (matches != null) {
+					result.addAll(matches);
+				} else {
+					missing.add(name);
+				}
+			}
+		}
+		if (missing.isEmpty())
+			return result;
+
+		// searched outside of the lock, a name may be searched twice by concurrent operations
+		List<TypeNameMatch> found= searchTypes(project, missing, monitor);
+		Map<String, List<TypeNameMatch>> foundByName= new HashMap<String, List<TypeNameMatch>>(missing.size());
+		for (int i= 0; i < found.size(); i++) {
+			TypeNameMatch match= found.get(i);
+			List<TypeNameMatch> matches= foundByName.get(match.getSimpleTypeName());
+			if (matches == null) {
+				matches= new ArrayList<TypeNameMatch>(1);
+				foundByName.put(match.getSimpleTypeName(), matches);
+			}
+			matches.add(match);
+		}
+		synchronized (this) {
+			Map<String, List<TypeNameMatch>> cached= fMatches.get(project);
+			if (cached == null) {
+				cached= new HashMap<String, List<TypeNameMatch>>();
+				fMatches.put(project, cached);
+			}
+			for (int i= 0; i < missing.size(); i++) {
+				String name= missing.get(i);
+				List<TypeNameMatch> matches= foundByName.get(name);
+				cached.put(name, matches != null ? matches : Collections.<TypeNameMatch>emptyList());
+			}
+		}
+		result.addAll(found);
+		return result;
+	}
+
+	private static List<TypeNameMatch> searchTypes(IJavaProject project, List<String> simpleNames, IProgressMonitor monitor) throws JavaModelException {
+		char[][] allTypes= new char[simpleNames.size()][];
+		for (int i= 0; i < allTypes.length; i++) {
+			allTypes[i]= simpleNames.get(i).toCharArray();
+		}
+		ArrayList<TypeNameMatch> typesFound= new ArrayList<TypeNameMatch>();
+		IJavaSearchScope scope= SearchEngine.createJavaSearchScope(new IJavaElement[] { project });
+		TypeNameMatchCollector collector= new TypeNameMatchCollector(typesFound);
+		new SearchEngine().searchAllTypeNames(null, allTypes, scope, collector, IJavaSearchConstants.WAIT_UNTIL_READY_TO_SEARCH, monitor);
+		return typesFound;
+	}
+}
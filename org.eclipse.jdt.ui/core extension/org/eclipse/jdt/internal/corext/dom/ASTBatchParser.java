@@ -10,17 +10,29 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.dom;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.net.URI;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
+import org.eclipse.core.filesystem.EFS;
+
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
+import org.eclipse.core.resources.IResource;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.dom.ASTParser;
@@ -33,36 +45,56 @@ import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
  * Creates AST from a set of compilation units. Uses the
  * batch parser. Splits the set of compilation units in subsets
  * such that it is unlikely that a out of memory exception will occur.
+ * <p>
+ * The size of a subset is bounded by the source size of its compilation
+ * units. The bound is adapted after each subset: it shrinks when the live heap
+ * is nearly exhausted and grows while there is plenty of free memory. The
+ * bound is shared by all batch parsers, so later parses start from the size
+ * learned by earlier ones. Parsers running at the same time share the bound,
+ * each of them parses batches of an equal part of it.
+ * </p>
  *
  * @since 3.4
  */
 public class ASTBatchParser {
 
-	private static final int MAX_AT_ONCE;
-	static {
-		long maxMemory= Runtime.getRuntime().maxMemory();
-		int ratio= (int) Math.round((double) maxMemory / (64 * 0x100000));
-		switch (ratio) {
-			case 0:
-				MAX_AT_ONCE= 25;
-				break;
-			case 1:
-				MAX_AT_ONCE= 100;
-				break;
-			case 2:
-				MAX_AT_ONCE= 200;
-				break;
-			case 3:
-				MAX_AT_ONCE= 300;
-				break;
-			case 4:
-				MAX_AT_ONCE= 400;
-				break;
-			default:
-				MAX_AT_ONCE= 500;
-				break;
-		}
-	}
+	/**
+	 * The heap needed to hold a parsed compilation unit with resolved bindings, relative to the
+	 * size of its source.
+	 */
+	private static final int HEAP_PER_SOURCE_BYTE= 64;
+
+	/**
+	 * The size assumed for compilation units whose source size cannot be determined.
+	 */
+	private static final long DEFAULT_SOURCE_SIZE= 10 * 1024;
+
+	/**
+	 * The smallest source size a batch is allowed to shrink to.
+	 */
+	private static final long MIN_BATCH_SOURCE_SIZE= 25 * DEFAULT_SOURCE_SIZE;
+
+	/**
+	 * Shrink the batches if the live heap exceeds this fraction of the maximal heap after a batch.
+	 */
+	private static final double HIGH_HEAP_USAGE= 0.7;
+
+	/**
+	 * Grow the batches if the live heap stays below this fraction of the maximal heap after a batch.
+	 */
+	private static final double LOW_HEAP_USAGE= 0.4;
+
+	/**
+	 * The current source size bound of a batch, in bytes. Guarded by <code>ASTBatchParser.class</code>.
+	 */
+	private static long fgBatchSourceSize= Math.max(MIN_BATCH_SOURCE_SIZE, Runtime.getRuntime().maxMemory() / (4 * HEAP_PER_SOURCE_BYTE));
+
+	/**
+	 * The number of parsers currently creating ASTs. Guarded by <code>ASTBatchParser.class</code>.
+	 */
+	private static int fgActiveParsers;
+
+	private final List<Integer> fBatchSizes= new ArrayList<Integer>();
 
 	/**
 	 * Creates ASTs for each compilation unit in <code>units</code>.
@@ -90,33 +122,176 @@ public class ASTBatchParser {
 			monitor= new NullProgressMonitor();
 
 		monitor.beginTask("", compilationUnits.length); //$NON-NLS-1$
+		synchronized (ASTBatchParser.class) {
+			fgActiveParsers++;
+		}
 		try {
+			fBatchSizes.clear();
 
 			ICompilationUnit[][] splited= splitByProject(compilationUnits);
 			for (int i= 0; i < splited.length; i++) {
 				ICompilationUnit[] units= splited[i];
+				long[] sourceSizes= new long[units.length];
+				for (int j= 0; j < units.length; j++) {
+					sourceSizes[j]= getSourceSize(units[j]);
+				}
 
-				if (units.length <= MAX_AT_ONCE) {
-					createParser(units[0].getJavaProject()).createASTs(units, bindingKeys, requestor, new SubProgressMonitor(monitor, units.length));
-				} else {
-					List<ICompilationUnit> list= Arrays.asList(units);
-					int end= 0;
-					int cursor= 0;
-					while (cursor < units.length) {
-						end= Math.min(end + MAX_AT_ONCE, units.length);
-						List<ICompilationUnit> toParse= list.subList(cursor, end);
-
-						createParser(units[0].getJavaProject()).createASTs(toParse.toArray(new ICompilationUnit[toParse.size()]), bindingKeys, requestor,
-								new SubProgressMonitor(monitor, toParse.size()));
-						cursor= end;
+				int cursor= 0;
+				while (cursor < units.length) {
+					long maxSourceSize;
+					synchronized (ASTBatchParser.class) {
+						maxSourceSize= getBatchSourceSize(fgBatchSourceSize, fgActiveParsers);
 					}
+					long sourceSize= 0;
+					int end= cursor;
+					do {
+						sourceSize+= sourceSizes[end];
+						end++;
+					} while (end < units.length && sourceSize + sourceSizes[end] <= maxSourceSize);
+
+					ICompilationUnit[] toParse= new ICompilationUnit[end - cursor];
+					System.arraycopy(units, cursor, toParse, 0, toParse.length);
+
+					createParser(units[0].getJavaProject()).createASTs(toParse, bindingKeys, requestor, new SubProgressMonitor(monitor, toParse.length));
+					fBatchSizes.add(new Integer(toParse.length));
+					adaptBatchSourceSize();
+
+					cursor= end;
 				}
 			}
 		} finally {
+			synchronized (ASTBatchParser.class) {
+				fgActiveParsers--;
+			}
 			monitor.done();
 		}
 	}
 
+	/**
+	 * Returns the number of compilation units parsed in each batch by the last call to
+	 * {@link #createASTs(ICompilationUnit[], String[], ASTRequestor, IProgressMonitor)}.
+	 *
+	 * @return the batch sizes, in the order the batches were parsed
+	 */
+	public final int[] getBatchSizes() {
+		int[] result= new int[fBatchSizes.size()];
+		for (int i= 0; i < result.length; i++) {
+			result[i]= fBatchSizes.get(i).intValue();
+		}
+		return result;
+	}
+
+	/**
+	 * @return the current source size bound of a batch shared by all parsers, in bytes
+	 */
+	public static synchronized long getBatchSourceSize() {
+		return fgBatchSourceSize;
+	}
+
+	/**
+	 * Returns the source size bound of the batches of one parser.
+	 *
+	 * @param batchSourceSize the source size bound shared by all parsers, in bytes
+	 * @param activeParsers the number of parsers creating ASTs at the same time
+	 * @return the source size bound of a batch of one of the parsers, in bytes
+	 * @since 3.7.1
+	 */
+	public static long getBatchSourceSize(long batchSourceSize, int activeParsers) {
+		return Math.max(MIN_BATCH_SOURCE_SIZE, batchSourceSize / Math.max(1, activeParsers));
+	}
+
+	/**
+	 * Adapts the source size bound of the next batches to the live heap after a batch has been
+	 * processed. The ASTs of earlier batches are unreachable by now, but are only reclaimed by the
+	 * next garbage collection, so the currently used heap says little about what the requestor
+	 * retained. The decision is therefore based on the heap used after the last collection.
+	 */
+	private static void adaptBatchSourceSize() {
+		long liveHeapSize= getLiveHeapSize();
+		synchronized (ASTBatchParser.class) {
+			fgBatchSourceSize= adaptBatchSourceSize(fgBatchSourceSize, liveHeapSize, Runtime.getRuntime().maxMemory());
+		}
+	}
+
+	/**
+	 * Computes the source size bound of the next batches: halves it when the live heap exceeds
+	 * {@link #HIGH_HEAP_USAGE} of the maximal heap, grows it by half when the live heap stays below
+	 * {@link #LOW_HEAP_USAGE}, and keeps it otherwise.
+	 *
+	 * @param batchSourceSize the current source size bound, in bytes
+	 * @param liveHeapSize the heap used after the last garbage collection, in bytes, or
+	 *            <code>-1</code> if not known
+	 * @param maxMemory the maximal heap size, in bytes
+	 * @return the new source size bound, in bytes
+	 * @since 3.7.1
+	 */
+	public static long adaptBatchSourceSize(long batchSourceSize, long liveHeapSize, long maxMemory) {
+		if (liveHeapSize < 0)
+			return batchSourceSize;
+		double usage= (double) liveHeapSize / maxMemory;
+		if (usage > HIGH_HEAP_USAGE) {
+			return Math.max(MIN_BATCH_SOURCE_SIZE, batchSourceSize / 2);
+		} else if (usage < LOW_HEAP_USAGE) {
+			return Math.min(maxMemory / (2 * HEAP_PER_SOURCE_BYTE), batchSourceSize + batchSourceSize / 2);
+		}
+		return batchSourceSize;
+	}
+
+	/**
+	 * Returns the heap used after the last garbage collection of each heap pool. The current usage
+	 * is taken for pools which have not been collected yet, since their usage after a collection
+	 * is reported as 0, and for pools which do not report their usage after a collection.
+	 *
+	 * @return the size of the live heap in bytes, or <code>-1</code> if no heap pool has been
+	 *         collected yet
+	 */
+	private static long getLiveHeapSize() {
+		Set<String> collectedPools= new HashSet<String>();
+		for (Iterator<GarbageCollectorMXBean> iter= ManagementFactory.getGarbageCollectorMXBeans().iterator(); iter.hasNext();) {
+			GarbageCollectorMXBean collector= iter.next();
+			if (collector.isValid() && collector.getCollectionCount() > 0) {
+				String[] poolNames= collector.getMemoryPoolNames();
+				for (int i= 0; i < poolNames.length; i++) {
+					collectedPools.add(poolNames[i]);
+				}
+			}
+		}
+
+		long used= 0;
+		boolean collected= false;
+		for (Iterator<MemoryPoolMXBean> iter= ManagementFactory.getMemoryPoolMXBeans().iterator(); iter.hasNext();) {
+			MemoryPoolMXBean pool= iter.next();
+			if (pool.getType() != MemoryType.HEAP || !pool.isValid())
+				continue;
+			MemoryUsage usage= null;
+			if (collectedPools.contains(pool.getName())) {
+				usage= pool.getCollectionUsage();
+				collected|= usage != null;
+			}
+			if (usage == null)
+				usage= pool.getUsage();
+			used+= usage.getUsed();
+		}
+		return collected ? used : -1;
+	}
+
+	private static long getSourceSize(ICompilationUnit unit) {
+		IResource resource= unit.getResource();
+		if (resource != null) {
+			URI location= resource.getLocationURI();
+			if (location != null) {
+				try {
+					long length= EFS.getStore(location).fetchInfo().getLength();
+					if (length > 0)
+						return length;
+				} catch (CoreException e) {
+					// use the default size
+				}
+			}
+		}
+		return DEFAULT_SOURCE_SIZE;
+	}
+
 	/**
 	 * Creates a new parser which can be used to create ASTs
 	 * for compilation units in <code>project</code>
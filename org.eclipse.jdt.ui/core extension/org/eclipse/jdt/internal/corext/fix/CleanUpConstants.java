@@ -1020,6 +1020,18 @@ public class CleanUpConstants {
 	 */
 	public static final String SHOW_CLEAN_UP_WIZARD= "cleanup.showwizard"; //$NON-NLS-1$
 
+	/**
+	 * The maximal number of workers used by the Clean Up Action to clean up a project. More
+	 * than one worker parses the source folders of a project concurrently. <br>
+	 * <br>
+	 * Possible values: Integer value greater than 0<br>
+	 * Default value: <code><b>1</b></code><br>
+	 * <br>
+	 * 
+	 * @since 3.7.1
+	 */
+	public static final String WORKER_COUNT= "cleanup.worker_count"; //$NON-NLS-1$
+
 	/**
 	 * A key to a serialized string in the <code>InstanceScope</code> containing all the profiles.<br>
 	 * Following code snippet can load the profiles:
@@ -1270,6 +1282,7 @@ public class CleanUpConstants {
 		}
 
 		store.setDefault(SHOW_CLEAN_UP_WIZARD, true);
+		store.setDefault(WORKER_COUNT, 1);
 		store.setDefault(CLEANUP_PROFILE, DEFAULT_PROFILE);
 		store.setDefault(CLEANUP_ON_SAVE_PROFILE, DEFAULT_SAVE_PARTICIPANT_PROFILE);
 	}
@@ -10,10 +10,13 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.fix;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -24,6 +27,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 
@@ -56,6 +60,7 @@ import org.eclipse.ltk.core.refactoring.TextEditBasedChangeGroup;
 import org.eclipse.ltk.core.refactoring.TextFileChange;
 
 import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.JavaModelException;
@@ -72,6 +77,7 @@ import org.eclipse.jdt.internal.corext.refactoring.changes.MultiStateCompilation
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextEditUtil;
 import org.eclipse.jdt.internal.corext.util.Messages;
+import org.eclipse.jdt.internal.corext.util.ParallelWorkQueue;
 
 import org.eclipse.jdt.ui.JavaElementLabels;
 import org.eclipse.jdt.ui.cleanup.CleanUpContext;
@@ -81,6 +87,7 @@ import org.eclipse.jdt.ui.cleanup.ICleanUpFix;
 import org.eclipse.jdt.ui.text.java.IProblemLocation;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.fix.AbstractCleanUp;
 import org.eclipse.jdt.internal.ui.fix.IMultiFix.MultiFixContext;
 import org.eclipse.jdt.internal.ui.fix.MapCleanUpOptions;
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
@@ -250,10 +257,14 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Hashtable<ICompilationUnit, List<CleanUpChange>> fSolutions;
 		private final Hashtable<ICompilationUnit, ParseListElement> fCompilationUnitParseElementMap;
 		private final CleanUpRefactoringProgressMonitor fMonitor;
+		private final Object fFixLock;
+		private final HashSet<ICleanUp> fSlowCleanUps;
 
-		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor) {
+		public CleanUpASTRequestor(List<ParseListElement> parseList, Hashtable<ICompilationUnit, List<CleanUpChange>> solutions, CleanUpRefactoringProgressMonitor monitor, Object fixLock, HashSet<ICleanUp> slowCleanUps) {
 			fSolutions= solutions;
 			fMonitor= monitor;
+			fFixLock= fixLock;
+			fSlowCleanUps= slowCleanUps;
 			fUndoneElements= new ArrayList<ParseListElement>();
 			fCompilationUnitParseElementMap= new Hashtable<ICompilationUnit, ParseListElement>(parseList.size());
 			for (Iterator<ParseListElement> iter= parseList.iterator(); iter.hasNext();) {
@@ -302,7 +313,16 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			List<ICleanUp>result= new ArrayList<ICleanUp>();
 			CleanUpChange solution;
 			try {
-				solution= calculateChange(context, cleanUps, result, null);
+				// with several workers, the time of a clean up is measured per worker
+				boolean workerTime= fFixLock != null;
+				if (fFixLock != null && !canCreateFixesConcurrently(cleanUps)) {
+					// clean ups are not required to be thread safe, only parsing runs concurrently
+					synchronized (fFixLock) {
+						solution= calculateChange(context, cleanUps, result, fSlowCleanUps, workerTime);
+					}
+				} else {
+					solution= calculateChange(context, cleanUps, result, fSlowCleanUps, workerTime);
+				}
 			} catch (CoreException e) {
 				throw new FixCalculationException(e);
 			}
@@ -314,6 +334,14 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			return result.toArray(new ICleanUp[result.size()]);
 		}
 
+		private static boolean canCreateFixesConcurrently(ICleanUp[] cleanUps) {
+			for (int i= 0; i < cleanUps.length; i++) {
+				if (!(cleanUps[i] instanceof AbstractCleanUp) || !((AbstractCleanUp)cleanUps[i]).canCreateFixesConcurrently())
+					return false;
+			}
+			return true;
+		}
+
 		private void integrateSolution(CleanUpChange solution, ICompilationUnit source) {
 			ICompilationUnit primary= source.getPrimary();
 
@@ -334,8 +362,24 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		private final Map<String, String> fCleanUpOptions;
 		private final int fSize;
 		private int fIndex;
+		private final Object fFixLock;
+		private final HashSet<ICleanUp> fSlowCleanUps;
 
 		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps) {
+			this(targets, cleanUps, null, null);
+		}
+
+		/**
+		 * @param targets the targets to clean up
+		 * @param cleanUps the clean ups to apply
+		 * @param fixLock the lock to hold while calculating fixes or <code>null</code> if the
+		 *            iterator is the only one running
+		 * @param slowCleanUps collects the clean ups exceeding {@link CleanUpRefactoring#SLOW_CLEAN_UP_THRESHOLD},
+		 *            or <code>null</code> if not of interest
+		 */
+		public CleanUpFixpointIterator(CleanUpTarget[] targets, ICleanUp[] cleanUps, Object fixLock, HashSet<ICleanUp> slowCleanUps) {
+			fFixLock= fixLock;
+			fSlowCleanUps= slowCleanUps;
 			fSolutions= new Hashtable<ICompilationUnit, List<CleanUpChange>>(targets.length);
 			fWorkingCopies= new Hashtable<ICompilationUnit, ICompilationUnit>();
 
@@ -387,7 +431,7 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 				}
 
 				CleanUpRefactoringProgressMonitor cuMonitor= new CleanUpRefactoringProgressMonitor(monitor, parseList.size() + sourceList.size(), fSize, fIndex);
-				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor);
+				CleanUpASTRequestor requestor= new CleanUpASTRequestor(fParseList, fSolutions, cuMonitor, fFixLock, fSlowCleanUps);
 				if (parseList.size() > 0) {
 					ASTBatchParser parser= new ASTBatchParser() {
 						@Override
@@ -507,6 +551,106 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	/**
+	 * Cleans up the partitions of a project on several workers and collects their results. The
+	 * results are kept in partition order so that the resulting change does not depend on the
+	 * order in which the workers finish.
+	 */
+	private static final class CleanUpWorkQueue extends ParallelWorkQueue<Integer> {
+
+		private final List<CleanUpTarget[]> fPartitions;
+		private final ICleanUp[] fCleanUps;
+		private final Change[][] fResults;
+		private final Object fFixLock;
+		private final HashSet<ICleanUp> fSlowCleanUps;
+		private final Map<String, Long> fWorkerTimes;
+
+		public CleanUpWorkQueue(String name, List<CleanUpTarget[]> partitions, ICleanUp[] cleanUps) {
+			super(name, createIndices(partitions.size()));
+			fPartitions= partitions;
+			fCleanUps= cleanUps;
+			fResults= new Change[partitions.size()][];
+			fFixLock= new Object();
+			fSlowCleanUps= new HashSet<ICleanUp>();
+			fWorkerTimes= new LinkedHashMap<String, Long>();
+		}
+
+		private static List<Integer> createIndices(int count) {
+			List<Integer> indices= new ArrayList<Integer>(count);
+			for (int i= 0; i < count; i++)
+				indices.add(new Integer(i));
+			return indices;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void process(Integer item, IProgressMonitor monitor) throws CoreException {
+			int index= item.intValue();
+			HashSet<ICleanUp> slowCleanUps= new HashSet<ICleanUp>();
+			CleanUpFixpointIterator iter= new CleanUpFixpointIterator(fPartitions.get(index), fCleanUps, fFixLock, slowCleanUps);
+			long start= System.currentTimeMillis();
+			try {
+				while (iter.hasNext()) {
+					iter.next(monitor);
+				}
+				setResult(index, iter.getResult(), slowCleanUps, System.currentTimeMillis() - start);
+			} finally {
+				iter.dispose();
+			}
+		}
+
+		private synchronized void setResult(int index, Change[] result, HashSet<ICleanUp> slowCleanUps, long time) {
+			fResults[index]= result;
+			fSlowCleanUps.addAll(slowCleanUps);
+			String worker= Thread.currentThread().getName();
+			Long workerTime= fWorkerTimes.get(worker);
+			fWorkerTimes.put(worker, new Long(workerTime != null ? workerTime.longValue() + time : time));
+		}
+
+		/**
+		 * @return the changes of all partitions, in partition order. Must only be called after
+		 *         all partitions have been processed.
+		 */
+		public synchronized Change[] getResult() {
+			List<Change> result= new ArrayList<Change>();
+			for (int i= 0; i < fResults.length; i++) {
+				Change[] changes= fResults[i];
+				for (int j= 0; j < changes.length; j++) {
+					result.add(changes[j]);
+				}
+			}
+			return result.toArray(new Change[result.size()]);
+		}
+
+		/**
+		 * @return the time spent by each worker and the clean ups which exceeded
+		 *         {@link CleanUpRefactoring#SLOW_CLEAN_UP_THRESHOLD} on one of the workers
+		 */
+		public synchronized String getSlowCleanUpsReport() {
+			StringBuffer buf= new StringBuffer();
+			for (Iterator<Entry<String, Long>> iterator= fWorkerTimes.entrySet().iterator(); iterator.hasNext();) {
+				Entry<String, Long> entry= iterator.next();
+				buf.append(", ").append(entry.getKey()).append(": ").append(entry.getValue()).append(" ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+			}
+			for (Iterator<ICleanUp> iterator= fSlowCleanUps.iterator(); iterator.hasNext();) {
+				buf.append(", slow clean up: ").append(iterator.next().getClass().getName()); //$NON-NLS-1$
+			}
+			return buf.toString();
+		}
+	}
+
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/CleanUpRefactoring"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	private static final String DEBUG_PREFIX= "CleanUpRefactoring > "; //$NON-NLS-1$
+
+	/**
+	 * Minimal number of compilation units in a partition processed by one worker. Smaller
+	 * partitions would lose the benefit of parsing the units in a batch.
+	 */
+	private static final int MIN_PARTITION_SIZE= 25;
+
 	private static final RefactoringTickProvider CLEAN_UP_REFACTORING_TICK_PROVIDER= new RefactoringTickProvider(0, 1, 0, 0);
 
 	/**
@@ -515,6 +659,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	 */
 	private static final int SLOW_CLEAN_UP_THRESHOLD= 2000;
 
+	private static final ThreadMXBean THREAD_MX_BEAN= ManagementFactory.getThreadMXBean();
+
 	private final List<ICleanUp> fCleanUps;
 	private final Hashtable<IJavaProject, List<CleanUpTarget>> fProjects;
 	private Change fChange;
@@ -523,6 +669,8 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 
 	private boolean fUseOptionsFromProfile;
 
+	private int fWorkerCount;
+
 	public CleanUpRefactoring() {
 		this(FixMessages.CleanUpRefactoring_Refactoring_name);
 	}
@@ -532,12 +680,26 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		fCleanUps= new ArrayList<ICleanUp>();
 		fProjects= new Hashtable<IJavaProject, List<CleanUpTarget>>();
 		fUseOptionsFromProfile= false;
+		fWorkerCount= 1;
 	}
 
 	public void setUseOptionsFromProfile(boolean enabled) {
 		fUseOptionsFromProfile= enabled;
 	}
 
+	/**
+	 * Sets the maximal number of workers used to process the targets of a project. With more
+	 * than one worker the targets are split by source folder and parsed concurrently. Fixes are
+	 * calculated concurrently only if all clean ups can create fixes concurrently, see
+	 * {@link AbstractCleanUp#canCreateFixesConcurrently()}, otherwise one at a time. The default
+	 * is <code>1</code>.
+	 *
+	 * @param workerCount the maximal number of concurrent workers, at least <code>1</code>
+	 */
+	public void setWorkerCount(int workerCount) {
+		fWorkerCount= Math.max(1, workerCount);
+	}
+
 	public void addCompilationUnit(ICompilationUnit unit) {
 		addCleanUpTarget(new CleanUpTarget(unit));
 	}
@@ -708,6 +870,12 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	private Change[] cleanUpProject(IJavaProject project, CleanUpTarget[] targets, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
+		if (fWorkerCount > 1) {
+			List<CleanUpTarget[]> partitions= partitionBySourceFolder(targets);
+			if (partitions.size() > 1)
+				return cleanUpProjectParallel(project, targets.length, partitions, cleanUps, monitor);
+		}
+
 		CleanUpFixpointIterator iter= new CleanUpFixpointIterator(targets, cleanUps);
 
 		SubProgressMonitor subMonitor= new SubProgressMonitor(monitor, 2 * targets.length * cleanUps.length);
@@ -725,6 +893,58 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 		}
 	}
 
+	private Change[] cleanUpProjectParallel(IJavaProject project, int targetCount, List<CleanUpTarget[]> partitions, ICleanUp[] cleanUps, IProgressMonitor monitor) throws CoreException {
+		CleanUpWorkQueue queue= new CleanUpWorkQueue(getName(), partitions, cleanUps);
+
+		SubProgressMonitor subMonitor= new SubProgressMonitor(monitor, 2 * targetCount * cleanUps.length);
+		subMonitor.beginTask("", targetCount); //$NON-NLS-1$
+		subMonitor.subTask(Messages.format(FixMessages.CleanUpRefactoring_Parser_Startup_message, BasicElementLabels.getResourceName(project.getProject())));
+		long start= System.currentTimeMillis();
+		try {
+			queue.run(fWorkerCount, subMonitor);
+
+			return queue.getResult();
+		} finally {
+			subMonitor.done();
+
+			if (DEBUG) {
+				System.out.println(DEBUG_PREFIX + project.getElementName() + ": " + targetCount + " compilation units in " + partitions.size() + " partitions, " + (System.currentTimeMillis() - start) + " ms" + queue.getSlowCleanUpsReport()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			}
+		}
+	}
+
+	/**
+	 * Splits the targets by source folder. Large source folders are split further so that all
+	 * workers get a share, but no partition is smaller than {@link #MIN_PARTITION_SIZE} unless
+	 * the source folder itself is.
+	 *
+	 * @param targets the targets of one project
+	 * @return the partitions, in the order of the given targets
+	 */
+	private List<CleanUpTarget[]> partitionBySourceFolder(CleanUpTarget[] targets) {
+		Map<IJavaElement, List<CleanUpTarget>> sourceFolders= new LinkedHashMap<IJavaElement, List<CleanUpTarget>>();
+		for (int i= 0; i < targets.length; i++) {
+			IJavaElement root= targets[i].getCompilationUnit().getAncestor(IJavaElement.PACKAGE_FRAGMENT_ROOT);
+			List<CleanUpTarget> list= sourceFolders.get(root);
+			if (list == null) {
+				list= new ArrayList<CleanUpTarget>();
+				sourceFolders.put(root, list);
+			}
+			list.add(targets[i]);
+		}
+
+		int partitionSize= Math.max(MIN_PARTITION_SIZE, (targets.length + fWorkerCount - 1) / fWorkerCount);
+		List<CleanUpTarget[]> result= new ArrayList<CleanUpTarget[]>();
+		for (Iterator<List<CleanUpTarget>> iterator= sourceFolders.values().iterator(); iterator.hasNext();) {
+			List<CleanUpTarget> list= iterator.next();
+			for (int start= 0; start < list.size(); start+= partitionSize) {
+				List<CleanUpTarget> partition= list.subList(start, Math.min(start + partitionSize, list.size()));
+				result.add(partition.toArray(new CleanUpTarget[partition.size()]));
+			}
+		}
+		return result;
+	}
+
 	private RefactoringStatus setOptionsFromProfile(IJavaProject javaProject, ICleanUp[] cleanUps) {
 		Map<String, String> options= CleanUpPreferenceUtil.loadOptions(new ProjectScope(javaProject.getProject()));
 		if (options == null)
@@ -790,6 +1010,24 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 	}
 
 	public static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps) throws CoreException {
+		return calculateChange(context, cleanUps, undoneCleanUps, slowCleanUps, false);
+	}
+
+	/**
+	 * Returns the current time in ms, used to find slow clean ups.
+	 *
+	 * @param workerTime <code>true</code> to return the CPU time of the current thread if
+	 *            available, so that a clean up running next to other workers is not reported
+	 *            as slow because the workers compete for the processors
+	 * @return the current time in ms
+	 */
+	private static long getCurrentTime(boolean workerTime) {
+		if (workerTime && THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported())
+			return THREAD_MX_BEAN.getCurrentThreadCpuTime() / 1000000;
+		return System.currentTimeMillis();
+	}
+
+	private static CleanUpChange calculateChange(CleanUpContext context, ICleanUp[] cleanUps, List<ICleanUp> undoneCleanUps, HashSet<ICleanUp> slowCleanUps, boolean workerTime) throws CoreException {
 		if (cleanUps.length == 0)
 			return null;
 
@@ -799,9 +1037,9 @@ public class CleanUpRefactoring extends Refactoring implements IScheduledRefacto
 			ICleanUp cleanUp= cleanUps[i];
 			ICleanUpFix fix;
 			if (slowCleanUps != null) {
-				long timeBefore= System.currentTimeMillis();
+				long timeBefore= getCurrentTime(workerTime);
 				fix= cleanUp.createFix(context);
-				if (System.currentTimeMillis() - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
+				if (getCurrentTime(workerTime) - timeBefore > SLOW_CLEAN_UP_THRESHOLD)
 					slowCleanUps.add(cleanUp);
 			} else {
 				fix= cleanUp.createFix(context);
@@ -15,9 +15,12 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.w3c.dom.Element;
 
@@ -28,6 +31,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
@@ -39,6 +43,7 @@ import org.eclipse.core.filebuffers.ITextFileBufferManager;
 import org.eclipse.core.filebuffers.LocationKind;
 
 import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClassFile;
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.IElementChangedListener;
 import org.eclipse.jdt.core.IJavaElement;
@@ -59,8 +64,9 @@ public class OpenTypeHistory extends History {
 
 	private static class TypeHistoryDeltaListener implements IElementChangedListener {
 		public void elementChanged(ElementChangedEvent event) {
-			if (processDelta(event.getDelta())) {
-				OpenTypeHistory.getInstance().markAsInconsistent();
+			List<IJavaElement> changedElements= new ArrayList<IJavaElement>();
+			if (processDelta(event.getDelta(), changedElements)) {
+				OpenTypeHistory.getInstance().markAsInconsistent(changedElements);
 			}
 		}
 
@@ -68,11 +74,12 @@ public class OpenTypeHistory extends History {
 		 * Computes whether the history needs a consistency check or not.
 		 *
 		 * @param delta the Java element delta
+		 * @param changedElements the list to add the elements to whose history entries must be checked
 		 *
 		 * @return <code>true</code> if consistency must be checked
 		 *  <code>false</code> otherwise.
 		 */
-		private boolean processDelta(IJavaElementDelta delta) {
+		private boolean processDelta(IJavaElementDelta delta, List<IJavaElement> changedElements) {
 			IJavaElement elem= delta.getElement();
 
 			boolean isChanged= delta.getKind() == IJavaElementDelta.CHANGED;
@@ -82,31 +89,36 @@ public class OpenTypeHistory extends History {
 				case IJavaElement.JAVA_PROJECT:
 					if (isRemoved || (isChanged &&
 							(delta.getFlags() & IJavaElementDelta.F_CLOSED) != 0)) {
+						changedElements.add(elem);
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, changedElements);
 				case IJavaElement.PACKAGE_FRAGMENT_ROOT:
 					if (isRemoved || (isChanged && (
 							(delta.getFlags() & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0 ||
 							(delta.getFlags() & IJavaElementDelta.F_REMOVED_FROM_CLASSPATH) != 0))) {
+						changedElements.add(elem);
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, changedElements);
 				case IJavaElement.TYPE:
 					if (isChanged && (delta.getFlags() & IJavaElementDelta.F_MODIFIERS) != 0) {
+						changedElements.add(elem);
 						return true;
 					}
 					if (isRemoved) {
+						changedElements.add(elem);
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, changedElements);
 				case IJavaElement.JAVA_MODEL:
 				case IJavaElement.PACKAGE_FRAGMENT:
 				case IJavaElement.CLASS_FILE:
 					if (isRemoved) {
+						changedElements.add(elem);
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, changedElements);
 				case IJavaElement.COMPILATION_UNIT:
 					// Not the primary compilation unit. Ignore it
 					if (!JavaModelUtil.isPrimary((ICompilationUnit) elem)) {
@@ -114,9 +126,10 @@ public class OpenTypeHistory extends History {
 					}
 
 					if (isRemoved || (isChanged && isUnknownStructuralChange(delta.getFlags()))) {
+						changedElements.add(elem);
 						return true;
 					}
-					return processChildrenDelta(delta);
+					return processChildrenDelta(delta, changedElements);
 				default:
 					// fields, methods, imports ect
 					return false;
@@ -135,14 +148,15 @@ public class OpenTypeHistory extends History {
 		}
 		*/
 
-		private boolean processChildrenDelta(IJavaElementDelta delta) {
+		private boolean processChildrenDelta(IJavaElementDelta delta, List<IJavaElement> changedElements) {
 			IJavaElementDelta[] children= delta.getAffectedChildren();
+			boolean result= false;
 			for (int i= 0; i < children.length; i++) {
-				if (processDelta(children[i])) {
-					return true;
+				if (processDelta(children[i], changedElements)) {
+					result= true;
 				}
 			}
-			return false;
+			return result;
 		}
 	}
 
@@ -163,10 +177,24 @@ public class OpenTypeHistory extends History {
 		}
 	}
 
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/OpenTypeHistory"));  //$NON-NLS-1$//$NON-NLS-2$
+
 	// Needs to be volatile since accesses aren't synchronized.
 	private volatile boolean fNeedsConsistencyCheck;
 	// Map of cached time stamps
 	private Map<TypeNameMatch, Long> fTimestampMapping;
+	// Map of the handle identifiers of the containers (compilation unit, class file or archive)
+	private Map<TypeNameMatch, String> fContainerMapping;
+
+	// Handle identifiers of the elements changed since the last consistency check, guarded by fChangedElementsLock
+	private final Object fChangedElementsLock= new Object();
+	private Set<String> fChangedElements;
+	private boolean fNeedsFullConsistencyCheck;
+
+	// Statistics about callers waiting for the consistency check, only kept when debugging, guarded by this
+	private int fWaitCount;
+	private long fTotalWaitTime;
+	private long fMaxWaitTime;
 
 	private final IElementChangedListener fDeltaListener;
 	private final UpdateJob fUpdateJob;
@@ -177,6 +205,7 @@ public class OpenTypeHistory extends History {
 	private static final String NODE_HANDLE= "handle"; //$NON-NLS-1$
 	private static final String NODE_MODIFIERS= "modifiers";  //$NON-NLS-1$
 	private static final String NODE_TIMESTAMP= "timestamp"; //$NON-NLS-1$
+	private static final String NODE_CONTAINER= "container"; //$NON-NLS-1$
 
 	private static OpenTypeHistory fgInstance;
 
@@ -195,7 +224,11 @@ public class OpenTypeHistory extends History {
 	private OpenTypeHistory() {
 		super(FILENAME, NODE_ROOT, NODE_TYPE_INFO);
 		fTimestampMapping= new HashMap<TypeNameMatch, Long>();
+		fContainerMapping= new HashMap<TypeNameMatch, String>();
+		fChangedElements= new HashSet<String>();
 		fNeedsConsistencyCheck= true;
+		// the containers may have changed while the workbench was not running
+		fNeedsFullConsistencyCheck= true;
 		load();
 		fDeltaListener= new TypeHistoryDeltaListener();
 		JavaCore.addElementChangedListener(fDeltaListener);
@@ -209,6 +242,29 @@ public class OpenTypeHistory extends History {
 	}
 
 	public void markAsInconsistent() {
+		synchronized (fChangedElementsLock) {
+			fNeedsFullConsistencyCheck= true;
+		}
+		fNeedsConsistencyCheck= true;
+		// cancel the old job. If no job is running this is a NOOP.
+		fUpdateJob.cancel();
+		fUpdateJob.schedule();
+	}
+
+	/**
+	 * Marks the history entries of the given elements as inconsistent. Only the entries whose
+	 * container is one of the elements, contains one of the elements or is contained in one of them
+	 * are checked by the next consistency check.
+	 *
+	 * @param changedElements the changed Java elements
+	 * @since 3.7.1
+	 */
+	private void markAsInconsistent(List<IJavaElement> changedElements) {
+		synchronized (fChangedElementsLock) {
+			for (Iterator<IJavaElement> iter= changedElements.iterator(); iter.hasNext();) {
+				fChangedElements.add(iter.next().getHandleIdentifier());
+			}
+		}
 		fNeedsConsistencyCheck= true;
 		// cancel the old job. If no job is running this is a NOOP.
 		fUpdateJob.cancel();
@@ -222,20 +278,33 @@ public class OpenTypeHistory extends History {
 	public void checkConsistency(IProgressMonitor monitor) throws OperationCanceledException {
 		if (!fNeedsConsistencyCheck)
 			return;
-		if (fUpdateJob.getState() == Job.RUNNING) {
-			try {
-				Job.getJobManager().join(UpdateJob.FAMILY, monitor);
-			} catch (OperationCanceledException e) {
-				// Ignore and do the consistency check without
-				// waiting for the update job.
-			} catch (InterruptedException e) {
-				// Ignore and do the consistency check without
-				// waiting for the update job.
+		long start= System.currentTimeMillis();
+		try {
+			if (fUpdateJob.getState() == Job.RUNNING) {
+				try {
+					Job.getJobManager().join(UpdateJob.FAMILY, monitor);
+				} catch (OperationCanceledException e) {
+					// Ignore and do the consistency check without
+					// waiting for the update job.
+				} catch (InterruptedException e) {
+					// Ignore and do the consistency check without
+					// waiting for the update job.
+				}
 			}
+			if (!fNeedsConsistencyCheck)
+				return;
+			internalCheckConsistency(monitor);
+		} finally {
+			if (DEBUG)
+				printWait(System.currentTimeMillis() - start);
 		}
-		if (!fNeedsConsistencyCheck)
-			return;
-		internalCheckConsistency(monitor);
+	}
+
+	private synchronized void printWait(long time) {
+		fWaitCount++;
+		fTotalWaitTime+= time;
+		fMaxWaitTime= Math.max(fMaxWaitTime, time);
+		System.out.println("OpenTypeHistory > waited " + time + " ms for consistency check (" + fWaitCount + " waits, " + fTotalWaitTime + " ms total, " + fMaxWaitTime + " ms max)"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
 	}
 
 	public synchronized boolean contains(TypeNameMatch type) {
@@ -248,17 +317,23 @@ public class OpenTypeHistory extends History {
 		if (!fTimestampMapping.containsKey(info)) {
 			fTimestampMapping.put(info, new Long(getContainerTimestamp(info)));
 		}
+		if (!fContainerMapping.containsKey(info)) {
+			fContainerMapping.put(info, getContainerHandle(info));
+		}
 		super.accessed(info);
 	}
 
 	public synchronized TypeNameMatch remove(TypeNameMatch info) {
 		fTimestampMapping.remove(info);
+		fContainerMapping.remove(info);
 		return (TypeNameMatch)super.remove(info);
 	}
 
 	public synchronized void replace(TypeNameMatch old, TypeNameMatch newMatch) {
 		fTimestampMapping.remove(old);
 		fTimestampMapping.put(newMatch, new Long(getContainerTimestamp(newMatch)));
+		fContainerMapping.remove(old);
+		fContainerMapping.put(newMatch, getContainerHandle(newMatch));
 		super.remove(old);
 		super.accessed(newMatch);
 	}
@@ -297,37 +372,132 @@ public class OpenTypeHistory extends History {
 		// Setting fNeedsConsistencyCheck is necessary here since
 		// markAsInconsistent isn't synchronized.
 		fNeedsConsistencyCheck= true;
-		List<Object> typesToCheck= new ArrayList<Object>(getKeys());
-		monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, typesToCheck.size());
-		monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
-		for (Iterator<Object> iter= typesToCheck.iterator(); iter.hasNext();) {
-			TypeNameMatch type= (TypeNameMatch)iter.next();
-			long currentTimestamp= getContainerTimestamp(type);
-			Long lastTested= fTimestampMapping.get(type);
-			if (lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isContainerDirty(type))
-				continue;
-			try {
-				IType jType= type.getType();
-				if (jType == null || !jType.exists()) {
-					remove(type);
-				} else {
-					// copy over the modifiers since they may have changed
-					int modifiers= jType.getFlags();
-					if (modifiers != type.getModifiers()) {
-						replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
-					} else {
-						fTimestampMapping.put(type, new Long(currentTimestamp));
+		long start= System.currentTimeMillis();
+
+		boolean isFullCheck;
+		Set<String> changedElements;
+		synchronized (fChangedElementsLock) {
+			isFullCheck= fNeedsFullConsistencyCheck;
+			changedElements= fChangedElements;
+			fNeedsFullConsistencyCheck= false;
+			fChangedElements= new HashSet<String>();
+		}
+
+		boolean completed= false;
+		try {
+			// Group the types by container so that each container's time stamp is only fetched once.
+			// Unless a full check is required, only the containers affected by the changed elements are checked.
+			Map<String, List<TypeNameMatch>> containers= new LinkedHashMap<String, List<TypeNameMatch>>();
+			int typeCount= 0;
+			for (Iterator<Object> iter= getKeys().iterator(); iter.hasNext();) {
+				TypeNameMatch type= (TypeNameMatch)iter.next();
+				String container= fContainerMapping.get(type);
+				if (container == null) {
+					container= getContainerHandle(type);
+					fContainerMapping.put(type, container);
+				}
+				if (!isFullCheck && !isAffected(container, changedElements))
+					continue;
+				List<TypeNameMatch> types= containers.get(container);
+				if (types == null) {
+					types= new ArrayList<TypeNameMatch>();
+					containers.put(container, types);
+				}
+				types.add(type);
+				typeCount++;
+			}
+
+			monitor.beginTask(CorextMessages.TypeInfoHistory_consistency_check, typeCount);
+			monitor.setTaskName(CorextMessages.TypeInfoHistory_consistency_check);
+			for (Iterator<List<TypeNameMatch>> containerIter= containers.values().iterator(); containerIter.hasNext();) {
+				List<TypeNameMatch> types= containerIter.next();
+				TypeNameMatch first= types.get(0);
+				long currentTimestamp= getContainerTimestamp(first);
+				boolean isDirty= isFullCheck && isContainerDirty(first);
+				for (Iterator<TypeNameMatch> iter= types.iterator(); iter.hasNext();) {
+					TypeNameMatch type= iter.next();
+					Long lastTested= fTimestampMapping.get(type);
+					if (isFullCheck && lastTested != null && currentTimestamp != IResource.NULL_STAMP && currentTimestamp == lastTested.longValue() && !isDirty)
+						continue;
+					try {
+						IType jType= type.getType();
+						if (jType == null || !jType.exists()) {
+							remove(type);
+						} else {
+							// copy over the modifiers since they may have changed
+							int modifiers= jType.getFlags();
+							if (modifiers != type.getModifiers()) {
+								replace(type, SearchEngine.createTypeNameMatch(jType, modifiers));
+							} else {
+								fTimestampMapping.put(type, new Long(currentTimestamp));
+							}
+						}
+					} catch (JavaModelException e) {
+						remove(type);
 					}
+					if (monitor.isCanceled())
+						throw new OperationCanceledException();
+					monitor.worked(1);
 				}
-			} catch (JavaModelException e) {
-				remove(type);
 			}
-			if (monitor.isCanceled())
-				throw new OperationCanceledException();
-			monitor.worked(1);
+			monitor.done();
+			completed= true;
+			if (DEBUG) {
+				System.out.println("OpenTypeHistory > " + (isFullCheck ? "full" : "incremental") + " consistency check of " + typeCount + " types in " + containers.size() + " containers, " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+			}
+		} finally {
+			if (!completed) {
+				// check the same elements again next time
+				synchronized (fChangedElementsLock) {
+					fNeedsFullConsistencyCheck|= isFullCheck;
+					fChangedElements.addAll(changedElements);
+				}
+			}
+		}
+		synchronized (fChangedElementsLock) {
+			// elements changed during the check are handled by the scheduled update job
+			if (!fNeedsFullConsistencyCheck && fChangedElements.isEmpty())
+				fNeedsConsistencyCheck= false;
+		}
+	}
+
+	/**
+	 * Tells whether the history entries of the given container are affected by the changed elements.
+	 * The handle identifier of a Java element starts with the handle identifiers of its ancestors.
+	 *
+	 * @param container the handle identifier of the container
+	 * @param changedElements the handle identifiers of the changed elements
+	 * @return <code>true</code> if the container is one of the elements, contains one of them or is
+	 *         contained in one of them
+	 */
+	private static boolean isAffected(String container, Set<String> changedElements) {
+		for (Iterator<String> iter= changedElements.iterator(); iter.hasNext();) {
+			String changed= iter.next();
+			if (container.startsWith(changed) || changed.startsWith(container))
+				return true;
 		}
-		monitor.done();
-		fNeedsConsistencyCheck= false;
+		return false;
+	}
+
+	/**
+	 * Returns the handle identifier of the container of the given type whose time stamp is
+	 * checked: the compilation unit, the class file or the archive containing the type.
+	 *
+	 * @param match the type
+	 * @return the handle identifier of the container
+	 */
+	private static String getContainerHandle(TypeNameMatch match) {
+		IType type= match.getType();
+		IPackageFragmentRoot root= match.getPackageFragmentRoot();
+		if (root != null && root.isArchive())
+			return root.getHandleIdentifier();
+		ICompilationUnit cu= type.getCompilationUnit();
+		if (cu != null)
+			return cu.getHandleIdentifier();
+		IClassFile classFile= type.getClassFile();
+		if (classFile != null)
+			return classFile.getHandleIdentifier();
+		return type.getHandleIdentifier();
 	}
 
 	private long getContainerTimestamp(TypeNameMatch match) {
@@ -411,6 +581,10 @@ public class OpenTypeHistory extends History {
 		if (timestamp != IResource.NULL_STAMP) {
 			fTimestampMapping.put(info, new Long(timestamp));
 		}
+		String container= type.getAttribute(NODE_CONTAINER);
+		if (container != null && container.length() > 0) {
+			fContainerMapping.put(info, container);
+		}
 		return info;
 	}
 
@@ -426,6 +600,10 @@ public class OpenTypeHistory extends History {
 		} else {
 			typeElement.setAttribute(NODE_TIMESTAMP, timestamp.toString());
 		}
+		String container= fContainerMapping.get(type);
+		if (container != null) {
+			typeElement.setAttribute(NODE_CONTAINER, container);
+		}
 	}
 
 }
@@ -0,0 +1,275 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.corext.util;
+
+import java.util.Collection;
+import java.util.LinkedList;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * A queue of work items which are processed by the calling thread and a few background jobs.
+ * <p>
+ * The calling thread processes items itself until the queue is empty, so that all items are
+ * processed even if the jobs do not get to run. The progress reported by the workers is forwarded
+ * to the monitor of the calling thread, and canceling that monitor stops all workers. The first
+ * exception or error thrown by a worker stops the others and is rethrown in the calling thread.
+ * </p>
+ * <p>
+ * Items are handed out in order, but may be completed in any order. Subclasses keep the results.
+ * </p>
+ *
+ * @param <T> the type of the work items
+ * @since 3.7.1
+ */
+public abstract class ParallelWorkQueue<T> {
+
+	private final String fJobName;
+	private final LinkedList<T> fItems;
+
+	/**
+	 * The monitor of the calling thread while {@link #run(int, IProgressMonitor)} is running.
+	 */
+	private volatile IProgressMonitor fMonitor;
+
+	private int fActiveWorkers;
+	private double fWorked;
+	private boolean fCanceled;
+	private boolean fDone;
+	private Throwable fException;
+
+	/**
+	 * The monitor passed to {@link #process(Object, IProgressMonitor)}. Progress is accumulated
+	 * and reported by the calling thread, and the monitor is canceled when the queue is.
+	 */
+	private final IProgressMonitor fWorkerMonitor= new NullProgressMonitor() {
+		@Override
+		public void worked(int work) {
+			internalWorked(work);
+		}
+
+		@Override
+		public void internalWorked(double work) {
+			addWorked(work);
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return ParallelWorkQueue.this.isCanceled();
+		}
+
+		@Override
+		public void setCanceled(boolean canceled) {
+			if (canceled)
+				cancel();
+		}
+	};
+
+	/**
+	 * Creates a work queue.
+	 *
+	 * @param jobName the name of the background jobs
+	 * @param items the items to process
+	 */
+	protected ParallelWorkQueue(String jobName, Collection<? extends T> items) {
+		fJobName= jobName;
+		fItems= new LinkedList<T>(items);
+	}
+
+	/**
+	 * Processes an item. Called concurrently in the calling thread and in the background jobs.
+	 *
+	 * @param item the item
+	 * @param monitor the monitor to report progress to, in the units of the monitor passed to
+	 *            {@link #run(int, IProgressMonitor)}, and to check for cancellation
+	 * @throws CoreException if the item could not be processed, which stops the other workers
+	 */
+	protected abstract void process(T item, IProgressMonitor monitor) throws CoreException;
+
+	/**
+	 * Adds an item to the end of the queue. May be called while processing an item.
+	 *
+	 * @param item the item
+	 */
+	protected final synchronized void addItem(T item) {
+		fItems.add(item);
+	}
+
+	/**
+	 * Processes all items, using up to <code>workerCount - 1</code> background jobs in addition to
+	 * the calling thread. The caller has to begin the task of the monitor.
+	 *
+	 * @param workerCount the maximal number of threads processing items, including the calling
+	 *            thread
+	 * @param monitor the progress monitor of the calling thread
+	 * @throws CoreException the first exception thrown by {@link #process(Object, IProgressMonitor)}
+	 * @throws OperationCanceledException if the monitor has been canceled
+	 */
+	public final void run(int workerCount, IProgressMonitor monitor) throws CoreException {
+		fMonitor= monitor;
+		try {
+			synchronized (this) {
+				workerCount= Math.min(workerCount, fItems.size());
+			}
+			for (int i= 1; i < workerCount; i++) {
+				Job worker= new Job(fJobName) {
+					@Override
+					protected IStatus run(IProgressMonitor jobMonitor) {
+						processItems(false);
+						return Status.OK_STATUS;
+					}
+				};
+				worker.setSystem(true);
+				worker.schedule();
+			}
+
+			while (true) {
+				processItems(true);
+				waitForWorkers();
+				synchronized (this) {
+					// a worker may have added items after the calling thread ran out of items
+					if (fCanceled || fItems.isEmpty())
+						break;
+				}
+			}
+		} finally {
+			synchronized (this) {
+				fDone= true;
+			}
+			fMonitor= null;
+		}
+
+		Throwable exception;
+		synchronized (this) {
+			if (!fCanceled)
+				return;
+			exception= fException;
+		}
+		if (exception instanceof CoreException)
+			throw (CoreException) exception;
+		if (exception instanceof RuntimeException)
+			throw (RuntimeException) exception;
+		if (exception instanceof Error)
+			throw (Error) exception;
+		throw new OperationCanceledException();
+	}
+
+	/**
+	 * @return <code>true</code> if the queue or the monitor of the calling thread has been
+	 *         canceled, or a worker failed
+	 */
+	public final boolean isCanceled() {
+		synchronized (this) {
+			if (fCanceled)
+				return true;
+		}
+		IProgressMonitor monitor= fMonitor;
+		return monitor != null && monitor.isCanceled();
+	}
+
+	/**
+	 * Stops handing out items.
+	 */
+	public final synchronized void cancel() {
+		fCanceled= true;
+	}
+
+	private void processItems(boolean callingThread) {
+		synchronized (this) {
+			if (fDone)
+				return; // a background job which started after the calling thread finished
+			fActiveWorkers++;
+		}
+		try {
+			T item;
+			while ((item= nextItem()) != null) {
+				process(item, fWorkerMonitor);
+				if (callingThread)
+					reportProgress();
+			}
+		} catch (OperationCanceledException e) {
+			cancel();
+		} catch (Throwable e) {
+			setFailed(e);
+		} finally {
+			workerDone();
+		}
+	}
+
+	private T nextItem() {
+		if (isCanceled()) {
+			cancel();
+			return null;
+		}
+		synchronized (this) {
+			if (fCanceled || fItems.isEmpty())
+				return null;
+			return fItems.removeFirst();
+		}
+	}
+
+	private synchronized void setFailed(Throwable exception) {
+		if (fException == null)
+			fException= exception;
+		fCanceled= true;
+	}
+
+	private synchronized void addWorked(double work) {
+		fWorked+= work;
+	}
+
+	private synchronized void workerDone() {
+		fActiveWorkers--;
+		notifyAll();
+	}
+
+	/**
+	 * Reports the accumulated progress to the monitor. Must be called in the calling thread.
+	 */
+	private void reportProgress() {
+		double worked;
+		synchronized (this) {
+			worked= fWorked;
+			fWorked= 0.0;
+		}
+		if (worked > 0.0)
+			fMonitor.internalWorked(worked);
+	}
+
+	/**
+	 * Waits until all background jobs which took items are done, reporting their progress.
+	 */
+	private void waitForWorkers() {
+		IProgressMonitor monitor= fMonitor;
+		boolean done= false;
+		while (!done) {
+			synchronized (this) {
+				if (fActiveWorkers > 0) {
+					try {
+						wait(100);
+					} catch (InterruptedException e) {
+						fCanceled= true;
+					}
+				}
+				done= fActiveWorkers == 0;
+			}
+			if (monitor.isCanceled())
+				cancel();
+			reportProgress();
+		}
+	}
+}
@@ -11,10 +11,14 @@
 package org.eclipse.jdt.internal.corext.util;
 
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
@@ -23,16 +27,25 @@ import org.eclipse.jdt.core.JavaModelException;
 
 /**
  * A thread-safe cache for super type hierarchies.
+ * <p>
+ * Lookups do not lock: every type of a cached hierarchy is indexed in a concurrent map. Only adding
+ * and evicting hierarchies is serialized. Concurrent requests for the hierarchy of the same type
+ * compute it only once.
+ * </p>
  */
 public class SuperTypeHierarchyCache {
 
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private ITypeHierarchy fTypeHierarchy;
-		private long fLastAccess;
+		private final ITypeHierarchy fTypeHierarchy;
+		private final IType[] fTypes;
+		private final ConcurrentMap<IType, MethodOverrideTester> fMethodOverrideTesters;
+		private volatile long fLastAccess;
 
 		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
 			fTypeHierarchy= hierarchy;
+			fTypes= hierarchy.getAllTypes();
+			fMethodOverrideTesters= new ConcurrentHashMap<IType, MethodOverrideTester>();
 			fTypeHierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
@@ -45,6 +58,24 @@ public class SuperTypeHierarchyCache {
 			return fTypeHierarchy;
 		}
 
+		/**
+		 * @return the types of the hierarchy at the time it has been added to the cache
+		 */
+		public IType[] getTypes() {
+			return fTypes;
+		}
+
+		public MethodOverrideTester getMethodOverrideTester(IType type) {
+			MethodOverrideTester tester= fMethodOverrideTesters.get(type);
+			if (tester == null) {
+				tester= new MethodOverrideTester(type, fTypeHierarchy);
+				MethodOverrideTester existing= fMethodOverrideTesters.putIfAbsent(type, tester);
+				if (existing != null)
+					tester= existing;
+			}
+			return tester;
+		}
+
 		public void markAsAccessed() {
 			fLastAccess= System.currentTimeMillis();
 		}
@@ -55,7 +86,7 @@ public class SuperTypeHierarchyCache {
 
 		public void dispose() {
 			fTypeHierarchy.removeTypeHierarchyChangedListener(this);
-			fTypeHierarchy= null;
+			fMethodOverrideTesters.clear();
 		}
 
 		/* (non-Javadoc)
@@ -68,14 +99,66 @@ public class SuperTypeHierarchyCache {
 
 	}
 
+	/**
+	 * A hierarchy which is being computed by one thread and waited for by others.
+	 */
+	private static class PendingHierarchy {
 
-	private static final int CACHE_SIZE= 8;
+		/**
+		 * The interval in ms in which a waiting thread checks whether it has been cancelled.
+		 */
+		private static final long CANCEL_POLL_INTERVAL= 100;
 
-	private static ArrayList<HierarchyCacheEntry> fgHierarchyCache= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-	private static Map<IType, MethodOverrideTester> fgMethodOverrideTesterCache= new LRUMap<IType, MethodOverrideTester>(CACHE_SIZE);
+		private boolean fDone;
+		private ITypeHierarchy fHierarchy;
+
+		public synchronized void done(ITypeHierarchy hierarchy) {
+			fHierarchy= hierarchy;
+			fDone= true;
+			notifyAll();
+		}
+
+		/**
+		 * Waits until the computing thread is done.
+		 *
+		 * @param monitor the progress monitor of the waiting thread, or <code>null</code>
+		 * @return the hierarchy or <code>null</code> if the computation failed
+		 * @throws InterruptedException if the waiting thread has been interrupted
+		 * @throws OperationCanceledException if the monitor of the waiting thread has been cancelled
+		 */
+		public synchronized ITypeHierarchy await(IProgressMonitor monitor) throws InterruptedException {
+			while (!fDone) {
+				if (monitor != null && monitor.isCanceled())
+					throw new OperationCanceledException();
+				wait(CANCEL_POLL_INTERVAL);
+			}
+			return fHierarchy;
+		}
+	}
 
-	private static int fgCacheHits= 0;
-	private static int fgCacheMisses= 0;
+
+	/**
+	 * The number of hierarchies cached unless {@link #setCacheSize(int)} is called.
+	 */
+	public static final int DEFAULT_CACHE_SIZE= 8;
+
+	private static volatile int fgCacheSize= DEFAULT_CACHE_SIZE;
+
+	/**
+	 * The cached hierarchies. Modifications are guarded by the list itself.
+	 */
+	private static final List<HierarchyCacheEntry> fgHierarchyCache= new CopyOnWriteArrayList<HierarchyCacheEntry>();
+
+	/**
+	 * Maps the types of the cached hierarchies to their cache entry.
+	 */
+	private static final ConcurrentMap<IType, HierarchyCacheEntry> fgTypeIndex= new ConcurrentHashMap<IType, HierarchyCacheEntry>();
+
+	private static final ConcurrentMap<IType, PendingHierarchy> fgPendingHierarchies= new ConcurrentHashMap<IType, PendingHierarchy>();
+
+	private static final AtomicInteger fgCacheHits= new AtomicInteger();
+	private static final AtomicInteger fgCacheMisses= new AtomicInteger();
+	private static final AtomicInteger fgCacheEvictions= new AtomicInteger();
 
 	/**
 	 * Returns a super type hierarchy that contains the given type.
@@ -93,32 +176,14 @@ public class SuperTypeHierarchyCache {
 	}
 
 	public static MethodOverrideTester getMethodOverrideTester(IType type) throws JavaModelException {
-		MethodOverrideTester test= null;
-		synchronized (fgMethodOverrideTesterCache) {
-			test= fgMethodOverrideTesterCache.get(type);
-		}
-		if (test == null) {
-			ITypeHierarchy hierarchy= getTypeHierarchy(type); // don't nest the locks
-			synchronized (fgMethodOverrideTesterCache) {
-				test= fgMethodOverrideTesterCache.get(type); // test again after waiting a long time for 'getTypeHierarchy'
-				if (test == null) {
-					test= new MethodOverrideTester(type, hierarchy);
-					fgMethodOverrideTesterCache.put(type, test);
-				}
-			}
-		}
-		return test;
-	}
-
-	private static void removeMethodOverrideTester(ITypeHierarchy hierarchy) {
-		synchronized (fgMethodOverrideTesterCache) {
-			for (Iterator<MethodOverrideTester> iter= fgMethodOverrideTesterCache.values().iterator(); iter.hasNext();) {
-				MethodOverrideTester curr= iter.next();
-				if (curr.getTypeHierarchy().equals(hierarchy)) {
-					iter.remove();
-				}
-			}
+		HierarchyCacheEntry entry= findEntryInCache(type);
+		if (entry == null) {
+			ITypeHierarchy hierarchy= getTypeHierarchy(type);
+			entry= findEntryInCache(type);
+			if (entry == null) // the hierarchy has already been evicted again
+				return new MethodOverrideTester(type, hierarchy);
 		}
+		return entry.getMethodOverrideTester(type);
 	}
 
 	/**
@@ -134,24 +199,61 @@ public class SuperTypeHierarchyCache {
 	 * @throws JavaModelException if a problem occurs
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor) throws JavaModelException {
-		ITypeHierarchy hierarchy= findTypeHierarchyInCache(type);
-		if (hierarchy == null) {
-			fgCacheMisses++;
-			hierarchy= type.newSupertypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
-		} else {
-			fgCacheHits++;
-		}
-		return hierarchy;
+		while (true) {
+			HierarchyCacheEntry entry= findEntryInCache(type);
+			if (entry != null) {
+				fgCacheHits.incrementAndGet();
+				return entry.getTypeHierarchy();
+			}
+
+			PendingHierarchy pending= new PendingHierarchy();
+			PendingHierarchy existing= fgPendingHierarchies.putIfAbsent(type, pending);
+			if (existing != null) {
+				ITypeHierarchy hierarchy;
+				try {
+					hierarchy= existing.await(progressMonitor);
+				} catch (InterruptedException e) {
+					// stop waiting, but keep the interrupt for the caller
+					Thread.currentThread().interrupt();
+					fgCacheMisses.incrementAndGet();
+					return type.newSupertypeHierarchy(progressMonitor);
+				}
+				if (hierarchy != null) {
+					fgCacheHits.incrementAndGet();
+					return hierarchy;
+				}
+				continue; // the computing thread failed or has been cancelled, try again
+			}
+
+			entry= findEntryInCache(type);
+			if (entry != null) {
+				// added by a thread which finished after the first lookup
+				fgPendingHierarchies.remove(type, pending);
+				pending.done(entry.getTypeHierarchy());
+				fgCacheHits.incrementAndGet();
+				return entry.getTypeHierarchy();
+			}
+
+			ITypeHierarchy hierarchy= null;
+			try {
+				fgCacheMisses.incrementAndGet();
+				hierarchy= type.newSupertypeHierarchy(progressMonitor);
+				addTypeHierarchyToCache(hierarchy);
+				return hierarchy;
+			} finally {
+				fgPendingHierarchies.remove(type, pending);
+				pending.done(hierarchy);
+			}
+		}
 	}
 
 	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
 		synchronized (fgHierarchyCache) {
-			int nEntries= fgHierarchyCache.size();
-			if (nEntries >= CACHE_SIZE) {
+			int nEntries;
+			while ((nEntries= fgHierarchyCache.size()) >= fgCacheSize) {
 				// find obsolete entries or remove entry that was least recently accessed
 				HierarchyCacheEntry oldest= null;
-				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
+				ArrayList<HierarchyCacheEntry> obsoleteHierarchies= new ArrayList<HierarchyCacheEntry>(nEntries);
 				for (int i= 0; i < nEntries; i++) {
 					HierarchyCacheEntry entry= fgHierarchyCache.get(i);
 					ITypeHierarchy curr= entry.getTypeHierarchy();
@@ -167,12 +269,18 @@ public class SuperTypeHierarchyCache {
 					for (int i= 0; i < obsoleteHierarchies.size(); i++) {
 						removeHierarchyEntryFromCache(obsoleteHierarchies.get(i));
 					}
-				} else if (oldest != null) {
+					fgCacheEvictions.addAndGet(obsoleteHierarchies.size());
+				} else {
 					removeHierarchyEntryFromCache(oldest);
+					fgCacheEvictions.incrementAndGet();
 				}
 			}
 			HierarchyCacheEntry newEntry= new HierarchyCacheEntry(hierarchy);
 			fgHierarchyCache.add(newEntry);
+			IType[] types= newEntry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.put(types[i], newEntry);
+			}
 		}
 	}
 
@@ -183,23 +291,38 @@ public class SuperTypeHierarchyCache {
 	 * @return <code>true</code> if a hierarchy for the given type is cached
 	 */
 	public static boolean hasInCache(IType type) {
-		return findTypeHierarchyInCache(type) != null;
+		return findEntryInCache(type) != null;
 	}
 
 
-	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (fgHierarchyCache) {
-			for (int i= fgHierarchyCache.size() - 1; i>= 0; i--) {
-				HierarchyCacheEntry curr= fgHierarchyCache.get(i);
-				ITypeHierarchy hierarchy= curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
-				} else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
-				}
+	private static HierarchyCacheEntry findEntryInCache(IType type) {
+		HierarchyCacheEntry entry= fgTypeIndex.get(type);
+		if (entry != null) {
+			if (entry.getTypeHierarchy().exists() && fgHierarchyCache.contains(entry)) {
+				entry.markAsAccessed();
+				return entry;
+			}
+			removeHierarchyEntryFromCache(entry);
+			fgTypeIndex.remove(type, entry); // the entry may have been removed from the cache already
+		}
+
+		// the index only refers to the newest hierarchy containing a type, older ones might still contain it
+		for (int i= fgHierarchyCache.size() - 1; i >= 0; i--) {
+			HierarchyCacheEntry curr;
+			try {
+				curr= fgHierarchyCache.get(i);
+			} catch (IndexOutOfBoundsException e) {
+				continue; // removed concurrently
+			}
+			ITypeHierarchy hierarchy= curr.getTypeHierarchy();
+			if (!hierarchy.exists()) {
+				removeHierarchyEntryFromCache(curr);
+			} else if (hierarchy.contains(type)) {
+				HierarchyCacheEntry indexed= fgTypeIndex.putIfAbsent(type, curr);
+				if (indexed != null && indexed != curr && !fgHierarchyCache.contains(indexed))
+					fgTypeIndex.replace(type, indexed, curr);
+				curr.markAsAccessed();
+				return curr;
 			}
 		}
 		return null;
@@ -207,19 +330,33 @@ public class SuperTypeHierarchyCache {
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
 		synchronized (fgHierarchyCache) {
-			removeMethodOverrideTester(entry.getTypeHierarchy());
+			if (!fgHierarchyCache.remove(entry))
+				return;
+
+			IType[] types= entry.getTypes();
+			for (int i= 0; i < types.length; i++) {
+				fgTypeIndex.remove(types[i], entry);
+			}
 			entry.dispose();
-			fgHierarchyCache.remove(entry);
 		}
 	}
 
+	/**
+	 * Sets the maximal number of cached hierarchies. Surplus hierarchies are evicted
+	 * when the next hierarchy is added.
+	 *
+	 * @param size the maximal number of cached hierarchies, at least <code>1</code>
+	 */
+	public static void setCacheSize(int size) {
+		fgCacheSize= Math.max(1, size);
+	}
 
 	/**
 	 * Gets the number of times the hierarchy could be taken from the hierarchy.
 	 * @return Returns a int
 	 */
 	public static int getCacheHits() {
-		return fgCacheHits;
+		return fgCacheHits.get();
 	}
 
 	/**
@@ -227,6 +364,14 @@ public class SuperTypeHierarchyCache {
 	 * @return Returns a int
 	 */
 	public static int getCacheMisses() {
-		return fgCacheMisses;
+		return fgCacheMisses.get();
+	}
+
+	/**
+	 * Gets the number of times hierarchies had to be evicted to make room for a new one.
+	 * @return Returns a int
+	 */
+	public static int getCacheEvictions() {
+		return fgCacheEvictions.get();
 	}
 }
@@ -1545,6 +1545,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String QualifiedNameFinder_qualifiedNames_name;
 
+	public static String QualifiedNameFinder_scanning;
+
 	public static String QualifiedNameFinder_update_name;
 
 	public static String QualifiedNameSearchResult_change_name;
@@ -2333,6 +2335,8 @@ public final class RefactoringCoreMessages extends NLS {
 
 	public static String TargetProvider_method_declaration_not_unique;
 
+	public static String TextMatchUpdater_scanning;
+
 	public static String TextMatchUpdater_searching;
 
 	public static String TextMatchUpdater_textualMatches_description;
@@ -67,7 +67,6 @@ import org.eclipse.jdt.internal.corext.refactoring.base.JavaStringStatusContext;
 import org.eclipse.jdt.internal.corext.refactoring.util.RefactoringASTParser;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
 import org.eclipse.jdt.internal.corext.util.Messages;
-import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 import org.eclipse.jdt.internal.ui.javaeditor.ASTProvider;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
@@ -162,9 +161,10 @@ class RenameAnalyzeUtil {
 			ICompilationUnit cunit= oldGroup.getCompilationUnit();
 			if (cunit == null)
 				continue;
+			TextChange change= manager.getAnalysisChange(cunit);
 			for (int j= 0; j < oldSearchResults.length; j++) {
 				SearchMatch oldSearchResult= oldSearchResults[j];
-				if (! RenameAnalyzeUtil.existsInNewOccurrences(oldSearchResult, newOccurrences, manager)){
+				if (! RenameAnalyzeUtil.existsInNewOccurrences(oldSearchResult, newOccurrences, change)){
 					addShadowsError(cunit, oldSearchResult, result);
 				}
 			}
@@ -195,18 +195,18 @@ class RenameAnalyzeUtil {
 	static ICompilationUnit createNewWorkingCopy(ICompilationUnit cu, TextChangeManager manager,
 			WorkingCopyOwner owner, SubProgressMonitor pm) throws CoreException {
 		ICompilationUnit newWc= cu.getWorkingCopy(owner, null);
-		String previewContent= manager.get(cu).getPreviewContent(new NullProgressMonitor());
+		String previewContent= manager.getAnalysisChange(cu).getPreviewContent(new NullProgressMonitor());
 		newWc.getBuffer().setContents(previewContent);
 		newWc.reconcile(ICompilationUnit.NO_AST, false, owner, pm);
 		return newWc;
 	}
 
-	private static boolean existsInNewOccurrences(SearchMatch searchResult, SearchResultGroup[] newOccurrences, TextChangeManager manager) {
+	private static boolean existsInNewOccurrences(SearchMatch searchResult, SearchResultGroup[] newOccurrences, TextChange change) {
 		SearchResultGroup newGroup= findOccurrenceGroup(searchResult.getResource(), newOccurrences);
 		if (newGroup == null)
 			return false;
 
-		IRegion oldEditRange= getCorrespondingEditChangeRange(searchResult, manager);
+		IRegion oldEditRange= getCorrespondingEditChangeRange(searchResult, change);
 		if (oldEditRange == null)
 			return false;
 
@@ -219,11 +219,7 @@ class RenameAnalyzeUtil {
 		return false;
 	}
 
-	private static IRegion getCorrespondingEditChangeRange(SearchMatch searchResult, TextChangeManager manager) {
-		TextChange change= getTextChange(searchResult, manager);
-		if (change == null)
-			return null;
-
+	private static IRegion getCorrespondingEditChangeRange(SearchMatch searchResult, TextChange change) {
 		IRegion oldMatchRange= createTextRange(searchResult);
 		TextEditChangeGroup[] editChanges= change.getTextEditChangeGroups();
 		for (int i= 0; i < editChanges.length; i++) {
@@ -233,13 +229,6 @@ class RenameAnalyzeUtil {
 		return null;
 	}
 
-	private static TextChange getTextChange(SearchMatch searchResult, TextChangeManager manager) {
-		ICompilationUnit cu= SearchUtils.getCompilationUnit(searchResult);
-		if (cu == null)
-			return null;
-		return manager.get(cu);
-	}
-
 	private static IRegion createTextRange(SearchMatch searchResult) {
 		return new Region(searchResult.getOffset(), searchResult.getLength());
 	}
@@ -281,7 +270,8 @@ class RenameAnalyzeUtil {
 					addShadowsError(cu, oldMatch, result);
 				}
 			} else {
-				analyzeChanges(cu, manager.get(cu), oldMatches, newSearchMatches, newElementName, result);
+				// the change of each unit is dropped after it has been analyzed
+				analyzeChanges(cu, manager.getAnalysisChange(cu), oldMatches, newSearchMatches, newElementName, result);
 			}
 		}
 
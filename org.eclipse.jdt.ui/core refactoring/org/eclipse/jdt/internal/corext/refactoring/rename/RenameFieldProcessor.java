@@ -777,16 +777,13 @@ public class RenameFieldProcessor extends JavaRenameProcessor implements IRefere
 				continue;
 			SearchMatch[] results= fReferences[i].getSearchResults();
 			for (int j= 0; j < results.length; j++){
-				addTextEdit(fChangeManager.get(cu), editName, createTextChange(results[j]));
+				SearchMatch match= results[j];
+				fChangeManager.addReplaceEdit(cu, editName, match.getOffset(), match.getLength(), getNewElementName(), fIsComposite ? fCategorySet : null, false);
 			}
 			pm.worked(1);
 		}
 	}
 
-	private TextEdit createTextChange(SearchMatch match) {
-		return new ReplaceEdit(match.getOffset(), match.getLength(), getNewElementName());
-	}
-
 	private void addGetterOccurrences(IProgressMonitor pm, RefactoringStatus status) throws CoreException {
 		addAccessorOccurrences(pm, getGetter(), RefactoringCoreMessages.RenameFieldRefactoring_Update_getter_occurrence, getNewGetterName(), status);
 	}
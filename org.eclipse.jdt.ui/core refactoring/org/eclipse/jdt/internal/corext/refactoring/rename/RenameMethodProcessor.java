@@ -816,7 +816,7 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 			if (fUpdateReferences) {
 				for (Iterator<SearchMatch> iter= referencesInThisCu.iterator(); iter.hasNext();) {
 					SearchMatch element= iter.next();
-					simpleUpdate(element, cu, manager.get(cu));
+					addReferenceUpdate(element, cu, manager);
 				}
 			}
 
@@ -833,6 +833,12 @@ public abstract class RenameMethodProcessor extends JavaRenameProcessor implemen
 		addTextEdit(textChange, editName, replaceEdit);
 	}
 
+	private void addReferenceUpdate(SearchMatch element, ICompilationUnit cu, TextChangeManager manager) {
+		String editName= RefactoringCoreMessages.RenameMethodRefactoring_update_occurrence;
+		ReplaceEdit replaceEdit= createReplaceEdit(element, cu);
+		manager.addReplaceEdit(cu, editName, replaceEdit.getOffset(), replaceEdit.getLength(), replaceEdit.getText(), fIsComposite ? fCategorySet : null, false);
+	}
+
 	protected final ReplaceEdit createReplaceEdit(SearchMatch searchResult, ICompilationUnit cu) {
 		if (searchResult.isImplicit()) { // handle Annotation Element references, see bug 94062
 			StringBuffer sb= new StringBuffer(getNewElementName());
@@ -32,7 +32,6 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IResource;
 
 import org.eclipse.text.edits.MalformedTreeException;
-import org.eclipse.text.edits.ReplaceEdit;
 import org.eclipse.text.edits.TextEdit;
 
 import org.eclipse.jface.util.Util;
@@ -751,7 +750,7 @@ public class RenamePackageProcessor extends JavaRenameProcessor implements
 						String updatedImport= getUpdatedImport(importDeclaration);
 						updateImport(cu, importDeclaration, updatedImport);
 					} else { // is reference
-						TextChangeCompatibility.addTextEdit(fTextChangeManager.get(cu), RefactoringCoreMessages.RenamePackageRefactoring_update_reference, createTextChange(result));
+						fTextChangeManager.addReplaceEdit(cu, RefactoringCoreMessages.RenamePackageRefactoring_update_reference, result.getOffset(), result.getLength(), getNewPackageName(), null, false);
 					}
 				}
 				if (fReferencesToTypesInNamesakes.size() != 0) {
@@ -799,10 +798,6 @@ public class RenamePackageProcessor extends JavaRenameProcessor implements
 			return null;
 		}
 
-		private TextEdit createTextChange(SearchMatch searchResult) {
-			return new ReplaceEdit(searchResult.getOffset(), searchResult.getLength(), getNewPackageName());
-		}
-
 		private RefactoringStatus analyzeAffectedCompilationUnits() throws CoreException {
 			//TODO: also for both fReferencesTo...; only check each CU once!
 			RefactoringStatus result= new RefactoringStatus();
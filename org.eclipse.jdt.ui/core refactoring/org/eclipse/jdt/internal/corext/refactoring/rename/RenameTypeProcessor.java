@@ -1167,8 +1167,7 @@ public class RenameTypeProcessor extends JavaRenameProcessor implements ITextUpd
 
 			for (int j= 0; j < results.length; j++){
 				SearchMatch match= results[j];
-				ReplaceEdit replaceEdit= new ReplaceEdit(match.getOffset(), match.getLength(), getNewElementName());
-				TextChangeCompatibility.addTextEdit(manager.get(cu), name, replaceEdit, CATEGORY_TYPE_RENAME);
+				manager.addReplaceEdit(cu, name, match.getOffset(), match.getLength(), getNewElementName(), CATEGORY_TYPE_RENAME, false);
 			}
 			pm.worked(1);
 		}
@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -24,6 +25,7 @@ import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.jdt.core.IMember;
@@ -49,13 +51,19 @@ import org.eclipse.jdt.internal.corext.util.SearchUtils;
 
 public class RippleMethodFinder2 {
 
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/RippleMethodFinder"));  //$NON-NLS-1$//$NON-NLS-2$
+
 	private final IMethod fMethod;
 	private List<IMethod> fDeclarations;
 	private ITypeHierarchy fHierarchy;
 	private Map<IType, IMethod> fTypeToMethod;
 	private Set<IType> fRootTypes;
 	private MultiMap<IType, IType> fRootReps;
-	private Map<IType, ITypeHierarchy> fRootHierarchies;
+	/**
+	 * Hierarchies which have been created for the ripple, by focus type. A hierarchy is shared by
+	 * all types which are subtypes of its focus type.
+	 */
+	private Map<IType, ITypeHierarchy> fSubtypeHierarchies;
 	private UnionFind fUnionFind;
 
 	private final boolean fExcludeBinaries;
@@ -165,7 +173,11 @@ public class RippleMethodFinder2 {
 	}
 
 	private IMethod[] getAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
+		long start= System.currentTimeMillis();
 		IMethod[] rippleMethods= findAllRippleMethods(pm, owner);
+		if (DEBUG) {
+			System.out.println("RippleMethodFinder > " + rippleMethods.length + " ripple methods of " + fMethod.getElementName() + " in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+		}
 		if (fDeclarationToMatch == null)
 			return rippleMethods;
 
@@ -184,7 +196,9 @@ public class RippleMethodFinder2 {
 	private IMethod[] findAllRippleMethods(IProgressMonitor pm, WorkingCopyOwner owner) throws CoreException {
 		pm.beginTask("", 4); //$NON-NLS-1$
 
+		long time= System.currentTimeMillis();
 		findAllDeclarations(new SubProgressMonitor(pm, 1), owner);
+		time= reportPhase("declaration search (" + fDeclarations.size() + " declarations)", time); //$NON-NLS-1$ //$NON-NLS-2$
 
 		//TODO: report assertion as error status and fall back to only return fMethod
 		//check for bug 81058:
@@ -192,8 +206,10 @@ public class RippleMethodFinder2 {
 			Assert.isTrue(false, "Search for method declaration did not find original element: " + fMethod.toString()); //$NON-NLS-1$
 
 		createHierarchyOfDeclarations(new SubProgressMonitor(pm, 1), owner);
+		time= reportPhase("hierarchy of declarations", time); //$NON-NLS-1$
 		createTypeToMethod();
 		createUnionFind();
+		time= reportPhase("union find", time); //$NON-NLS-1$
 		if (pm.isCanceled())
 			throw new OperationCanceledException();
 
@@ -232,7 +248,7 @@ public class RippleMethodFinder2 {
 
 		List<IMethod> alienDeclarations= new ArrayList<IMethod>(fDeclarations);
 		fDeclarations= null;
-		alienDeclarations.removeAll(relatedMethods);
+		alienDeclarations.removeAll(new HashSet<IMethod>(relatedMethods));
 		List<IType> alienTypes= new ArrayList<IType>();
 		boolean hasAlienInterfaces= false;
 		for (Iterator<IMethod> iter= alienDeclarations.iterator(); iter.hasNext();) {
@@ -247,18 +263,29 @@ public class RippleMethodFinder2 {
 		if (! hasRelatedInterfaces && ! hasAlienInterfaces) //no nasty marriage scenarios without interfaces...
 			return relatedMethods.toArray(new IMethod[relatedMethods.size()]);
 
+		IMethod[] result= findMarriedMethods(partitioning, relatedTypes, relatedMethods, alienTypes, pm, owner);
+		reportPhase("marriages (" + fSubtypeHierarchies.size() + " hierarchies)", time); //$NON-NLS-1$ //$NON-NLS-2$
+
+		fRootReps= null;
+		fSubtypeHierarchies= null;
+		fTypeToMethod= null;
+		fUnionFind= null;
+
+		return result;
+	}
+
+	private IMethod[] findMarriedMethods(Map<IType, List<IType>> partitioning, List<IType> relatedTypes, List<IMethod> relatedMethods, List<IType> alienTypes, IProgressMonitor pm, WorkingCopyOwner owner) throws JavaModelException {
 		//find all subtypes of related types:
 		HashSet<IType> relatedSubTypes= new HashSet<IType>();
 		List<IType> relatedTypesToProcess= new ArrayList<IType>(relatedTypes);
 		while (relatedTypesToProcess.size() > 0) {
-			//TODO: would only need subtype hierarchies of all top-of-ripple relatedTypesToProcess
 			for (Iterator<IType> iter= relatedTypesToProcess.iterator(); iter.hasNext();) {
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
 				IType relatedType= iter.next();
-				ITypeHierarchy hierarchy= getCachedHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
-				if (hierarchy == null)
-					hierarchy= relatedType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+				if (relatedSubTypes.contains(relatedType))
+					continue; // subtypes of a known subtype are known
+				ITypeHierarchy hierarchy= getSubtypeHierarchy(relatedType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubTypes= hierarchy.getAllSubtypes(relatedType);
 				for (int i= 0; i < allSubTypes.length; i++)
 					relatedSubTypes.add(allSubTypes[i]);
@@ -271,9 +298,7 @@ public class RippleMethodFinder2 {
 					throw new OperationCanceledException();
 				IType alienType= iter.next();
 				IMethod alienMethod= fTypeToMethod.get(alienType);
-				ITypeHierarchy hierarchy= getCachedHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
-				if (hierarchy == null)
-					hierarchy= alienType.newTypeHierarchy(owner, new SubProgressMonitor(pm, 1));
+				ITypeHierarchy hierarchy= getSubtypeHierarchy(alienType, owner, new SubProgressMonitor(pm, 1));
 				IType[] allSubtypes= hierarchy.getAllSubtypes(alienType);
 				for (int i= 0; i < allSubtypes.length; i++) {
 					IType subtype= allSubtypes[i];
@@ -297,35 +322,66 @@ public class RippleMethodFinder2 {
 					IType marriedAlienInterfaceType= iterator.next();
 					relatedMethods.add(fTypeToMethod.get(marriedAlienInterfaceType));
 				}
-				alienTypes.removeAll(marriedAlienTypes); //not alien any more
+				alienTypes.removeAll(new HashSet<IType>(marriedAlienTypes)); //not alien any more
 				relatedTypesToProcess.addAll(marriedAlienTypes); //process freshly married types again
 			}
 		}
-
-		fRootReps= null;
-		fRootHierarchies= null;
-		fTypeToMethod= null;
-		fUnionFind= null;
-
 		return relatedMethods.toArray(new IMethod[relatedMethods.size()]);
 	}
 
-	private ITypeHierarchy getCachedHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+	/**
+	 * Returns a hierarchy which contains all subtypes of the given type. Hierarchies are shared
+	 * between all types of the ripple: an existing hierarchy is reused if the type is a subtype of
+	 * its focus type. Otherwise, the hierarchies of the roots of the type's partition are created
+	 * first, since they contain all types of the partition.
+	 *
+	 * @param type the type
+	 * @param owner the working copy owner
+	 * @param monitor the progress monitor
+	 * @return a hierarchy containing all subtypes of <code>type</code>
+	 * @throws JavaModelException if a hierarchy could not be created
+	 */
+	private ITypeHierarchy getSubtypeHierarchy(IType type, WorkingCopyOwner owner, IProgressMonitor monitor) throws JavaModelException {
+		for (Iterator<ITypeHierarchy> iter= fSubtypeHierarchies.values().iterator(); iter.hasNext();) {
+			ITypeHierarchy hierarchy= iter.next();
+			if (containsSubtypes(hierarchy, type))
+				return hierarchy;
+		}
+
 		IType rep= fUnionFind.find(type);
 		if (rep != null) {
 			Collection<IType> collection= fRootReps.get(rep);
 			for (Iterator<IType> iter= collection.iterator(); iter.hasNext();) {
 				IType root= iter.next();
-				ITypeHierarchy hierarchy= fRootHierarchies.get(root);
-				if (hierarchy == null) {
-					hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
-					fRootHierarchies.put(root, hierarchy);
-				}
-				if (hierarchy.contains(type))
+				if (fSubtypeHierarchies.containsKey(root))
+					continue;
+				ITypeHierarchy hierarchy= root.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+				fSubtypeHierarchies.put(root, hierarchy);
+				if (containsSubtypes(hierarchy, type))
 					return hierarchy;
 			}
 		}
-		return null;
+
+		ITypeHierarchy hierarchy= type.newTypeHierarchy(owner, new SubProgressMonitor(monitor, 1));
+		fSubtypeHierarchies.put(type, hierarchy);
+		return hierarchy;
+	}
+
+	private static boolean containsSubtypes(ITypeHierarchy hierarchy, IType type) {
+		IType focus= hierarchy.getType();
+		if (focus.equals(type))
+			return true;
+		if (!hierarchy.contains(type))
+			return false;
+		return Arrays.asList(hierarchy.getAllSupertypes(type)).contains(focus);
+	}
+
+	private static long reportPhase(String phase, long start) {
+		long time= System.currentTimeMillis();
+		if (DEBUG) {
+			System.out.println("RippleMethodFinder > " + phase + ": " + (time - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		return time;
 	}
 
 	private void findAllDeclarations(IProgressMonitor monitor, WorkingCopyOwner owner) throws CoreException {
@@ -391,7 +447,7 @@ public class RippleMethodFinder2 {
 			if (rep != null)
 				fRootReps.put(rep, type);
 		}
-		fRootHierarchies= new HashMap<IType, ITypeHierarchy>();
+		fSubtypeHierarchies= new LinkedHashMap<IType, ITypeHierarchy>();
 	}
 
 	private void uniteWithSupertypes(IType anchor, IType type) throws JavaModelException {
@@ -10,10 +10,17 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.rename;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.runtime.Assert;
@@ -29,9 +36,6 @@ import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
 
-import org.eclipse.text.edits.MalformedTreeException;
-import org.eclipse.text.edits.ReplaceEdit;
-
 import org.eclipse.ltk.core.refactoring.GroupCategory;
 import org.eclipse.ltk.core.refactoring.GroupCategorySet;
 
@@ -44,13 +48,56 @@ import org.eclipse.jdt.core.search.SearchMatch;
 
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.SearchResultGroup;
-import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
 import org.eclipse.jdt.internal.corext.refactoring.rename.RefactoringScanner.TextMatch;
 import org.eclipse.jdt.internal.corext.refactoring.tagging.ITextUpdating;
 import org.eclipse.jdt.internal.corext.refactoring.util.TextChangeManager;
+import org.eclipse.jdt.internal.corext.util.ParallelWorkQueue;
 
 class TextMatchUpdater {
 
+	/**
+	 * Scans the compilation units on several workers and collects their text matches.
+	 */
+	private final class ScanQueue extends ParallelWorkQueue<ICompilationUnit> {
+
+		private final Map<ICompilationUnit, Set<TextMatch>> fMatches;
+
+		public ScanQueue(ICompilationUnit[] units) {
+			super(RefactoringCoreMessages.TextMatchUpdater_scanning, Arrays.asList(units));
+			fMatches= Collections.synchronizedMap(new HashMap<ICompilationUnit, Set<TextMatch>>());
+		}
+
+		@Override
+		protected void process(ICompilationUnit cu, IProgressMonitor monitor) throws JavaModelException {
+			if (mayContainCurrentName(cu)) {
+				RefactoringScanner scanner= new RefactoringScanner(fCurrentName, fCurrentQualifier);
+				scanner.scan(cu);
+				Set<TextMatch> matches= scanner.getMatches();
+				if (matches.size() != 0)
+					removeReferences(cu, matches);
+				if (matches.size() != 0)
+					fMatches.put(cu, matches);
+			}
+			monitor.worked(1);
+		}
+
+		/**
+		 * @param cu the compilation unit
+		 * @return the text matches of the given compilation unit or <code>null</code> if it has
+		 *         no matches
+		 */
+		public Set<TextMatch> getMatches(ICompilationUnit cu) {
+			return fMatches.get(cu);
+		}
+	}
+
+	/**
+	 * Minimal number of compilation units for each worker scanning in parallel.
+	 */
+	private static final int MIN_UNITS_PER_WORKER= 20;
+
+	private static final char[] UNICODE_ESCAPE= { '\\', 'u' };
+
 	private static final String TEXT_EDIT_LABEL= RefactoringCoreMessages.TextMatchUpdater_update;
 
 	private static final GroupCategorySet TEXTUAL_MATCHES= new GroupCategorySet(
@@ -63,7 +110,8 @@ class TextMatchUpdater {
 	private final SearchResultGroup[] fReferences;
 	private final boolean fOnlyQualified;
 
-	private final RefactoringScanner fScanner;
+	private final String fCurrentName;
+	private final String fCurrentQualifier;
 	private final String fNewName;
 	private final int fCurrentNameLength;
 
@@ -77,8 +125,9 @@ class TextMatchUpdater {
 		fOnlyQualified= onlyQualified;
 
 		fNewName= newName;
+		fCurrentName= currentName;
+		fCurrentQualifier= currentQualifier;
 		fCurrentNameLength= currentName.length();
-		fScanner= new RefactoringScanner(currentName, currentQualifier);
 	}
 
 	static void perform(IProgressMonitor pm, IJavaSearchScope scope, String currentName, String currentQualifier, String newName, TextChangeManager manager, SearchResultGroup[] references, boolean onlyQualified) throws JavaModelException{
@@ -93,12 +142,21 @@ class TextMatchUpdater {
 		try{
 			IProject[] projectsInScope= getProjectsInScope();
 
-			pm.beginTask("", projectsInScope.length); //$NON-NLS-1$
+			pm.beginTask("", 2 * projectsInScope.length); //$NON-NLS-1$
 
+			List<ICompilationUnit> units= new ArrayList<ICompilationUnit>();
 			for (int i =0 ; i < projectsInScope.length; i++){
 				if (pm.isCanceled())
 					throw new OperationCanceledException();
-				addTextMatches(projectsInScope[i], new SubProgressMonitor(pm, 1));
+				collectCompilationUnits(projectsInScope[i], units, new SubProgressMonitor(pm, 1));
+			}
+
+			ICompilationUnit[] cus= units.toArray(new ICompilationUnit[units.size()]);
+			ScanQueue queue= scanCompilationUnits(cus, new SubProgressMonitor(pm, projectsInScope.length));
+			for (int i= 0; i < cus.length; i++) {
+				Set<TextMatch> matches= queue.getMatches(cus[i]);
+				if (matches != null)
+					addTextUpdates(cus[i], matches);
 			}
 		} finally{
 			pm.done();
@@ -120,7 +178,7 @@ class TextMatchUpdater {
 		return projectsInScope.toArray(new IProject[projectsInScope.size()]);
 	}
 
-	private void addTextMatches(IResource resource, IProgressMonitor pm) throws JavaModelException{
+	private void collectCompilationUnits(IResource resource, List<ICompilationUnit> units, IProgressMonitor pm) throws JavaModelException{
 		try{
 			String task= RefactoringCoreMessages.TextMatchUpdater_searching + resource.getFullPath();
 			if (resource instanceof IFile){
@@ -132,7 +190,7 @@ class TextMatchUpdater {
 					return;
 				if (! fScope.encloses(element))
 					return;
-				addCuTextMatches((ICompilationUnit) element);
+				units.add((ICompilationUnit) element);
 
 			} else if (resource instanceof IContainer){
 				IResource[] members= ((IContainer) resource).members();
@@ -142,7 +200,7 @@ class TextMatchUpdater {
 					if (pm.isCanceled())
 						throw new OperationCanceledException();
 
-					addTextMatches(members[i], new SubProgressMonitor(pm, 1));
+					collectCompilationUnits(members[i], units, new SubProgressMonitor(pm, 1));
 				}
 			}
 		} catch (JavaModelException e){
@@ -154,15 +212,112 @@ class TextMatchUpdater {
 		}
 	}
 
-	private void addCuTextMatches(ICompilationUnit cu) throws JavaModelException{
-		fScanner.scan(cu);
-		Set<TextMatch> matches= fScanner.getMatches(); //Set of TextMatch
-		if (matches.size() == 0)
-			return;
+	/**
+	 * Scans the given compilation units for text matches. The units are scanned in parallel if
+	 * there are enough of them.
+	 *
+	 * @param cus the compilation units
+	 * @param pm the progress monitor
+	 * @return the queue holding the text matches
+	 * @throws JavaModelException if a compilation unit could not be scanned
+	 */
+	private ScanQueue scanCompilationUnits(ICompilationUnit[] cus, IProgressMonitor pm) throws JavaModelException {
+		try {
+			pm.beginTask("", cus.length); //$NON-NLS-1$
+			ScanQueue queue= new ScanQueue(cus);
+			int workerCount= Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), cus.length / MIN_UNITS_PER_WORKER));
+			try {
+				queue.run(workerCount, pm);
+			} catch (JavaModelException e) {
+				throw e;
+			} catch (CoreException e) {
+				throw new JavaModelException(e);
+			}
+			return queue;
+		} finally {
+			pm.done();
+		}
+	}
+
+	/**
+	 * Tells whether the given compilation unit may contain the current name, without creating its
+	 * buffer. The encoded name is searched for in the contents of the file, which is only possible
+	 * for UTF-8 and single byte encodings and if the file is not open in a working copy.
+	 *
+	 * @param cu the compilation unit
+	 * @return <code>false</code> if the compilation unit cannot contain a text match
+	 */
+	private boolean mayContainCurrentName(ICompilationUnit cu) {
+		if (cu.isWorkingCopy())
+			return true;
+		IResource resource= cu.getResource();
+		if (!(resource instanceof IFile))
+			return true;
+
+		IFile file= (IFile) resource;
+		InputStream stream= null;
+		try {
+			Charset charset= Charset.forName(file.getCharset());
+			if (!"UTF-8".equals(charset.name()) && charset.newEncoder().maxBytesPerChar() != 1.0f) //$NON-NLS-1$
+				return true;
+
+			byte[] name= fCurrentName.getBytes(charset.name());
+			byte[] escape= new String(UNICODE_ESCAPE).getBytes(charset.name());
+			stream= file.getContents(true);
+			byte[] contents= readFully(stream);
+			return indexOf(contents, name) != -1 || indexOf(contents, escape) != -1;
+		} catch (CoreException e) {
+			return true;
+		} catch (IOException e) {
+			return true;
+		} catch (IllegalArgumentException e) {
+			// unsupported charset
+			return true;
+		} finally {
+			if (stream != null) {
+				try {
+					stream.close();
+				} catch (IOException e) {
+					// ignore
+				}
+			}
+		}
+	}
+
+	private static byte[] readFully(InputStream stream) throws IOException {
+		byte[] buffer= new byte[8192];
+		int length= 0;
+		int read;
+		while ((read= stream.read(buffer, length, buffer.length - length)) != -1) {
+			length+= read;
+			if (length == buffer.length) {
+				byte[] newBuffer= new byte[2 * buffer.length];
+				System.arraycopy(buffer, 0, newBuffer, 0, length);
+				buffer= newBuffer;
+			}
+		}
+		if (length == buffer.length)
+			return buffer;
+		byte[] result= new byte[length];
+		System.arraycopy(buffer, 0, result, 0, length);
+		return result;
+	}
 
-		removeReferences(cu, matches);
-		if (matches.size() != 0)
-			addTextUpdates(cu, matches);
+	private static int indexOf(byte[] array, byte[] pattern) {
+		if (pattern.length == 0)
+			return 0;
+		byte first= pattern[0];
+		int last= array.length - pattern.length;
+		outer: for (int i= 0; i <= last; i++) {
+			if (array[i] != first)
+				continue;
+			for (int j= 1; j < pattern.length; j++) {
+				if (array[i + j] != pattern[j])
+					continue outer;
+			}
+			return i;
+		}
+		return -1;
 	}
 
 	private void removeReferences(ICompilationUnit cu, Set<TextMatch> matches) {
@@ -192,13 +347,8 @@ class TextMatchUpdater {
 			TextMatch match= resultIter.next();
 			if (!match.isQualified() && fOnlyQualified)
 				continue;
-			int matchStart= match.getStartPosition();
-			ReplaceEdit edit= new ReplaceEdit(matchStart, fCurrentNameLength, fNewName);
-			try {
-				TextChangeCompatibility.addTextEdit(fManager.get(cu), TEXT_EDIT_LABEL, edit, TEXTUAL_MATCHES);
-			} catch (MalformedTreeException e) {
-				// conflicting update -> omit text match
-			}
+			// conflicting update -> omit text match
+			fManager.addReplaceEdit(cu, TEXT_EDIT_LABEL, match.getStartPosition(), fCurrentNameLength, fNewName, TEXTUAL_MATCHES, true);
 		}
 	}
 }
@@ -10,7 +10,15 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.corext.refactoring.util;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.regex.Pattern;
@@ -20,18 +28,21 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.SubProgressMonitor;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
 
 import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.ITextFileBufferManager;
+import org.eclipse.core.filebuffers.LocationKind;
 
 import org.eclipse.text.edits.ReplaceEdit;
 
-import org.eclipse.search.core.text.TextSearchEngine;
-import org.eclipse.search.core.text.TextSearchMatchAccess;
-import org.eclipse.search.core.text.TextSearchRequestor;
 import org.eclipse.search.core.text.TextSearchScope;
 
 import org.eclipse.ltk.core.refactoring.GroupCategory;
@@ -43,9 +54,19 @@ import org.eclipse.jdt.core.JavaCore;
 
 import org.eclipse.jdt.internal.corext.refactoring.RefactoringCoreMessages;
 import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
+import org.eclipse.jdt.internal.corext.util.ParallelWorkQueue;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.util.PatternConstructor;
 
+/**
+ * Finds fully qualified names in non-Java files.
+ * <p>
+ * The candidate files are scanned by a {@link Scanner} on several workers. The raw contents of a
+ * file are streamed through a byte-level search for the encoded name first, so that only files
+ * which contain the name are decoded. Text changes are only created for files with matches.
+ * </p>
+ */
 public class QualifiedNameFinder {
 
 	private static final GroupCategorySet QUALIFIED_NAMES= new GroupCategorySet(
@@ -53,62 +74,259 @@ public class QualifiedNameFinder {
 			RefactoringCoreMessages.QualifiedNameFinder_qualifiedNames_name,
 			RefactoringCoreMessages.QualifiedNameFinder_qualifiedNames_description));
 
-	private static class ResultCollector extends TextSearchRequestor {
-
-		private String fNewValue;
-		private QualifiedNameSearchResult fResult;
+	/**
+	 * Minimal number of files for each worker scanning in parallel.
+	 */
+	private static final int MIN_FILES_PER_WORKER= 10;
+
+	/**
+	 * Size of the chunks in which the contents of a file are searched.
+	 */
+	private static final int BUFFER_SIZE= 64 * 1024;
+
+	/**
+	 * Scans the files on several workers and collects the offsets of their matches.
+	 */
+	private static final class ScanQueue extends ParallelWorkQueue<Integer> {
+
+		private final IFile[] fFiles;
+		private final String[] fDirtyContents;
+		private final String fPattern;
+		private final int[][] fMatches;
+
+		/**
+		 * The scanners which are not in use by a worker.
+		 */
+		private final List<Scanner> fScanners= new ArrayList<Scanner>();
+
+		public ScanQueue(IFile[] files, String[] dirtyContents, String pattern) {
+			super(RefactoringCoreMessages.QualifiedNameFinder_scanning, createIndices(files.length));
+			fFiles= files;
+			fDirtyContents= dirtyContents;
+			fPattern= pattern;
+			fMatches= new int[files.length][];
+		}
 
-		public ResultCollector(QualifiedNameSearchResult result, String newValue) {
-			fResult= result;
-			fNewValue= newValue;
+		private static List<Integer> createIndices(int count) {
+			List<Integer> indices= new ArrayList<Integer>(count);
+			for (int i= 0; i < count; i++)
+				indices.add(new Integer(i));
+			return indices;
 		}
 
 		@Override
-		public boolean acceptFile(IFile file) throws CoreException {
-			IJavaElement element= JavaCore.create(file);
-			if ((element != null && element.exists()))
-				return false;
+		protected void process(Integer item, IProgressMonitor monitor) {
+			int index= item.intValue();
+			Scanner scanner= acquireScanner();
+			try {
+				setMatches(index, scanner.scan(fFiles[index], fDirtyContents[index]));
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			} catch (IOException e) {
+				JavaPlugin.log(e);
+			} finally {
+				releaseScanner(scanner);
+			}
+			monitor.worked(1);
+		}
 
-			// Only touch text files (see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=114153 ):
-			if (! FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), false))
-				return false;
+		private synchronized Scanner acquireScanner() {
+			if (fScanners.isEmpty())
+				return new Scanner(fPattern);
+			return fScanners.remove(fScanners.size() - 1);
+		}
+
+		private synchronized void releaseScanner(Scanner scanner) {
+			fScanners.add(scanner);
+		}
+
+		private synchronized void setMatches(int index, int[] offsets) {
+			fMatches[index]= offsets;
+		}
+
+		/**
+		 * @param index the index of the file
+		 * @return the offsets of the matches in the file or <code>null</code> if it has no matches
+		 */
+		public synchronized int[] getMatches(int index) {
+			return fMatches[index];
+		}
+	}
+
+	/**
+	 * Finds the occurrences of a qualified name in files. A scanner reuses its buffer and is
+	 * therefore used by one worker at a time.
+	 */
+	private static final class Scanner {
 
-			IPath path= file.getProjectRelativePath();
-			String segment= path.segment(0);
-			if (segment != null && (segment.startsWith(".refactorings") || segment.startsWith(".deprecations"))) //$NON-NLS-1$ //$NON-NLS-2$
+		private final String fPattern;
+		private final byte[] fBuffer= new byte[BUFFER_SIZE];
+		private final char[] fCharBuffer= new char[BUFFER_SIZE];
+
+		private String fEncodedCharset;
+		private byte[] fEncodedPattern;
+		private int[] fShifts;
+
+		public Scanner(String pattern) {
+			fPattern= pattern;
+		}
+
+		/**
+		 * Finds the occurrences of the qualified name in the given file.
+		 *
+		 * @param file the file
+		 * @param dirtyContents the contents of the file's dirty buffer, or <code>null</code> to
+		 *            read the file
+		 * @return the offsets of the matches or <code>null</code> if there are none
+		 * @throws CoreException if the file could not be read
+		 * @throws IOException if the file could not be read
+		 */
+		public int[] scan(IFile file, String dirtyContents) throws CoreException, IOException {
+			if (dirtyContents != null)
+				return findMatches(dirtyContents);
+
+			Charset charset;
+			try {
+				charset= Charset.forName(file.getCharset());
+			} catch (IllegalArgumentException e) {
+				// unsupported charset, the file cannot be decoded
+				return null;
+			}
+			if (canSearchBytes(charset) && !containsPattern(file))
+				return null;
+			return findMatches(readContents(file, charset));
+		}
+
+		/**
+		 * Tells whether the encoded pattern can be searched for in the raw contents of a file, and
+		 * prepares the search. This is possible for UTF-8 and single byte encodings, where an
+		 * encoded character never contains the encoding of another character.
+		 *
+		 * @param charset the charset of the file
+		 * @return <code>true</code> if {@link #containsPattern(IFile)} can be called
+		 */
+		private boolean canSearchBytes(Charset charset) {
+			String name= charset.name();
+			if (name.equals(fEncodedCharset))
+				return fEncodedPattern != null;
+
+			fEncodedCharset= name;
+			fEncodedPattern= null;
+			if (!"UTF-8".equals(name) && (!charset.canEncode() || charset.newEncoder().maxBytesPerChar() != 1.0f)) //$NON-NLS-1$
+				return false;
+			byte[] pattern;
+			try {
+				pattern= fPattern.getBytes(name);
+			} catch (UnsupportedEncodingException e) {
+				return false;
+			}
+			if (pattern.length == 0 || pattern.length > BUFFER_SIZE / 2)
 				return false;
 
+			fEncodedPattern= pattern;
+			fShifts= new int[256];
+			int last= pattern.length - 1;
+			for (int i= 0; i < fShifts.length; i++)
+				fShifts[i]= pattern.length;
+			for (int i= 0; i < last; i++)
+				fShifts[pattern[i] & 0xff]= last - i;
 			return true;
 		}
 
-		@Override
-		public boolean acceptPatternMatch(TextSearchMatchAccess matchAccess) throws CoreException {
-			int start= matchAccess.getMatchOffset();
-			int length= matchAccess.getMatchLength();
+		/**
+		 * Streams the raw contents of the file through a Boyer-Moore-Horspool search for the
+		 * encoded pattern.
+		 *
+		 * @param file the file
+		 * @return <code>true</code> if the file contains the encoded pattern
+		 * @throws CoreException if the file could not be read
+		 * @throws IOException if the file could not be read
+		 */
+		private boolean containsPattern(IFile file) throws CoreException, IOException {
+			InputStream stream= file.getContents(true);
+			try {
+				int kept= 0;
+				int read;
+				while ((read= stream.read(fBuffer, kept, fBuffer.length - kept)) != -1) {
+					int length= kept + read;
+					if (indexOf(fBuffer, length, fEncodedPattern, fShifts) != -1)
+						return true;
+					// a match may span the chunks
+					kept= Math.min(fEncodedPattern.length - 1, length);
+					System.arraycopy(fBuffer, length - kept, fBuffer, 0, kept);
+				}
+				return false;
+			} finally {
+				stream.close();
+			}
+		}
 
+		private String readContents(IFile file, Charset charset) throws CoreException, IOException {
+			Reader reader= new InputStreamReader(file.getContents(true), charset);
+			try {
+				StringBuffer contents= new StringBuffer();
+				int read;
+				while ((read= reader.read(fCharBuffer)) != -1)
+					contents.append(fCharBuffer, 0, read);
+				// the document of a text file buffer does not contain the byte order mark
+				if (contents.length() > 0 && contents.charAt(0) == '\uFEFF' && "UTF-8".equals(charset.name())) //$NON-NLS-1$
+					contents.deleteCharAt(0);
+				return contents.toString();
+			} finally {
+				reader.close();
+			}
+		}
+
+		private int[] findMatches(String contents) {
+			int length= fPattern.length();
+			List<Integer> offsets= null;
+			int start= contents.indexOf(fPattern);
+			while (start != -1) {
+				if (isQualifiedName(contents, start, length)) {
+					if (offsets == null)
+						offsets= new ArrayList<Integer>();
+					offsets.add(new Integer(start));
+				}
+				start= contents.indexOf(fPattern, start + length);
+			}
+			if (offsets == null)
+				return null;
+			int[] result= new int[offsets.size()];
+			for (int i= 0; i < result.length; i++)
+				result[i]= offsets.get(i).intValue();
+			return result;
+		}
+
+		private static boolean isQualifiedName(String contents, int start, int length) {
 			// skip embedded FQNs (bug 130764):
 			if (start > 0) {
-				char before= matchAccess.getFileContentChar(start - 1);
+				char before= contents.charAt(start - 1);
 				if (before == '.' || Character.isJavaIdentifierPart(before))
-					return true;
+					return false;
 			}
-			int fileContentLength= matchAccess.getFileContentLength();
 			int end= start + length;
-			if (end < fileContentLength) {
-				char after= matchAccess.getFileContentChar(end);
+			if (end < contents.length()) {
+				char after= contents.charAt(end);
 				if (Character.isJavaIdentifierPart(after))
-					return true;
+					return false;
 			}
-
-			IFile file= matchAccess.getFile();
-			TextChange change= fResult.getChange(file);
-			TextChangeCompatibility.addTextEdit(
-				change,
-				RefactoringCoreMessages.QualifiedNameFinder_update_name,
-				new ReplaceEdit(start, length, fNewValue), QUALIFIED_NAMES);
-
 			return true;
 		}
+
+		private static int indexOf(byte[] text, int length, byte[] pattern, int[] shifts) {
+			int last= pattern.length - 1;
+			int i= 0;
+			while (i <= length - pattern.length) {
+				int j= last;
+				while (text[i + j] == pattern[j]) {
+					if (j == 0)
+						return i;
+					j--;
+				}
+				i+= shifts[text[i + last] & 0xff];
+			}
+			return -1;
+		}
 	}
 
 	public QualifiedNameFinder() {
@@ -129,11 +347,124 @@ public class QualifiedNameFinder {
 			return;
 		}
 
-		ResultCollector collector= new ResultCollector(result, newValue);
-		TextSearchEngine engine= TextSearchEngine.create();
-		Pattern searchPattern= PatternConstructor.createPattern(pattern, true, false);
+		try {
+			monitor.beginTask("", 2); //$NON-NLS-1$
+			IFile[] files= collectFiles(createScope(filePatterns, root));
+			monitor.worked(1);
+
+			String[] dirtyContents= getDirtyContents(files);
+			ScanQueue queue= scanFiles(files, dirtyContents, pattern, new SubProgressMonitor(monitor, 1));
+			for (int i= 0; i < files.length; i++) {
+				int[] offsets= queue.getMatches(i);
+				if (offsets == null)
+					continue;
+				TextChange change= result.getChange(files[i]);
+				for (int j= 0; j < offsets.length; j++) {
+					TextChangeCompatibility.addTextEdit(
+						change,
+						RefactoringCoreMessages.QualifiedNameFinder_update_name,
+						new ReplaceEdit(offsets[j], pattern.length(), newValue), QUALIFIED_NAMES);
+				}
+			}
+		} finally {
+			monitor.done();
+		}
+	}
+
+	/**
+	 * Scans the given files for the qualified name. The files are scanned in parallel if there are
+	 * enough of them.
+	 *
+	 * @param files the files
+	 * @param dirtyContents the contents of the dirty buffers of the files, or <code>null</code>
+	 * @param pattern the qualified name
+	 * @param pm the progress monitor
+	 * @return the queue holding the matches
+	 */
+	private static ScanQueue scanFiles(IFile[] files, String[] dirtyContents, String pattern, IProgressMonitor pm) {
+		try {
+			pm.beginTask("", files.length); //$NON-NLS-1$
+			ScanQueue queue= new ScanQueue(files, dirtyContents, pattern);
+			int workerCount= Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), files.length / MIN_FILES_PER_WORKER));
+			try {
+				queue.run(workerCount, pm);
+			} catch (CoreException e) {
+				// not thrown, files which cannot be read are logged and skipped
+				JavaPlugin.log(e);
+			}
+			return queue;
+		} finally {
+			pm.done();
+		}
+	}
 
-		engine.search(createScope(filePatterns, root), collector, searchPattern, monitor);
+	/**
+	 * Collects the files of the scope which may contain qualified names.
+	 *
+	 * @param scope the scope
+	 * @return the files
+	 */
+	private static IFile[] collectFiles(final TextSearchScope scope) {
+		final List<IFile> files= new ArrayList<IFile>();
+		IResourceProxyVisitor visitor= new IResourceProxyVisitor() {
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (!scope.contains(proxy))
+					return false;
+				if (proxy.getType() == IResource.FILE) {
+					IFile file= (IFile) proxy.requestResource();
+					if (isCandidate(file))
+						files.add(file);
+					return false;
+				}
+				return true;
+			}
+		};
+		IResource[] roots= scope.getRoots();
+		for (int i= 0; i < roots.length; i++) {
+			try {
+				if (roots[i].isAccessible())
+					roots[i].accept(visitor, IResource.NONE);
+			} catch (CoreException e) {
+				JavaPlugin.log(e);
+			}
+		}
+		return files.toArray(new IFile[files.size()]);
+	}
+
+	private static boolean isCandidate(IFile file) {
+		IJavaElement element= JavaCore.create(file);
+		if ((element != null && element.exists()))
+			return false;
+
+		// Only touch text files (see bug https://bugs.eclipse.org/bugs/show_bug.cgi?id=114153 ):
+		if (! FileBuffers.getTextFileBufferManager().isTextFileLocation(file.getFullPath(), false))
+			return false;
+
+		IPath path= file.getProjectRelativePath();
+		String segment= path.segment(0);
+		if (segment != null && (segment.startsWith(".refactorings") || segment.startsWith(".deprecations"))) //$NON-NLS-1$ //$NON-NLS-2$
+			return false;
+
+		return true;
+	}
+
+	/**
+	 * Returns the contents of the dirty buffers of the given files, which have to be searched
+	 * instead of the files.
+	 *
+	 * @param files the files
+	 * @return the contents of the dirty buffers, with <code>null</code> for files without a dirty
+	 *         buffer
+	 */
+	private static String[] getDirtyContents(IFile[] files) {
+		String[] contents= new String[files.length];
+		ITextFileBufferManager manager= FileBuffers.getTextFileBufferManager();
+		for (int i= 0; i < files.length; i++) {
+			ITextFileBuffer buffer= manager.getTextFileBuffer(files[i].getFullPath(), LocationKind.IFILE);
+			if (buffer != null && buffer.isDirty())
+				contents[i]= buffer.getDocument().get();
+		}
+		return contents;
 	}
 
 	private static TextSearchScope createScope(String filePatterns, IProject root) {
@@ -13,23 +13,169 @@ package org.eclipse.jdt.internal.corext.refactoring.util;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.text.edits.MalformedTreeException;
+import org.eclipse.text.edits.MultiTextEdit;
+import org.eclipse.text.edits.ReplaceEdit;
+import org.eclipse.text.edits.TextEdit;
+import org.eclipse.text.edits.TextEditGroup;
+
+import org.eclipse.ltk.core.refactoring.CategorizedTextEditGroup;
+import org.eclipse.ltk.core.refactoring.GroupCategorySet;
 import org.eclipse.ltk.core.refactoring.TextChange;
+import org.eclipse.ltk.core.refactoring.TextEditChangeGroup;
 
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.refactoring.CompilationUnitChange;
 
+import org.eclipse.jdt.internal.corext.refactoring.changes.TextChangeCompatibility;
+
 
 /**
  * A <code>TextChangeManager</code> manages associations between <code>ICompilationUnit</code>
  * or <code>IFile</code> and <code>TextChange</code> objects.
+ * <p>
+ * Replace edits added with {@link #addReplaceEdit(ICompilationUnit, String, int, int, String, GroupCategorySet, boolean)}
+ * are kept as compact records and only turned into text edits and edit groups when the text
+ * change of their compilation unit is requested. Refactorings that update many references should
+ * use it instead of adding edits to {@link #get(ICompilationUnit)}.
+ * </p>
+ * <p>
+ * Analyses which visit the changes of many compilation units before the refactoring creates its
+ * change should use {@link #getAnalysisChange(ICompilationUnit)}, so that only the change of the
+ * unit being analyzed is held in memory.
+ * </p>
  */
 public class TextChangeManager {
 
+	/**
+	 * The replace edits of a compilation unit which have not been added to its text change yet.
+	 *
+	 * @since 3.7.1
+	 */
+	private static final class PendingEdits {
+
+		private int fSize;
+		private int[] fOffsets= new int[16];
+		private int[] fLengths= new int[16];
+		private String[] fTexts= new String[16];
+		private String[] fNames= new String[16];
+		private GroupCategorySet[] fCategories= new GroupCategorySet[16];
+		private boolean[] fOmitOnConflict= new boolean[16];
+
+		public void add(String name, int offset, int length, String text, GroupCategorySet categories, boolean omitOnConflict) {
+			if (fSize == fOffsets.length) {
+				int capacity= 2 * fSize;
+				int[] offsets= new int[capacity];
+				System.arraycopy(fOffsets, 0, offsets, 0, fSize);
+				fOffsets= offsets;
+				int[] lengths= new int[capacity];
+				System.arraycopy(fLengths, 0, lengths, 0, fSize);
+				fLengths= lengths;
+				String[] texts= new String[capacity];
+				System.arraycopy(fTexts, 0, texts, 0, fSize);
+				fTexts= texts;
+				String[] names= new String[capacity];
+				System.arraycopy(fNames, 0, names, 0, fSize);
+				fNames= names;
+				GroupCategorySet[] categories2= new GroupCategorySet[capacity];
+				System.arraycopy(fCategories, 0, categories2, 0, fSize);
+				fCategories= categories2;
+				boolean[] omitOnConflict2= new boolean[capacity];
+				System.arraycopy(fOmitOnConflict, 0, omitOnConflict2, 0, fSize);
+				fOmitOnConflict= omitOnConflict2;
+			}
+			fOffsets[fSize]= offset;
+			fLengths[fSize]= length;
+			fTexts[fSize]= text;
+			fNames[fSize]= name;
+			fCategories[fSize]= categories;
+			fOmitOnConflict[fSize]= omitOnConflict;
+			fSize++;
+		}
+
+		/**
+		 * Adds the edits to the given change. Edits which cannot be omitted are added first, so
+		 * that an edit which can be omitted never causes a conflict with them. Edits which can be
+		 * omitted are dropped if they conflict with an edit already in the change.
+		 * <p>
+		 * If the change has no edits yet, the edits are added directly to the root edit in the
+		 * order of their offsets, which avoids the search for the parent of each edit in
+		 * {@link TextChangeCompatibility#insert(TextEdit, TextEdit)}.
+		 * </p>
+		 *
+		 * @param change the text change
+		 * @throws MalformedTreeException if an edit which cannot be omitted conflicts with another
+		 *             edit
+		 */
+		public void addTo(TextChange change) throws MalformedTreeException {
+			TextEdit root= change.getEdit();
+			if (root == null) {
+				root= new MultiTextEdit();
+				change.setEdit(root);
+			}
+			boolean flat= !root.hasChildren();
+
+			int[] order= getOffsetOrder();
+			for (int i= 0; i < order.length; i++) {
+				int index= order[i];
+				if (!fOmitOnConflict[index])
+					addEdit(change, root, index, flat);
+			}
+			for (int i= 0; i < order.length; i++) {
+				int index= order[i];
+				if (fOmitOnConflict[index]) {
+					try {
+						addEdit(change, root, index, flat);
+					} catch (MalformedTreeException e) {
+						// conflicts with an edit in the change, omit it
+					}
+				}
+			}
+		}
+
+		private void addEdit(TextChange change, TextEdit root, int index, boolean flat) throws MalformedTreeException {
+			ReplaceEdit edit= new ReplaceEdit(fOffsets[index], fLengths[index], fTexts[index]);
+			if (flat)
+				root.addChild(edit); // only contains edits of this object, which never nest
+			else
+				TextChangeCompatibility.insert(root, edit);
+
+			GroupCategorySet categories= fCategories[index];
+			if (categories == null)
+				change.addTextEditGroup(new TextEditGroup(fNames[index], edit));
+			else
+				change.addTextEditChangeGroup(new TextEditChangeGroup(change, new CategorizedTextEditGroup(fNames[index], edit, categories)));
+		}
+
+		/**
+		 * @return the indices of the edits sorted by offset, edits with the same offset in the order
+		 *         in which they have been added
+		 */
+		private int[] getOffsetOrder() {
+			long[] keys= new long[fSize];
+			for (int i= 0; i < fSize; i++)
+				keys[i]= ((long) fOffsets[i] << 32) | i;
+			Arrays.sort(keys);
+			int[] order= new int[fSize];
+			for (int i= 0; i < fSize; i++)
+				order[i]= (int) keys[i];
+			return order;
+		}
+	}
+
 	private Map<ICompilationUnit, TextChange> fMap= new HashMap<ICompilationUnit, TextChange>(10);
 
+	/**
+	 * The edits which have not been added to the text changes yet.
+	 *
+	 * @since 3.7.1
+	 */
+	private Map<ICompilationUnit, PendingEdits> fPendingEdits= new HashMap<ICompilationUnit, PendingEdits>(10);
+
 	private final boolean fKeepExecutedTextEdits;
 
 	public TextChangeManager() {
@@ -49,6 +195,33 @@ public class TextChangeManager {
 	 */
 	public void manage(ICompilationUnit cu, TextChange change) {
 		fMap.put(cu, change);
+		PendingEdits edits= fPendingEdits.remove(cu);
+		if (edits != null)
+			edits.addTo(change);
+	}
+
+	/**
+	 * Adds a replace edit to the text change of the given compilation unit. The edit is only
+	 * created when the text change is requested, see {@link #get(ICompilationUnit)} and
+	 * {@link #getAllChanges()}.
+	 *
+	 * @param cu the compilation unit
+	 * @param name the name of the edit group of the edit
+	 * @param offset the offset of the replaced range
+	 * @param length the length of the replaced range
+	 * @param text the new text
+	 * @param categories the group categories of the edit or <code>null</code>
+	 * @param omitOnConflict <code>true</code> if the edit should be omitted if it conflicts with
+	 *            another edit, <code>false</code> if a conflict is an error
+	 * @since 3.7.1
+	 */
+	public void addReplaceEdit(ICompilationUnit cu, String name, int offset, int length, String text, GroupCategorySet categories, boolean omitOnConflict) {
+		PendingEdits edits= fPendingEdits.get(cu);
+		if (edits == null) {
+			edits= new PendingEdits();
+			fPendingEdits.put(cu, edits);
+		}
+		edits.add(name, offset, length, text, categories, omitOnConflict);
 	}
 
 	/**
@@ -61,10 +234,49 @@ public class TextChangeManager {
 	public TextChange get(ICompilationUnit cu) {
 		TextChange result= fMap.get(cu);
 		if (result == null) {
-			result= new CompilationUnitChange(cu.getElementName(), cu);
-			result.setKeepPreviewEdits(fKeepExecutedTextEdits);
+			result= createChange(cu);
 			fMap.put(cu, result);
 		}
+		PendingEdits edits= fPendingEdits.remove(cu);
+		if (edits != null)
+			edits.addTo(result);
+		return result;
+	}
+
+	/**
+	 * Returns a text change holding the edits of the given compilation unit, to analyze them
+	 * before the changes are created. If the unit only has edits added with
+	 * {@link #addReplaceEdit(ICompilationUnit, String, int, int, String, GroupCategorySet, boolean)},
+	 * a new change is returned on each call which is not kept by this manager, and the edits stay
+	 * pending. Otherwise, the change returned by {@link #get(ICompilationUnit)} is returned.
+	 *
+	 * @param cu the compilation unit
+	 * @return the text change with the edits of the compilation unit
+	 * @since 3.7.1
+	 */
+	public TextChange getAnalysisChange(ICompilationUnit cu) {
+		if (fMap.containsKey(cu))
+			return get(cu);
+		TextChange result= createChange(cu);
+		PendingEdits edits= fPendingEdits.get(cu);
+		if (edits != null)
+			edits.addTo(result);
+		return result;
+	}
+
+	/**
+	 * Returns the number of text changes this manager holds. Used for testing.
+	 *
+	 * @return the number of text changes which have been created and are kept by this manager
+	 * @since 3.7.1
+	 */
+	public int getChangeCount() {
+		return fMap.size();
+	}
+
+	private TextChange createChange(ICompilationUnit cu) {
+		TextChange result= new CompilationUnitChange(cu.getElementName(), cu);
+		result.setKeepPreviewEdits(fKeepExecutedTextEdits);
 		return result;
 	}
 
@@ -76,6 +288,8 @@ public class TextChangeManager {
 	 * @return the removed <tt>TextChange</tt>.
 	 */
 	public TextChange remove(ICompilationUnit unit) {
+		if (fPendingEdits.containsKey(unit))
+			get(unit);
 		return fMap.remove(unit);
 	}
 
@@ -85,8 +299,7 @@ public class TextChangeManager {
 	 * @return all text changes managed by this instance
 	 */
 	public TextChange[] getAllChanges(){
-		Set<ICompilationUnit> cuSet= fMap.keySet();
-		ICompilationUnit[] cus= cuSet.toArray(new ICompilationUnit[cuSet.size()]);
+		ICompilationUnit[] cus= getAllCompilationUnits();
 		// sort by cu name:
 		Arrays.sort(cus, new Comparator<ICompilationUnit>() {
 			public int compare(ICompilationUnit o1, ICompilationUnit o2) {
@@ -98,7 +311,7 @@ public class TextChangeManager {
 
 		TextChange[] textChanges= new TextChange[cus.length];
 		for (int i= 0; i < cus.length; i++) {
-			textChanges[i]= fMap.get(cus[i]);
+			textChanges[i]= get(cus[i]);
 		}
 		return textChanges;
 	}
@@ -109,7 +322,11 @@ public class TextChangeManager {
 	 * @return all compilation units managed by this instance
 	 */
 	public ICompilationUnit[] getAllCompilationUnits(){
-		return fMap.keySet().toArray(new ICompilationUnit[fMap.keySet().size()]);
+		if (fPendingEdits.isEmpty())
+			return fMap.keySet().toArray(new ICompilationUnit[fMap.keySet().size()]);
+		Set<ICompilationUnit> cus= new HashSet<ICompilationUnit>(fMap.keySet());
+		cus.addAll(fPendingEdits.keySet());
+		return cus.toArray(new ICompilationUnit[cus.size()]);
 	}
 
 	/**
@@ -117,6 +334,7 @@ public class TextChangeManager {
 	 */
 	public void clear() {
 		fMap.clear();
+		fPendingEdits.clear();
 	}
 
 	/**
@@ -126,7 +344,7 @@ public class TextChangeManager {
 	 * @return <code>true</code> if any text changes are managed for the specified compilation unit and <code>false</code> otherwise
 	 */
 	public boolean containsChangesIn(ICompilationUnit cu){
-		return fMap.containsKey(cu);
+		return fMap.containsKey(cu) || fPendingEdits.containsKey(cu);
 	}
 }
 
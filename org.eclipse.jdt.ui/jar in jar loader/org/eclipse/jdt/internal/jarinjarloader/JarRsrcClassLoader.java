@@ -0,0 +1,532 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.jarinjarloader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.security.CodeSource;
+import java.security.SecureClassLoader;
+import java.security.cert.Certificate;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Vector;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+/**
+ * This class will be compiled into the binary jar-in-jar-loader.zip. This ZIP is used for the
+ * "Runnable JAR File Exporter"
+ *
+ * A class loader which loads the classes and resources of the libraries nested in the runnable jar.
+ * The central directories of the runnable jar and of the nested jars are read once, and all
+ * entries are looked up in one index. Nested jars which are stored uncompressed are read directly
+ * from the runnable jar, compressed nested jars are inflated into memory once.
+ *
+ * @since 3.7.1
+ */
+final class JarRsrcClassLoader extends SecureClassLoader {
+
+	static {
+		// ClassLoader.registerAsParallelCapable() is only available on Java 7 and newer
+		try {
+			Method method= ClassLoader.class.getDeclaredMethod("registerAsParallelCapable", new Class[0]); //$NON-NLS-1$
+			method.invoke(null, new Object[0]);
+		} catch (Exception e) {
+			// not parallel capable
+		} catch (LinkageError e) {
+			// not parallel capable
+		}
+	}
+
+	private static final int LOCAL_HEADER_SIGNATURE= 0x04034b50;
+	private static final int LOCAL_HEADER_LENGTH= 30;
+	private static final int CENTRAL_HEADER_SIGNATURE= 0x02014b50;
+	private static final int CENTRAL_HEADER_LENGTH= 46;
+	private static final int END_HEADER_SIGNATURE= 0x06054b50;
+	private static final int END_HEADER_LENGTH= 22;
+	private static final int MAX_COMMENT_LENGTH= 0xFFFF;
+
+	/**
+	 * Random access to the bytes of an archive.
+	 */
+	private static abstract class Source {
+		abstract long length();
+		abstract void read(long position, byte[] buffer, int offset, int length) throws IOException;
+	}
+
+	/**
+	 * A region of a file, which is either the runnable jar or a stored nested jar in it.
+	 */
+	private static final class FileSource extends Source {
+
+		private final RandomAccessFile file;
+		private final long base;
+		private final long length;
+
+		FileSource(RandomAccessFile file, long base, long length) {
+			this.file= file;
+			this.base= base;
+			this.length= length;
+		}
+
+		long length() {
+			return length;
+		}
+
+		void read(long position, byte[] buffer, int offset, int length) throws IOException {
+			synchronized (file) {
+				file.seek(base + position);
+				file.readFully(buffer, offset, length);
+			}
+		}
+	}
+
+	/**
+	 * A compressed nested jar which has been inflated into memory.
+	 */
+	private static final class ArraySource extends Source {
+
+		private final byte[] bytes;
+
+		ArraySource(byte[] bytes) {
+			this.bytes= bytes;
+		}
+
+		long length() {
+			return bytes.length;
+		}
+
+		void read(long position, byte[] buffer, int offset, int length) throws IOException {
+			if (position < 0 || position + length > bytes.length)
+				throw new IOException("Read beyond end of archive"); //$NON-NLS-1$
+			System.arraycopy(bytes, (int) position, buffer, offset, length);
+		}
+	}
+
+	private static final class Entry {
+
+		final Archive archive;
+		final String name;
+		final int method;
+		final long compressedSize;
+		final long size;
+		final long localHeaderOffset;
+
+		/** Offset of the data, or -1 if the local header has not been read yet. Guarded by the archive. */
+		long dataOffset= -1;
+
+		Entry(Archive archive, String name, int method, long compressedSize, long size, long localHeaderOffset) {
+			this.archive= archive;
+			this.name= name;
+			this.method= method;
+			this.compressedSize= compressedSize;
+			this.size= size;
+			this.localHeaderOffset= localHeaderOffset;
+		}
+	}
+
+	/**
+	 * The entries of a zip archive, read from its central directory.
+	 */
+	private static final class Archive {
+
+		private final Source source;
+		private final Map entries= new HashMap();
+
+		Archive(Source source) throws IOException {
+			this.source= source;
+			readCentralDirectory();
+		}
+
+		Entry getEntry(String name) {
+			return (Entry) entries.get(name);
+		}
+
+		Iterator entries() {
+			return entries.values().iterator();
+		}
+
+		private void readCentralDirectory() throws IOException {
+			long length= source.length();
+			int tailLength= (int) Math.min(length, END_HEADER_LENGTH + MAX_COMMENT_LENGTH);
+			byte[] tail= new byte[tailLength];
+			source.read(length - tailLength, tail, 0, tailLength);
+
+			int end= -1;
+			for (int i= tailLength - END_HEADER_LENGTH; i >= 0; i--) {
+				if (getInt(tail, i) == END_HEADER_SIGNATURE) {
+					end= i;
+					break;
+				}
+			}
+			if (end == -1)
+				throw new IOException("Not a zip archive"); //$NON-NLS-1$
+
+			int count= getShort(tail, end + 10);
+			long directorySize= getUnsignedInt(tail, end + 12);
+			long directoryOffset= getUnsignedInt(tail, end + 16);
+			if (count == 0xFFFF || directorySize == 0xFFFFFFFFL || directoryOffset == 0xFFFFFFFFL)
+				throw new IOException("Zip64 archives are not supported"); //$NON-NLS-1$
+
+			// data may precede the archive, all offsets are relative to its start
+			long directoryPosition= length - tailLength + end - directorySize;
+			long base= directoryPosition - directoryOffset;
+			if (directoryPosition < 0 || base < 0 || directorySize > Integer.MAX_VALUE)
+				throw new IOException("Invalid central directory"); //$NON-NLS-1$
+
+			byte[] directory= new byte[(int) directorySize];
+			source.read(directoryPosition, directory, 0, directory.length);
+			int position= 0;
+			for (int i= 0; i < count; i++) {
+				if (position + CENTRAL_HEADER_LENGTH > directory.length || getInt(directory, position) != CENTRAL_HEADER_SIGNATURE)
+					throw new IOException("Invalid central directory"); //$NON-NLS-1$
+				int method= getShort(directory, position + 10);
+				long compressedSize= getUnsignedInt(directory, position + 20);
+				long size= getUnsignedInt(directory, position + 24);
+				int nameLength= getShort(directory, position + 28);
+				int extraLength= getShort(directory, position + 30);
+				int commentLength= getShort(directory, position + 32);
+				long localHeaderOffset= getUnsignedInt(directory, position + 42);
+				String name= new String(directory, position + CENTRAL_HEADER_LENGTH, nameLength, JIJConstants.UTF8_ENCODING);
+				if (!name.endsWith(JIJConstants.PATH_SEPARATOR) && !entries.containsKey(name))
+					entries.put(name, new Entry(this, name, method, compressedSize, size, base + localHeaderOffset));
+				position+= CENTRAL_HEADER_LENGTH + nameLength + extraLength + commentLength;
+			}
+		}
+
+		/**
+		 * Returns the offset of the data of the given entry, reading its local header if necessary.
+		 *
+		 * @param entry an entry of this archive
+		 * @return the offset
+		 * @throws IOException if the local header could not be read
+		 */
+		synchronized long getDataOffset(Entry entry) throws IOException {
+			if (entry.dataOffset == -1) {
+				byte[] header= new byte[LOCAL_HEADER_LENGTH];
+				source.read(entry.localHeaderOffset, header, 0, header.length);
+				if (getInt(header, 0) != LOCAL_HEADER_SIGNATURE)
+					throw new IOException("Invalid local header: " + entry.name); //$NON-NLS-1$
+				entry.dataOffset= entry.localHeaderOffset + LOCAL_HEADER_LENGTH + getShort(header, 26) + getShort(header, 28);
+			}
+			return entry.dataOffset;
+		}
+
+		/**
+		 * Returns the uncompressed content of the given entry.
+		 *
+		 * @param entry an entry of this archive
+		 * @return the content
+		 * @throws IOException if the entry could not be read
+		 */
+		synchronized byte[] read(Entry entry) throws IOException {
+			long dataOffset= getDataOffset(entry);
+			if (entry.compressedSize > Integer.MAX_VALUE || entry.size > Integer.MAX_VALUE)
+				throw new IOException("Entry too large: " + entry.name); //$NON-NLS-1$
+
+			if (entry.method == ZipEntry.STORED) {
+				byte[] content= new byte[(int) entry.size];
+				source.read(dataOffset, content, 0, content.length);
+				return content;
+			} else if (entry.method == ZipEntry.DEFLATED) {
+				// the inflater needs an extra dummy byte in 'nowrap' mode
+				byte[] compressed= new byte[(int) entry.compressedSize + 1];
+				source.read(dataOffset, compressed, 0, compressed.length - 1);
+				byte[] content= new byte[(int) entry.size];
+				Inflater inflater= new Inflater(true);
+				try {
+					inflater.setInput(compressed);
+					int length= 0;
+					while (length < content.length) {
+						int inflated= inflater.inflate(content, length, content.length - length);
+						if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+							throw new IOException("Truncated entry: " + entry.name); //$NON-NLS-1$
+						length+= inflated;
+					}
+				} catch (DataFormatException e) {
+					throw new IOException("Invalid entry: " + entry.name); //$NON-NLS-1$
+				} finally {
+					inflater.end();
+				}
+				return content;
+			} else {
+				throw new IOException("Unsupported compression method: " + entry.name); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/**
+	 * An entry of the class path, i.e. a nested jar or a directory in the runnable jar.
+	 */
+	private final class ClassPathElement {
+
+		final String rsrcPath;
+		final Archive archive;
+		/** The prefix of the entries of a directory in the runnable jar, <code>null</code> for a nested jar */
+		final String prefix;
+		final CodeSource codeSource;
+		private Manifest manifest;
+		private boolean manifestRead;
+
+		ClassPathElement(String rsrcPath, Archive archive, String prefix) throws MalformedURLException {
+			this.rsrcPath= rsrcPath;
+			this.archive= archive;
+			this.prefix= prefix;
+			this.codeSource= new CodeSource(getURL(this, ""), (Certificate[]) null); //$NON-NLS-1$
+		}
+
+		Entry getEntry(String name) {
+			return archive.getEntry(prefix == null ? name : prefix + name);
+		}
+
+		synchronized Manifest getManifest() {
+			if (!manifestRead) {
+				manifestRead= true;
+				Entry entry= getEntry(JarFile.MANIFEST_NAME);
+				if (entry != null && prefix == null) {
+					try {
+						manifest= new Manifest(new ByteArrayInputStream(archive.read(entry)));
+					} catch (IOException e) {
+						// no manifest
+					}
+				}
+			}
+			return manifest;
+		}
+	}
+
+	/**
+	 * Serves the URLs of the resources from the index.
+	 */
+	private final class IndexURLStreamHandler extends URLStreamHandler {
+
+		protected URLConnection openConnection(URL url) throws IOException {
+			return new URLConnection(url) {
+				private byte[] content;
+
+				public void connect() throws IOException {
+					if (content == null) {
+						Entry entry= getEntry(url);
+						if (entry == null)
+							throw new MalformedURLException("Could not open InputStream for URL '" + url + "'"); //$NON-NLS-1$ //$NON-NLS-2$
+						content= entry.archive.read(entry);
+						connected= true;
+					}
+				}
+
+				public InputStream getInputStream() throws IOException {
+					connect();
+					return new ByteArrayInputStream(content);
+				}
+
+				public int getContentLength() {
+					try {
+						connect();
+						return content.length;
+					} catch (IOException e) {
+						return -1;
+					}
+				}
+			};
+		}
+	}
+
+	private final Archive outer;
+	private final ClassPathElement[] elements;
+	/** Maps the jar paths of the class path to their elements */
+	private final Map jarElements= new HashMap();
+	/** Maps the entry names to the element with the first such entry */
+	private final Map index= new HashMap();
+	private final URLStreamHandler handler= new IndexURLStreamHandler();
+
+	/**
+	 * Creates a class loader for the given class path.
+	 *
+	 * @param jar the runnable jar
+	 * @param rsrcClassPath the class path: paths of nested jars and of directories ending with a
+	 *            slash
+	 * @param parent the parent class loader
+	 * @throws IOException if the runnable jar or one of its nested jars could not be read
+	 */
+	JarRsrcClassLoader(File jar, String[] rsrcClassPath, ClassLoader parent) throws IOException {
+		super(parent);
+		RandomAccessFile file= new RandomAccessFile(jar, "r"); //$NON-NLS-1$
+		try {
+			outer= new Archive(new FileSource(file, 0, file.length()));
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+
+		Vector elementList= new Vector();
+		for (int i= 0; i < rsrcClassPath.length; i++) {
+			String path= rsrcClassPath[i];
+			ClassPathElement element;
+			if (path.endsWith(JIJConstants.PATH_SEPARATOR)) {
+				String prefix= path.equals(JIJConstants.CURRENT_DIR) ? "" : path; //$NON-NLS-1$
+				element= new ClassPathElement(path, outer, prefix);
+			} else {
+				Entry entry= outer.getEntry(path);
+				if (entry == null || jarElements.containsKey(path))
+					continue;
+				element= new ClassPathElement(path, openNestedJar(file, outer, entry), null);
+				jarElements.put(path, element);
+			}
+			elementList.addElement(element);
+		}
+		elements= new ClassPathElement[elementList.size()];
+		elementList.copyInto(elements);
+
+		for (int i= 0; i < elements.length; i++) {
+			ClassPathElement element= elements[i];
+			for (Iterator iter= element.archive.entries(); iter.hasNext();) {
+				String name= ((Entry) iter.next()).name;
+				if (element.prefix != null) {
+					if (!name.startsWith(element.prefix))
+						continue;
+					name= name.substring(element.prefix.length());
+				}
+				if (!index.containsKey(name))
+					index.put(name, element);
+			}
+		}
+	}
+
+	private static Archive openNestedJar(RandomAccessFile file, Archive outer, Entry entry) throws IOException {
+		if (entry.method == ZipEntry.STORED) {
+			// the nested jar is a region of the runnable jar
+			return new Archive(new FileSource(file, outer.getDataOffset(entry), entry.size));
+		}
+		return new Archive(new ArraySource(outer.read(entry)));
+	}
+
+	protected Class findClass(String name) throws ClassNotFoundException {
+		String entryName= name.replace('.', '/') + ".class"; //$NON-NLS-1$
+		ClassPathElement element= (ClassPathElement) index.get(entryName);
+		if (element == null)
+			throw new ClassNotFoundException(name);
+
+		byte[] content;
+		try {
+			content= element.archive.read(element.getEntry(entryName));
+		} catch (IOException e) {
+			throw new ClassNotFoundException(name, e);
+		}
+
+		int lastDot= name.lastIndexOf('.');
+		if (lastDot != -1)
+			definePackage(name.substring(0, lastDot), element);
+		return defineClass(name, content, 0, content.length, element.codeSource);
+	}
+
+	private void definePackage(String packageName, ClassPathElement element) {
+		if (getPackage(packageName) != null)
+			return;
+
+		String specTitle= null, specVersion= null, specVendor= null;
+		String implTitle= null, implVersion= null, implVendor= null;
+		Manifest manifest= element.getManifest();
+		if (manifest != null) {
+			Attributes[] attributes= { manifest.getAttributes(packageName.replace('.', '/') + JIJConstants.PATH_SEPARATOR), manifest.getMainAttributes() };
+			for (int i= 0; i < attributes.length; i++) {
+				Attributes attr= attributes[i];
+				if (attr == null)
+					continue;
+				if (specTitle == null)
+					specTitle= attr.getValue(Attributes.Name.SPECIFICATION_TITLE);
+				if (specVersion == null)
+					specVersion= attr.getValue(Attributes.Name.SPECIFICATION_VERSION);
+				if (specVendor == null)
+					specVendor= attr.getValue(Attributes.Name.SPECIFICATION_VENDOR);
+				if (implTitle == null)
+					implTitle= attr.getValue(Attributes.Name.IMPLEMENTATION_TITLE);
+				if (implVersion == null)
+					implVersion= attr.getValue(Attributes.Name.IMPLEMENTATION_VERSION);
+				if (implVendor == null)
+					implVendor= attr.getValue(Attributes.Name.IMPLEMENTATION_VENDOR);
+			}
+		}
+		try {
+			definePackage(packageName, specTitle, specVersion, specVendor, implTitle, implVersion, implVendor, null);
+		} catch (IllegalArgumentException e) {
+			// defined concurrently by another thread
+		}
+	}
+
+	protected URL findResource(String name) {
+		ClassPathElement element= (ClassPathElement) index.get(name);
+		if (element == null)
+			return null;
+		try {
+			return getURL(element, name);
+		} catch (MalformedURLException e) {
+			return null;
+		}
+	}
+
+	protected Enumeration findResources(String name) throws IOException {
+		Vector result= new Vector();
+		for (int i= 0; i < elements.length; i++) {
+			if (elements[i].getEntry(name) != null)
+				result.addElement(getURL(elements[i], name));
+		}
+		return result.elements();
+	}
+
+	/**
+	 * Returns the URL of an entry. The external form of the URL is the same as the one of the
+	 * corresponding 'rsrc' URL, but its content is served from the index.
+	 */
+	private URL getURL(ClassPathElement element, String name) throws MalformedURLException {
+		if (element.prefix == null)
+			return new URL("jar", "", -1, JIJConstants.INTERNAL_URL_PROTOCOL_WITH_COLON + element.rsrcPath + JIJConstants.JAR_INTERNAL_SEPARATOR + name, handler); //$NON-NLS-1$ //$NON-NLS-2$
+		return new URL(JIJConstants.INTERNAL_URL_PROTOCOL, "", -1, element.prefix + name, handler); //$NON-NLS-1$
+	}
+
+	private Entry getEntry(URL url) {
+		String file= url.getFile();
+		if (JIJConstants.INTERNAL_URL_PROTOCOL.equals(url.getProtocol()))
+			return outer.getEntry(file);
+		int separator= file.indexOf(JIJConstants.JAR_INTERNAL_SEPARATOR);
+		if (separator == -1 || !file.startsWith(JIJConstants.INTERNAL_URL_PROTOCOL_WITH_COLON))
+			return null;
+		ClassPathElement element= (ClassPathElement) jarElements.get(file.substring(JIJConstants.INTERNAL_URL_PROTOCOL_WITH_COLON.length(), separator));
+		if (element == null)
+			return null;
+		return element.getEntry(file.substring(separator + JIJConstants.JAR_INTERNAL_SEPARATOR.length()));
+	}
+
+	private static int getShort(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xFF) | (bytes[offset + 1] & 0xFF) << 8;
+	}
+
+	private static int getInt(byte[] bytes, int offset) {
+		return getShort(bytes, offset) | getShort(bytes, offset + 2) << 16;
+	}
+
+	private static long getUnsignedInt(byte[] bytes, int offset) {
+		return getInt(bytes, offset) & 0xFFFFFFFFL;
+	}
+}
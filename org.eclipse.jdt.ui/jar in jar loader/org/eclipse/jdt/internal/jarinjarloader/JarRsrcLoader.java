@@ -13,10 +13,12 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.jarinjarloader;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.ArrayList;
@@ -51,13 +53,35 @@ public class JarRsrcLoader {
 			else
 				rsrcUrls[i] = new URL(JIJConstants.JAR_INTERNAL_URL_PROTOCOL_WITH_COLON + rsrcPath + JIJConstants.JAR_INTERNAL_SEPARATOR);    
 		}
-		ClassLoader jceClassLoader = new URLClassLoader(rsrcUrls, null);
+		ClassLoader jceClassLoader = createClassLoader(mi.rsrcClassPath, rsrcUrls);
 		Thread.currentThread().setContextClassLoader(jceClassLoader);
 		Class c = Class.forName(mi.rsrcMainClass, true, jceClassLoader);
 		Method main = c.getMethod(JIJConstants.MAIN_METHOD_NAME, new Class[]{args.getClass()}); 
 		main.invoke((Object)null, new Object[]{args});
 	}
 
+	/**
+	 * Creates the class loader for the redirected class path. The nested jars are loaded through an
+	 * index of their entries if the runnable jar is a local file, otherwise through 'rsrc' URLs.
+	 * 
+	 * @param rsrcClassPath the redirected class path
+	 * @param rsrcUrls the 'rsrc' URLs of the redirected class path
+	 * @return the class loader
+	 */
+	private static ClassLoader createClassLoader(String[] rsrcClassPath, URL[] rsrcUrls) {
+		try {
+			URL location = JarRsrcLoader.class.getProtectionDomain().getCodeSource().getLocation();
+			if ("file".equals(location.getProtocol())) { //$NON-NLS-1$
+				File jar = new File(new URI(location.toExternalForm()));
+				if (jar.isFile())
+					return new JarRsrcClassLoader(jar, rsrcClassPath, null);
+			}
+		} catch (Exception e) {
+			// fall back to 'rsrc' URLs
+		}
+		return new URLClassLoader(rsrcUrls, null);
+	}
+
 	private static ManifestInfo getManifestInfo() throws IOException {
 		Enumeration resEnum;
 		resEnum = Thread.currentThread().getContextClassLoader().getResources(JarFile.MANIFEST_NAME); 
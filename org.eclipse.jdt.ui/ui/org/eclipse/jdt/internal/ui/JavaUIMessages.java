@@ -98,6 +98,7 @@ public final class JavaUIMessages extends NLS {
 	public static String PackageSelectionDialog_nopackages_title;
 	public static String PackageSelectionDialog_nopackages_message;
 	public static String ProblemMarkerManager_problem_marker_update_job_description;
+	public static String DeferredJavaElementLabels_job_name;
 
 	public static String OverrideMethodDialog_groupMethodsByTypes;
 	public static String OverrideMethodDialog_dialog_title;
@@ -62,6 +62,12 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
     private DeferredTreeContentManager fManager;
     private CallHierarchyViewPart fPart;
 
+    /**
+     * The job searching the children of the current input in the background, or <code>null</code>.
+     * @since 3.7.1
+     */
+    private CallHierarchyPrefetchJob fPrefetchJob;
+
     private class MethodWrapperRunnable implements IRunnableWithProgress {
         private MethodWrapper fMethodWrapper;
         private MethodWrapper[] fCalls= null;
@@ -410,7 +416,7 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
      * @see org.eclipse.jface.viewers.IContentProvider#dispose()
      */
     public void dispose() {
-        // Nothing to dispose
+        cancelPrefetch();
     }
 
     /**
@@ -452,9 +458,39 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
     		MethodWrapper[] roots = ((TreeRoot) oldInput).getRoots();
    			cancelJobs(roots);
     	}
+    	cancelPrefetch();
         if (viewer instanceof AbstractTreeViewer) {
             fManager = new DeferredTreeContentManager((AbstractTreeViewer) viewer, fPart.getSite());
         }
+        if (newInput instanceof TreeRoot) {
+        	startPrefetch(((TreeRoot) newInput).getRoots());
+        }
+    }
+
+    /**
+     * Starts searching the children of the nodes below the given roots in the background, if
+     * enabled.
+     *
+     * @param roots the roots of the new input
+     * @since 3.7.1
+     */
+    private void startPrefetch(MethodWrapper[] roots) {
+    	int depth= CallHierarchyUI.getDefault().getPrefetchDepth();
+    	if (depth > 0 && roots != null && roots.length > 0) {
+    		fPrefetchJob= new CallHierarchyPrefetchJob(roots, depth);
+    		fPrefetchJob.start();
+    	}
+    }
+
+    /**
+     * Stops searching in the background.
+     * @since 3.7.1
+     */
+    private void cancelPrefetch() {
+    	if (fPrefetchJob != null) {
+    		fPrefetchJob.cancel();
+    		fPrefetchJob= null;
+    	}
     }
 
     /**
@@ -462,6 +498,7 @@ public class CallHierarchyContentProvider implements ITreeContentProvider {
      * @param wrappers the parents to cancel jobs for
      */
     void cancelJobs(MethodWrapper[] wrappers) {
+        cancelPrefetch();
         if (fManager != null && wrappers != null) {
         	for (int i= 0; i < wrappers.length; i++) {
 				MethodWrapper wrapper= wrappers[i];
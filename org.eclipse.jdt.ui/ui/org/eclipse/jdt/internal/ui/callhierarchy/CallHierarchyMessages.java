@@ -69,6 +69,7 @@ public final class CallHierarchyMessages extends NLS {
 	public static String FiltersDialog_messageMaxCallDepthInvalid;
 	public static String CallHierarchyContentProvider_searchError_title;
 	public static String CallHierarchyContentProvider_searchError_message;
+	public static String CallHierarchyPrefetchJob_name;
 	public static String CallHierarchyLabelProvider_constructor_label;
 	public static String CallHierarchyLabelProvider_expandWithConstructorsAction_realCallers;
 	public static String CallHierarchyLabelProvider_root;
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.callhierarchy;
+
+import java.util.LinkedList;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jdt.internal.corext.callhierarchy.CallerMethodWrapper;
+import org.eclipse.jdt.internal.corext.callhierarchy.MethodWrapper;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Searches the children of the nodes below the roots of a call hierarchy in the background, so
+ * that expanding them does not have to wait for a search.
+ * <p>
+ * The nodes are searched breadth-first, up to the prefetch depth and until the node or time budget
+ * of {@link CallHierarchyUI} is used up. The results end up in the caches of the method wrappers.
+ * The job searches one node per run and reschedules itself, so that it shares the scheduling rule
+ * of the jobs which fetch the children of expanded nodes and never delays them by more than one
+ * search. The searches for the callers of siblings, which an expansion starts in the background,
+ * are disabled while prefetching, so that each node costs one search and all searches run under
+ * the rule.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+class CallHierarchyPrefetchJob extends Job {
+
+	private final LinkedList<MethodWrapper> fQueue= new LinkedList<MethodWrapper>();
+	private final int fMaxLevel;
+	private int fRemainingNodes;
+	private long fDeadline;
+
+	/**
+	 * Creates a job prefetching below the given roots.
+	 *
+	 * @param roots the roots of the call hierarchy
+	 * @param depth the number of levels below the roots to prefetch
+	 */
+	CallHierarchyPrefetchJob(MethodWrapper[] roots, int depth) {
+		super(CallHierarchyMessages.CallHierarchyPrefetchJob_name);
+		for (int i= 0; i < roots.length; i++) {
+			fQueue.add(roots[i]);
+		}
+		fMaxLevel= Math.min(depth + 1, CallHierarchyUI.getDefault().getMaxCallDepth());
+		fRemainingNodes= CallHierarchyUI.getDefault().getPrefetchMaxNodes();
+		setSystem(true);
+		setPriority(Job.DECORATE);
+		setRule(DeferredMethodWrapper.createFetchRule());
+	}
+
+	/**
+	 * Starts prefetching.
+	 */
+	void start() {
+		fDeadline= System.currentTimeMillis() + CallHierarchyUI.getDefault().getPrefetchTimeLimit();
+		schedule();
+	}
+
+	/*
+	 * @see org.eclipse.core.runtime.jobs.Job#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return Status.CANCEL_STATUS;
+		MethodWrapper wrapper= nextWrapper();
+		if (wrapper == null)
+			return Status.OK_STATUS;
+
+		try {
+			MethodWrapper[] children= getCalls(wrapper, monitor);
+			if (wrapper.getLevel() < fMaxLevel) {
+				for (int i= 0; i < children.length; i++) {
+					fQueue.add(children[i]);
+				}
+			}
+		} catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		} catch (RuntimeException e) {
+			JavaPlugin.log(e);
+			return Status.CANCEL_STATUS;
+		}
+		fRemainingNodes--;
+
+		if (!monitor.isCanceled() && !fQueue.isEmpty())
+			schedule();
+		return Status.OK_STATUS;
+	}
+
+	/**
+	 * Returns the children of a node, without searching the callers of its siblings.
+	 *
+	 * @param wrapper the node
+	 * @param monitor the progress monitor
+	 * @return the children
+	 */
+	private static MethodWrapper[] getCalls(MethodWrapper wrapper, IProgressMonitor monitor) {
+		if (!(wrapper instanceof CallerMethodWrapper))
+			return wrapper.getCalls(monitor);
+
+		CallerMethodWrapper caller= (CallerMethodWrapper) wrapper;
+		caller.setSearchSiblings(false);
+		try {
+			return caller.getCalls(monitor);
+		} finally {
+			caller.setSearchSiblings(true);
+		}
+	}
+
+	/**
+	 * Returns the next node whose children have to be searched.
+	 *
+	 * @return the next node or <code>null</code> if prefetching is done
+	 */
+	private MethodWrapper nextWrapper() {
+		while (!fQueue.isEmpty() && fRemainingNodes > 0 && System.currentTimeMillis() < fDeadline) {
+			MethodWrapper wrapper= fQueue.removeFirst();
+			if (isExpandable(wrapper))
+				return wrapper;
+		}
+		return null;
+	}
+
+	/**
+	 * Tells whether the node will show the children returned by
+	 * {@link MethodWrapper#getCalls(IProgressMonitor)} when it is expanded, see
+	 * {@link CallHierarchyContentProvider#getChildren(Object)}.
+	 *
+	 * @param wrapper the node
+	 * @return <code>true</code> if the children of the node should be prefetched
+	 */
+	private static boolean isExpandable(MethodWrapper wrapper) {
+		if (!wrapper.canHaveChildren() || wrapper.isRecursive())
+			return false;
+		if (wrapper instanceof CallerMethodWrapper) {
+			CallerMethodWrapper caller= (CallerMethodWrapper) wrapper;
+			CallHierarchyContentProvider.ensureDefaultExpandWithConstructors(caller);
+			return !caller.getExpandWithConstructors();
+		}
+		return true;
+	}
+}
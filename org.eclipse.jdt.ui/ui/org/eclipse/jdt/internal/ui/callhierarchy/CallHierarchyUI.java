@@ -61,6 +61,13 @@ public class CallHierarchyUI {
     private static final int DEFAULT_MAX_CALL_DEPTH= 10;
     private static final String PREF_MAX_CALL_DEPTH = "PREF_MAX_CALL_DEPTH"; //$NON-NLS-1$
 
+    private static final int DEFAULT_PREFETCH_DEPTH= 2;
+    private static final int DEFAULT_PREFETCH_MAX_NODES= 100;
+    private static final int DEFAULT_PREFETCH_TIME_LIMIT= 10000;
+    private static final String PREF_PREFETCH_DEPTH= "PREF_CALL_HIERARCHY_PREFETCH_DEPTH"; //$NON-NLS-1$
+    private static final String PREF_PREFETCH_MAX_NODES= "PREF_CALL_HIERARCHY_PREFETCH_MAX_NODES"; //$NON-NLS-1$
+    private static final String PREF_PREFETCH_TIME_LIMIT= "PREF_CALL_HIERARCHY_PREFETCH_TIME_LIMIT"; //$NON-NLS-1$
+
     private static CallHierarchyUI fgInstance;
     private int fViewCount= 0;
     private final List<IMember[]> fMethodHistory= new ArrayList<IMember[]>();
@@ -104,6 +111,62 @@ public class CallHierarchyUI {
         settings.setValue(PREF_MAX_CALL_DEPTH, maxCallDepth);
     }
 
+	/**
+	 * Returns the number of levels below the roots whose children are searched in the background
+	 * before they are expanded.
+	 *
+	 * @return the prefetch depth, <code>0</code> if prefetching is disabled
+	 * @since 3.7.1
+	 */
+	public int getPrefetchDepth() {
+		IPreferenceStore settings= JavaPlugin.getDefault().getPreferenceStore();
+		if (!settings.contains(PREF_PREFETCH_DEPTH))
+			return DEFAULT_PREFETCH_DEPTH;
+		int prefetchDepth= settings.getInt(PREF_PREFETCH_DEPTH);
+		if (prefetchDepth < 0 || prefetchDepth > 99)
+			prefetchDepth= DEFAULT_PREFETCH_DEPTH;
+		return prefetchDepth;
+	}
+
+	/**
+	 * @param prefetchDepth the prefetch depth, <code>0</code> to disable prefetching
+	 * @since 3.7.1
+	 */
+	public void setPrefetchDepth(int prefetchDepth) {
+		IPreferenceStore settings= JavaPlugin.getDefault().getPreferenceStore();
+		settings.setValue(PREF_PREFETCH_DEPTH, prefetchDepth);
+	}
+
+	/**
+	 * Returns the maximal number of nodes whose children are searched in the background for one
+	 * input of the view.
+	 *
+	 * @return the maximal number of prefetched nodes
+	 * @since 3.7.1
+	 */
+	public int getPrefetchMaxNodes() {
+		IPreferenceStore settings= JavaPlugin.getDefault().getPreferenceStore();
+		int maxNodes= settings.getInt(PREF_PREFETCH_MAX_NODES);
+		if (maxNodes < 1)
+			maxNodes= DEFAULT_PREFETCH_MAX_NODES;
+		return maxNodes;
+	}
+
+	/**
+	 * Returns the time in milliseconds after which no more nodes are searched in the background
+	 * for one input of the view.
+	 *
+	 * @return the time limit for prefetching in milliseconds
+	 * @since 3.7.1
+	 */
+	public int getPrefetchTimeLimit() {
+		IPreferenceStore settings= JavaPlugin.getDefault().getPreferenceStore();
+		int timeLimit= settings.getInt(PREF_PREFETCH_TIME_LIMIT);
+		if (timeLimit < 1)
+			timeLimit= DEFAULT_PREFETCH_TIME_LIMIT;
+		return timeLimit;
+	}
+
     public static void jumpToMember(IJavaElement element) {
         if (element != null) {
             try {
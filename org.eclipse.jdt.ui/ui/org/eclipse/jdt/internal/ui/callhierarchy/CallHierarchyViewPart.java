@@ -774,6 +774,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
     public void refresh() {
         setCalleeRoots(null);
         setCallerRoots(null);
+        CallHierarchy.getDefault().clearCallerCache();
 
         updateView();
     }
@@ -1139,7 +1140,7 @@ public class CallHierarchyViewPart extends ViewPart implements ICallHierarchyVie
 			showPage(PAGE_VIEWER);
 
 			int includeMask= getIncludeMask();
-			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask));
+			CallHierarchy.getDefault().setSearchScope(getSearchScope(includeMask), fSearchScopeActions.getFullDescription(includeMask));
 
 			// set input to null so that setComparator does not cause a refresh on the old contents:
 			fCallHierarchyViewer.setInput(null);
@@ -31,7 +31,7 @@ public class DeferredMethodWrapper extends MethodWrapperWorkbenchAdapter impleme
      * A simple job scheduling rule for serializing jobs that shouldn't be run
      * concurrently.
      */
-    private class BatchSimilarSchedulingRule implements ISchedulingRule {
+    private static class BatchSimilarSchedulingRule implements ISchedulingRule {
         public String id;
 
         public BatchSimilarSchedulingRule(String id) {
@@ -56,6 +56,17 @@ public class DeferredMethodWrapper extends MethodWrapperWorkbenchAdapter impleme
         }
     }
 
+    /**
+     * Creates the rule of the jobs which fetch children. The children of a method wrapper must not be
+     * fetched concurrently with other children of the same call hierarchy.
+     *
+     * @return the scheduling rule
+     * @since 3.7.1
+     */
+    static ISchedulingRule createFetchRule() {
+        return new BatchSimilarSchedulingRule("org.eclipse.jdt.ui.callhierarchy.methodwrapper"); //$NON-NLS-1$
+    }
+
     DeferredMethodWrapper(CallHierarchyContentProvider provider, MethodWrapper methodWrapper) {
     	super(methodWrapper);
         this.fProvider = provider;
@@ -111,7 +122,7 @@ public class DeferredMethodWrapper extends MethodWrapperWorkbenchAdapter impleme
      * @see org.eclipse.ui.progress.IDeferredWorkbenchAdapter#getRule()
      */
     public ISchedulingRule getRule(Object o) {
-        return new BatchSimilarSchedulingRule("org.eclipse.jdt.ui.callhierarchy.methodwrapper"); //$NON-NLS-1$
+        return createFetchRule();
     }
 
     /*
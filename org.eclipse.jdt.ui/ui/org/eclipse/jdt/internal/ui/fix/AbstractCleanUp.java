@@ -95,6 +95,17 @@ public abstract class AbstractCleanUp implements ICleanUp {
 		return new RefactoringStatus();
 	}
 
+	/**
+	 * Tells whether {@link #createFix(CleanUpContext)} can be called concurrently for different
+	 * compilation units. Clean ups are not thread safe by default.
+	 *
+	 * @return <code>true</code> if fixes can be created concurrently
+	 * @since 3.7.1
+	 */
+	public boolean canCreateFixesConcurrently() {
+		return false;
+	}
+
 	/**
 	 * @param key the name of the option
 	 * @return <code>true</code> if option with <code>key</code> is enabled
@@ -112,6 +112,15 @@ public class CodeStyleCleanUp extends AbstractMultiFix {
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canCreateFixesConcurrently() {
+		// the fix only depends on the AST of the compilation unit
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -73,6 +73,15 @@ public class ControlStatementsCleanUp extends AbstractCleanUp {
 				isEnabled(CleanUpConstants.CONTROL_STATMENTS_USE_BLOCKS_NO_FOR_RETURN_AND_THROW));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canCreateFixesConcurrently() {
+		// the fix only depends on the AST of the compilation unit
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -59,6 +59,15 @@ public class ConvertLoopCleanUp extends AbstractCleanUp {
 				isEnabled(CleanUpConstants.VARIABLE_DECLARATIONS_USE_FINAL) && isEnabled(CleanUpConstants.VARIABLE_DECLARATIONS_USE_FINAL_LOCAL_VARIABLES));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canCreateFixesConcurrently() {
+		// the fix only depends on the AST of the compilation unit
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -70,6 +70,15 @@ public class ExpressionsCleanUp extends AbstractCleanUp {
 				isEnabled(CleanUpConstants.EXPRESSIONS_USE_PARENTHESES_NEVER));
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canCreateFixesConcurrently() {
+		// the fix only depends on the AST of the compilation unit
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
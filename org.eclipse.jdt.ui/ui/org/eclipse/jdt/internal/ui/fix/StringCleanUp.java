@@ -95,6 +95,15 @@ public class StringCleanUp extends AbstractMultiFix {
 		return result;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean canCreateFixesConcurrently() {
+		// the fix only depends on the AST of the compilation unit
+		return true;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
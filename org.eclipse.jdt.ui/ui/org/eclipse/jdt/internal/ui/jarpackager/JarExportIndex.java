@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.jarpackager;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+
+import org.eclipse.core.resources.IFile;
+
+import org.eclipse.jdt.ui.jarpackager.JarPackageData;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * The index of an incremental JAR export. It records a stamp of the source of each exported entry,
+ * so that the next export can copy the entries whose source did not change from the previous JAR
+ * instead of reading and compressing them again.
+ * <p>
+ * The index is stored next to the JAR description or, if the JAR has no description as e.g. a
+ * runnable JAR, in the state location of the plug-in. It is only used if it was written for the JAR
+ * file as it is on disk and with the same compression setting; otherwise all entries are written.
+ * </p>
+ * <p>
+ * While the new JAR is written, the previous one is kept next to it. If the export fails, the
+ * previous JAR is moved back, so that it and its index stay usable.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+public final class JarExportIndex {
+
+	private static final String INDEX_EXTENSION= "jarindex"; //$NON-NLS-1$
+	private static final String PREVIOUS_SUFFIX= ".previous"; //$NON-NLS-1$
+	private static final String INDEX_FOLDER= "jarexport"; //$NON-NLS-1$
+
+	// entry names never start with a slash
+	private static final String ARCHIVE_KEY= "/archive"; //$NON-NLS-1$
+	private static final String COMPRESSED_KEY= "/compressed"; //$NON-NLS-1$
+	private static final String LOCATION_KEY= "/location"; //$NON-NLS-1$
+
+	/**
+	 * The index next to the JAR description or <code>null</code> if {@link #fIndexLocation} is used
+	 */
+	private final IFile fIndexFile;
+	private final File fIndexLocation;
+	private final File fJarFile;
+	private final boolean fCompressed;
+
+	private final Properties fStamps= new Properties();
+	private Properties fPreviousStamps;
+	private File fPreviousJarFile;
+	private ZipFile fPreviousJar;
+	private RawZipFile fPreviousRawJar;
+	private int fReusedEntries;
+
+	/**
+	 * Returns the index for the given JAR package.
+	 *
+	 * @param jarPackage the JAR package
+	 * @return the index or <code>null</code> if the export is not incremental
+	 */
+	public static JarExportIndex create(JarPackageData jarPackage) {
+		if (!jarPackage.isIncrementalExport())
+			return null;
+		IPath jarLocation= jarPackage.getAbsoluteJarLocation();
+		if (jarLocation == null)
+			return null;
+		IFile descriptionFile= jarPackage.getDescriptionFile();
+		if (descriptionFile != null) {
+			IPath indexPath= descriptionFile.getFullPath().removeFileExtension().addFileExtension(INDEX_EXTENSION);
+			return new JarExportIndex(descriptionFile.getWorkspace().getRoot().getFile(indexPath), null, jarLocation.toFile(), jarPackage.isCompressed());
+		}
+		// the location of the JAR is recorded in the index, a hash collision only loses the previous index
+		String indexName= Integer.toHexString(jarLocation.toOSString().hashCode());
+		IPath indexLocation= JavaPlugin.getDefault().getStateLocation().append(INDEX_FOLDER).append(indexName).addFileExtension(INDEX_EXTENSION);
+		return new JarExportIndex(null, indexLocation.toFile(), jarLocation.toFile(), jarPackage.isCompressed());
+	}
+
+	private JarExportIndex(IFile indexFile, File indexLocation, File jarFile, boolean compressed) {
+		fIndexFile= indexFile;
+		fIndexLocation= indexLocation;
+		fJarFile= jarFile;
+		fCompressed= compressed;
+	}
+
+	/**
+	 * Reads the index of the previous export and moves the previous JAR aside if the index
+	 * describes it. Must be called before the JAR file is overwritten. If the previous export
+	 * cannot be reused, all entries are written.
+	 */
+	public void open() {
+		Properties previous= readIndex();
+		if (previous == null
+				|| !fJarFile.getPath().equals(previous.getProperty(LOCATION_KEY))
+				|| !Boolean.toString(fCompressed).equals(previous.getProperty(COMPRESSED_KEY))
+				|| !getArchiveStamp(fJarFile).equals(previous.getProperty(ARCHIVE_KEY)))
+			return;
+
+		File previousJarFile= new File(fJarFile.getPath() + PREVIOUS_SUFFIX);
+		previousJarFile.delete();
+		if (!fJarFile.renameTo(previousJarFile))
+			return;
+		fPreviousJarFile= previousJarFile;
+		try {
+			fPreviousJar= new ZipFile(previousJarFile);
+			fPreviousRawJar= new RawZipFile(previousJarFile.getPath());
+			fPreviousStamps= previous;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			closePreviousJar(true);
+		}
+	}
+
+	/**
+	 * Records the stamp of an entry and returns the entry of the previous JAR if it was exported
+	 * from the same source.
+	 *
+	 * @param name the name of the entry
+	 * @param stamp the stamp of the source of the entry, e.g. its modification time and size, or
+	 *            <code>null</code> if the entry must be written
+	 * @return the entry of the previous JAR or <code>null</code> if the entry must be written
+	 */
+	public ZipEntry getUnchangedEntry(String name, String stamp) {
+		if (stamp == null)
+			return null;
+		fStamps.setProperty(name, stamp);
+		if (fPreviousStamps == null || !stamp.equals(fPreviousStamps.getProperty(name)))
+			return null;
+		return fPreviousJar.getEntry(name);
+	}
+
+	/**
+	 * Returns the compressed content of an entry of the previous JAR.
+	 *
+	 * @param entry an entry returned by {@link #getUnchangedEntry(String, String)}
+	 * @return the compressed content or <code>null</code> if the entry must be written
+	 * @throws IOException if the previous JAR could not be read
+	 */
+	public byte[] readUnchangedContent(ZipEntry entry) throws IOException {
+		byte[] content= fPreviousRawJar.readRawContent(entry);
+		if (content != null)
+			fReusedEntries++;
+		return content;
+	}
+
+	/**
+	 * Returns the number of entries copied from the previous JAR.
+	 *
+	 * @return the number of reused entries
+	 */
+	public int getReusedEntries() {
+		return fReusedEntries;
+	}
+
+	/**
+	 * Deletes the previous JAR and writes the index for the new JAR. If the export failed, the
+	 * previous JAR replaces the new one, or the index is deleted if that is not possible.
+	 *
+	 * @param success <code>true</code> if the new JAR has been written completely
+	 * @throws CoreException if the index could not be written
+	 */
+	public void close(boolean success) throws CoreException {
+		boolean restored= closePreviousJar(!success);
+		if (success) {
+			fStamps.setProperty(ARCHIVE_KEY, getArchiveStamp(fJarFile));
+			fStamps.setProperty(COMPRESSED_KEY, Boolean.toString(fCompressed));
+			fStamps.setProperty(LOCATION_KEY, fJarFile.getPath());
+			ByteArrayOutputStream output= new ByteArrayOutputStream();
+			try {
+				fStamps.store(output, null);
+				writeIndex(output.toByteArray());
+			} catch (IOException e) {
+				throw JarPackagerUtil.createCoreException(e.getLocalizedMessage(), e);
+			}
+		} else if (!restored) {
+			deleteIndex();
+		}
+	}
+
+	private void writeIndex(byte[] content) throws CoreException, IOException {
+		if (fIndexFile != null) {
+			InputStream input= new ByteArrayInputStream(content);
+			if (fIndexFile.exists()) {
+				fIndexFile.setContents(input, true, false, null);
+			} else {
+				fIndexFile.create(input, true, null);
+				fIndexFile.setDerived(true, null);
+			}
+		} else {
+			fIndexLocation.getParentFile().mkdirs();
+			OutputStream output= new FileOutputStream(fIndexLocation);
+			try {
+				output.write(content);
+			} finally {
+				output.close();
+			}
+		}
+	}
+
+	private void deleteIndex() throws CoreException {
+		if (fIndexFile != null) {
+			if (fIndexFile.exists())
+				fIndexFile.delete(true, null);
+		} else {
+			fIndexLocation.delete();
+		}
+	}
+
+	/**
+	 * Closes the previous JAR and deletes it or moves it back.
+	 *
+	 * @param restore <code>true</code> to replace the JAR file by the previous JAR
+	 * @return <code>true</code> if the previous JAR has been moved back
+	 */
+	private boolean closePreviousJar(boolean restore) {
+		try {
+			if (fPreviousJar != null)
+				fPreviousJar.close();
+			if (fPreviousRawJar != null)
+				fPreviousRawJar.close();
+		} catch (IOException e) {
+			// Do nothing
+		}
+		fPreviousJar= null;
+		fPreviousRawJar= null;
+		fPreviousStamps= null;
+		boolean restored= false;
+		if (fPreviousJarFile != null) {
+			if (restore) {
+				fJarFile.delete();
+				restored= fPreviousJarFile.renameTo(fJarFile);
+			}
+			if (!restored)
+				fPreviousJarFile.delete();
+			fPreviousJarFile= null;
+		}
+		return restored;
+	}
+
+	private Properties readIndex() {
+		if (!fJarFile.isFile())
+			return null;
+		if (fIndexFile != null ? !fIndexFile.exists() : !fIndexLocation.isFile())
+			return null;
+		InputStream input= null;
+		try {
+			input= fIndexFile != null ? fIndexFile.getContents(true) : new FileInputStream(fIndexLocation);
+			Properties properties= new Properties();
+			properties.load(input);
+			return properties;
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			return null;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			return null;
+		} finally {
+			try {
+				if (input != null)
+					input.close();
+			} catch (IOException e) {
+				// Do nothing
+			}
+		}
+	}
+
+	private static String getArchiveStamp(File file) {
+		return file.lastModified() + "/" + file.length(); //$NON-NLS-1$
+	}
+}
@@ -0,0 +1,626 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.jarpackager;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+
+/**
+ * Writes the entries of a JAR file. New entries are deflated by a pool of worker threads while
+ * the caller reads the next entries, and entries which are already compressed can be copied
+ * without inflating and deflating them again. The entries are written in the order they were
+ * added, so the result is the same as with a {@link java.util.jar.JarOutputStream}.
+ * <p>
+ * Entries larger than {@link #MAX_IN_MEMORY_SIZE} are not kept in memory: they are compressed
+ * into a temporary file by the calling thread, and written from there. Sizes and offsets which do
+ * not fit into 32 bits are written in ZIP64 extra fields.
+ * </p>
+ * <p>
+ * This class is not thread safe, the entries must be added by a single thread.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+public final class JarOutputPipeline {
+
+	/**
+	 * An entry whose data is ready to be written.
+	 */
+	private static final class CompletedEntry {
+
+		private final String fName;
+		private final long fTime;
+		private final int fMethod;
+		private final long fCrc;
+		private final long fSize;
+		private final byte[] fData;
+		private final int fDataLength;
+		private final boolean fCopied;
+
+		public CompletedEntry(String name, long time, int method, long crc, long size, byte[] data, int dataLength, boolean copied) {
+			fName= name;
+			fTime= time;
+			fMethod= method;
+			fCrc= crc;
+			fSize= size;
+			fData= data;
+			fDataLength= dataLength;
+			fCopied= copied;
+		}
+	}
+
+	/**
+	 * The central directory record of a written entry.
+	 */
+	private static final class CentralEntry {
+
+		private final byte[] fName;
+		private final int fFlags;
+		private final int fMethod;
+		private final int fDosTime;
+		private final long fCrc;
+		private final long fCompressedSize;
+		private final long fSize;
+		private final long fOffset;
+		private final byte[] fExtra;
+
+		public CentralEntry(byte[] name, int flags, int method, int dosTime, long crc, long compressedSize, long size, long offset, byte[] extra) {
+			fName= name;
+			fFlags= flags;
+			fMethod= method;
+			fDosTime= dosTime;
+			fCrc= crc;
+			fCompressedSize= compressedSize;
+			fSize= size;
+			fOffset= offset;
+			fExtra= extra;
+		}
+	}
+
+	/**
+	 * Deflates the content of an entry.
+	 */
+	private static final class DeflateTask implements Callable<CompletedEntry> {
+
+		private final String fName;
+		private final long fTime;
+		private final byte[] fContent;
+		private final int fLength;
+
+		public DeflateTask(String name, long time, byte[] content, int length) {
+			fName= name;
+			fTime= time;
+			fContent= content;
+			fLength= length;
+		}
+
+		public CompletedEntry call() {
+			CRC32 crc= new CRC32();
+			crc.update(fContent, 0, fLength);
+
+			Deflater deflater= new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+			try {
+				deflater.setInput(fContent, 0, fLength);
+				deflater.finish();
+				byte[] buffer= new byte[Math.max(64, fLength / 2)];
+				int length= 0;
+				while (!deflater.finished()) {
+					if (length == buffer.length) {
+						byte[] newBuffer= new byte[2 * buffer.length];
+						System.arraycopy(buffer, 0, newBuffer, 0, length);
+						buffer= newBuffer;
+					}
+					length+= deflater.deflate(buffer, length, buffer.length - length);
+				}
+				return new CompletedEntry(fName, fTime, ZipEntry.DEFLATED, crc.getValue(), fLength, buffer, length, false);
+			} finally {
+				deflater.end();
+			}
+		}
+	}
+
+	/**
+	 * Entries smaller than this are deflated by the calling thread.
+	 */
+	private static final int MIN_PARALLEL_SIZE= 8 * 1024;
+
+	/**
+	 * Entries larger than this are compressed into a temporary file instead of memory.
+	 */
+	private static final int MAX_IN_MEMORY_SIZE= 4 * 1024 * 1024;
+
+	/**
+	 * The maximal size of the content of the entries waiting to be written.
+	 */
+	private static final long MAX_PENDING_BYTES= 32 * 1024 * 1024;
+
+	private static final int LOCAL_HEADER_SIGNATURE= 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE= 0x02014b50;
+	private static final int ZIP64_END_HEADER_SIGNATURE= 0x06064b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE= 0x07064b50;
+	private static final int END_HEADER_SIGNATURE= 0x06054b50;
+	private static final int ZIP64_EXTRA_ID= 0x0001;
+	private static final int UTF8_FLAG= 0x800;
+	private static final long ZIP64_MAGIC= 0xFFFFFFFFL;
+	private static final int ZIP64_MAGIC_COUNT= 0xFFFF;
+	private static final byte[] JAR_MAGIC= { (byte) 0xFE, (byte) 0xCA, 0, 0 };
+
+	private final OutputStream fOutput;
+	private final ExecutorService fExecutor;
+	private final Calendar fCalendar= Calendar.getInstance();
+	private final byte[] fHeader= new byte[64];
+
+	/** The entries waiting to be written, either {@link CompletedEntry}s or {@link Future}s of them */
+	private final LinkedList<Object> fPending= new LinkedList<Object>();
+	private long fPendingBytes;
+
+	private final Set<String> fNames= new HashSet<String>();
+	private final List<CentralEntry> fCentralEntries= new ArrayList<CentralEntry>();
+	private long fOffset;
+	private String fComment;
+	private boolean fClosed;
+
+	private final long fStartTime;
+	private long fContentBytes;
+	private int fCopiedEntries;
+
+	/**
+	 * Creates a pipeline writing to the given stream.
+	 *
+	 * @param output the stream to write the JAR file to, closed by {@link #close()}
+	 * @param manifest the manifest to write as first entry, or <code>null</code> if none
+	 * @param workerCount the number of threads deflating entries, or <code>0</code> to deflate all
+	 *            entries in the calling thread
+	 * @throws IOException if the manifest could not be written
+	 */
+	public JarOutputPipeline(OutputStream output, Manifest manifest, int workerCount) throws IOException {
+		fOutput= output;
+		fStartTime= System.currentTimeMillis();
+		if (workerCount > 0) {
+			fExecutor= Executors.newFixedThreadPool(workerCount, new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread= new Thread(runnable, "JAR Export Deflater"); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		} else {
+			fExecutor= null;
+		}
+		if (manifest != null) {
+			ZipEntry entry= new ZipEntry(JarFile.MANIFEST_NAME);
+			ByteArrayOutputStream content= new ByteArrayOutputStream();
+			manifest.write(content);
+			byte[] bytes= content.toByteArray();
+			putEntry(entry, bytes, bytes.length);
+		}
+	}
+
+	/**
+	 * Sets the comment of the JAR file.
+	 *
+	 * @param comment the comment
+	 */
+	public void setComment(String comment) {
+		fComment= comment;
+	}
+
+	/**
+	 * Adds an entry. The method of the entry defaults to {@link ZipEntry#DEFLATED}, its time to
+	 * the current time. The CRC and the size are computed from the content.
+	 *
+	 * @param entry the entry
+	 * @param content the content of the entry, which is read completely but not closed
+	 * @throws IOException if the content could not be read or the entry could not be written
+	 * @throws ZipException if an entry with the same name has already been added
+	 */
+	public void putEntry(ZipEntry entry, InputStream content) throws IOException {
+		byte[] buffer= new byte[entry.getSize() > 0 && entry.getSize() < MAX_IN_MEMORY_SIZE ? (int) entry.getSize() + 1 : 4096];
+		int length= 0;
+		int count;
+		while ((count= content.read(buffer, length, buffer.length - length)) != -1) {
+			length+= count;
+			if (length == buffer.length) {
+				if (length >= MAX_IN_MEMORY_SIZE) {
+					putLargeEntry(entry, buffer, length, content);
+					return;
+				}
+				byte[] newBuffer= new byte[Math.min(2 * buffer.length, MAX_IN_MEMORY_SIZE)];
+				System.arraycopy(buffer, 0, newBuffer, 0, length);
+				buffer= newBuffer;
+			}
+		}
+		putEntry(entry, buffer, length);
+	}
+
+	/**
+	 * Compresses an entry into a temporary file and writes it after the pending entries.
+	 *
+	 * @param entry the entry
+	 * @param head the buffer holding the start of the content
+	 * @param headLength the length of the start of the content
+	 * @param rest the stream to read the rest of the content from
+	 * @throws IOException if the content could not be read or the entry could not be written
+	 */
+	private void putLargeEntry(ZipEntry entry, byte[] head, int headLength, InputStream rest) throws IOException {
+		String name= checkName(entry);
+		long time= entry.getTime() != -1 ? entry.getTime() : System.currentTimeMillis();
+		int method= entry.getMethod() == ZipEntry.STORED ? ZipEntry.STORED : ZipEntry.DEFLATED;
+
+		File file= File.createTempFile("jarexport", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+		try {
+			CRC32 crc= new CRC32();
+			long size= 0;
+			OutputStream spool= new BufferedOutputStream(new FileOutputStream(file));
+			Deflater deflater= method == ZipEntry.DEFLATED ? new Deflater(Deflater.DEFAULT_COMPRESSION, true) : null;
+			try {
+				OutputStream output= deflater != null ? new DeflaterOutputStream(spool, deflater) : spool;
+				int count= headLength;
+				do {
+					crc.update(head, 0, count);
+					output.write(head, 0, count);
+					size+= count;
+				} while ((count= rest.read(head)) != -1);
+				output.close();
+			} finally {
+				spool.close();
+				if (deflater != null)
+					deflater.end();
+			}
+			fContentBytes+= size;
+
+			while (!fPending.isEmpty())
+				writePending();
+			long compressedSize= file.length();
+			writeLocalHeader(name, time, method, crc.getValue(), compressedSize, size);
+			InputStream data= new FileInputStream(file);
+			try {
+				int count;
+				while ((count= data.read(head)) != -1)
+					fOutput.write(head, 0, count);
+			} finally {
+				data.close();
+			}
+			fOffset+= compressedSize;
+		} finally {
+			file.delete();
+		}
+	}
+
+	private void putEntry(ZipEntry entry, byte[] content, int length) throws IOException {
+		String name= checkName(entry);
+		long time= entry.getTime() != -1 ? entry.getTime() : System.currentTimeMillis();
+		fContentBytes+= length;
+
+		if (entry.getMethod() == ZipEntry.STORED) {
+			CRC32 crc= new CRC32();
+			crc.update(content, 0, length);
+			enqueue(new CompletedEntry(name, time, ZipEntry.STORED, crc.getValue(), length, content, length, false), length);
+		} else if (fExecutor == null || length < MIN_PARALLEL_SIZE) {
+			enqueue(new DeflateTask(name, time, content, length).call(), length);
+		} else {
+			enqueue(fExecutor.submit(new DeflateTask(name, time, content, length)), length);
+		}
+	}
+
+	/**
+	 * Adds an entry whose content is already compressed with the method of the entry. The method,
+	 * the CRC and the uncompressed size must be set in the entry.
+	 *
+	 * @param entry the entry
+	 * @param data the compressed content of the entry
+	 * @throws IOException if the entry could not be written
+	 * @throws ZipException if an entry with the same name has already been added
+	 */
+	public void putRawEntry(ZipEntry entry, byte[] data) throws IOException {
+		String name= checkName(entry);
+		if (entry.getMethod() != ZipEntry.STORED && entry.getMethod() != ZipEntry.DEFLATED || entry.getCrc() == -1 || entry.getSize() == -1)
+			throw new ZipException("Incomplete raw entry: " + name); //$NON-NLS-1$
+		long time= entry.getTime() != -1 ? entry.getTime() : System.currentTimeMillis();
+		fContentBytes+= entry.getSize();
+		fCopiedEntries++;
+		enqueue(new CompletedEntry(name, time, entry.getMethod(), entry.getCrc(), entry.getSize(), data, data.length, true), data.length);
+	}
+
+	private String checkName(ZipEntry entry) throws ZipException {
+		if (fClosed)
+			throw new ZipException("Pipeline closed"); //$NON-NLS-1$
+		String name= entry.getName();
+		if (!fNames.add(name))
+			throw new ZipException("duplicate entry: " + name); //$NON-NLS-1$ same message as java.util.zip.ZipOutputStream
+		return name;
+	}
+
+	private void enqueue(Object entry, int length) throws IOException {
+		fPending.add(entry);
+		fPendingBytes+= length;
+		// write completed entries, and wait for the oldest ones if too much is pending
+		while (!fPending.isEmpty() && (fPendingBytes > MAX_PENDING_BYTES || isDone(fPending.getFirst())))
+			writePending();
+	}
+
+	private static boolean isDone(Object pending) {
+		return !(pending instanceof Future<?>) || ((Future<?>) pending).isDone();
+	}
+
+	private void writePending() throws IOException {
+		Object pending= fPending.removeFirst();
+		CompletedEntry entry;
+		if (pending instanceof Future<?>) {
+			try {
+				entry= (CompletedEntry) ((Future<?>) pending).get();
+			} catch (InterruptedException e) {
+				throw new IOException(e.getMessage());
+			} catch (ExecutionException e) {
+				IOException exception= new IOException(e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+				exception.initCause(e.getCause());
+				throw exception;
+			}
+		} else {
+			entry= (CompletedEntry) pending;
+		}
+		fPendingBytes-= entry.fMethod == ZipEntry.DEFLATED && !entry.fCopied ? entry.fSize : entry.fDataLength;
+		write(entry);
+	}
+
+	private void write(CompletedEntry entry) throws IOException {
+		writeLocalHeader(entry.fName, entry.fTime, entry.fMethod, entry.fCrc, entry.fDataLength, entry.fSize);
+		fOutput.write(entry.fData, 0, entry.fDataLength);
+		fOffset+= entry.fDataLength;
+	}
+
+	/**
+	 * Writes the local header of an entry and records its central directory entry. The
+	 * compressed data has to be written next.
+	 *
+	 * @param entryName the name of the entry
+	 * @param time the modification time
+	 * @param method the compression method
+	 * @param crc the CRC of the uncompressed content
+	 * @param compressedSize the size of the compressed data
+	 * @param size the size of the uncompressed content
+	 * @throws IOException if the header could not be written
+	 */
+	private void writeLocalHeader(String entryName, long time, int method, long crc, long compressedSize, long size) throws IOException {
+		byte[] name= getBytes(entryName);
+		int flags= isAscii(entryName) ? 0 : UTF8_FLAG;
+		int dosTime= toDosTime(time);
+		byte[] extra= fCentralEntries.isEmpty() ? JAR_MAGIC : new byte[0];
+
+		// the ZIP64 extra field of a local header has to contain both sizes
+		boolean isZip64= compressedSize >= ZIP64_MAGIC || size >= ZIP64_MAGIC;
+		byte[] localExtra= extra;
+		if (isZip64) {
+			localExtra= new byte[extra.length + 20];
+			System.arraycopy(extra, 0, localExtra, 0, extra.length);
+			int position= putShort(localExtra, extra.length, ZIP64_EXTRA_ID);
+			position= putShort(localExtra, position, 16);
+			position= putLong(localExtra, position, size);
+			putLong(localExtra, position, compressedSize);
+		}
+
+		int position= 0;
+		position= putInt(fHeader, position, LOCAL_HEADER_SIGNATURE);
+		position= putShort(fHeader, position, isZip64 ? 45 : method == ZipEntry.STORED ? 10 : 20);
+		position= putShort(fHeader, position, flags);
+		position= putShort(fHeader, position, method);
+		position= putInt(fHeader, position, dosTime);
+		position= putInt(fHeader, position, (int) crc);
+		position= putInt(fHeader, position, isZip64 ? (int) ZIP64_MAGIC : (int) compressedSize);
+		position= putInt(fHeader, position, isZip64 ? (int) ZIP64_MAGIC : (int) size);
+		position= putShort(fHeader, position, name.length);
+		position= putShort(fHeader, position, localExtra.length);
+		fOutput.write(fHeader, 0, position);
+		fOutput.write(name);
+		fOutput.write(localExtra);
+
+		fCentralEntries.add(new CentralEntry(name, flags, method, dosTime, crc, compressedSize, size, fOffset, extra));
+		fOffset+= position + name.length + localExtra.length;
+	}
+
+	/**
+	 * Writes the remaining entries and the central directory, and closes the stream.
+	 *
+	 * @throws IOException if the JAR file could not be written
+	 */
+	public void close() throws IOException {
+		if (fClosed)
+			return;
+		fClosed= true;
+		try {
+			while (!fPending.isEmpty())
+				writePending();
+			writeCentralDirectory();
+		} finally {
+			if (fExecutor != null)
+				fExecutor.shutdownNow();
+			fOutput.close();
+		}
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		long directoryOffset= fOffset;
+		for (int i= 0, n= fCentralEntries.size(); i < n; i++) {
+			CentralEntry entry= fCentralEntries.get(i);
+			// the ZIP64 extra field of a central header only contains the values which do not fit
+			boolean isZip64Size= entry.fSize >= ZIP64_MAGIC;
+			boolean isZip64CompressedSize= entry.fCompressedSize >= ZIP64_MAGIC;
+			boolean isZip64Offset= entry.fOffset >= ZIP64_MAGIC;
+			boolean isZip64= isZip64Size || isZip64CompressedSize || isZip64Offset;
+			byte[] extra= entry.fExtra;
+			if (isZip64) {
+				int dataSize= (isZip64Size ? 8 : 0) + (isZip64CompressedSize ? 8 : 0) + (isZip64Offset ? 8 : 0);
+				extra= new byte[entry.fExtra.length + 4 + dataSize];
+				System.arraycopy(entry.fExtra, 0, extra, 0, entry.fExtra.length);
+				int position= putShort(extra, entry.fExtra.length, ZIP64_EXTRA_ID);
+				position= putShort(extra, position, dataSize);
+				if (isZip64Size)
+					position= putLong(extra, position, entry.fSize);
+				if (isZip64CompressedSize)
+					position= putLong(extra, position, entry.fCompressedSize);
+				if (isZip64Offset)
+					putLong(extra, position, entry.fOffset);
+			}
+			int position= 0;
+			position= putInt(fHeader, position, CENTRAL_HEADER_SIGNATURE);
+			position= putShort(fHeader, position, isZip64 ? 45 : 20);
+			position= putShort(fHeader, position, isZip64 ? 45 : entry.fMethod == ZipEntry.STORED ? 10 : 20);
+			position= putShort(fHeader, position, entry.fFlags);
+			position= putShort(fHeader, position, entry.fMethod);
+			position= putInt(fHeader, position, entry.fDosTime);
+			position= putInt(fHeader, position, (int) entry.fCrc);
+			position= putInt(fHeader, position, isZip64CompressedSize ? (int) ZIP64_MAGIC : (int) entry.fCompressedSize);
+			position= putInt(fHeader, position, isZip64Size ? (int) ZIP64_MAGIC : (int) entry.fSize);
+			position= putShort(fHeader, position, entry.fName.length);
+			position= putShort(fHeader, position, extra.length);
+			position= putShort(fHeader, position, 0); // comment length
+			position= putShort(fHeader, position, 0); // disk number
+			position= putShort(fHeader, position, 0); // internal attributes
+			position= putInt(fHeader, position, 0); // external attributes
+			position= putInt(fHeader, position, isZip64Offset ? (int) ZIP64_MAGIC : (int) entry.fOffset);
+			fOutput.write(fHeader, 0, position);
+			fOutput.write(entry.fName);
+			fOutput.write(extra);
+			fOffset+= position + entry.fName.length + extra.length;
+		}
+
+		long directorySize= fOffset - directoryOffset;
+		int count= fCentralEntries.size();
+		boolean isZip64= count >= ZIP64_MAGIC_COUNT || directoryOffset >= ZIP64_MAGIC || directorySize >= ZIP64_MAGIC;
+		if (isZip64) {
+			long zip64EndOffset= fOffset;
+			int position= 0;
+			position= putInt(fHeader, position, ZIP64_END_HEADER_SIGNATURE);
+			position= putLong(fHeader, position, 44); // size of the remaining record
+			position= putShort(fHeader, position, 45);
+			position= putShort(fHeader, position, 45);
+			position= putInt(fHeader, position, 0);
+			position= putInt(fHeader, position, 0);
+			position= putLong(fHeader, position, count);
+			position= putLong(fHeader, position, count);
+			position= putLong(fHeader, position, directorySize);
+			position= putLong(fHeader, position, directoryOffset);
+			fOutput.write(fHeader, 0, position);
+
+			position= 0;
+			position= putInt(fHeader, position, ZIP64_LOCATOR_SIGNATURE);
+			position= putInt(fHeader, position, 0);
+			position= putLong(fHeader, position, zip64EndOffset);
+			position= putInt(fHeader, position, 1);
+			fOutput.write(fHeader, 0, position);
+		}
+
+		byte[] comment= fComment != null ? getBytes(fComment) : new byte[0];
+		int position= 0;
+		position= putInt(fHeader, position, END_HEADER_SIGNATURE);
+		position= putShort(fHeader, position, 0);
+		position= putShort(fHeader, position, 0);
+		position= putShort(fHeader, position, isZip64 ? ZIP64_MAGIC_COUNT : count);
+		position= putShort(fHeader, position, isZip64 ? ZIP64_MAGIC_COUNT : count);
+		position= putInt(fHeader, position, isZip64 ? (int) ZIP64_MAGIC : (int) directorySize);
+		position= putInt(fHeader, position, isZip64 ? (int) ZIP64_MAGIC : (int) directoryOffset);
+		position= putShort(fHeader, position, Math.min(comment.length, 0xFFFF));
+		fOutput.write(fHeader, 0, position);
+		fOutput.write(comment, 0, Math.min(comment.length, 0xFFFF));
+		fOutput.flush();
+	}
+
+	/**
+	 * Returns a report about the throughput of the pipeline.
+	 *
+	 * @return the report
+	 */
+	public String getThroughputReport() {
+		long elapsed= Math.max(1, System.currentTimeMillis() - fStartTime);
+		StringBuffer buf= new StringBuffer();
+		buf.append(fCentralEntries.size()).append(" entries, "); //$NON-NLS-1$
+		buf.append(fCopiedEntries).append(" copied without recompression, "); //$NON-NLS-1$
+		buf.append(fContentBytes / 1024).append(" KB content, "); //$NON-NLS-1$
+		buf.append(fOffset / 1024).append(" KB written in "); //$NON-NLS-1$
+		buf.append(elapsed).append(" ms ("); //$NON-NLS-1$
+		buf.append(fContentBytes * 1000 / 1024 / elapsed).append(" KB/s)"); //$NON-NLS-1$
+		return buf.toString();
+	}
+
+	private int toDosTime(long time) {
+		fCalendar.setTimeInMillis(time);
+		int year= fCalendar.get(Calendar.YEAR);
+		if (year < 1980)
+			return (1 << 21) | (1 << 16);
+		return (year - 1980) << 25
+				| (fCalendar.get(Calendar.MONTH) + 1) << 21
+				| fCalendar.get(Calendar.DAY_OF_MONTH) << 16
+				| fCalendar.get(Calendar.HOUR_OF_DAY) << 11
+				| fCalendar.get(Calendar.MINUTE) << 5
+				| fCalendar.get(Calendar.SECOND) >> 1;
+	}
+
+	private static boolean isAscii(String string) {
+		for (int i= 0; i < string.length(); i++) {
+			if (string.charAt(i) >= 0x80)
+				return false;
+		}
+		return true;
+	}
+
+	private static byte[] getBytes(String string) {
+		try {
+			return string.getBytes("UTF-8"); //$NON-NLS-1$
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	private static int putShort(byte[] bytes, int position, int value) {
+		bytes[position]= (byte) value;
+		bytes[position + 1]= (byte) (value >> 8);
+		return position + 2;
+	}
+
+	private static int putInt(byte[] bytes, int position, int value) {
+		putShort(bytes, position, value);
+		putShort(bytes, position + 2, value >> 16);
+		return position + 4;
+	}
+
+	private static int putLong(byte[] bytes, int position, long value) {
+		putInt(bytes, position, (int) value);
+		putInt(bytes, position + 4, (int) (value >> 32));
+		return position + 8;
+	}
+}
@@ -100,6 +100,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 	private Button		fCompressCheckbox;
 	private Button		fOverwriteCheckbox;
 	private Button		fIncludeDirectoryEntriesCheckbox;
+	private Button		fIncrementalCheckbox;
 	private boolean	fInitiallySelecting= true;
 
 	// dialog store id constants
@@ -113,6 +114,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 	private static final String STORE_COMPRESS= PAGE_NAME + ".COMPRESS"; //$NON-NLS-1$
 	private final static String STORE_OVERWRITE= PAGE_NAME + ".OVERWRITE"; //$NON-NLS-1$
 	private final static String STORE_INCLUDE_DIRECTORY_ENTRIES= PAGE_NAME + ".INCLUDE_DIRECTORY_ENTRIES"; //$NON-NLS-1$
+	private final static String STORE_INCREMENTAL= PAGE_NAME + ".INCREMENTAL"; //$NON-NLS-1$
 
 	// other constants
 	private static final int SIZING_SELECTION_WIDGET_WIDTH= 480;
@@ -200,6 +202,10 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 		fOverwriteCheckbox= new Button(optionsGroup, SWT.CHECK | SWT.LEFT);
 		fOverwriteCheckbox.setText(JarPackagerMessages.JarPackageWizardPage_overwrite_text);
 		fOverwriteCheckbox.addListener(SWT.Selection, this);
+
+		fIncrementalCheckbox= new Button(optionsGroup, SWT.CHECK | SWT.LEFT);
+		fIncrementalCheckbox.setText(JarPackagerMessages.JarPackageWizardPage_incremental_text);
+		fIncrementalCheckbox.addListener(SWT.Selection, this);
 	}
 
 	/**
@@ -235,6 +241,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 			settings.put(STORE_COMPRESS, fJarPackage.isCompressed());
 			settings.put(STORE_INCLUDE_DIRECTORY_ENTRIES, fJarPackage.areDirectoryEntriesIncluded());
 			settings.put(STORE_OVERWRITE, fJarPackage.allowOverwrite());
+			settings.put(STORE_INCREMENTAL, fJarPackage.isIncrementalExport());
 		}
 		// Allow subclasses to save values
 		internalSaveWidgetValues();
@@ -268,6 +275,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 		fCompressCheckbox.setSelection(fJarPackage.isCompressed());
 		fIncludeDirectoryEntriesCheckbox.setSelection(fJarPackage.areDirectoryEntriesIncluded());
 		fOverwriteCheckbox.setSelection(fJarPackage.allowOverwrite());
+		fIncrementalCheckbox.setSelection(fJarPackage.isIncrementalExport());
 	}
 
 	/**
@@ -290,6 +298,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 			fJarPackage.setCompress(settings.getBoolean(STORE_COMPRESS));
 			fJarPackage.setIncludeDirectoryEntries(settings.getBoolean(STORE_INCLUDE_DIRECTORY_ENTRIES));
 			fJarPackage.setOverwrite(settings.getBoolean(STORE_OVERWRITE));
+			fJarPackage.setIncrementalExport(settings.getBoolean(STORE_INCREMENTAL));
 		}
 	}
 
@@ -320,6 +329,7 @@ class JarPackageWizardPage extends AbstractJarDestinationWizardPage {
 		fJarPackage.setCompress(fCompressCheckbox.getSelection());
 		fJarPackage.setIncludeDirectoryEntries(fIncludeDirectoryEntriesCheckbox.getSelection());
 		fJarPackage.setOverwrite(fOverwriteCheckbox.getSelection());
+		fJarPackage.setIncrementalExport(fIncrementalCheckbox.getSelection());
 	}
 
 	/**
@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.jarpackager;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+
+/**
+ * Reads the compressed content of the entries of a ZIP file, so that they can be copied to another
+ * archive without inflating and deflating them again.
+ *
+ * @since 3.7.1
+ */
+public final class RawZipFile {
+
+	private static final int LOCAL_HEADER_SIGNATURE= 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE= 0x02014b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE= 0x07064b50;
+	private static final int ZIP64_END_HEADER_SIGNATURE= 0x06064b50;
+	private static final int END_HEADER_SIGNATURE= 0x06054b50;
+	private static final int END_HEADER_SIZE= 22;
+	private static final int ZIP64_EXTRA_ID= 0x0001;
+	private static final int ENCRYPTED_FLAG= 0x1;
+	private static final long ZIP64_MAGIC= 0xFFFFFFFFL;
+
+	/**
+	 * The location of the content of an entry.
+	 */
+	private static final class Location {
+
+		private final long fHeaderOffset;
+		private final long fCompressedSize;
+
+		public Location(long headerOffset, long compressedSize) {
+			fHeaderOffset= headerOffset;
+			fCompressedSize= compressedSize;
+		}
+	}
+
+	private final String fName;
+	private final RandomAccessFile fFile;
+
+	/** Maps entry names to the {@link Location} of their content, excluding encrypted entries */
+	private final Map<String, Location> fLocations= new HashMap<String, Location>();
+
+	/**
+	 * Opens the given ZIP file and reads its central directory.
+	 *
+	 * @param name the name of the ZIP file
+	 * @throws IOException if the file could not be read or is not a ZIP file
+	 */
+	public RawZipFile(String name) throws IOException {
+		fName= name;
+		fFile= new RandomAccessFile(name, "r"); //$NON-NLS-1$
+		try {
+			readCentralDirectory();
+		} catch (IOException e) {
+			fFile.close();
+			throw e;
+		}
+	}
+
+	public String getName() {
+		return fName;
+	}
+
+	/**
+	 * Returns the compressed content of the given entry.
+	 *
+	 * @param entry an entry of this ZIP file
+	 * @return the compressed content, or <code>null</code> if the content cannot be copied as is
+	 * @throws IOException if the file could not be read
+	 */
+	public byte[] readRawContent(ZipEntry entry) throws IOException {
+		Location location= fLocations.get(entry.getName());
+		if (location == null || location.fCompressedSize != entry.getCompressedSize() || location.fCompressedSize > Integer.MAX_VALUE)
+			return null;
+
+		byte[] header= new byte[30];
+		fFile.seek(location.fHeaderOffset);
+		fFile.readFully(header);
+		if (getInt(header, 0) != LOCAL_HEADER_SIGNATURE)
+			throw new ZipException("Invalid local header: " + entry.getName()); //$NON-NLS-1$
+
+		byte[] content= new byte[(int) location.fCompressedSize];
+		fFile.seek(location.fHeaderOffset + header.length + getShort(header, 26) + getShort(header, 28));
+		fFile.readFully(content);
+		return content;
+	}
+
+	public void close() throws IOException {
+		fFile.close();
+	}
+
+	private void readCentralDirectory() throws IOException {
+		long length= fFile.length();
+		int tailLength= (int) Math.min(length, END_HEADER_SIZE + 0xFFFF);
+		byte[] tail= new byte[tailLength];
+		fFile.seek(length - tailLength);
+		fFile.readFully(tail);
+
+		int end= tailLength - END_HEADER_SIZE;
+		while (end >= 0 && getInt(tail, end) != END_HEADER_SIGNATURE)
+			end--;
+		if (end < 0)
+			throw new ZipException("Missing end of central directory: " + fName); //$NON-NLS-1$
+
+		long count= getShort(tail, end + 10);
+		long directorySize= getUnsignedInt(tail, end + 12);
+		long directoryOffset= getUnsignedInt(tail, end + 16);
+
+		long endOffset= length - tailLength + end;
+		if (endOffset >= 20) {
+			byte[] locator= new byte[20];
+			fFile.seek(endOffset - 20);
+			fFile.readFully(locator);
+			if (getInt(locator, 0) == ZIP64_LOCATOR_SIGNATURE) {
+				byte[] zip64End= new byte[56];
+				fFile.seek(getLong(locator, 8));
+				fFile.readFully(zip64End);
+				if (getInt(zip64End, 0) != ZIP64_END_HEADER_SIGNATURE)
+					throw new ZipException("Invalid zip64 end of central directory: " + fName); //$NON-NLS-1$
+				count= getLong(zip64End, 32);
+				directorySize= getLong(zip64End, 40);
+				directoryOffset= getLong(zip64End, 48);
+			}
+		}
+		if (directorySize > Integer.MAX_VALUE)
+			throw new ZipException("Central directory too large: " + fName); //$NON-NLS-1$
+
+		byte[] directory= new byte[(int) directorySize];
+		fFile.seek(directoryOffset);
+		fFile.readFully(directory);
+
+		int position= 0;
+		for (long i= 0; i < count; i++) {
+			if (position + 46 > directory.length || getInt(directory, position) != CENTRAL_HEADER_SIGNATURE)
+				throw new ZipException("Invalid central directory: " + fName); //$NON-NLS-1$
+
+			int flags= getShort(directory, position + 8);
+			long compressedSize= getUnsignedInt(directory, position + 20);
+			long size= getUnsignedInt(directory, position + 24);
+			int nameLength= getShort(directory, position + 28);
+			int extraLength= getShort(directory, position + 30);
+			int commentLength= getShort(directory, position + 32);
+			long headerOffset= getUnsignedInt(directory, position + 42);
+			String name= new String(directory, position + 46, nameLength, "UTF-8"); //$NON-NLS-1$
+
+			// the zip64 extra field holds the values which do not fit into the header, in this order
+			int extra= position + 46 + nameLength;
+			int extraEnd= extra + extraLength;
+			while (extra + 4 <= extraEnd) {
+				int id= getShort(directory, extra);
+				int dataLength= getShort(directory, extra + 2);
+				if (id == ZIP64_EXTRA_ID) {
+					int data= extra + 4;
+					if (size == ZIP64_MAGIC) {
+						size= getLong(directory, data);
+						data+= 8;
+					}
+					if (compressedSize == ZIP64_MAGIC) {
+						compressedSize= getLong(directory, data);
+						data+= 8;
+					}
+					if (headerOffset == ZIP64_MAGIC)
+						headerOffset= getLong(directory, data);
+					break;
+				}
+				extra+= 4 + dataLength;
+			}
+
+			if ((flags & ENCRYPTED_FLAG) == 0)
+				fLocations.put(name, new Location(headerOffset, compressedSize));
+			position+= 46 + nameLength + extraLength + commentLength;
+		}
+	}
+
+	private static int getShort(byte[] bytes, int position) {
+		return (bytes[position] & 0xFF) | (bytes[position + 1] & 0xFF) << 8;
+	}
+
+	private static int getInt(byte[] bytes, int position) {
+		return getShort(bytes, position) | getShort(bytes, position + 2) << 16;
+	}
+
+	private static long getUnsignedInt(byte[] bytes, int position) {
+		return getInt(bytes, position) & 0xFFFFFFFFL;
+	}
+
+	private static long getLong(byte[] bytes, int position) {
+		return getUnsignedInt(bytes, position) | getUnsignedInt(bytes, position + 4) << 32;
+	}
+}
@@ -147,7 +147,7 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 
 		@Override
 		public FatJarBuilder getBuilder(JarPackageData jarPackageData) {
-			return new FatJarRsrcUrlBuilder();
+			return new FatJarRsrcUrlBuilder(true);
 		}
 
 		@Override
@@ -265,6 +265,7 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 	private static final String STORE_ANTSCRIPT_LOCATION= PAGE_NAME + ".ANTSCRIPT_LOCATION"; //$NON-NLS-1$
 	private static final String STORE_ANTSCRIPT_LOCATION_HISTORY= PAGE_NAME + ".ANTSCRIPT_LOCATION_HISTORY"; //$NON-NLS-1$
 	private static final String STORE_LIBRARY_HANDLING= PAGE_NAME + ".LIBRARY_HANDLING"; //$NON-NLS-1$
+	private static final String STORE_INCREMENTAL= PAGE_NAME + ".INCREMENTAL"; //$NON-NLS-1$
 
 	private static final String ANTSCRIPT_EXTENSION= "xml"; //$NON-NLS-1$
 
@@ -289,6 +290,7 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 	private Button fExtractJarsRadioButton;
 	private Button fPackageJarsRadioButton;
 	private Button fCopyJarFilesRadioButton;
+	private Button fIncrementalCheckbox;
 
 	public FatJarPackageWizardPage(JarPackageData jarPackage, IStructuredSelection selection) {
 		super(PAGE_NAME, selection, jarPackage);
@@ -495,6 +497,10 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 
 		// set default for first selection (no previous widget settings to restore)
 		setLibraryHandler(new ExtractLibraryHandler());
+
+		fIncrementalCheckbox= new Button(fLibraryHandlingGroup, SWT.CHECK | SWT.LEFT);
+		fIncrementalCheckbox.setText(FatJarPackagerMessages.FatJarPackageWizardPage_incremental_text);
+		fIncrementalCheckbox.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
 	}
 
 	public LibraryHandler getLibraryHandler() {
@@ -529,6 +535,8 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 			path= path.addFileExtension(ANTSCRIPT_EXTENSION);
 
 		fAntScriptLocation= path;
+
+		fJarPackage.setIncrementalExport(fIncrementalCheckbox.getSelection());
 	}
 
 	@Override
@@ -919,6 +927,9 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 			}
 			setLibraryHandler(createLibraryHandlerById(libraryHandling));
 
+			// INCREMENTAL
+			fIncrementalCheckbox.setSelection(settings.getBoolean(STORE_INCREMENTAL));
+
 			// LAUNCH CONFIG
 			String name= settings.get(STORE_LAUNCH_CONFIGURATION_SELECTION_NAME);
 			if (name != null) {
@@ -971,6 +982,9 @@ public class FatJarPackageWizardPage extends AbstractJarDestinationWizardPage {
 			// LIBRARY HANDLING
 			settings.put(STORE_LIBRARY_HANDLING, getLibraryHandler().getID());
 
+			// INCREMENTAL
+			settings.put(STORE_INCREMENTAL, fIncrementalCheckbox.getSelection());
+
 			// LAUNCH CONFIG
 			int index= fLaunchConfigurationCombo.getSelectionIndex();
 			if (index == -1) {
@@ -46,6 +46,8 @@ public final class FatJarPackagerMessages extends NLS {
 
 	public static String FatJarPackageWizardPage_copyJarFiles_text;
 
+	public static String FatJarPackageWizardPage_incremental_text;
+
 	public static String FatJarPackageWizardPage_error_missingClassFile;
 	public static String FatJarPackageWizard_IPIssueDialog_message;
 
@@ -54,6 +54,30 @@ public class FatJarRsrcUrlBuilder extends FatJarBuilder {
 	
 	private Set<String> jarNames;
 	private JarPackageData fJarPackage;
+	private final boolean fStoreNestedJars;
+
+	public FatJarRsrcUrlBuilder() {
+		this(false);
+	}
+
+	/**
+	 * Creates a builder.
+	 *
+	 * @param storeNestedJars <code>true</code> to store the referenced libraries uncompressed, so
+	 *            that the class loader can read their entries directly from the generated jar
+	 * @since 3.7.1
+	 */
+	public FatJarRsrcUrlBuilder(boolean storeNestedJars) {
+		fStoreNestedJars= storeNestedJars;
+	}
+
+	/**
+	 * @return <code>true</code> if the referenced libraries are stored uncompressed
+	 * @since 3.7.1
+	 */
+	public boolean isStoreNestedJars() {
+		return fStoreNestedJars;
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -124,9 +148,16 @@ public class FatJarRsrcUrlBuilder extends FatJarBuilder {
 		newEntry.setMethod(ZipEntry.STORED);
 		byte[] readBuffer= new byte[4096];             
 		try {
-			if (!fJarPackage.isCompressed())
+			if (getJarWriter().addUnchangedFile(jarPathFile, jarName))
+				return;
+			if (fStoreNestedJars) {
 				JarPackagerUtil.calculateCrcAndSize(newEntry, new FileInputStream(jarPathFile), readBuffer);
-			getJarWriter().addZipEntryStream(newEntry, new FileInputStream(jarPathFile), jarName);
+				getJarWriter().addStoredZipEntryStream(newEntry, new FileInputStream(jarPathFile), jarName);
+			} else {
+				if (!fJarPackage.isCompressed())
+					JarPackagerUtil.calculateCrcAndSize(newEntry, new FileInputStream(jarPathFile), readBuffer);
+				getJarWriter().addZipEntryStream(newEntry, new FileInputStream(jarPathFile), jarName);
+			}
 		} catch (FileNotFoundException e) {
 			throw new RuntimeException(e);
 		} catch (IOException e) {
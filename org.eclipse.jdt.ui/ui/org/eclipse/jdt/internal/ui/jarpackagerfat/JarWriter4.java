@@ -35,6 +35,7 @@ import org.eclipse.jdt.ui.jarpackager.JarWriter3;
 
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerMessages;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerUtil;
+import org.eclipse.jdt.internal.ui.jarpackager.RawZipFile;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
 
 
@@ -45,6 +46,11 @@ public class JarWriter4 extends JarWriter3 {
 
 	private final JarPackageData fJarPackage;
 
+	/**
+	 * The archive the last entry was copied from, or <code>null</code>
+	 */
+	private RawZipFile fRawZipFile;
+
 	public JarWriter4(JarPackageData jarPackage, Shell parent) throws CoreException {
 		super(jarPackage, parent);
 		fJarPackage= jarPackage;
@@ -70,9 +76,51 @@ public class JarWriter4 extends JarWriter3 {
 		// Set modification time
 		newEntry.setTime(lastModified);
 
+		// copy the compressed content if it already has the requested method
+		if (zipEntry.getMethod() == newEntry.getMethod() && zipEntry.getCrc() != -1 && zipEntry.getSize() != -1 && zipEntry.getCompressedSize() != -1) {
+			byte[] content= getRawZipFile(zipFile).readRawContent(zipEntry);
+			if (content != null) {
+				newEntry.setSize(zipEntry.getSize());
+				newEntry.setCrc(zipEntry.getCrc());
+				newEntry.setCompressedSize(content.length);
+				addRawEntry(newEntry, content);
+				return;
+			}
+		}
+
 		addEntry(newEntry, zipFile.getInputStream(zipEntry));
 	}
 
+	private RawZipFile getRawZipFile(ZipFile zipFile) throws IOException {
+		// archives are copied one after the other, so keeping the last one open is enough
+		if (fRawZipFile == null || !fRawZipFile.getName().equals(zipFile.getName())) {
+			closeRawZipFile();
+			fRawZipFile= new RawZipFile(zipFile.getName());
+		}
+		return fRawZipFile;
+	}
+
+	private void closeRawZipFile() {
+		if (fRawZipFile != null) {
+			try {
+				fRawZipFile.close();
+			} catch (IOException e) {
+				// Do nothing
+			}
+			fRawZipFile= null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * @since 3.7.1
+	 */
+	public void close() throws CoreException {
+		closeRawZipFile();
+		super.close();
+	}
+
 	public void addZipEntryStream(ZipEntry zipEntry, InputStream is, String path) throws IOException {
 		if (fJarPackage.areDirectoryEntriesIncluded())
 			addDirectories(path);
@@ -91,6 +139,42 @@ public class JarWriter4 extends JarWriter3 {
 		addEntry(newEntry, is);
 	}
 
+	/**
+	 * Adds an entry which is stored uncompressed, regardless of the compression setting of the
+	 * jar package.
+	 *
+	 * @param zipEntry the entry providing the size and the CRC of the content
+	 * @param is the content
+	 * @param path the path of the new entry
+	 * @throws IOException if the entry could not be written
+	 * @since 3.7.1
+	 */
+	public void addStoredZipEntryStream(ZipEntry zipEntry, InputStream is, String path) throws IOException {
+		if (fJarPackage.areDirectoryEntriesIncluded())
+			addDirectories(path);
+		JarEntry newEntry= new JarEntry(path.replace(File.separatorChar, '/'));
+		newEntry.setMethod(ZipEntry.STORED);
+		newEntry.setSize(zipEntry.getSize());
+		newEntry.setCrc(zipEntry.getCrc());
+		newEntry.setTime(System.currentTimeMillis());
+		addEntry(newEntry, is);
+	}
+
+	/**
+	 * Copies the entry for the given file from the previously exported JAR if the export is
+	 * incremental and the file did not change since that export.
+	 *
+	 * @param file the file
+	 * @param path the path of the entry
+	 * @return <code>true</code> if the entry has been copied, <code>false</code> if the caller
+	 *         has to write it
+	 * @throws IOException if the entry could not be written
+	 * @since 3.8
+	 */
+	public boolean addUnchangedFile(File file, String path) throws IOException {
+		return addUnchangedEntry(path.replace(File.separatorChar, '/'), file.lastModified() + "/" + file.length()); //$NON-NLS-1$
+	}
+
 	public void write(File file, IPath destinationPath) throws CoreException {
 		try {
 			addFile(file, destinationPath);
@@ -113,6 +197,9 @@ public class JarWriter4 extends JarWriter3 {
 
 		JarEntry newEntry= new JarEntry(path.toString().replace(File.separatorChar, '/'));
 
+		if (addUnchangedFile(file, newEntry.getName()))
+			return;
+
 		if (fJarPackage.isCompressed())
 			newEntry.setMethod(ZipEntry.DEFLATED);
 			// Entry is filled automatically.
@@ -27,6 +27,8 @@ import org.eclipse.ui.IWorkbenchPartReference;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.PlatformUI;
 
+import org.eclipse.jface.text.IDocumentExtension4;
+
 import org.eclipse.jdt.core.ICompilationUnit;
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaModelException;
@@ -212,6 +214,21 @@ public final class ASTProvider {
 	private ITypeRoot fReconcilingJavaElement;
 	private ITypeRoot fActiveJavaElement;
 	private CompilationUnit fAST;
+	/**
+	 * The modification stamp of the document from which {@link #fAST} has been created.
+	 * @since 3.7.1
+	 */
+	private long fASTModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	/**
+	 * The modification stamp of the document when reconciling started.
+	 * @since 3.7.1
+	 */
+	private long fReconcilingModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	/**
+	 * The ASTs of the recently active editors.
+	 * @since 3.7.1
+	 */
+	private RecentASTCache fRecentASTs;
 	private ActivationListener fActivationListener;
 	private Object fReconcileLock= new Object();
 	private Object fWaitLock= new Object();
@@ -240,6 +257,8 @@ public final class ASTProvider {
 	 * Installs this AST provider.
 	 */
 	void install() {
+		fRecentASTs= new RecentASTCache();
+
 		// Create and register activation listener
 		fActivationListener= new ActivationListener();
 		PlatformUI.getWorkbench().addWindowListener(fActivationListener);
@@ -257,6 +276,9 @@ public final class ASTProvider {
 			javaElement= ((JavaEditor)editor).getInputJavaElement();
 
 		synchronized (this) {
+			if (fAST != null && fActiveJavaElement != null && !fActiveJavaElement.equals(javaElement))
+				fRecentASTs.put(fActiveJavaElement, fAST, fASTModificationStamp);
+
 			fActiveEditor= editor;
 			fActiveJavaElement= javaElement;
 			cache(null, javaElement);
@@ -284,7 +306,7 @@ public final class ASTProvider {
 	 * @return <code>true</code> if the given AST is the cached one
 	 */
 	public boolean isCached(CompilationUnit ast) {
-		return ast != null && fAST == ast;
+		return ast != null && (fAST == ast || fRecentASTs.contains(ast));
 	}
 
 	/**
@@ -315,6 +337,7 @@ public final class ASTProvider {
 
 		synchronized (fReconcileLock) {
 			fReconcilingJavaElement= javaElement;
+			fReconcilingModificationStamp= RecentASTCache.getModificationStamp(javaElement);
 			fIsReconciling= true;
 		}
 		cache(null, javaElement);
@@ -332,6 +355,7 @@ public final class ASTProvider {
 			System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "disposing AST: " + toString(fAST) + " for: " + toString(fActiveJavaElement)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 
 		fAST= null;
+		fASTModificationStamp= IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
 
 		cache(null, null);
 	}
@@ -388,6 +412,8 @@ public final class ASTProvider {
 			disposeAST();
 
 		fAST= ast;
+		if (ast != null)
+			fASTModificationStamp= fReconcilingModificationStamp;
 
 		// Signal AST change
 		synchronized (fWaitLock) {
@@ -418,6 +444,17 @@ public final class ASTProvider {
 		synchronized (this) {
 			isActiveElement= input.equals(fActiveJavaElement);
 			if (isActiveElement) {
+				if (fAST == null && !isReconciling(input)) {
+					CompilationUnit recentAST= fRecentASTs.get(input, true);
+					if (recentAST != null) {
+						if (DEBUG)
+							System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "reusing recent AST: " + toString(recentAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+						fAST= recentAST;
+						fASTModificationStamp= RecentASTCache.getModificationStamp(input);
+						return fAST;
+					}
+				}
 				if (fAST != null) {
 					if (DEBUG)
 						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning cached AST:" + toString(fAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
@@ -431,6 +468,14 @@ public final class ASTProvider {
 					return null;
 
 				}
+			} else {
+				CompilationUnit recentAST= fRecentASTs.get(input, false);
+				if (recentAST != null) {
+					if (DEBUG)
+						System.out.println(getThreadName() + " - " + DEBUG_PREFIX + "returning recent AST: " + toString(recentAST) + " for: " + input.getElementName()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+					return recentAST;
+				}
 			}
 		}
 
@@ -587,6 +632,7 @@ public final class ASTProvider {
 		fActivationListener= null;
 
 		disposeAST();
+		fRecentASTs.dispose();
 
 		synchronized (fWaitLock) {
 			fWaitLock.notifyAll();
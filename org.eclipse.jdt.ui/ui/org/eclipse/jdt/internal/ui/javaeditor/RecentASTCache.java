@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.javaeditor;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.filebuffers.FileBuffers;
+import org.eclipse.core.filebuffers.ITextFileBuffer;
+import org.eclipse.core.filebuffers.LocationKind;
+
+import org.eclipse.core.resources.IResource;
+
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.ITypeRoot;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.dom.CompilationUnit;
+
+
+/**
+ * Keeps the ASTs of recently active Java editors so that switching back to an editor does not
+ * require to create its AST again.
+ * <p>
+ * An AST is only handed out while the modification stamp of its document is the one it was created
+ * from. The cache is bounded by {@link #MAX_ENTRIES}, is cleared when the heap runs low and whenever
+ * the Java model changes, since the bindings of the cached ASTs might no longer be valid. When a
+ * working copy is reconciled, the AST of its compilation unit is removed.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class RecentASTCache {
+
+	/**
+	 * The maximal number of cached ASTs.
+	 */
+	private static final int MAX_ENTRIES= 4;
+
+	/**
+	 * The cache is cleared if less than this fraction of the maximal heap is free.
+	 */
+	private static final double MIN_FREE_HEAP= 0.25;
+
+	private static final class Entry {
+
+		private final CompilationUnit fAST;
+		private final long fModificationStamp;
+
+		public Entry(CompilationUnit ast, long modificationStamp) {
+			fAST= ast;
+			fModificationStamp= modificationStamp;
+		}
+	}
+
+	private final Map<ITypeRoot, Entry> fEntries;
+	private final IElementChangedListener fElementChangedListener;
+
+	public RecentASTCache() {
+		fEntries= new LinkedHashMap<ITypeRoot, Entry>(MAX_ENTRIES + 1, 0.75f, true);
+		fElementChangedListener= new IElementChangedListener() {
+			public void elementChanged(ElementChangedEvent event) {
+				if (event.getType() == ElementChangedEvent.POST_RECONCILE) {
+					IJavaElement element= event.getDelta().getElement();
+					if (element instanceof ICompilationUnit)
+						remove(((ICompilationUnit) element).getPrimary());
+				} else {
+					clear();
+				}
+			}
+		};
+		JavaCore.addElementChangedListener(fElementChangedListener, ElementChangedEvent.POST_CHANGE | ElementChangedEvent.POST_RECONCILE);
+	}
+
+	/**
+	 * Caches the given AST.
+	 *
+	 * @param typeRoot the Java element of the AST
+	 * @param ast the AST
+	 * @param modificationStamp the modification stamp of the document the AST was created from
+	 */
+	public synchronized void put(ITypeRoot typeRoot, CompilationUnit ast, long modificationStamp) {
+		if (isLowOnMemory()) {
+			fEntries.clear();
+			return;
+		}
+		if (modificationStamp == IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP)
+			return;
+
+		fEntries.put(typeRoot, new Entry(ast, modificationStamp));
+		if (fEntries.size() > MAX_ENTRIES) {
+			Iterator<ITypeRoot> iterator= fEntries.keySet().iterator();
+			iterator.next();
+			iterator.remove();
+		}
+	}
+
+	/**
+	 * Returns the cached AST of the given Java element if it is still up to date.
+	 *
+	 * @param typeRoot the Java element
+	 * @param remove <code>true</code> if the AST is to be removed from the cache
+	 * @return the AST or <code>null</code> if there is none or it is outdated
+	 */
+	public synchronized CompilationUnit get(ITypeRoot typeRoot, boolean remove) {
+		Entry entry= fEntries.get(typeRoot);
+		if (entry == null)
+			return null;
+
+		boolean isUpToDate= entry.fModificationStamp == getModificationStamp(typeRoot);
+		if (remove || !isUpToDate)
+			fEntries.remove(typeRoot);
+
+		return isUpToDate ? entry.fAST : null;
+	}
+
+	public synchronized boolean contains(CompilationUnit ast) {
+		for (Iterator<Entry> iterator= fEntries.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().fAST == ast)
+				return true;
+		}
+		return false;
+	}
+
+	public synchronized void clear() {
+		fEntries.clear();
+	}
+
+	private synchronized void remove(ITypeRoot typeRoot) {
+		fEntries.remove(typeRoot);
+	}
+
+	public void dispose() {
+		JavaCore.removeElementChangedListener(fElementChangedListener);
+		clear();
+	}
+
+	/**
+	 * Returns the modification stamp of the document of the given Java element.
+	 *
+	 * @param typeRoot the Java element
+	 * @return the modification stamp or {@link IDocumentExtension4#UNKNOWN_MODIFICATION_STAMP} if
+	 *         the Java element is not a compilation unit connected to a file buffer
+	 */
+	public static long getModificationStamp(ITypeRoot typeRoot) {
+		if (!(typeRoot instanceof ICompilationUnit))
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+		IResource resource= typeRoot.getResource();
+		if (resource == null)
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+		ITextFileBuffer buffer= FileBuffers.getTextFileBufferManager().getTextFileBuffer(resource.getFullPath(), LocationKind.IFILE);
+		if (buffer == null)
+			return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+
+		IDocument document= buffer.getDocument();
+		if (document instanceof IDocumentExtension4)
+			return ((IDocumentExtension4)document).getModificationStamp();
+
+		return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+	}
+
+	private static boolean isLowOnMemory() {
+		Runtime runtime= Runtime.getRuntime();
+		long maxMemory= runtime.maxMemory();
+		long freeMemory= maxMemory - (runtime.totalMemory() - runtime.freeMemory());
+		return freeMemory < maxMemory * MIN_FREE_HEAP;
+	}
+}
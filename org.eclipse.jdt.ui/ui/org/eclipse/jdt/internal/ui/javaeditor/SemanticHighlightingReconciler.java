@@ -22,7 +22,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.ITextInputListener;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.TextPresentation;
@@ -32,12 +34,18 @@ import org.eclipse.ui.IWorkbenchPartSite;
 
 import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.dom.ASTNode;
+import org.eclipse.jdt.core.dom.AbstractTypeDeclaration;
+import org.eclipse.jdt.core.dom.Block;
 import org.eclipse.jdt.core.dom.BooleanLiteral;
 import org.eclipse.jdt.core.dom.CharacterLiteral;
 import org.eclipse.jdt.core.dom.CompilationUnit;
 import org.eclipse.jdt.core.dom.ConstructorInvocation;
+import org.eclipse.jdt.core.dom.EnumDeclaration;
 import org.eclipse.jdt.core.dom.Expression;
 import org.eclipse.jdt.core.dom.IMethodBinding;
+import org.eclipse.jdt.core.dom.Initializer;
+import org.eclipse.jdt.core.dom.MethodDeclaration;
+import org.eclipse.jdt.core.dom.NodeFinder;
 import org.eclipse.jdt.core.dom.NumberLiteral;
 import org.eclipse.jdt.core.dom.SimpleName;
 import org.eclipse.jdt.core.dom.SuperConstructorInvocation;
@@ -65,7 +73,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 */
 	private class PositionCollector extends GenericVisitor {
 
-		/** The semantic token */
+		/** The semantic token, reused for all nodes of all reconciles */
 		private SemanticToken fToken= new SemanticToken();
 
 		/*
@@ -186,8 +194,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 */
 		private void addPosition(int offset, int length, Highlighting highlighting) {
 			boolean isExisting= false;
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= indexOfRemovedPosition(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] == offset; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position == null)
 					continue;
@@ -211,8 +218,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		 * @param length The range length
 		 */
 		private void retainPositions(int offset, int length) {
-			// TODO: use binary search
-			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+			for (int i= indexOfRemovedPosition(offset), n= fRemovedPositions.size(); i < n && fRemovedOffsets[i] < offset + length; i++) {
 				HighlightedPosition position= (HighlightedPosition) fRemovedPositions.get(i);
 				if (position != null && position.isContained(offset, length)) {
 					fRemovedPositions.set(i, null);
@@ -222,6 +228,65 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		}
 	}
 
+	/**
+	 * Tracks the region of the document which has been changed since the last reconcile.
+	 *
+	 * @since 3.7.1
+	 */
+	private class DirtyRegionTracker implements IDocumentListener, ITextInputListener {
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentAboutToBeChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentAboutToBeChanged(DocumentEvent event) {
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.IDocumentListener#documentChanged(org.eclipse.jface.text.DocumentEvent)
+		 */
+		public void documentChanged(DocumentEvent event) {
+			int offset= event.getOffset();
+			int end= offset + event.getLength();
+			int newEnd= offset + (event.getText() == null ? 0 : event.getText().length());
+			int delta= newEnd - end;
+			synchronized (fDirtyRegionLock) {
+				if (fDirtyStart == -1) {
+					fDirtyStart= offset;
+					fDirtyEnd= newEnd;
+					fDirtyDelta= delta;
+				} else {
+					if (fDirtyEnd >= end)
+						fDirtyEnd+= delta;
+					else if (fDirtyEnd > offset)
+						fDirtyEnd= newEnd;
+					fDirtyStart= Math.min(fDirtyStart, offset);
+					fDirtyEnd= Math.max(fDirtyEnd, newEnd);
+					fDirtyDelta+= delta;
+				}
+			}
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentAboutToBeChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+		 */
+		public void inputDocumentAboutToBeChanged(IDocument oldInput, IDocument newInput) {
+			if (oldInput != null)
+				oldInput.removeDocumentListener(this);
+		}
+
+		/*
+		 * @see org.eclipse.jface.text.ITextInputListener#inputDocumentChanged(org.eclipse.jface.text.IDocument, org.eclipse.jface.text.IDocument)
+		 */
+		public void inputDocumentChanged(IDocument oldInput, IDocument newInput) {
+			synchronized (fDirtyRegionLock) {
+				fDirtyStart= -1;
+				fIsFullReconcileRequired= true;
+			}
+			if (newInput != null)
+				newInput.addDocumentListener(this);
+		}
+	}
+
 	/** Position collector */
 	private PositionCollector fCollector= new PositionCollector();
 
@@ -242,6 +307,55 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private List<Position> fRemovedPositions= new ArrayList<Position>();
 	/** Number of removed positions */
 	private int fNOfRemovedPositions;
+	/**
+	 * Offsets of the background job's removed highlighted positions when reconciling started
+	 * @since 3.7.1
+	 */
+	private int[] fRemovedOffsets= new int[0];
+
+	/**
+	 * The dirty region tracker or <code>null</code> if positions are always reconciled for the
+	 * whole AST
+	 * @since 3.7.1
+	 */
+	private DirtyRegionTracker fDirtyRegionTracker;
+	/**
+	 * Lock for the dirty region
+	 * @since 3.7.1
+	 */
+	private final Object fDirtyRegionLock= new Object();
+	/**
+	 * Start offset of the region changed since the last reconcile or <code>-1</code> if unchanged
+	 * @since 3.7.1
+	 */
+	private int fDirtyStart= -1;
+	/**
+	 * End offset of the region changed since the last reconcile
+	 * @since 3.7.1
+	 */
+	private int fDirtyEnd;
+	/**
+	 * Length difference of the region changed since the last reconcile
+	 * @since 3.7.1
+	 */
+	private int fDirtyDelta;
+	/**
+	 * <code>true</code> if the next reconcile has to visit the whole AST
+	 * @since 3.7.1
+	 */
+	private boolean fIsFullReconcileRequired= true;
+	/**
+	 * The changed region of the current reconcile, as start offset, end offset and length
+	 * difference, or <code>null</code> if unknown
+	 * @since 3.7.1
+	 */
+	private int[] fJobDirtyRegion;
+	/**
+	 * The ranges of the type member declarations of the last reconciled AST, as pairs of offset
+	 * and length, or <code>null</code> if unknown. Only accessed by the reconciling thread.
+	 * @since 3.7.1
+	 */
+	private List<int[]> fDeclarationRanges;
 
 	/** Background job */
 	private Job fJob;
@@ -276,13 +390,34 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#aboutToBeReconciled()
 	 */
 	public void aboutToBeReconciled() {
-		// Do nothing
+		synchronized (fDirtyRegionLock) {
+			if (fIsFullReconcileRequired || fDirtyStart == -1) {
+				fJobDirtyRegion= null;
+			} else if (fJobDirtyRegion != null) {
+				// the previous reconcile has not consumed its region
+				fJobDirtyRegion= null;
+				fIsFullReconcileRequired= true;
+			} else {
+				fJobDirtyRegion= new int[] { fDirtyStart, fDirtyEnd, fDirtyDelta };
+			}
+			fDirtyStart= -1;
+		}
 	}
 
 	/*
 	 * @see org.eclipse.jdt.internal.ui.text.java.IJavaReconcilingListener#reconciled(CompilationUnit, boolean, IProgressMonitor)
 	 */
 	public void reconciled(CompilationUnit ast, boolean forced, IProgressMonitor progressMonitor) {
+		int[] dirtyRegion;
+		synchronized (fDirtyRegionLock) {
+			dirtyRegion= fJobDirtyRegion;
+			fJobDirtyRegion= null;
+			if (forced || fIsFullReconcileRequired)
+				dirtyRegion= null;
+			// set back once the positions have been reconciled
+			fIsFullReconcileRequired= true;
+		}
+
 		// ensure at most one thread can be reconciling at any time
 		synchronized (fReconcileLock) {
 			if (fIsReconciling)
@@ -303,11 +438,14 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (ast == null || fJobPresenter.isCanceled())
 				return;
 
-			ASTNode[] subtrees= getAffectedSubtrees(ast);
+			List<int[]> declarationRanges= new ArrayList<int[]>();
+			collectDeclarationRanges(ast.types(), declarationRanges);
+
+			ASTNode[] subtrees= getAffectedSubtrees(ast, dirtyRegion, declarationRanges);
 			if (subtrees.length == 0)
 				return;
 
-			startReconcilingPositions();
+			startReconcilingPositions(subtrees);
 
 			if (!fJobPresenter.isCanceled()) {
 				fJobDeprecatedMemberHighlighting= null;
@@ -325,8 +463,13 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			if (!fJobPresenter.isCanceled())
 				textPresentation= fJobPresenter.createPresentation(fAddedPositions, fRemovedPositions);
 
-			if (!fJobPresenter.isCanceled())
+			if (!fJobPresenter.isCanceled()) {
 				updatePresentation(textPresentation, fAddedPositions, fRemovedPositions);
+				fDeclarationRanges= declarationRanges;
+				synchronized (fDirtyRegionLock) {
+					fIsFullReconcileRequired= false;
+				}
+			}
 
 			stopReconcilingPositions();
 		} finally {
@@ -341,20 +484,118 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	}
 
 	/**
+	 * Returns the subtrees that may be affected by the document changes since the last reconcile.
+	 * <p>
+	 * Changes inside of a method or initializer body cannot change the meaning of names outside of
+	 * that body, so only the body has to be visited if the declarations around it are unchanged.
+	 * Otherwise the whole AST is returned.
+	 * </p>
+	 *
 	 * @param node Root node
+	 * @param dirtyRegion the changed region as start offset, end offset and length difference, or
+	 *            <code>null</code> if unknown
+	 * @param declarationRanges the ranges of the type member declarations of the AST
 	 * @return Array of subtrees that may be affected by past document changes
 	 */
-	private ASTNode[] getAffectedSubtrees(ASTNode node) {
-		// TODO: only return nodes which are affected by document changes - would require an 'anchor' concept for taking distant effects into account
-		return new ASTNode[] { node };
+	private ASTNode[] getAffectedSubtrees(CompilationUnit node, int[] dirtyRegion, List<int[]> declarationRanges) {
+		if (dirtyRegion == null || fDeclarationRanges == null || fDeclarationRanges.size() != declarationRanges.size())
+			return new ASTNode[] { node };
+
+		int start= dirtyRegion[0];
+		int end= dirtyRegion[1];
+		int delta= dirtyRegion[2];
+
+		Block body= null;
+		for (ASTNode current= NodeFinder.perform(node, start, end - start); current != null; current= current.getParent()) {
+			if (current instanceof Block && (current.getLocationInParent() == MethodDeclaration.BODY_PROPERTY || current.getLocationInParent() == Initializer.BODY_PROPERTY)) {
+				if (current.getStartPosition() < start && end < current.getStartPosition() + current.getLength() - 1)
+					body= (Block) current;
+				break;
+			}
+		}
+		if (body == null)
+			return new ASTNode[] { node };
+
+		// the declarations must not have changed except for the ones containing the body
+		int oldEnd= end - delta;
+		for (int i= 0, n= declarationRanges.size(); i < n; i++) {
+			int[] oldRange= fDeclarationRanges.get(i);
+			int[] newRange= declarationRanges.get(i);
+			int expectedOffset= oldRange[0];
+			int expectedLength= oldRange[1];
+			if (oldRange[0] >= oldEnd)
+				expectedOffset+= delta;
+			else if (oldRange[0] + oldRange[1] > start)
+				expectedLength+= delta;
+			if (newRange[0] != expectedOffset || newRange[1] != expectedLength)
+				return new ASTNode[] { node };
+		}
+		return new ASTNode[] { body };
+	}
+
+	/**
+	 * Collects the ranges of the given type declarations and their members.
+	 *
+	 * @param types the type declarations
+	 * @param ranges the list to add the ranges to, as pairs of offset and length
+	 * @since 3.7.1
+	 */
+	private static void collectDeclarationRanges(List<?> types, List<int[]> ranges) {
+		for (int i= 0, n= types.size(); i < n; i++) {
+			ASTNode node= (ASTNode) types.get(i);
+			ranges.add(new int[] { node.getStartPosition(), node.getLength() });
+			if (node instanceof EnumDeclaration)
+				collectDeclarationRanges(((EnumDeclaration) node).enumConstants(), ranges);
+			if (node instanceof AbstractTypeDeclaration)
+				collectDeclarationRanges(((AbstractTypeDeclaration) node).bodyDeclarations(), ranges);
+		}
 	}
 
 	/**
 	 * Start reconciling positions.
+	 *
+	 * @param subtrees the AST subtrees
 	 */
-	private void startReconcilingPositions() {
+	private void startReconcilingPositions(ASTNode[] subtrees) {
 		fJobPresenter.addAllPositions(fRemovedPositions);
+		if (subtrees.length == 1 && !(subtrees[0] instanceof CompilationUnit)) {
+			// only positions in the subtree are affected
+			int start= subtrees[0].getStartPosition();
+			int end= start + subtrees[0].getLength();
+			List<Position> positions= new ArrayList<Position>();
+			for (int i= 0, n= fRemovedPositions.size(); i < n; i++) {
+				Position position= fRemovedPositions.get(i);
+				if (start <= position.getOffset() && position.getOffset() + position.getLength() <= end)
+					positions.add(position);
+			}
+			fRemovedPositions= positions;
+		}
 		fNOfRemovedPositions= fRemovedPositions.size();
+
+		fRemovedOffsets= new int[fNOfRemovedPositions];
+		for (int i= 0; i < fNOfRemovedPositions; i++)
+			fRemovedOffsets[i]= fRemovedPositions.get(i).getOffset();
+	}
+
+	/**
+	 * Returns the index of the first removed position whose offset was greater or equal to the
+	 * given offset when reconciling started.
+	 *
+	 * @param offset the offset
+	 * @return the index
+	 * @since 3.7.1
+	 */
+	private int indexOfRemovedPosition(int offset) {
+		int low= 0;
+		int high= fRemovedOffsets.length;
+		while (low < high) {
+			int middle= (low + high) >>> 1;
+			if (fRemovedOffsets[middle] < offset)
+				low= middle + 1;
+			else
+				high= middle;
+		}
+		return low;
 	}
 
 	/**
@@ -416,6 +657,7 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void stopReconcilingPositions() {
 		fRemovedPositions.clear();
 		fNOfRemovedPositions= 0;
+		fRemovedOffsets= new int[0];
 		fAddedPositions.clear();
 	}
 
@@ -436,6 +678,11 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 		fSourceViewer= sourceViewer;
 
 		if (fEditor instanceof CompilationUnitEditor) {
+			fDirtyRegionTracker= new DirtyRegionTracker();
+			fSourceViewer.addTextInputListener(fDirtyRegionTracker);
+			IDocument document= fSourceViewer.getDocument();
+			if (document != null)
+				document.addDocumentListener(fDirtyRegionTracker);
 			((CompilationUnitEditor)fEditor).addReconcileListener(this);
 		} else if (fEditor == null) {
 			fSourceViewer.addTextInputListener(this);
@@ -451,9 +698,16 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 			fPresenter.setCanceled(true);
 
 		if (fEditor != null) {
-			if (fEditor instanceof CompilationUnitEditor)
+			if (fEditor instanceof CompilationUnitEditor) {
 				((CompilationUnitEditor)fEditor).removeReconcileListener(this);
-			else
+				if (fDirtyRegionTracker != null) {
+					fSourceViewer.removeTextInputListener(fDirtyRegionTracker);
+					IDocument document= fSourceViewer.getDocument();
+					if (document != null)
+						document.removeDocumentListener(fDirtyRegionTracker);
+					fDirtyRegionTracker= null;
+				}
+			} else
 				fSourceViewer.removeTextInputListener(this);
 			fEditor= null;
 		}
@@ -470,6 +724,10 @@ public class SemanticHighlightingReconciler implements IJavaReconcilingListener,
 	private void scheduleJob() {
 		final ITypeRoot element= fEditor.getInputJavaElement();
 
+		synchronized (fDirtyRegionLock) {
+			fIsFullReconcileRequired= true;
+		}
+
 		synchronized (fJobLock) {
 			final Job oldJob= fJob;
 			if (fJob != null) {
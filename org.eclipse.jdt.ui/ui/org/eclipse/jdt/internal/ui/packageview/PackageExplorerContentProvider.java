@@ -23,6 +23,7 @@ import org.eclipse.swt.widgets.Widget;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 
 import org.eclipse.core.resources.IFolder;
@@ -77,13 +78,45 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	protected static final int GRANT_PARENT= 1 << 1;
 	protected static final int PROJECT= 1 << 2;
 
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/PackageExplorerUpdates"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/**
+	 * Maximal time in milliseconds the update job spends in the UI thread before it lets other
+	 * events run.
+	 */
+	private static final long MAX_UPDATE_TIME= 50;
+
 	private TreeViewer fViewer;
 	private Object fInput;
 	private boolean fIsFlatLayout;
 	private boolean fShowLibrariesNode;
 	private boolean fFoldPackages;
 
-	private Collection<Runnable> fPendingUpdates;
+	private final class RefreshUpdate extends PackageExplorerUpdateQueue.Update {
+
+		private final List<Object> fToRefresh;
+		private boolean fUpdateLabels;
+
+		public RefreshUpdate(List<Object> toRefresh, boolean updateLabels) {
+			super(PackageExplorerUpdateQueue.REFRESH, toRefresh, null);
+			fToRefresh= toRefresh;
+			fUpdateLabels= updateLabels;
+		}
+
+		@Override
+		void merge(PackageExplorerUpdateQueue.Update older) {
+			if (older instanceof RefreshUpdate)
+				fUpdateLabels|= ((RefreshUpdate) older).fUpdateLabels;
+		}
+
+		public void run() {
+			for (Iterator<Object> iter= fToRefresh.iterator(); iter.hasNext();) {
+				fViewer.refresh(iter.next(), fUpdateLabels);
+			}
+		}
+	}
+
+	private final PackageExplorerUpdateQueue fPendingUpdates;
 
 	private UIJob fUpdateJob;
 
@@ -96,7 +129,14 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		fShowLibrariesNode= false;
 		fIsFlatLayout= false;
 		fFoldPackages= arePackagesFoldedInHierarchicalLayout();
-		fPendingUpdates= null;
+		fPendingUpdates= new PackageExplorerUpdateQueue(new Runnable() {
+			public void run() {
+				fViewer.refresh(true);
+				// trigger a synthetic selection change so that action refresh their
+				// enable state.
+				fViewer.setSelection(fViewer.getSelection());
+			}
+		});
 		JavaPlugin.getDefault().getPreferenceStore().addPropertyChangeListener(this);
 
 		fUpdateJob= null;
@@ -136,23 +176,18 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 		if (ctrl != null && !ctrl.isDisposed()) {
 			final boolean hasPendingUpdates;
 			synchronized (this) {
-				hasPendingUpdates= fPendingUpdates != null && !fPendingUpdates.isEmpty();
+				hasPendingUpdates= !fPendingUpdates.isEmpty();
+				fPendingUpdates.addAll(runnables);
 			}
 			//Are we in the UIThread? If so spin it until we are done
 			if (!hasPendingUpdates && ctrl.getDisplay().getThread() == Thread.currentThread() && !fViewer.isBusy()) {
-				runUpdates(runnables);
+				runPendingUpdates();
 			} else {
-				synchronized (this) {
-					if (fPendingUpdates == null) {
-						fPendingUpdates= runnables;
-					} else {
-						fPendingUpdates.addAll(runnables);
-					}
-				}
 				postAsyncUpdate(ctrl.getDisplay());
 			}
 		}
 	}
+
 	private void postAsyncUpdate(final Display display) {
 		if (fUpdateJob == null) {
 			fUpdateJob= new UIJob(display, PackagesMessages.PackageExplorerContentProvider_update_job_description) {
@@ -161,8 +196,8 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 					TreeViewer viewer= fViewer;
 					if (viewer != null && viewer.isBusy()) {
 						schedule(100); // reschedule when viewer is busy: bug 184991
-					} else {
-						runPendingUpdates();
+					} else if (!runPendingUpdates(MAX_UPDATE_TIME)) {
+						schedule(); // let other events run before the remaining updates
 					}
 					return Status.OK_STATUS;
 				}
@@ -176,23 +211,41 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	 * Run all of the runnables that are the widget updates. Must be called in the display thread.
 	 */
 	public void runPendingUpdates() {
-		Collection<Runnable> pendingUpdates;
-		synchronized (this) {
-			pendingUpdates= fPendingUpdates;
-			fPendingUpdates= null;
-		}
-		if (pendingUpdates != null && fViewer != null) {
-			Control control = fViewer.getControl();
-			if (control != null && !control.isDisposed()) {
-				runUpdates(pendingUpdates);
-			}
-		}
+		runPendingUpdates(0);
 	}
 
-	private void runUpdates(Collection<Runnable> runnables) {
-		Iterator<Runnable> runnableIterator = runnables.iterator();
-		while (runnableIterator.hasNext()){
-			runnableIterator.next().run();
+	/**
+	 * Runs the pending widget updates. Must be called in the display thread.
+	 *
+	 * @param timeLimit the time in milliseconds after which no more updates are run, or
+	 *            <code>0</code> to run all updates
+	 * @return <code>true</code> if all updates have been run
+	 */
+	private boolean runPendingUpdates(long timeLimit) {
+		Control control= fViewer != null ? fViewer.getControl() : null;
+		if (control == null || control.isDisposed()) {
+			synchronized (this) {
+				fPendingUpdates.clear();
+			}
+			return true;
+		}
+		long end= System.currentTimeMillis() + timeLimit;
+		while (true) {
+			Runnable update;
+			synchronized (this) {
+				update= fPendingUpdates.next();
+				if (update == null) {
+					if (DEBUG)
+						System.out.println("PackageExplorerContentProvider > executed " + fPendingUpdates.getExecutedCount() + " updates, merged " + fPendingUpdates.getMergedCount()); //$NON-NLS-1$ //$NON-NLS-2$
+					return true;
+				}
+			}
+			update.run();
+			if (timeLimit > 0 && System.currentTimeMillis() >= end) {
+				synchronized (this) {
+					return fPendingUpdates.isEmpty();
+				}
+			}
 		}
 	}
 
@@ -938,17 +991,11 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRefresh(final List<Object> toRefresh, final boolean updateLabels, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
-			public void run() {
-				for (Iterator<Object> iter= toRefresh.iterator(); iter.hasNext();) {
-					fViewer.refresh(iter.next(), updateLabels);
-				}
-			}
-		});
+		runnables.add(new RefreshUpdate(toRefresh, updateLabels));
 	}
 
 	protected void postAdd(final Object parent, final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
+		runnables.add(new PackageExplorerUpdateQueue.Update(PackageExplorerUpdateQueue.ADD, element, parent) {
 			public void run() {
 				Widget[] items= fViewer.testFindItems(element);
 				for (int i= 0; i < items.length; i++) {
@@ -966,7 +1013,7 @@ public class PackageExplorerContentProvider extends StandardJavaElementContentPr
 	}
 
 	protected void postRemove(final Object element, Collection<Runnable> runnables) {
-		runnables.add(new Runnable() {
+		runnables.add(new PackageExplorerUpdateQueue.Update(PackageExplorerUpdateQueue.REMOVE, element, null) {
 			public void run() {
 				fViewer.remove(element);
 			}
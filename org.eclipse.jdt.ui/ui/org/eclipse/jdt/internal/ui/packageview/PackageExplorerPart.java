@@ -644,7 +644,12 @@ public class PackageExplorerPart extends ViewPart
 	}
 
 	private PackageExplorerLabelProvider createLabelProvider() {
-		return new PackageExplorerLabelProvider(fContentProvider);
+		PackageExplorerLabelProvider labelProvider= new PackageExplorerLabelProvider(fContentProvider);
+		// expanding a large archive must not read all of its class files in the UI thread
+		labelProvider.setComputeInBackground(true);
+		// the viewer disposes the label provider only once it no longer shows its images
+		labelProvider.setReleaseImagesOnDispose(true);
+		return labelProvider;
 	}
 
 	private IElementComparer createElementComparer() {
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.packageview;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The viewer updates of a {@link PackageExplorerContentProvider} waiting to be run in the UI
+ * thread.
+ * <p>
+ * Updates are merged while they wait: an update replaces an equal update which is still pending,
+ * and a refresh of an element replaces the pending additions to that element. All updates read
+ * the state of the Java model when they run, so the later update has the same effect as both.
+ * If more than {@link #MAX_PENDING_UPDATES} updates are pending, they are all replaced by a single
+ * refresh of the whole viewer.
+ * </p>
+ * <p>
+ * Runnables which are not {@link Update}s are kept and run in order. The queue is not thread safe.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+public final class PackageExplorerUpdateQueue {
+
+	/**
+	 * Maximal number of pending updates. If there are more, the viewer is refreshed completely.
+	 */
+	public static final int MAX_PENDING_UPDATES= 500;
+
+	public static final int REFRESH= 1;
+	public static final int ADD= 2;
+	public static final int REMOVE= 3;
+
+	/**
+	 * A viewer update which can be merged with other updates.
+	 */
+	public abstract static class Update implements Runnable {
+
+		private final int fKind;
+		private final Object fElement;
+		private final Object fParent;
+
+		/**
+		 * @param kind the kind of the update, {@link #REFRESH}, {@link #ADD} or {@link #REMOVE}
+		 * @param element the affected element, or the list of elements for a refresh
+		 * @param parent the parent an element is added to, or <code>null</code>
+		 */
+		public Update(int kind, Object element, Object parent) {
+			fKind= kind;
+			fElement= element;
+			fParent= parent;
+		}
+
+		/**
+		 * Called when this update replaces an equal update.
+		 *
+		 * @param older the replaced update
+		 */
+		void merge(Update older) {
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Update))
+				return false;
+			Update other= (Update) obj;
+			return fKind == other.fKind && fElement.equals(other.fElement) && (fParent == null ? other.fParent == null : fParent.equals(other.fParent));
+		}
+
+		@Override
+		public int hashCode() {
+			return fKind * 31 + fElement.hashCode();
+		}
+	}
+
+	private final List<Runnable> fUpdates= new ArrayList<Runnable>();
+	private int fFirst;
+
+	// the pending updates and their position, and the pending additions by parent
+	private final Map<Update, Integer> fPositions= new HashMap<Update, Integer>();
+	private final Map<Object, List<Integer>> fAdditions= new HashMap<Object, List<Integer>>();
+
+	private int fPendingCount;
+	private Runnable fFullRefresh;
+	private final Runnable fFullRefreshTemplate;
+
+	private int fMergedCount;
+	private int fExecutedCount;
+
+	/**
+	 * @param fullRefresh the update refreshing the whole viewer
+	 */
+	public PackageExplorerUpdateQueue(Runnable fullRefresh) {
+		fFullRefreshTemplate= fullRefresh;
+	}
+
+	public void addAll(Collection<Runnable> runnables) {
+		for (Iterator<Runnable> iter= runnables.iterator(); iter.hasNext();) {
+			add(iter.next());
+		}
+	}
+
+	public void add(Runnable runnable) {
+		if (!(runnable instanceof Update)) {
+			append(runnable);
+			return;
+		}
+		if (fFullRefresh != null) {
+			fMergedCount++; // the pending full refresh will do
+			return;
+		}
+
+		Update update= (Update) runnable;
+		Integer position= fPositions.get(update);
+		if (position != null) {
+			update.merge((Update) fUpdates.get(position.intValue()));
+			discard(position.intValue());
+		}
+		if (update.fKind == REFRESH) {
+			List<?> refreshed= (List<?>) update.fElement;
+			for (int i= 0; i < refreshed.size(); i++) {
+				List<Integer> additions= fAdditions.remove(refreshed.get(i));
+				if (additions != null) {
+					for (int k= 0; k < additions.size(); k++) {
+						discard(additions.get(k).intValue());
+					}
+				}
+			}
+		}
+
+		int index= append(update);
+		fPositions.put(update, new Integer(index));
+		if (update.fKind == ADD) {
+			List<Integer> additions= fAdditions.get(update.fParent);
+			if (additions == null) {
+				additions= new ArrayList<Integer>(2);
+				fAdditions.put(update.fParent, additions);
+			}
+			additions.add(new Integer(index));
+		}
+
+		if (fPendingCount > MAX_PENDING_UPDATES)
+			collapse();
+	}
+
+	/**
+	 * Removes the next update from the queue.
+	 *
+	 * @return the next update or <code>null</code> if the queue is empty
+	 */
+	public Runnable next() {
+		while (fFirst < fUpdates.size()) {
+			Runnable runnable= fUpdates.get(fFirst);
+			fUpdates.set(fFirst, null);
+			fFirst++;
+			if (runnable != null) {
+				fPendingCount--;
+				fExecutedCount++;
+				if (runnable instanceof Update)
+					fPositions.remove(runnable);
+				if (runnable == fFullRefresh)
+					fFullRefresh= null;
+				return runnable;
+			}
+		}
+		clear();
+		return null;
+	}
+
+	public boolean isEmpty() {
+		return fPendingCount == 0;
+	}
+
+	/**
+	 * Drops all pending updates.
+	 */
+	public void clear() {
+		fUpdates.clear();
+		fFirst= 0;
+		fPositions.clear();
+		fAdditions.clear();
+		fPendingCount= 0;
+		fFullRefresh= null;
+	}
+
+	/**
+	 * @return the number of updates which were replaced by other updates
+	 */
+	public int getMergedCount() {
+		return fMergedCount;
+	}
+
+	/**
+	 * @return the number of updates returned by {@link #next()}
+	 */
+	public int getExecutedCount() {
+		return fExecutedCount;
+	}
+
+	private int append(Runnable runnable) {
+		fUpdates.add(runnable);
+		fPendingCount++;
+		return fUpdates.size() - 1;
+	}
+
+	private void discard(int index) {
+		Runnable runnable= fUpdates.get(index);
+		if (runnable == null)
+			return;
+		fUpdates.set(index, null);
+		fPendingCount--;
+		fMergedCount++;
+		if (runnable instanceof Update) {
+			Update update= (Update) runnable;
+			Integer position= fPositions.get(update);
+			if (position != null && position.intValue() == index)
+				fPositions.remove(update);
+		}
+	}
+
+	private void collapse() {
+		for (int i= fFirst; i < fUpdates.size(); i++) {
+			if (fUpdates.get(i) instanceof Update)
+				discard(i);
+		}
+		fPositions.clear();
+		fAdditions.clear();
+		fFullRefresh= fFullRefreshTemplate;
+		append(fFullRefresh);
+	}
+}
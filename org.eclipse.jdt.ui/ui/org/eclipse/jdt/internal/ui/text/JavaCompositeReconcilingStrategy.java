@@ -10,6 +10,8 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.reconciler.DirtyRegion;
 import org.eclipse.jface.text.reconciler.IReconcilingStrategy;
@@ -35,6 +37,7 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 
 	private ITextEditor fEditor;
 	private JavaReconcilingStrategy fJavaStrategy;
+	private JavaSpellingReconcileStrategy fSpellingStrategy;
 
 	/**
 	 * Creates a new Java reconciling strategy.
@@ -46,9 +49,10 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 	public JavaCompositeReconcilingStrategy(ISourceViewer viewer, ITextEditor editor, String documentPartitioning) {
 		fEditor= editor;
 		fJavaStrategy= new JavaReconcilingStrategy(editor);
+		fSpellingStrategy= new JavaSpellingReconcileStrategy(viewer, editor);
 		setReconcilingStrategies(new IReconcilingStrategy[] {
 			fJavaStrategy,
-			new JavaSpellingReconcileStrategy(viewer, editor)
+			fSpellingStrategy
 		});
 	}
 
@@ -114,6 +118,25 @@ public class JavaCompositeReconcilingStrategy  extends CompositeReconcilingStrat
 	}
 
 
+	/*
+	 * @see org.eclipse.jdt.internal.ui.text.CompositeReconcilingStrategy#setProgressMonitor(org.eclipse.core.runtime.IProgressMonitor)
+	 * @since 3.7.1
+	 */
+	@Override
+	public void setProgressMonitor(IProgressMonitor monitor) {
+		super.setProgressMonitor(monitor);
+		fSpellingStrategy.setReconcilerProgressMonitor(monitor);
+	}
+
+	/**
+	 * Disposes this strategy.
+	 *
+	 * @since 3.7.1
+	 */
+	public void dispose() {
+		fSpellingStrategy.dispose();
+	}
+
 	/**
 	 * Tells this strategy whether to inform its listeners.
 	 *
@@ -93,6 +93,7 @@ public class AddWordProposal implements IJavaCompletionProposal {
 
 		if (checker.acceptsWords()) {
 			checker.addWord(fWord);
+			SpellCheckEngine.configurationChanged();
 			if (fContext != null && fContext.getSourceViewer() != null)
 				SpellingProblem.removeAll(fContext.getSourceViewer(), fWord);
 		}
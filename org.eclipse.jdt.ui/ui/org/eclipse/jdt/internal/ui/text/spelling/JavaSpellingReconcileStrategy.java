@@ -10,12 +10,24 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.text.spelling;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.content.IContentType;
 
 import org.eclipse.jface.text.BadLocationException;
+import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentListener;
 import org.eclipse.jface.text.IRegion;
+import org.eclipse.jface.text.ITypedRegion;
+import org.eclipse.jface.text.Region;
+import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.ISourceViewer;
 
@@ -34,9 +46,17 @@ import org.eclipse.jdt.core.IProblemRequestor;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.compiler.IProblem;
 
+import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.text.IJavaPartitions;
+
 
 /**
  * Reconcile strategy for spell checking comments.
+ * <p>
+ * The problems of the last check of the whole document are remembered. When the whole document
+ * is reconciled again, only the lines changed since then are checked and the problems of the other
+ * lines are reported again.
+ * </p>
  *
  * @since 3.1
  */
@@ -44,8 +64,45 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 
 
 	/**
-	 * Spelling problem collector that forwards {@link SpellingProblem}s as
-	 * {@link IProblem}s to the {@link IProblemRequestor}.
+	 * A spelling problem found by the last check. Its offset is kept up to date while the
+	 * document is changed.
+	 *
+	 * @since 3.7.1
+	 */
+	private static final class CheckedProblem {
+
+		private int fOffset;
+		private final int fLength;
+		private final String fMessage;
+		private final String fWord;
+		private final boolean fDictionaryMatch;
+		private final boolean fSentenceStart;
+
+		public CheckedProblem(int offset, int length, String message, String word, boolean dictionaryMatch, boolean sentenceStart) {
+			fOffset= offset;
+			fLength= length;
+			fMessage= message;
+			fWord= word;
+			fDictionaryMatch= dictionaryMatch;
+			fSentenceStart= sentenceStart;
+		}
+	}
+
+	/**
+	 * Orders checked problems by offset.
+	 *
+	 * @since 3.7.1
+	 */
+	private static final Comparator<CheckedProblem> OFFSET_COMPARATOR= new Comparator<CheckedProblem>() {
+		public int compare(CheckedProblem left, CheckedProblem right) {
+			return left.fOffset - right.fOffset;
+		}
+	};
+
+	/**
+	 * Spelling problem collector that remembers the {@link SpellingProblem}s of a check. They are
+	 * forwarded as {@link IProblem}s to the {@link IProblemRequestor} once all checks of a
+	 * reconcile are done.
 	 */
 	private class SpellingProblemCollector implements ISpellingProblemCollector {
 
@@ -53,10 +110,9 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#accept(org.eclipse.ui.texteditor.spelling.SpellingProblem)
 		 */
 		public void accept(SpellingProblem problem) {
-			IProblemRequestor requestor= fRequestor;
-			if (requestor != null) {
+			List<CheckedProblem> collected= fCollectedProblems;
+			if (collected != null) {
 				try {
-					int line= getDocument().getLineOfOffset(problem.getOffset()) + 1;
 					String word= getDocument().get(problem.getOffset(), problem.getLength());
 					boolean dictionaryMatch= false;
 					boolean sentenceStart= false;
@@ -64,12 +120,7 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 						dictionaryMatch= ((JavaSpellingProblem)problem).isDictionaryMatch();
 						sentenceStart= ((JavaSpellingProblem) problem).isSentenceStart();
 					}
-					// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=81514
-					IEditorInput editorInput= fEditor.getEditorInput();
-					if (editorInput != null) {
-						CoreSpellingProblem iProblem= new CoreSpellingProblem(problem.getOffset(), problem.getOffset() + problem.getLength() - 1, line, problem.getMessage(), word, dictionaryMatch, sentenceStart, getDocument(), editorInput.getName());
-						requestor.acceptProblem(iProblem);
-					}
+					collected.add(new CheckedProblem(problem.getOffset(), problem.getLength(), problem.getMessage(), word, dictionaryMatch, sentenceStart));
 				} catch (BadLocationException x) {
 					// drop this SpellingProblem
 				}
@@ -80,16 +131,14 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#beginCollecting()
 		 */
 		public void beginCollecting() {
-			if (fRequestor != null)
-				fRequestor.beginReporting();
+			// problems are reported by reconcile(IRegion)
 		}
 
 		/*
 		 * @see org.eclipse.ui.texteditor.spelling.ISpellingProblemCollector#endCollecting()
 		 */
 		public void endCollecting() {
-			if (fRequestor != null)
-				fRequestor.endReporting();
+			// problems are reported by reconcile(IRegion)
 		}
 	}
 
@@ -106,6 +155,71 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	/** The problem requester. */
 	private IProblemRequestor fRequestor;
 
+	/**
+	 * Tracks the changes of the document.
+	 * @since 3.7.1
+	 */
+	private final IDocumentListener fDocumentListener= new IDocumentListener() {
+		public void documentAboutToBeChanged(DocumentEvent event) {
+			handleDocumentAboutToBeChanged(event);
+		}
+
+		public void documentChanged(DocumentEvent event) {
+			handleDocumentChanged(event);
+		}
+	};
+
+	/**
+	 * Lock for the checked problems and the dirty regions.
+	 * @since 3.7.1
+	 */
+	private final Object fLock= new Object();
+
+	/**
+	 * The problems of the last check of the whole document, sorted by offset, or <code>null</code>
+	 * if the whole document has to be checked again.
+	 * @since 3.7.1
+	 */
+	private List<CheckedProblem> fCheckedProblems;
+
+	/**
+	 * The regions which have been changed since the last check, as pairs of start and end
+	 * offsets.
+	 * @since 3.7.1
+	 */
+	private final List<int[]> fDirtyRegions= new ArrayList<int[]>();
+
+	/**
+	 * The configuration stamp of the checked problems.
+	 * @since 3.7.1
+	 */
+	private int fConfigurationStamp;
+
+	/**
+	 * Counts the document changes.
+	 * @since 3.7.1
+	 */
+	private int fChangeCount;
+
+	/**
+	 * The list the collector adds the problems of the running check to.
+	 * @since 3.7.1
+	 */
+	private volatile List<CheckedProblem> fCollectedProblems;
+
+	/**
+	 * The progress monitor of the reconciler.
+	 * @since 3.7.1
+	 */
+	private volatile IProgressMonitor fProgressMonitor;
+
+	/**
+	 * The start and end offset of the partitions which enclose the document change which is about
+	 * to happen, or <code>null</code> if none.
+	 * @since 3.7.1
+	 */
+	private int[] fEnclosingPartitions;
+
 
 	/**
 	 * Creates a new comment reconcile strategy.
@@ -123,8 +237,319 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	 */
 	@Override
 	public void reconcile(IRegion region) {
-		if (fRequestor != null && isSpellingEnabled())
-			super.reconcile(region);
+		if (fRequestor == null || !isSpellingEnabled())
+			return;
+
+		IDocument document= getDocument();
+		boolean isWholeDocument= region.getOffset() == 0 && region.getLength() == document.getLength();
+		List<CheckedProblem> unchangedProblems;
+		IRegion[] regions;
+		int changeCount;
+		synchronized (fLock) {
+			int configurationStamp= SpellCheckEngine.getConfigurationStamp();
+			regions= null;
+			if (isWholeDocument && fCheckedProblems != null && fConfigurationStamp == configurationStamp)
+				regions= getChangedLines(document);
+
+			if (regions != null) {
+				unchangedProblems= fCheckedProblems;
+				removeProblems(unchangedProblems, regions);
+			} else {
+				unchangedProblems= new ArrayList<CheckedProblem>();
+				regions= new IRegion[] { region };
+			}
+			fCheckedProblems= unchangedProblems;
+			fDirtyRegions.clear();
+			fConfigurationStamp= configurationStamp;
+			changeCount= fChangeCount;
+		}
+
+		List<CheckedProblem> collected= new ArrayList<CheckedProblem>();
+		fCollectedProblems= collected;
+		try {
+			for (int i= 0; i < regions.length; i++)
+				super.reconcile(regions[i]);
+		} finally {
+			fCollectedProblems= null;
+		}
+
+		int problemsThreshold= PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SPELLING_PROBLEMS_THRESHOLD);
+		List<CheckedProblem> problems;
+		synchronized (fLock) {
+			IProgressMonitor monitor= fProgressMonitor;
+			boolean isCanceled= monitor != null && monitor.isCanceled();
+			if (isWholeDocument && !isCanceled && changeCount == fChangeCount && fCheckedProblems != null) {
+				fCheckedProblems.addAll(collected);
+				Collections.sort(fCheckedProblems, OFFSET_COMPARATOR);
+				problems= new ArrayList<CheckedProblem>(fCheckedProblems);
+				if (problems.size() >= problemsThreshold) {
+					// the problems after the threshold are unknown
+					problems= problems.subList(0, problemsThreshold);
+					fCheckedProblems= null;
+				}
+			} else {
+				// the offsets of the collected problems might be outdated or problems are missing
+				problems= new ArrayList<CheckedProblem>(collected);
+				if (fCheckedProblems != null)
+					problems.addAll(fCheckedProblems);
+				fCheckedProblems= null;
+			}
+		}
+		reportProblems(document, problems);
+	}
+
+	/**
+	 * Returns the lines which have been changed since the last check.
+	 *
+	 * @param document the document
+	 * @return the changed lines or <code>null</code> if they could not be computed
+	 * @since 3.7.1
+	 */
+	private IRegion[] getChangedLines(IDocument document) {
+		// whether a word starts a sentence depends on the text before the changed line
+		boolean checkSentenceStart= !PreferenceConstants.getPreferenceStore().getBoolean(PreferenceConstants.SPELLING_IGNORE_SENTENCE);
+		List<IRegion> lines= new ArrayList<IRegion>(fDirtyRegions.size());
+		try {
+			int previousEnd= -1;
+			for (int i= 0; i < fDirtyRegions.size(); i++) {
+				int[] dirtyRegion= fDirtyRegions.get(i);
+				IRegion first= document.getLineInformationOfOffset(dirtyRegion[0]);
+				IRegion last= document.getLineInformationOfOffset(dirtyRegion[1]);
+				int start= first.getOffset();
+				if (checkSentenceStart)
+					start= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, start, false).getOffset();
+				int end= last.getOffset() + last.getLength();
+				if (start <= previousEnd) {
+					IRegion previous= lines.remove(lines.size() - 1);
+					start= Math.min(start, previous.getOffset());
+					end= Math.max(end, previousEnd);
+				}
+				lines.add(new Region(start, end - start));
+				previousEnd= end;
+			}
+		} catch (BadLocationException e) {
+			return null;
+		}
+		return lines.toArray(new IRegion[lines.size()]);
+	}
+
+	/**
+	 * Removes the problems which intersect one of the given regions.
+	 *
+	 * @param problems the problems sorted by offset
+	 * @param regions the regions sorted by offset
+	 * @since 3.7.1
+	 */
+	private static void removeProblems(List<CheckedProblem> problems, IRegion[] regions) {
+		if (regions.length == 0)
+			return;
+
+		int region= 0;
+		for (Iterator<CheckedProblem> iterator= problems.iterator(); iterator.hasNext();) {
+			CheckedProblem problem= iterator.next();
+			while (region < regions.length && regions[region].getOffset() + regions[region].getLength() < problem.fOffset)
+				region++;
+			if (region == regions.length)
+				return;
+			if (regions[region].getOffset() <= problem.fOffset + problem.fLength)
+				iterator.remove();
+		}
+	}
+
+	/**
+	 * Forwards the given problems to the problem requestor.
+	 *
+	 * @param document the document
+	 * @param problems the problems
+	 * @since 3.7.1
+	 */
+	private void reportProblems(IDocument document, List<CheckedProblem> problems) {
+		IProblemRequestor requestor= fRequestor;
+		if (requestor == null)
+			return;
+
+		requestor.beginReporting();
+		try {
+			// see https://bugs.eclipse.org/bugs/show_bug.cgi?id=81514
+			IEditorInput editorInput= fEditor.getEditorInput();
+			if (editorInput == null)
+				return;
+
+			for (int i= 0; i < problems.size(); i++) {
+				CheckedProblem problem= problems.get(i);
+				try {
+					int line= document.getLineOfOffset(problem.fOffset) + 1;
+					CoreSpellingProblem iProblem= new CoreSpellingProblem(problem.fOffset, problem.fOffset + problem.fLength - 1, line, problem.fMessage, problem.fWord, problem.fDictionaryMatch, problem.fSentenceStart, document, editorInput.getName());
+					requestor.acceptProblem(iProblem);
+				} catch (BadLocationException x) {
+					// drop this problem
+				}
+			}
+		} finally {
+			requestor.endReporting();
+		}
+	}
+
+	/**
+	 * Remembers the partitions which enclose the given document change before it happens.
+	 *
+	 * @param event the document event
+	 * @since 3.7.1
+	 */
+	private void handleDocumentAboutToBeChanged(DocumentEvent event) {
+		fEnclosingPartitions= getEnclosingPartitions(event.getDocument(), event.getOffset(), event.getOffset() + event.getLength());
+	}
+
+	/**
+	 * Updates the checked problems and the dirty regions after a document change.
+	 * <p>
+	 * The changed region is widened to the comment and string partitions which enclose it before
+	 * and after the change: adding or removing a comment delimiter changes the spelling of the text
+	 * up to the end of that comment.
+	 * </p>
+	 *
+	 * @param event the document event
+	 * @since 3.7.1
+	 */
+	private void handleDocumentChanged(DocumentEvent event) {
+		int delta= (event.getText() == null ? 0 : event.getText().length()) - event.getLength();
+		int offset= event.getOffset();
+		int end= offset + event.getLength();
+		int[] enclosingPartitions= fEnclosingPartitions;
+		fEnclosingPartitions= null;
+		if (enclosingPartitions != null) {
+			offset= Math.min(offset, enclosingPartitions[0]);
+			end= Math.max(end, enclosingPartitions[1]);
+		}
+		enclosingPartitions= getEnclosingPartitions(event.getDocument(), event.getOffset(), end + delta);
+		offset= Math.min(offset, enclosingPartitions[0]);
+		end= Math.max(end, enclosingPartitions[1] - delta);
+		int newEnd= end + delta;
+
+		synchronized (fLock) {
+			fChangeCount++;
+			if (fCheckedProblems == null)
+				return;
+
+			for (Iterator<CheckedProblem> iterator= fCheckedProblems.iterator(); iterator.hasNext();) {
+				CheckedProblem problem= iterator.next();
+				if (problem.fOffset > end)
+					problem.fOffset+= delta;
+				else if (problem.fOffset + problem.fLength >= offset)
+					iterator.remove();
+			}
+
+			int start= offset;
+			for (Iterator<int[]> iterator= fDirtyRegions.iterator(); iterator.hasNext();) {
+				int[] dirtyRegion= iterator.next();
+				if (dirtyRegion[0] > end) {
+					dirtyRegion[0]+= delta;
+					dirtyRegion[1]+= delta;
+				} else if (dirtyRegion[1] >= offset) {
+					start= Math.min(start, dirtyRegion[0]);
+					newEnd= Math.max(newEnd, dirtyRegion[1] + delta);
+					iterator.remove();
+				}
+			}
+
+			int index= 0;
+			while (index < fDirtyRegions.size() && fDirtyRegions.get(index)[0] < start)
+				index++;
+			fDirtyRegions.add(index, new int[] { start, newEnd });
+		}
+	}
+
+	/**
+	 * Returns the region from the start of the comment or string partition at the given start
+	 * offset to the end of the comment or string partition at the given end offset.
+	 *
+	 * @param document the document
+	 * @param start the start offset
+	 * @param end the end offset
+	 * @return the start and end offset of the enclosing partitions
+	 * @since 3.7.1
+	 */
+	private static int[] getEnclosingPartitions(IDocument document, int start, int end) {
+		try {
+			ITypedRegion partition= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, start, false);
+			if (!IDocument.DEFAULT_CONTENT_TYPE.equals(partition.getType()))
+				start= Math.min(start, partition.getOffset());
+			partition= TextUtilities.getPartition(document, IJavaPartitions.JAVA_PARTITIONING, end, false);
+			if (!IDocument.DEFAULT_CONTENT_TYPE.equals(partition.getType()))
+				end= Math.max(end, partition.getOffset() + partition.getLength());
+		} catch (BadLocationException x) {
+			// keep the changed region
+		}
+		return new int[] { start, end };
+	}
+
+	/**
+	 * Returns the regions which have been changed since the last check.
+	 * <p>
+	 * Used for testing.
+	 * </p>
+	 *
+	 * @return the changed regions
+	 * @since 3.7.1
+	 */
+	public IRegion[] getDirtyRegions() {
+		synchronized (fLock) {
+			IRegion[] regions= new IRegion[fDirtyRegions.size()];
+			for (int i= 0; i < regions.length; i++) {
+				int[] dirtyRegion= fDirtyRegions.get(i);
+				regions[i]= new Region(dirtyRegion[0], dirtyRegion[1] - dirtyRegion[0]);
+			}
+			return regions;
+		}
+	}
+
+	/**
+	 * Returns the regions of the problems found by the last check of the whole document.
+	 * <p>
+	 * Used for testing.
+	 * </p>
+	 *
+	 * @return the regions of the problems sorted by offset or <code>null</code> if the whole
+	 *         document has to be checked again
+	 * @since 3.7.1
+	 */
+	public IRegion[] getCheckedProblemRegions() {
+		synchronized (fLock) {
+			if (fCheckedProblems == null)
+				return null;
+			IRegion[] regions= new IRegion[fCheckedProblems.size()];
+			for (int i= 0; i < regions.length; i++) {
+				CheckedProblem problem= fCheckedProblems.get(i);
+				regions[i]= new Region(problem.fOffset, problem.fLength);
+			}
+			return regions;
+		}
+	}
+
+	/**
+	 * Disposes this strategy. It stops tracking the changes of its document.
+	 *
+	 * @since 3.7.1
+	 */
+	public void dispose() {
+		IDocument document= getDocument();
+		if (document != null)
+			document.removeDocumentListener(fDocumentListener);
+
+		synchronized (fLock) {
+			fCheckedProblems= null;
+			fDirtyRegions.clear();
+		}
+	}
+
+	/**
+	 * Sets the progress monitor of the reconciler, which tells whether a check has been canceled.
+	 *
+	 * @param monitor the progress monitor
+	 * @since 3.7.1
+	 */
+	public void setReconcilerProgressMonitor(IProgressMonitor monitor) {
+		fProgressMonitor= monitor;
 	}
 
 	private boolean isSpellingEnabled() {
@@ -154,8 +579,20 @@ public class JavaSpellingReconcileStrategy extends SpellingReconcileStrategy {
 	 */
 	@Override
 	public void setDocument(IDocument document) {
+		IDocument oldDocument= getDocument();
+		if (oldDocument != null)
+			oldDocument.removeDocumentListener(fDocumentListener);
+
+		synchronized (fLock) {
+			fCheckedProblems= null;
+			fDirtyRegions.clear();
+		}
+
 		super.setDocument(document);
 		updateProblemRequester();
+
+		if (document != null)
+			document.addDocumentListener(fDocumentListener);
 	}
 
 	/**
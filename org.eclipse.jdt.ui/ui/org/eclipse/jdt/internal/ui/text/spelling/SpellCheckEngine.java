@@ -24,6 +24,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.variables.IStringVariableManager;
 import org.eclipse.core.variables.VariablesPlugin;
@@ -70,6 +71,35 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	 */
 	private static Set<Locale> fgLocalesWithInstalledDictionaries;
 
+	/**
+	 * Counts the changes which might change the result of spell checking.
+	 *
+	 * @since 3.7.1
+	 */
+	private static final AtomicInteger fgConfigurationStamp= new AtomicInteger();
+
+	/**
+	 * Returns a stamp which changes whenever the configuration of spell checking changes, e.g.
+	 * when the preferences change or a word is added to a dictionary. Spelling problems which have
+	 * been computed for another stamp might be outdated.
+	 *
+	 * @return the configuration stamp
+	 * @since 3.7.1
+	 */
+	static int getConfigurationStamp() {
+		return fgConfigurationStamp.get();
+	}
+
+	/**
+	 * Signals that the configuration of spell checking has changed.
+	 *
+	 * @see #getConfigurationStamp()
+	 * @since 3.7.1
+	 */
+	static void configurationChanged() {
+		fgConfigurationStamp.incrementAndGet();
+	}
+
 	/**
 	 * Returns the locales for which this
 	 * spell check engine has dictionaries in certain location.
@@ -365,6 +395,8 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	 * @see org.eclipse.jface.util.IPropertyChangeListener#propertyChange(org.eclipse.jface.util.PropertyChangeEvent)
 	 */
 	public final void propertyChange(final PropertyChangeEvent event) {
+		configurationChanged();
+
 		if (event.getProperty().equals(PreferenceConstants.SPELLING_LOCALE)) {
 			resetSpellChecker();
 			return;
@@ -482,6 +514,7 @@ public class SpellCheckEngine implements ISpellCheckEngine, IPropertyChangeListe
 	}
 
 	private synchronized void resetSpellChecker() {
+		configurationChanged();
 		if (fChecker != null) {
 			ISpellDictionary dictionary= fLocaleDictionaries.get(fChecker.getLocale());
 			if (dictionary != null)
@@ -66,6 +66,7 @@ public class WordIgnoreProposal implements IJavaCompletionProposal {
 
 		if (checker != null) {
 			checker.ignoreWord(fWord);
+			SpellCheckEngine.configurationChanged();
 			ISourceViewer sourceViewer= fContext.getSourceViewer();
 			if (sourceViewer != null)
 				SpellingProblem.removeAll(sourceViewer, fWord);
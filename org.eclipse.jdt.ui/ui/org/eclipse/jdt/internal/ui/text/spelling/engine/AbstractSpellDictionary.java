@@ -11,23 +11,23 @@
 package org.eclipse.jdt.internal.ui.text.spelling.engine;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.MalformedInputException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.eclipse.core.runtime.IStatus;
@@ -52,58 +52,6 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
  */
 public abstract class AbstractSpellDictionary implements ISpellDictionary {
 
-	/**
-	 * Byte array wrapper
-	 * @since 3.6
-	 */
-	private static class ByteArrayWrapper {
-
-		private static int hashCode(byte[] array) {
-			int prime= 31;
-			if (array == null)
-				return 0;
-			int result= 1;
-			for (int index= 0; index < array.length; index++) {
-				result= prime * result + array[index];
-			}
-			return result;
-		}
-
-		private byte[] byteArray;
-
-		public ByteArrayWrapper(byte[] byteArray) {
-			this.byteArray= byteArray;
-		}
-		@Override
-		public int hashCode() {
-			final int prime= 31;
-			int result= 1;
-			result= prime * result + ByteArrayWrapper.hashCode(byteArray);
-			return result;
-		}
-
-		@Override
-		public boolean equals(Object obj) {
-			if (this == obj)
-				return true;
-			if (obj == null)
-				return false;
-			if (!(obj instanceof ByteArrayWrapper))
-				return false;
-			ByteArrayWrapper other= (ByteArrayWrapper)obj;
-			if (!Arrays.equals(byteArray, other.byteArray))
-				return false;
-			return true;
-		}
-	}
-
-	
-	/**
-	 * Canonical name for UTF-8 encoding
-	 * @since 3.6
-	 */
-	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
-
 	/** The bucket capacity */
 	protected static final int BUCKET_CAPACITY= 4;
 
@@ -113,6 +61,19 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The distance threshold */
 	protected static final int DISTANCE_THRESHOLD= 160;
 
+	/**
+	 * The maximal number of words ranked per neighboring hash, see
+	 * https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357
+	 * @since 3.7.1
+	 */
+	private static final int MAXIMUM_NEIGHBOR_CANDIDATES= 500;
+
+	/**
+	 * The maximal number of proposals if no proposal threshold is set
+	 * @since 3.7.1
+	 */
+	private static final int MAXIMUM_PROPOSALS= 100;
+
 	/**
 	 * The hash load factor
 	 * @since 3.6
@@ -122,8 +83,11 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	/** The phonetic distance algorithm */
 	private IPhoneticDistanceAlgorithm fDistanceAlgorithm= new DefaultPhoneticDistanceAlgorithm();
 
-	/** The mapping from phonetic hashes to word lists */
-	private final Map<ByteArrayWrapper, Object> fHashBuckets= new HashMap<ByteArrayWrapper, Object>(getInitialSize(), LOAD_FACTOR);
+	/**
+	 * The mapping from phonetic hashes to words
+	 * @since 3.7.1
+	 */
+	private final CompactWordTable fWords= new CompactWordTable(getInitialSize());
 
 	/** The phonetic hash provider */
 	private IPhoneticHashProvider fHashProvider= new DefaultPhoneticHashProvider();
@@ -157,165 +121,23 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 *
 	 * @param hash
 	 *                   The hash to retrieve the candidates of
-	 * @return Array of candidates for the phonetic hash
-	 */
-	protected final Object getCandidates(final String hash) {
-		ByteArrayWrapper hashBytes;
-		try {
-			hashBytes= new ByteArrayWrapper(hash.getBytes(UTF_8));
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return null;
-		}
-		return fHashBuckets.get(hashBytes);
-	}
-
-	/**
-	 * Returns all candidates that have a phonetic hash within a bounded
-	 * distance to the specified word.
-	 *
-	 * @param word
-	 *                   The word to find the nearest matches for
-	 * @param sentence
-	 *                   <code>true</code> iff the proposals start a new sentence,
-	 *                   <code>false</code> otherwise
-	 * @param hashs
-	 *                   Array of close hashes to find the matches
-	 * @return Set of ranked words with bounded distance to the specified word
+	 * @return List of candidates for the phonetic hash
 	 */
-	protected final Set<RankedWordProposal> getCandidates(final String word, final boolean sentence, final ArrayList<String> hashs) {
-
-		int distance= 0;
-		String hash= null;
-
-		final StringBuffer buffer= new StringBuffer(BUFFER_CAPACITY);
-		final HashSet<RankedWordProposal> result= new HashSet<RankedWordProposal>(BUCKET_CAPACITY * hashs.size());
-
-		for (int index= 0; index < hashs.size(); index++) {
-
-			hash= hashs.get(index);
-
-			final Object candidates= getCandidates(hash);
-			if (candidates == null)
-				continue;
-			else if (candidates instanceof byte[]) {
-				String candidate;
-				try {
-					candidate= new String((byte[])candidates, UTF_8);
-				} catch (UnsupportedEncodingException e) {
-					JavaPlugin.log(e);
-					return result;
-				}
-				distance= fDistanceAlgorithm.getDistance(word, candidate);
-				if (distance < DISTANCE_THRESHOLD) {
-					buffer.setLength(0);
-					buffer.append(candidate);
-					if (sentence)
-						buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-					result.add(new RankedWordProposal(buffer.toString(), -distance));
-				}
-				continue;
-			}
-
-			@SuppressWarnings("unchecked")
-			final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-			int candidateSize= Math.min(500, candidateList.size()); // see https://bugs.eclipse.org/bugs/show_bug.cgi?id=195357
-			for (int offset= 0; offset < candidateSize; offset++) {
-
-				String candidate;
-				try {
-					candidate= new String(candidateList.get(offset), UTF_8);
-				} catch (UnsupportedEncodingException e) {
-					JavaPlugin.log(e);
-					return result;
-				}
-				distance= fDistanceAlgorithm.getDistance(word, candidate);
-
-				if (distance < DISTANCE_THRESHOLD) {
-
-					buffer.setLength(0);
-					buffer.append(candidate);
-
-					if (sentence)
-						buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-
-					result.add(new RankedWordProposal(buffer.toString(), -distance));
-				}
-			}
-		}
+	protected final List<String> getCandidates(final String hash) {
+		final ArrayList<String> result= new ArrayList<String>(BUCKET_CAPACITY);
+		fWords.getWords(hash, Integer.MAX_VALUE, result);
 		return result;
 	}
 
 	/**
-	 * Returns all approximations that have a phonetic hash with smallest
-	 * possible distance to the specified word.
+	 * Returns the maximal number of proposals returned for a misspelled word.
 	 *
-	 * @param word
-	 *                   The word to find the nearest matches for
-	 * @param sentence
-	 *                   <code>true</code> iff the proposals start a new sentence,
-	 *                   <code>false</code> otherwise
-	 * @param result
-	 *                   Set of ranked words with smallest possible distance to the
-	 *                   specified word
+	 * @return the maximal number of proposals
+	 * @since 3.7.1
 	 */
-	protected final void getCandidates(final String word, final boolean sentence, final Set<RankedWordProposal> result) {
-
-		int distance= 0;
-		int minimum= Integer.MAX_VALUE;
-
-		StringBuffer buffer= new StringBuffer(BUFFER_CAPACITY);
-
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return;
-		else if (candidates instanceof byte[]) {
-			String candidate;
-			try {
-				candidate= new String((byte[])candidates, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return;
-			}
-			distance= fDistanceAlgorithm.getDistance(word, candidate);
-			buffer.append(candidate);
-			if (sentence)
-				buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-			result.add(new RankedWordProposal(buffer.toString(), -distance));
-			return;
-		}
-
-		@SuppressWarnings("unchecked")
-		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-		final ArrayList<RankedWordProposal> matches= new ArrayList<RankedWordProposal>(candidateList.size());
-
-		for (int index= 0; index < candidateList.size(); index++) {
-			String candidate;
-			try {
-				candidate= new String(candidateList.get(index), UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return;
-			}
-			distance= fDistanceAlgorithm.getDistance(word, candidate);
-
-			if (distance <= minimum) {
-
-				if (distance < minimum)
-					matches.clear();
-
-				buffer.setLength(0);
-				buffer.append(candidate);
-
-				if (sentence)
-					buffer.setCharAt(0, Character.toUpperCase(buffer.charAt(0)));
-
-				matches.add(new RankedWordProposal(buffer.toString(), -distance));
-				minimum= distance;
-			}
-		}
-
-		result.addAll(matches);
+	protected int getMaximumProposals() {
+		int threshold= PreferenceConstants.getPreferenceStore().getInt(PreferenceConstants.SPELLING_PROPOSAL_THRESHOLD);
+		return threshold > 0 ? threshold : MAXIMUM_PROPOSALS;
 	}
 
 	/**
@@ -325,7 +147,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @since 3.3
 	 */
 	protected boolean isEmpty() {
-		return fHashBuckets.size() == 0;
+		return fWords.isEmpty();
 	}
 
 	/**
@@ -371,8 +193,6 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		final ArrayList<String> neighborhood= new ArrayList<String>((word.length() + 1) * (mutators.length + 2));
 		neighborhood.add(hash);
 
-		final Set<RankedWordProposal> candidates= getCandidates(word, sentence, neighborhood);
-		neighborhood.clear();
 
 		char previous= 0;
 		char next= 0;
@@ -448,15 +268,21 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			--offset;
 		}
 
-		neighborhood.remove(hash);
-		final Set<RankedWordProposal> matches= getCandidates(word, sentence, neighborhood);
+		final int maximum= getMaximumProposals();
+		final Set<RankedWordProposal> proposals= new HashSet<RankedWordProposal>(maximum);
 
-		if (matches.size() == 0 && candidates.size() == 0)
-			getCandidates(word, sentence, candidates);
+		final ProposalCollector collector= new ProposalCollector(word, sentence, maximum, DISTANCE_THRESHOLD, fDistanceAlgorithm);
+		for (final Iterator<String> iterator= new LinkedHashSet<String>(neighborhood).iterator(); iterator.hasNext();)
+			fWords.collectWords(iterator.next(), MAXIMUM_NEIGHBOR_CANDIDATES, collector);
 
-		candidates.addAll(matches);
+		if (collector.isEmpty()) {
+			final ProposalCollector closest= new ProposalCollector(word, sentence, maximum, Integer.MAX_VALUE, fDistanceAlgorithm);
+			fWords.collectWords(hash, Integer.MAX_VALUE, closest);
+			closest.addProposals(proposals, true);
+		} else
+			collector.addProposals(proposals, false);
 
-		return candidates;
+		return proposals;
 	}
 
 	/**
@@ -476,31 +302,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 */
 	protected final void hashWord(final String word) {
 
-		final String hash= fHashProvider.getHash(word);
-		ByteArrayWrapper hashBytes;
-		byte[] wordBytes;
-		try {
-			hashBytes= new ByteArrayWrapper(hash.getBytes(UTF_8));
-			wordBytes= word.getBytes(UTF_8);
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return;
-		}
-
-		Object bucket= fHashBuckets.get(hashBytes);
-
-		if (bucket == null) {
-			fHashBuckets.put(hashBytes, wordBytes);
-		} else if (bucket instanceof ArrayList) {
-			@SuppressWarnings("unchecked")
-			ArrayList<byte[]> bucketList= (ArrayList<byte[]>)bucket;
-			bucketList.add(wordBytes);
-		} else {
-			ArrayList<Object> list= new ArrayList<Object>(BUCKET_CAPACITY);
-			list.add(bucket);
-			list.add(wordBytes);
-			fHashBuckets.put(hashBytes, list);
-		}
+		fWords.add(fHashProvider.getHash(word), word);
 	}
 
 	/*
@@ -522,39 +324,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 			// Do nothing
 		}
 
-		final Object candidates= getCandidates(fHashProvider.getHash(word));
-		if (candidates == null)
-			return false;
-		else if (candidates instanceof byte[]) {
-			String candidate;
-			try {
-				candidate= new String((byte[])candidates, UTF_8);
-			} catch (UnsupportedEncodingException e) {
-				JavaPlugin.log(e);
-				return false;
-			}
-			if (candidate.equals(word) || candidate.equals(word.toLowerCase()))
-				return true;
-			return false;
-		}
-		@SuppressWarnings("unchecked")
-		final ArrayList<byte[]> candidateList= (ArrayList<byte[]>)candidates;
-		byte[] wordBytes;
-		byte[] lowercaseWordBytes;
-		try {
-			wordBytes= word.getBytes(UTF_8);
-			lowercaseWordBytes= word.toLowerCase().getBytes(UTF_8);
-		} catch (UnsupportedEncodingException e) {
-			JavaPlugin.log(e);
-			return false;
-		}
-		for (int index= 0; index < candidateList.size(); index++) {
-			byte[] candidate= candidateList.get(index);
-			if (Arrays.equals(candidate, wordBytes) || Arrays.equals(candidate, lowercaseWordBytes)) {
-				return true;
-			}
-		}
-		return false;
+		return fWords.contains(fHashProvider.getHash(word), new String[] { word, word.toLowerCase() });
 	}
 
 	/*
@@ -596,11 +366,65 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @see org.eclipse.jdt.ui.text.spelling.engine.ISpellDictionary#isLoaded()
 	 */
 	public synchronized final boolean isLoaded() {
-		return fLoaded || fHashBuckets.size() > 0;
+		return fLoaded || !fWords.isEmpty();
+	}
+
+	/**
+	 * Returns the file in which the compiled word list of this dictionary is kept.
+	 * <p>
+	 * If a file is returned, the words loaded from the URL of this dictionary are written to this
+	 * file together with their phonetic hashes. The next time the dictionary is loaded, the file
+	 * is mapped into memory instead of reading and hashing the word list again, as long as the word
+	 * list did not change.
+	 * </p>
+	 * <p>
+	 * Subclasses may override. The default implementation returns <code>null</code>, which is
+	 * suitable for dictionaries that change frequently.
+	 * </p>
+	 *
+	 * @return the file of the compiled word list or <code>null</code> if the word list is not
+	 *         to be compiled
+	 * @since 3.7.1
+	 */
+	protected File getCompiledFile() {
+		return null;
+	}
+
+	/**
+	 * Returns the key which identifies the compiled word list of the given URL. A compiled word
+	 * list is outdated if the word list, its encoding or the phonetic hash provider changed.
+	 *
+	 * @param url the URL of the word list
+	 * @return the key
+	 * @throws IOException if the URL cannot be accessed
+	 * @since 3.7.1
+	 */
+	private String getCompiledKey(final URL url) throws IOException {
+		URLConnection connection= url.openConnection();
+		try {
+			StringBuffer key= new StringBuffer();
+			key.append(url.toString()).append('\n');
+			key.append(connection.getLastModified()).append('\n');
+			key.append(connection.getContentLength()).append('\n');
+			key.append(getEncoding()).append('\n');
+			key.append(fHashProvider.getClass().getName());
+			return key.toString();
+		} finally {
+			// querying the header fields connects, which opens the stream for file and jar URLs
+			try {
+				connection.getInputStream().close();
+			} catch (IOException x) {
+				// ignore
+			}
+		}
 	}
 
 	/**
 	 * Loads a dictionary word list from disk.
+	 * <p>
+	 * If this dictionary has a {@link #getCompiledFile() compiled word list} which is up to date,
+	 * the compiled word list is used instead.
+	 * </p>
 	 *
 	 * @param url
 	 *                   The URL of the word list to load
@@ -614,10 +438,19 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 		if (url != null) {
 			InputStream stream= null;
 			int line= 0;
+			final File compiledFile= getCompiledFile();
+			String compiledKey= null;
 			try {
+				if (compiledFile != null) {
+					compiledKey= getCompiledKey(url);
+					if (fWords.map(compiledFile, compiledKey))
+						return true;
+				}
+
 				stream= url.openStream();
 				if (stream != null) {
 					String word= null;
+					final CompactWordTable.Builder builder= new CompactWordTable.Builder(getInitialSize());
 
 					// Setup a reader with a decoder in order to read over malformed input if needed.
 					CharsetDecoder decoder= Charset.forName(getEncoding()).newDecoder();
@@ -645,8 +478,11 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 						}
 						doRead= word != null;
 						if (doRead)
-							hashWord(word);
+							builder.add(fHashProvider.getHash(word), word);
 					}
+					fWords.addAll(builder);
+					if (compiledFile != null)
+						fWords.write(compiledFile, compiledKey);
 					return true;
 				}
 			} catch (FileNotFoundException ex) {
@@ -685,12 +521,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	 * @since 3.3.
 	 */
 	private void compact() {
-		Iterator<Object> iter= fHashBuckets.values().iterator();
-		while (iter.hasNext()) {
-			Object element= iter.next();
-			if (element instanceof ArrayList)
-				((ArrayList<?>)element).trimToSize();
-		}
+		fWords.compact();
 	}
 
 	/**
@@ -719,7 +550,7 @@ public abstract class AbstractSpellDictionary implements ISpellDictionary {
 	public synchronized void unload() {
 		fLoaded= false;
 		fMustLoad= true;
-		fHashBuckets.clear();
+		fWords.clear();
 	}
 
 	/*
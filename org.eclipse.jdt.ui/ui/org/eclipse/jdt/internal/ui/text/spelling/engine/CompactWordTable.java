@@ -0,0 +1,720 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+
+/**
+ * Word table of a spell dictionary, mapping phonetic hashes to the words with that hash.
+ * <p>
+ * The words live in a table in a direct byte buffer outside of the Java heap: the hashes are
+ * sorted and looked up with a binary search, the words of a hash are stored next to each other.
+ * The words of a word list are streamed into a {@link Builder} and {@link #addAll(Builder) added}
+ * at once. Words added one by one are collected in a small pending map until
+ * {@link #compact()} merges them into the table.
+ * </p>
+ * <p>
+ * A compacted table can be {@link #write(File, String) written} to a file and later be
+ * {@link #map(File, String) mapped} into memory again, which avoids reading and hashing the words
+ * of a dictionary each time it is loaded. The file starts with the length and the UTF-8 bytes of a
+ * key describing the source of the words, followed by the table.
+ * </p>
+ * <p>
+ * Layout of the table, all numbers are big endian <code>int</code>s:
+ * <pre>
+ * magic, version, hash count (h), word count (w)
+ * hash offsets         (h + 1 entries, relative to the start of the hash bytes)
+ * first word of a hash (h + 1 entries)
+ * word offsets         (w + 1 entries, relative to the start of the word bytes)
+ * hash bytes           (UTF-8, sorted as unsigned bytes)
+ * word bytes           (UTF-8)
+ * </pre>
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class CompactWordTable {
+
+	/**
+	 * Canonical name for UTF-8 encoding
+	 */
+	private static final String UTF_8= "UTF-8"; //$NON-NLS-1$
+
+	private static final int MAGIC= 0x4a535044; // "JSPD"
+	private static final int VERSION= 1;
+	private static final int HEADER_SIZE= 4 * 4;
+
+	/**
+	 * Collects words and lays them out as a compacted table. The hash and word bytes are appended
+	 * to a growing array, the entries are sorted by their hashes only once all words have been
+	 * added. Words with the same hash keep the order in which they have been added.
+	 */
+	static final class Builder {
+
+		/** The hash and word bytes of all entries, one after the other */
+		private byte[] fBytes;
+		private int fLength;
+
+		/**
+		 * The hash bytes of entry <code>i</code> start at <code>fStarts[2 * i]</code>, its word
+		 * bytes at <code>fStarts[2 * i + 1]</code> and end where the next entry starts
+		 */
+		private int[] fStarts;
+		private int fCount;
+
+		public Builder(int initialSize) {
+			initialSize= Math.max(initialSize, 16);
+			fBytes= new byte[initialSize * 16];
+			fStarts= new int[2 * initialSize + 1];
+		}
+
+		/**
+		 * Adds a word.
+		 *
+		 * @param hash the phonetic hash of the word
+		 * @param word the word
+		 */
+		public void add(String hash, String word) {
+			byte[] hashBytes= toBytes(hash);
+			byte[] wordBytes= toBytes(word);
+			if (hashBytes != null && wordBytes != null)
+				add(hashBytes, 0, hashBytes.length, wordBytes, 0, wordBytes.length);
+		}
+
+		void add(byte[] hash, int hashStart, int hashLength, byte[] word, int wordStart, int wordLength) {
+			if (fLength + hashLength + wordLength > fBytes.length) {
+				byte[] bytes= new byte[Math.max(2 * fBytes.length, fLength + hashLength + wordLength)];
+				System.arraycopy(fBytes, 0, bytes, 0, fLength);
+				fBytes= bytes;
+			}
+			if (2 * fCount + 2 >= fStarts.length) {
+				int[] starts= new int[2 * fStarts.length + 1];
+				System.arraycopy(fStarts, 0, starts, 0, 2 * fCount + 1);
+				fStarts= starts;
+			}
+
+			System.arraycopy(hash, hashStart, fBytes, fLength, hashLength);
+			fLength+= hashLength;
+			fStarts[2 * fCount + 1]= fLength;
+			System.arraycopy(word, wordStart, fBytes, fLength, wordLength);
+			fLength+= wordLength;
+			fCount++;
+			fStarts[2 * fCount]= fLength;
+		}
+
+		void addAll(Builder builder) {
+			for (int entry= 0; entry < builder.fCount; entry++) {
+				int hashStart= builder.fStarts[2 * entry];
+				int wordStart= builder.fStarts[2 * entry + 1];
+				int wordEnd= builder.fStarts[2 * entry + 2];
+				add(builder.fBytes, hashStart, wordStart - hashStart, builder.fBytes, wordStart, wordEnd - wordStart);
+			}
+		}
+
+		/**
+		 * Lays out the added words as a table.
+		 *
+		 * @return the table
+		 */
+		ByteBuffer build() {
+			int[] order= sort();
+
+			int hashCount= 0;
+			int hashBytes= 0;
+			for (int index= 0; index < fCount; index++) {
+				if (index == 0 || compareHashes(order[index - 1], order[index]) != 0) {
+					hashCount++;
+					hashBytes+= fStarts[2 * order[index] + 1] - fStarts[2 * order[index]];
+				}
+			}
+			int wordCount= fCount;
+			int wordBytes= fLength;
+			for (int entry= 0; entry < fCount; entry++)
+				wordBytes-= fStarts[2 * entry + 1] - fStarts[2 * entry];
+
+			int size= HEADER_SIZE + 4 * (2 * (hashCount + 1) + (wordCount + 1)) + hashBytes + wordBytes;
+			ByteBuffer table= ByteBuffer.allocateDirect(size);
+			table.putInt(MAGIC);
+			table.putInt(VERSION);
+			table.putInt(hashCount);
+			table.putInt(wordCount);
+
+			int hashOffsetsPosition= HEADER_SIZE;
+			int bucketStartsPosition= hashOffsetsPosition + 4 * (hashCount + 1);
+			int wordOffsetsPosition= bucketStartsPosition + 4 * (hashCount + 1);
+			int hashBytesPosition= wordOffsetsPosition + 4 * (wordCount + 1);
+			int wordBytesPosition= hashBytesPosition + hashBytes;
+
+			ByteBuffer hashOutput= table.duplicate();
+			hashOutput.position(hashBytesPosition);
+			ByteBuffer wordOutput= table.duplicate();
+			wordOutput.position(wordBytesPosition);
+
+			int bucket= 0;
+			for (int word= 0; word < wordCount; word++) {
+				int entry= order[word];
+				int hashStart= fStarts[2 * entry];
+				int wordStart= fStarts[2 * entry + 1];
+				if (word == 0 || compareHashes(order[word - 1], entry) != 0) {
+					table.putInt(hashOffsetsPosition + 4 * bucket, hashOutput.position() - hashBytesPosition);
+					table.putInt(bucketStartsPosition + 4 * bucket, word);
+					hashOutput.put(fBytes, hashStart, wordStart - hashStart);
+					bucket++;
+				}
+				table.putInt(wordOffsetsPosition + 4 * word, wordOutput.position() - wordBytesPosition);
+				wordOutput.put(fBytes, wordStart, fStarts[2 * entry + 2] - wordStart);
+			}
+			table.putInt(hashOffsetsPosition + 4 * hashCount, hashBytes);
+			table.putInt(bucketStartsPosition + 4 * hashCount, wordCount);
+			table.putInt(wordOffsetsPosition + 4 * wordCount, wordBytes);
+			return table;
+		}
+
+		/**
+		 * Sorts the entries by their hashes with a stable merge sort.
+		 *
+		 * @return the indices of the entries in sorted order
+		 */
+		private int[] sort() {
+			int[] order= new int[fCount];
+			for (int index= 0; index < fCount; index++)
+				order[index]= index;
+
+			int[] merged= new int[fCount];
+			for (int width= 1; width < fCount; width*= 2) {
+				for (int low= 0; low < fCount; low+= 2 * width) {
+					int middle= Math.min(low + width, fCount);
+					int high= Math.min(low + 2 * width, fCount);
+					int left= low;
+					int right= middle;
+					for (int index= low; index < high; index++) {
+						if (left < middle && (right >= high || compareHashes(order[left], order[right]) <= 0))
+							merged[index]= order[left++];
+						else
+							merged[index]= order[right++];
+					}
+				}
+				int[] swap= order;
+				order= merged;
+				merged= swap;
+			}
+			return order;
+		}
+
+		/**
+		 * Compares the hashes of two entries as unsigned bytes.
+		 *
+		 * @param first the first entry
+		 * @param second the second entry
+		 * @return the comparison result
+		 */
+		private int compareHashes(int first, int second) {
+			int firstStart= fStarts[2 * first];
+			int firstLength= fStarts[2 * first + 1] - firstStart;
+			int secondStart= fStarts[2 * second];
+			int secondLength= fStarts[2 * second + 1] - secondStart;
+			int common= Math.min(firstLength, secondLength);
+			for (int index= 0; index < common; index++) {
+				int difference= (fBytes[firstStart + index] & 0xff) - (fBytes[secondStart + index] & 0xff);
+				if (difference != 0)
+					return difference;
+			}
+			return firstLength - secondLength;
+		}
+
+		public int size() {
+			return fCount;
+		}
+	}
+
+	/** The compacted table or <code>null</code> if not compacted yet */
+	private ByteBuffer fTable;
+	private int fHashCount;
+	private int fWordCount;
+	private int fHashOffsetsPosition;
+	private int fBucketStartsPosition;
+	private int fWordOffsetsPosition;
+	private int fHashBytesPosition;
+	private int fWordBytesPosition;
+
+	/** The mapping from phonetic hashes to the words added since the last compaction */
+	private final Map<String, List<String>> fPending;
+
+	public CompactWordTable(int initialSize) {
+		fPending= new HashMap<String, List<String>>(initialSize);
+	}
+
+	/**
+	 * Adds a word.
+	 *
+	 * @param hash the phonetic hash of the word
+	 * @param word the word
+	 */
+	public synchronized void add(String hash, String word) {
+		List<String> bucket= fPending.get(hash);
+		if (bucket == null) {
+			bucket= new ArrayList<String>(1);
+			fPending.put(hash, bucket);
+		}
+		bucket.add(word);
+	}
+
+	/**
+	 * Tells whether the table contains one of the given words, all of which must have the given
+	 * hash.
+	 *
+	 * @param hash the phonetic hash of the words
+	 * @param words the words to look for
+	 * @return <code>true</code> if one of the words is contained in the table
+	 */
+	public synchronized boolean contains(String hash, String[] words) {
+		List<String> pending= fPending.get(hash);
+		if (pending != null) {
+			for (int index= 0; index < words.length; index++) {
+				if (pending.contains(words[index]))
+					return true;
+			}
+		}
+
+		int bucket= findBucket(hash);
+		if (bucket < 0)
+			return false;
+
+		byte[][] wordBytes= new byte[words.length][];
+		for (int index= 0; index < words.length; index++) {
+			wordBytes[index]= toBytes(words[index]);
+			if (wordBytes[index] == null)
+				return false;
+		}
+
+		int end= getBucketStart(bucket + 1);
+		for (int word= getBucketStart(bucket); word < end; word++) {
+			for (int index= 0; index < wordBytes.length; index++) {
+				if (equals(word, wordBytes[index]))
+					return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the words of the given builder.
+	 *
+	 * @param builder the builder with the words to add
+	 */
+	public synchronized void addAll(Builder builder) {
+		if (isEmpty()) {
+			setTable(builder.build());
+		} else {
+			Builder merged= new Builder(fWordCount + fPending.size() + builder.size());
+			addTo(merged);
+			merged.addAll(builder);
+			setTable(merged.build());
+			fPending.clear();
+		}
+	}
+
+	/**
+	 * Adds the words with the given hash to the given list, in the order in which they have been
+	 * added.
+	 *
+	 * @param hash the phonetic hash
+	 * @param maximum the maximal number of words to add
+	 * @param result the list to add the words to
+	 */
+	public synchronized void getWords(String hash, int maximum, List<String> result) {
+		int count= 0;
+		int bucket= findBucket(hash);
+		if (bucket >= 0) {
+			int end= getBucketStart(bucket + 1);
+			for (int word= getBucketStart(bucket); word < end && count < maximum; word++, count++) {
+				String string= getWord(word);
+				if (string != null)
+					result.add(string);
+			}
+		}
+
+		List<String> pending= fPending.get(hash);
+		if (pending != null) {
+			for (Iterator<String> iterator= pending.iterator(); iterator.hasNext() && count < maximum; count++) {
+				result.add(iterator.next());
+			}
+		}
+	}
+
+	/**
+	 * Passes the words with the given hash to the given collector. The words of the compacted table
+	 * are decoded into the buffer of the collector, no strings are created for them.
+	 *
+	 * @param hash the phonetic hash
+	 * @param maximum the maximal number of words to pass
+	 * @param collector the collector
+	 */
+	public synchronized void collectWords(String hash, int maximum, ProposalCollector collector) {
+		int count= 0;
+		int bucket= findBucket(hash);
+		if (bucket >= 0) {
+			int end= getBucketStart(bucket + 1);
+			for (int word= getBucketStart(bucket); word < end && count < maximum; word++, count++) {
+				int start= fWordBytesPosition + getInt(fWordOffsetsPosition, word);
+				int length= fWordBytesPosition + getInt(fWordOffsetsPosition, word + 1) - start;
+				char[] buffer= collector.getBuffer(length);
+				int decoded= decode(start, length, buffer);
+				if (decoded >= 0) {
+					collector.accept(buffer, decoded);
+				} else {
+					String string= getWord(word);
+					if (string != null)
+						collector.accept(string);
+				}
+			}
+		}
+
+		List<String> pending= fPending.get(hash);
+		if (pending != null) {
+			for (int index= 0; index < pending.size() && count < maximum; index++, count++)
+				collector.accept(pending.get(index));
+		}
+	}
+
+	public synchronized boolean isEmpty() {
+		return fWordCount == 0 && fPending.isEmpty();
+	}
+
+	public synchronized void clear() {
+		fTable= null;
+		fHashCount= 0;
+		fWordCount= 0;
+		fPending.clear();
+	}
+
+	/**
+	 * Moves the pending words into the compacted table.
+	 */
+	public synchronized void compact() {
+		if (fPending.isEmpty())
+			return;
+
+		Builder builder= new Builder(fWordCount + fPending.size());
+		addTo(builder);
+		setTable(builder.build());
+		fPending.clear();
+	}
+
+	/**
+	 * Adds the words of the compacted table and the pending words to the given builder.
+	 *
+	 * @param builder the builder
+	 */
+	private void addTo(Builder builder) {
+		if (fTable != null) {
+			byte[] hashBytes= getBytes(fHashBytesPosition, fWordBytesPosition);
+			byte[] wordBytes= getBytes(fWordBytesPosition, fTable.capacity());
+			for (int bucket= 0; bucket < fHashCount; bucket++) {
+				int hashStart= getInt(fHashOffsetsPosition, bucket);
+				int hashLength= getInt(fHashOffsetsPosition, bucket + 1) - hashStart;
+				int end= getBucketStart(bucket + 1);
+				for (int word= getBucketStart(bucket); word < end; word++) {
+					int wordStart= getInt(fWordOffsetsPosition, word);
+					builder.add(hashBytes, hashStart, hashLength, wordBytes, wordStart, getInt(fWordOffsetsPosition, word + 1) - wordStart);
+				}
+			}
+		}
+		for (Iterator<Map.Entry<String, List<String>>> iterator= fPending.entrySet().iterator(); iterator.hasNext();) {
+			Map.Entry<String, List<String>> entry= iterator.next();
+			for (Iterator<String> wordIterator= entry.getValue().iterator(); wordIterator.hasNext();)
+				builder.add(entry.getKey(), wordIterator.next());
+		}
+	}
+
+	/**
+	 * Writes the compacted table to the given file.
+	 *
+	 * @param file the file to write
+	 * @param key the key which identifies the source of the words
+	 * @return <code>true</code> if the table has been written, <code>false</code> if there are
+	 *         pending words or writing failed
+	 */
+	public synchronized boolean write(File file, String key) {
+		if (fTable == null || !fPending.isEmpty())
+			return false;
+
+		byte[] keyBytes= toBytes(key);
+		if (keyBytes == null)
+			return false;
+
+		File tempFile= new File(file.getPath() + ".tmp"); //$NON-NLS-1$
+		FileOutputStream stream= null;
+		boolean written= false;
+		try {
+			File parent= file.getParentFile();
+			if (parent != null)
+				parent.mkdirs();
+
+			stream= new FileOutputStream(tempFile);
+			FileChannel channel= stream.getChannel();
+			ByteBuffer header= ByteBuffer.allocate(4 + keyBytes.length);
+			header.putInt(keyBytes.length);
+			header.put(keyBytes);
+			header.flip();
+			while (header.hasRemaining())
+				channel.write(header);
+
+			ByteBuffer table= fTable.duplicate();
+			table.clear();
+			while (table.hasRemaining())
+				channel.write(table);
+
+			stream.close();
+			stream= null;
+
+			file.delete();
+			written= tempFile.renameTo(file);
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+		} finally {
+			try {
+				if (stream != null)
+					stream.close();
+			} catch (IOException e) {
+			}
+			if (!written)
+				tempFile.delete();
+		}
+		return written;
+	}
+
+	/**
+	 * Maps a table which has been written with {@link #write(File, String)} into memory. The
+	 * table must be empty.
+	 *
+	 * @param file the file to map
+	 * @param key the key which identifies the source of the words
+	 * @return <code>true</code> if the table has been mapped, <code>false</code> if the file does
+	 *         not exist, has been written for another key or is corrupt
+	 */
+	public synchronized boolean map(File file, String key) {
+		if (!isEmpty() || !file.isFile())
+			return false;
+
+		byte[] keyBytes= toBytes(key);
+		if (keyBytes == null)
+			return false;
+
+		RandomAccessFile input= null;
+		try {
+			input= new RandomAccessFile(file, "r"); //$NON-NLS-1$
+			long size= input.length();
+			if (size < 4 + keyBytes.length + HEADER_SIZE || input.readInt() != keyBytes.length)
+				return false;
+
+			byte[] actualKeyBytes= new byte[keyBytes.length];
+			input.readFully(actualKeyBytes);
+			if (!Arrays.equals(keyBytes, actualKeyBytes))
+				return false;
+
+			long position= 4 + keyBytes.length;
+			ByteBuffer table= input.getChannel().map(FileChannel.MapMode.READ_ONLY, position, size - position);
+			if (setTable(table))
+				return true;
+
+			clear();
+			return false;
+		} catch (IOException e) {
+			JavaPlugin.log(e);
+			clear();
+			return false;
+		} finally {
+			try {
+				if (input != null)
+					input.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Sets the compacted table and reads its header.
+	 *
+	 * @param table the table
+	 * @return <code>true</code> if the table is well-formed, <code>false</code> otherwise
+	 */
+	private boolean setTable(ByteBuffer table) {
+		int capacity= table.capacity();
+		if (capacity < HEADER_SIZE || table.getInt(0) != MAGIC || table.getInt(4) != VERSION)
+			return false;
+
+		int hashCount= table.getInt(8);
+		int wordCount= table.getInt(12);
+		if (hashCount < 0 || wordCount < 0)
+			return false;
+
+		long hashBytesPosition= HEADER_SIZE + 4L * (2 * (hashCount + 1L) + (wordCount + 1L));
+		if (hashBytesPosition > capacity)
+			return false;
+
+		fTable= table;
+		fHashCount= hashCount;
+		fWordCount= wordCount;
+		fHashOffsetsPosition= HEADER_SIZE;
+		fBucketStartsPosition= fHashOffsetsPosition + 4 * (hashCount + 1);
+		fWordOffsetsPosition= fBucketStartsPosition + 4 * (hashCount + 1);
+		fHashBytesPosition= (int)hashBytesPosition;
+		fWordBytesPosition= fHashBytesPosition + getInt(fHashOffsetsPosition, hashCount);
+		if (getBucketStart(hashCount) == wordCount && fWordBytesPosition + getInt(fWordOffsetsPosition, wordCount) == capacity)
+			return true;
+
+		fTable= null;
+		fHashCount= 0;
+		fWordCount= 0;
+		return false;
+	}
+
+	/**
+	 * Finds the bucket of the given hash.
+	 *
+	 * @param hash the phonetic hash
+	 * @return the index of the bucket or <code>-1</code> if there is none
+	 */
+	private int findBucket(String hash) {
+		if (fHashCount == 0)
+			return -1;
+
+		byte[] key= toBytes(hash);
+		if (key == null)
+			return -1;
+
+		int low= 0;
+		int high= fHashCount - 1;
+		while (low <= high) {
+			int middle= (low + high) >>> 1;
+			int comparison= compareHash(middle, key);
+			if (comparison < 0)
+				low= middle + 1;
+			else if (comparison > 0)
+				high= middle - 1;
+			else
+				return middle;
+		}
+		return -1;
+	}
+
+	private int compareHash(int bucket, byte[] key) {
+		int start= fHashBytesPosition + getInt(fHashOffsetsPosition, bucket);
+		int length= fHashBytesPosition + getInt(fHashOffsetsPosition, bucket + 1) - start;
+		int common= Math.min(length, key.length);
+		for (int index= 0; index < common; index++) {
+			int difference= (fTable.get(start + index) & 0xff) - (key[index] & 0xff);
+			if (difference != 0)
+				return difference;
+		}
+		return length - key.length;
+	}
+
+	private boolean equals(int word, byte[] bytes) {
+		int start= fWordBytesPosition + getInt(fWordOffsetsPosition, word);
+		int length= fWordBytesPosition + getInt(fWordOffsetsPosition, word + 1) - start;
+		if (length != bytes.length)
+			return false;
+
+		for (int index= 0; index < length; index++) {
+			if (fTable.get(start + index) != bytes[index])
+				return false;
+		}
+		return true;
+	}
+
+	private String getWord(int word) {
+		byte[] bytes= getBytes(fWordBytesPosition + getInt(fWordOffsetsPosition, word), fWordBytesPosition + getInt(fWordOffsetsPosition, word + 1));
+		try {
+			return new String(bytes, UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			JavaPlugin.log(e);
+			return null;
+		}
+	}
+
+	/**
+	 * Decodes UTF-8 encoded characters of the basic multilingual plane.
+	 *
+	 * @param start the position of the bytes
+	 * @param length the number of bytes
+	 * @param buffer the buffer to decode into, at least <code>length</code> characters long
+	 * @return the number of decoded characters or <code>-1</code> if the bytes contain other
+	 *         characters
+	 */
+	private int decode(int start, int length, char[] buffer) {
+		int count= 0;
+		int end= start + length;
+		for (int position= start; position < end;) {
+			int first= fTable.get(position++) & 0xff;
+			if (first < 0x80) {
+				buffer[count++]= (char)first;
+			} else if ((first & 0xe0) == 0xc0 && position < end) {
+				buffer[count++]= (char)(((first & 0x1f) << 6) | (fTable.get(position++) & 0x3f));
+			} else if ((first & 0xf0) == 0xe0 && position + 1 < end) {
+				int second= fTable.get(position++) & 0x3f;
+				buffer[count++]= (char)(((first & 0x0f) << 12) | (second << 6) | (fTable.get(position++) & 0x3f));
+			} else {
+				return -1;
+			}
+		}
+		return count;
+	}
+
+	private int getBucketStart(int bucket) {
+		return getInt(fBucketStartsPosition, bucket);
+	}
+
+	private int getInt(int arrayPosition, int index) {
+		return fTable.getInt(arrayPosition + 4 * index);
+	}
+
+	private byte[] getBytes(int start, int end) {
+		byte[] bytes= new byte[end - start];
+		ByteBuffer buffer= fTable.duplicate();
+		buffer.position(start);
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private static byte[] toBytes(String string) {
+		try {
+			return string.getBytes(UTF_8);
+		} catch (UnsupportedEncodingException e) {
+			JavaPlugin.log(e);
+			return null;
+		}
+	}
+
+	/*
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "CompactWordTable: " + fWordCount + " compacted words, " + fPending.size() + " pending hashes"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+}
@@ -40,64 +40,83 @@ public final class DefaultPhoneticDistanceAlgorithm implements IPhoneticDistance
 	 * @see org.eclipse.spelling.done.IPhoneticDistanceAlgorithm#getDistance(java.lang.String,java.lang.String)
 	 */
 	public final int getDistance(final String from, final String to) {
+		return getDistance(from.toCharArray(), from.length(), to.toCharArray(), to.length(), Integer.MAX_VALUE);
+	}
 
-		final char[] first= (" " + from).toCharArray(); //$NON-NLS-1$
-		final char[] second= (" " + to).toCharArray(); //$NON-NLS-1$
+	/**
+	 * Returns the phonetic distance between two words if it is smaller than the given bound.
+	 * <p>
+	 * Only the last three rows of the edit matrix are kept, and the computation stops as soon as
+	 * the distance cannot be smaller than the bound.
+	 * </p>
+	 *
+	 * @param from the characters of the first word
+	 * @param fromLength the length of the first word
+	 * @param to the characters of the second word
+	 * @param toLength the length of the second word
+	 * @param bound the exclusive upper bound of the distances of interest
+	 * @return the distance or a value greater or equal than <code>bound</code> if the distance is
+	 *         not smaller than the bound
+	 * @since 3.7.1
+	 */
+	public final int getDistance(final char[] from, final int fromLength, final char[] to, final int toLength, final int bound) {
 
-		final int rows= first.length;
-		final int columns= second.length;
+		final int columns= toLength + 1;
 
-		final int[][] metric= new int[rows][columns];
-		for (int column= 1; column < columns; column++)
-			metric[0][column]= metric[0][column - 1] + COST_REMOVE;
+		int[] row= new int[columns];
+		int[] previous= new int[columns];
+		int[] secondPrevious= new int[columns];
 
-		for (int row= 1; row < rows; row++)
-			metric[row][0]= metric[row - 1][0] + COST_INSERT;
+		for (int column= 1; column < columns; column++)
+			previous[column]= previous[column - 1] + COST_REMOVE;
 
 		char source, target;
 
-		int swap= Integer.MAX_VALUE;
-		int change= Integer.MAX_VALUE;
+		int minimum, diagonal, previousMinimum= 0;
+		for (int index= 1; index <= fromLength; index++) {
 
-		int minimum, diagonal, insert, remove;
-		for (int row= 1; row < rows; row++) {
+			source= from[index - 1];
+			row[0]= previous[0] + COST_INSERT;
+			int rowMinimum= row[0];
 
-			source= first[row];
 			for (int column= 1; column < columns; column++) {
 
-				target= second[column];
-				diagonal= metric[row - 1][column - 1];
+				target= to[column - 1];
+				diagonal= previous[column - 1];
 
 				if (source == target) {
-					metric[row][column]= diagonal;
-					continue;
-				}
+					minimum= diagonal;
+				} else {
+					minimum= COST_SUBSTITUTE + diagonal;
 
-				change= Integer.MAX_VALUE;
-				if (Character.toLowerCase(source) == Character.toLowerCase(target))
-					change= COST_CASE + diagonal;
+					if (index != 1 && column != 1 && source == to[column - 2] && from[index - 2] == target && COST_SWAP + secondPrevious[column - 2] < minimum)
+						minimum= COST_SWAP + secondPrevious[column - 2];
 
-				swap= Integer.MAX_VALUE;
-				if (row != 1 && column != 1 && source == second[column - 1] && first[row - 1] == target)
-					swap= COST_SWAP + metric[row - 2][column - 2];
+					if (COST_REMOVE + row[column - 1] < minimum)
+						minimum= COST_REMOVE + row[column - 1];
 
-				minimum= COST_SUBSTITUTE + diagonal;
-				if (swap < minimum)
-					minimum= swap;
+					if (COST_INSERT + previous[column] < minimum)
+						minimum= COST_INSERT + previous[column];
 
-				remove= metric[row][column - 1];
-				if (COST_REMOVE + remove < minimum)
-					minimum= COST_REMOVE + remove;
-
-				insert= metric[row - 1][column];
-				if (COST_INSERT + insert < minimum)
-					minimum= COST_INSERT + insert;
-				if (change < minimum)
-					minimum= change;
+					if (Character.toLowerCase(source) == Character.toLowerCase(target) && COST_CASE + diagonal < minimum)
+						minimum= COST_CASE + diagonal;
+				}
 
-				metric[row][column]= minimum;
+				row[column]= minimum;
+				if (minimum < rowMinimum)
+					rowMinimum= minimum;
 			}
+
+			// a path through the matrix visits at least one of two adjacent rows
+			if (rowMinimum >= bound && previousMinimum >= bound)
+				return bound;
+
+			final int[] free= secondPrevious;
+			secondPrevious= previous;
+			previous= row;
+			row= free;
+			previousMinimum= rowMinimum;
 		}
-		return metric[rows - 1][columns - 1];
+		return previous[columns - 1];
 	}
 }
@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.text.spelling.engine;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+
+/**
+ * Collects the best ranked proposals for a misspelled word.
+ * <p>
+ * Candidates are passed in as character arrays which are only turned into strings once a candidate
+ * ranks among the best proposals seen so far. At most a given number of proposals is kept, and the
+ * distance of a candidate is only computed as far as it could still beat the worst kept proposal.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class ProposalCollector {
+
+	private static final class Proposal {
+
+		private final String fText;
+		private final int fDistance;
+
+		public Proposal(String text, int distance) {
+			fText= text;
+			fDistance= distance;
+		}
+	}
+
+	/** Orders the proposals with the largest distance first */
+	private static final Comparator<Proposal> WORST_FIRST= new Comparator<Proposal>() {
+		public int compare(Proposal left, Proposal right) {
+			return right.fDistance - left.fDistance;
+		}
+	};
+
+	private final String fWord;
+	private final char[] fWordChars;
+	private final boolean fSentence;
+	private final int fMaximum;
+	private final int fThreshold;
+
+	private final IPhoneticDistanceAlgorithm fAlgorithm;
+
+	private final PriorityQueue<Proposal> fProposals;
+
+	private char[] fBuffer= new char[AbstractSpellDictionary.BUFFER_CAPACITY];
+
+	/**
+	 * Creates a new proposal collector.
+	 *
+	 * @param word the misspelled word
+	 * @param sentence <code>true</code> iff the proposals start a new sentence
+	 * @param maximum the maximal number of proposals to keep
+	 * @param threshold the exclusive upper bound of the distance of a proposal
+	 * @param algorithm the distance algorithm
+	 */
+	public ProposalCollector(String word, boolean sentence, int maximum, int threshold, IPhoneticDistanceAlgorithm algorithm) {
+		fWord= word;
+		fWordChars= word.toCharArray();
+		fSentence= sentence;
+		fMaximum= Math.max(1, maximum);
+		fThreshold= threshold;
+		fAlgorithm= algorithm;
+		fProposals= new PriorityQueue<Proposal>(fMaximum + 1, WORST_FIRST);
+	}
+
+	/**
+	 * Returns a buffer to decode a candidate into.
+	 *
+	 * @param length the minimal length of the buffer
+	 * @return the buffer
+	 */
+	public char[] getBuffer(int length) {
+		if (fBuffer.length < length)
+			fBuffer= new char[Math.max(length, 2 * fBuffer.length)];
+		return fBuffer;
+	}
+
+	/**
+	 * Offers a candidate.
+	 *
+	 * @param candidate the candidate
+	 */
+	public void accept(String candidate) {
+		int length= candidate.length();
+		char[] buffer= getBuffer(length);
+		candidate.getChars(0, length, buffer, 0);
+		accept(buffer, length);
+	}
+
+	/**
+	 * Offers a candidate.
+	 *
+	 * @param candidate the characters of the candidate, only valid during this call
+	 * @param length the length of the candidate
+	 */
+	public void accept(char[] candidate, int length) {
+		int bound= getBound();
+		int distance;
+		if (fAlgorithm instanceof DefaultPhoneticDistanceAlgorithm)
+			distance= ((DefaultPhoneticDistanceAlgorithm)fAlgorithm).getDistance(fWordChars, fWordChars.length, candidate, length, bound);
+		else
+			distance= fAlgorithm.getDistance(fWord, new String(candidate, 0, length));
+
+		if (distance >= bound)
+			return;
+
+		char first= length > 0 ? candidate[0] : 0;
+		if (fSentence && length > 0)
+			candidate[0]= Character.toUpperCase(first);
+		String text= new String(candidate, 0, length);
+		if (length > 0)
+			candidate[0]= first;
+
+		for (Iterator<Proposal> iterator= fProposals.iterator(); iterator.hasNext();) {
+			Proposal proposal= iterator.next();
+			if (proposal.fText.equals(text)) {
+				if (proposal.fDistance <= distance)
+					return;
+				iterator.remove();
+				break;
+			}
+		}
+
+		fProposals.add(new Proposal(text, distance));
+		if (fProposals.size() > fMaximum)
+			fProposals.poll();
+	}
+
+	public boolean isEmpty() {
+		return fProposals.isEmpty();
+	}
+
+	/**
+	 * Adds the collected proposals to the given set.
+	 *
+	 * @param result the set to add the proposals to
+	 * @param closestOnly <code>true</code> to only add the proposals with the smallest distance
+	 */
+	public void addProposals(Set<RankedWordProposal> result, boolean closestOnly) {
+		int minimum= Integer.MAX_VALUE;
+		if (closestOnly) {
+			for (Iterator<Proposal> iterator= fProposals.iterator(); iterator.hasNext();)
+				minimum= Math.min(minimum, iterator.next().fDistance);
+		}
+		for (Iterator<Proposal> iterator= fProposals.iterator(); iterator.hasNext();) {
+			Proposal proposal= iterator.next();
+			if (!closestOnly || proposal.fDistance == minimum)
+				result.add(new RankedWordProposal(proposal.fText, -proposal.fDistance));
+		}
+	}
+
+	/**
+	 * Returns the exclusive upper bound of the distance of a candidate to be kept.
+	 *
+	 * @return the bound
+	 */
+	private int getBound() {
+		if (fProposals.size() < fMaximum)
+			return fThreshold;
+		return Math.min(fThreshold, fProposals.peek().fDistance);
+	}
+}
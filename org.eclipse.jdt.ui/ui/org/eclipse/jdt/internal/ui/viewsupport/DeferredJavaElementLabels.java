@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.widgets.Display;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+import org.eclipse.jface.viewers.LabelProviderChangedEvent;
+import org.eclipse.jface.viewers.StyledString;
+
+import org.eclipse.ui.PlatformUI;
+
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IMember;
+import org.eclipse.jdt.core.IOpenable;
+import org.eclipse.jdt.core.JavaCore;
+
+import org.eclipse.jdt.ui.JavaElementImageDescriptor;
+import org.eclipse.jdt.ui.JavaElementLabels;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.JavaPluginImages;
+import org.eclipse.jdt.internal.ui.JavaUIMessages;
+
+/**
+ * Computes the labels and image descriptors of Java elements in the background for a
+ * {@link JavaUILabelProvider}.
+ * <p>
+ * Only the labels of binary members whose class file is not open yet are deferred, since computing
+ * them reads the class file. Until the labels of such an element are computed, a placeholder
+ * showing its name and a neutral icon is returned. The computation is done by a few system jobs, and the provider
+ * fires a label provider changed event for the computed elements in the UI thread. Computed labels
+ * are cached until a Java element delta touches the element or one of its parents.
+ * </p>
+ * <p>
+ * Image descriptors are computed in the background with
+ * {@link JavaElementImageProvider#getJavaImageDescriptor(IJavaElement, int)}. For members this
+ * only queries the Java model, which is thread safe, and creates new descriptors from the
+ * constant base descriptors of {@link JavaPluginImages}, so it does not touch any state of the
+ * image provider or the UI. Images are created and decorated by the label provider in the UI
+ * thread.
+ * </p>
+ * <p>
+ * If computing the labels of an element fails, the element gets plain labels showing its name.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class DeferredJavaElementLabels implements IElementChangedListener {
+
+	private static final int MAX_CACHED_LABELS= 5000;
+	private static final int MAX_WORKERS= Math.min(4, Runtime.getRuntime().availableProcessors());
+
+	/**
+	 * The labels of an element, computed with the given flags.
+	 */
+	static final class Labels {
+		private final String fText;
+		private final StyledString fStyledText;
+		private final ImageDescriptor fImageDescriptor;
+		private final long fTextFlags;
+		private final int fImageFlags;
+
+		private Labels(String text, StyledString styledText, ImageDescriptor imageDescriptor, long textFlags, int imageFlags) {
+			fText= text;
+			fStyledText= styledText;
+			fImageDescriptor= imageDescriptor;
+			fTextFlags= textFlags;
+			fImageFlags= imageFlags;
+		}
+
+		public String getText() {
+			return fText;
+		}
+
+		public StyledString getStyledText() {
+			return fStyledText;
+		}
+
+		public ImageDescriptor getImageDescriptor() {
+			return fImageDescriptor;
+		}
+	}
+
+	private static final class Request {
+		final IJavaElement fElement;
+		final long fTextFlags;
+		final int fImageFlags;
+
+		Request(IJavaElement element, long textFlags, int imageFlags) {
+			fElement= element;
+			fTextFlags= textFlags;
+			fImageFlags= imageFlags;
+		}
+	}
+
+	private final JavaUILabelProvider fLabelProvider;
+	private final JavaElementImageProvider fImageProvider;
+	private final Display fDisplay;
+
+	private final Map<IJavaElement, Labels> fCache= new LinkedHashMap<IJavaElement, Labels>(100, 0.75f, true) {
+		private static final long serialVersionUID= 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<IJavaElement, Labels> eldest) {
+			return size() > MAX_CACHED_LABELS;
+		}
+	};
+
+	private final LinkedList<Request> fRequests= new LinkedList<Request>();
+	private final Set<IJavaElement> fRequestedElements= new HashSet<IJavaElement>();
+	private final List<IJavaElement> fComputedElements= new ArrayList<IJavaElement>();
+	private int fRunningWorkers;
+	private boolean fNotificationPosted;
+	private boolean fDisposed;
+
+	/**
+	 * Creates the deferred labels for a label provider. Must be called in the UI thread.
+	 *
+	 * @param labelProvider the label provider to notify when labels have been computed
+	 */
+	public DeferredJavaElementLabels(JavaUILabelProvider labelProvider) {
+		fLabelProvider= labelProvider;
+		fImageProvider= new JavaElementImageProvider();
+		fDisplay= PlatformUI.getWorkbench().getDisplay();
+		JavaCore.addElementChangedListener(this, ElementChangedEvent.POST_CHANGE);
+	}
+
+	/**
+	 * Returns the labels of an element if computing them is deferred.
+	 *
+	 * @param element the element
+	 * @param textFlags the flags to compute the text with, see {@link JavaElementLabels}
+	 * @param imageFlags the flags to compute the image with, see {@link JavaElementImageProvider}
+	 * @return the computed labels, a placeholder if they are not computed yet, or
+	 *         <code>null</code> if the labels of the element are not deferred
+	 */
+	public Labels getLabels(IJavaElement element, long textFlags, int imageFlags) {
+		Labels stale;
+		synchronized (this) {
+			Labels labels= fCache.get(element);
+			if (labels != null && labels.fTextFlags == textFlags && labels.fImageFlags == imageFlags)
+				return labels;
+			stale= labels;
+		}
+		if (!isDeferred(element))
+			return null;
+
+		synchronized (this) {
+			if (!fDisposed && fRequestedElements.add(element)) {
+				fRequests.add(new Request(element, textFlags, imageFlags));
+				if (fRunningWorkers < MAX_WORKERS) {
+					fRunningWorkers++;
+					Job worker= new Job(JavaUIMessages.DeferredJavaElementLabels_job_name) {
+						@Override
+						protected IStatus run(IProgressMonitor monitor) {
+							computeLabels(monitor);
+							return Status.OK_STATUS;
+						}
+					};
+					worker.setSystem(true);
+					worker.setPriority(Job.DECORATE);
+					worker.schedule();
+				}
+			}
+		}
+		return stale != null ? stale : createPlainLabels(element, -1, imageFlags);
+	}
+
+	/**
+	 * Drops all computed labels, for example because the flags of the label provider changed.
+	 */
+	public synchronized void clear() {
+		fCache.clear();
+	}
+
+	/**
+	 * Stops computing labels and removes the Java element listener.
+	 */
+	public void dispose() {
+		JavaCore.removeElementChangedListener(this);
+		synchronized (this) {
+			fDisposed= true;
+			fRequests.clear();
+			fRequestedElements.clear();
+			fComputedElements.clear();
+			fCache.clear();
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.core.IElementChangedListener#elementChanged(org.eclipse.jdt.core.ElementChangedEvent)
+	 */
+	public void elementChanged(ElementChangedEvent event) {
+		synchronized (this) {
+			if (fCache.isEmpty())
+				return;
+		}
+		List<IJavaElement> changed= new ArrayList<IJavaElement>();
+		collectChangedElements(event.getDelta(), changed);
+		if (changed.isEmpty())
+			return;
+
+		synchronized (this) {
+			for (Iterator<IJavaElement> iter= fCache.keySet().iterator(); iter.hasNext();) {
+				if (isInside(iter.next(), changed))
+					iter.remove();
+			}
+		}
+	}
+
+	private static boolean isDeferred(IJavaElement element) {
+		if (!(element instanceof IMember))
+			return false;
+		IMember member= (IMember) element;
+		if (!member.isBinary())
+			return false;
+		IOpenable openable= member.getOpenable();
+		return openable != null && !openable.isOpen();
+	}
+
+	private void computeLabels(IProgressMonitor monitor) {
+		boolean running= true;
+		try {
+			while (true) {
+				Request request;
+				synchronized (this) {
+					// the worker must stop in the same block that sees the empty queue, otherwise
+					// a request added in between would not find a worker
+					if (fDisposed || fRequests.isEmpty() || monitor.isCanceled()) {
+						if (monitor.isCanceled()) {
+							// the other workers stop as well, the elements are requested again when they are shown
+							fRequests.clear();
+							fRequestedElements.clear();
+						}
+						fRunningWorkers--;
+						running= false;
+						return;
+					}
+					request= fRequests.removeFirst();
+				}
+
+				IJavaElement element= request.fElement;
+				Labels labels= null;
+				try {
+					labels= computeLabels(request);
+				} catch (RuntimeException e) {
+					JavaPlugin.log(e);
+					labels= createPlainLabels(element, request.fTextFlags, request.fImageFlags);
+				} finally {
+					synchronized (this) {
+						fRequestedElements.remove(element);
+						if (labels != null && !fDisposed) {
+							fCache.put(element, labels);
+							fComputedElements.add(element);
+							if (!fNotificationPosted) {
+								fNotificationPosted= true;
+								postNotification();
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			if (running) {
+				synchronized (this) {
+					fRunningWorkers--;
+				}
+			}
+		}
+	}
+
+	private Labels computeLabels(Request request) {
+		IJavaElement element= request.fElement;
+		String text= JavaElementLabels.getTextLabel(element, request.fTextFlags);
+		StyledString styledText= JavaElementLabels.getStyledTextLabel(element, request.fTextFlags | JavaElementLabels.COLORIZE);
+		// thread safe for members, see the class comment
+		ImageDescriptor imageDescriptor= fImageProvider.getJavaImageDescriptor(element, request.fImageFlags);
+		return new Labels(text, styledText, imageDescriptor, request.fTextFlags, request.fImageFlags);
+	}
+
+	private void postNotification() {
+		if (fDisplay.isDisposed())
+			return;
+		fDisplay.asyncExec(new Runnable() {
+			public void run() {
+				IJavaElement[] computed;
+				synchronized (DeferredJavaElementLabels.this) {
+					fNotificationPosted= false;
+					if (fDisposed || fComputedElements.isEmpty())
+						return;
+					computed= fComputedElements.toArray(new IJavaElement[fComputedElements.size()]);
+					fComputedElements.clear();
+				}
+				fLabelProvider.fireLabelProviderChanged(new LabelProviderChangedEvent(fLabelProvider, computed));
+			}
+		});
+	}
+
+	/**
+	 * Creates labels showing the name of an element and a neutral icon, which do not reveal any
+	 * property of the element that has not been computed.
+	 *
+	 * @param element the element
+	 * @param textFlags the text flags to record in the labels, or <code>-1</code> for a placeholder
+	 * @param imageFlags the image flags
+	 * @return the labels
+	 */
+	private static Labels createPlainLabels(IJavaElement element, long textFlags, int imageFlags) {
+		Point size= (imageFlags & JavaElementImageProvider.SMALL_ICONS) != 0 ? JavaElementImageProvider.SMALL_SIZE : JavaElementImageProvider.BIG_SIZE;
+		String name= element.getElementName();
+		return new Labels(name, new StyledString(name), new JavaElementImageDescriptor(JavaPluginImages.DESC_OBJS_GHOST, 0, size), textFlags, imageFlags);
+	}
+
+	private static void collectChangedElements(IJavaElementDelta delta, List<IJavaElement> result) {
+		IJavaElement element= delta.getElement();
+		if (element.getElementType() == IJavaElement.COMPILATION_UNIT)
+			return; // source elements are never deferred
+
+		if (delta.getKind() != IJavaElementDelta.CHANGED || (delta.getFlags() & ~IJavaElementDelta.F_CHILDREN) != 0) {
+			result.add(element);
+			return;
+		}
+		IJavaElementDelta[] children= delta.getAffectedChildren();
+		for (int i= 0; i < children.length; i++) {
+			collectChangedElements(children[i], result);
+		}
+	}
+
+	private static boolean isInside(IJavaElement element, List<IJavaElement> ancestors) {
+		for (IJavaElement current= element; current != null; current= current.getParent()) {
+			if (ancestors.contains(current))
+				return true;
+		}
+		return false;
+	}
+}
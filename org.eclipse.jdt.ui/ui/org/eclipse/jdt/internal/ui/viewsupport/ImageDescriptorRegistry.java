@@ -11,12 +11,16 @@
 package org.eclipse.jdt.internal.ui.viewsupport;
 
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.swt.graphics.Image;
 import org.eclipse.swt.widgets.Display;
 
 import org.eclipse.core.runtime.Assert;
+import org.eclipse.core.runtime.Platform;
 
 import org.eclipse.jface.resource.ImageDescriptor;
 
@@ -24,12 +28,58 @@ import org.eclipse.ui.PlatformUI;
 
 /**
  * A registry that maps <code>ImageDescriptors</code> to <code>Image</code>.
+ * <p>
+ * Images returned by {@link #get(ImageDescriptor)} live as long as the registry. Images returned
+ * by {@link #get(ImageDescriptor, Object, Object)} are reference counted by the items of an owner
+ * which show them, for example the elements of a viewer: an item holds one image, and the image it
+ * held before is released when it gets another one. When no item shows an image anymore, it is
+ * kept among the unused images, of which at most {@link #MAX_UNUSED_IMAGES} are kept before the
+ * least recently used are disposed. {@link #release(Object)} releases all items of an owner.
+ * </p>
+ * <p>
+ * Owned images can therefore be disposed while a client still holds on to them. They must only be
+ * handed out to internal viewers which dispose their label provider, and thereby release the
+ * owner, once they no longer show its images. Images which reach clients of API label providers
+ * like {@link org.eclipse.jdt.ui.JavaElementLabelProvider} must be taken from
+ * {@link #get(ImageDescriptor)}. Owners are held strongly until they are released.
+ * </p>
+ * <p>
+ * The registry must only be accessed in the UI thread.
+ * </p>
  */
 public class ImageDescriptorRegistry {
 
-	private HashMap<ImageDescriptor, Image> fRegistry= new HashMap<ImageDescriptor, Image>(10);
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/ImageDescriptorRegistry"));  //$NON-NLS-1$//$NON-NLS-2$
+
+	/**
+	 * Maximal number of images which are no longer used by any owner and are kept for reuse.
+	 *
+	 * @since 3.7.1
+	 */
+	public static final int MAX_UNUSED_IMAGES= 200;
+
+	private static final class Entry {
+		final ImageDescriptor fDescriptor;
+		final Image fImage;
+		int fItemCount;
+		boolean fPermanent;
+
+		Entry(ImageDescriptor descriptor, Image image) {
+			fDescriptor= descriptor;
+			fImage= image;
+		}
+	}
+
+	private HashMap<ImageDescriptor, Entry> fRegistry= new HashMap<ImageDescriptor, Entry>(10);
+	private Map<Image, ImageDescriptor> fDescriptors= new HashMap<Image, ImageDescriptor>(10);
+	private Map<Object, Map<Object, Entry>> fOwnedEntries= new IdentityHashMap<Object, Map<Object, Entry>>();
+	private LinkedHashMap<ImageDescriptor, Entry> fUnusedEntries= new LinkedHashMap<ImageDescriptor, Entry>();
 	private Display fDisplay;
 
+	private int fHitCount;
+	private int fMissCount;
+	private int fEvictionCount;
+
 	/**
 	 * Creates a new image descriptor registry for the given display. All images
 	 * managed by this registry will be disposed when the display gets disposed.
@@ -49,28 +99,199 @@ public class ImageDescriptorRegistry {
 	 *  if the image descriptor can't create the requested image.
 	 */
 	public Image get(ImageDescriptor descriptor) {
-		if (descriptor == null)
-			descriptor= ImageDescriptor.getMissingImageDescriptor();
+		Entry entry= getEntry(descriptor);
+		if (entry == null)
+			return null;
+		entry.fPermanent= true;
+		fUnusedEntries.remove(entry.fDescriptor);
+		return entry.fImage;
+	}
+
+	/**
+	 * Returns the image associated with the given image descriptor, to be shown for an item of the
+	 * given owner. The item holds the image until it gets another image from this method, or until
+	 * the owner is released with {@link #release(Object)}. An image no longer held by any item may
+	 * be disposed. The owner and its items are referenced until the owner is released, so it has
+	 * to be released in any case.
+	 *
+	 * @param descriptor the image descriptor for which the registry manages an image,
+	 *  or <code>null</code> for a missing image descriptor
+	 * @param owner the owner of the image, compared by identity
+	 * @param item the item of the owner which shows the image, compared by equality, or
+	 *  <code>null</code>
+	 * @return the image associated with the image descriptor or <code>null</code>
+	 *  if the image descriptor can't create the requested image.
+	 * @since 3.7.1
+	 */
+	public Image get(ImageDescriptor descriptor, Object owner, Object item) {
+		Entry entry= getEntry(descriptor);
+		if (entry == null)
+			return null;
+		Map<Object, Entry> owned= fOwnedEntries.get(owner);
+		if (owned == null) {
+			owned= new HashMap<Object, Entry>();
+			fOwnedEntries.put(owner, owned);
+		}
+		Entry previous= owned.put(item, entry);
+		if (previous != entry) {
+			entry.fItemCount++;
+			fUnusedEntries.remove(entry.fDescriptor);
+			if (previous != null) {
+				releaseItem(previous);
+				evictUnused();
+			}
+		}
+		return entry.fImage;
+	}
+
+	/**
+	 * Releases all images the items of the given owner have received from
+	 * {@link #get(ImageDescriptor, Object, Object)}. Images no longer held by any item may be
+	 * disposed.
+	 *
+	 * @param owner the owner of the images
+	 * @since 3.7.1
+	 */
+	public void release(Object owner) {
+		Map<Object, Entry> owned= fOwnedEntries.remove(owner);
+		if (owned == null)
+			return;
+		for (Iterator<Entry> iter= owned.values().iterator(); iter.hasNext();) {
+			releaseItem(iter.next());
+		}
+		evictUnused();
+	}
+
+	/**
+	 * Releases the image an item of the given owner has received from
+	 * {@link #get(ImageDescriptor, Object, Object)}, for example because the item now shows an
+	 * image which is not managed by this registry.
+	 *
+	 * @param owner the owner of the item
+	 * @param item the item
+	 * @since 3.7.1
+	 */
+	public void release(Object owner, Object item) {
+		Map<Object, Entry> owned= fOwnedEntries.get(owner);
+		if (owned == null)
+			return;
+		Entry entry= owned.remove(item);
+		if (entry != null) {
+			releaseItem(entry);
+			evictUnused();
+		}
+	}
+
+	private void releaseItem(Entry entry) {
+		entry.fItemCount--;
+		if (entry.fItemCount == 0 && !entry.fPermanent && fRegistry.get(entry.fDescriptor) == entry)
+			fUnusedEntries.put(entry.fDescriptor, entry);
+	}
+
+	private void evictUnused() {
+		while (fUnusedEntries.size() > MAX_UNUSED_IMAGES) {
+			Iterator<Entry> eldest= fUnusedEntries.values().iterator();
+			Entry entry= eldest.next();
+			eldest.remove();
+			fRegistry.remove(entry.fDescriptor);
+			fDescriptors.remove(entry.fImage);
+			entry.fImage.dispose();
+			fEvictionCount++;
+		}
+	}
+
+	/**
+	 * Returns a descriptor for an image, to be used as base image of a composite image
+	 * descriptor. For an image managed by this registry, this is the descriptor the image was
+	 * created from, so that composites of equal images are equal even if the base image has been
+	 * disposed and created again.
+	 *
+	 * @param image the image
+	 * @return the descriptor the image was created from, or an image descriptor wrapping the image
+	 * @since 3.7.1
+	 */
+	public ImageDescriptor getDescriptor(Image image) {
+		ImageDescriptor descriptor= fDescriptors.get(image);
+		return descriptor != null ? descriptor : new ImageImageDescriptor(image);
+	}
+
+	/**
+	 * @return the number of images currently allocated by this registry
+	 * @since 3.7.1
+	 */
+	public int getImageCount() {
+		return fRegistry.size();
+	}
+
+	/**
+	 * @return the number of allocated images which are not held by any item and may be disposed
+	 * @since 3.7.1
+	 */
+	public int getUnusedImageCount() {
+		return fUnusedEntries.size();
+	}
 
-		Image result= fRegistry.get(descriptor);
-		if (result != null)
-			return result;
+	/**
+	 * @return the number of requests answered with an existing image
+	 * @since 3.7.1
+	 */
+	public int getHitCount() {
+		return fHitCount;
+	}
 
-		result= descriptor.createImage();
-		if (result != null)
-			fRegistry.put(descriptor, result);
-		return result;
+	/**
+	 * @return the number of requests which created an image
+	 * @since 3.7.1
+	 */
+	public int getMissCount() {
+		return fMissCount;
+	}
+
+	/**
+	 * @return the number of unused images which have been disposed
+	 * @since 3.7.1
+	 */
+	public int getEvictionCount() {
+		return fEvictionCount;
 	}
 
 	/**
 	 * Disposes all images managed by this registry.
 	 */
 	public void dispose() {
-		for (Iterator<Image> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
-			Image image= iter.next();
+		if (DEBUG) {
+			int requests= fHitCount + fMissCount;
+			System.out.println("ImageDescriptorRegistry: " + fRegistry.size() + " images (" + fUnusedEntries.size() + " unused), " //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					+ requests + " requests, hit rate " + (requests == 0 ? 0 : fHitCount * 100 / requests) + "%, " + fEvictionCount + " evicted"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		for (Iterator<Entry> iter= fRegistry.values().iterator(); iter.hasNext(); ) {
+			Image image= iter.next().fImage;
 			image.dispose();
 		}
 		fRegistry.clear();
+		fDescriptors.clear();
+		fOwnedEntries.clear();
+		fUnusedEntries.clear();
+	}
+
+	private Entry getEntry(ImageDescriptor descriptor) {
+		if (descriptor == null)
+			descriptor= ImageDescriptor.getMissingImageDescriptor();
+
+		Entry entry= fRegistry.get(descriptor);
+		if (entry != null) {
+			fHitCount++;
+			return entry;
+		}
+
+		fMissCount++;
+		Image image= descriptor.createImage();
+		if (image == null)
+			return null;
+		entry= new Entry(descriptor, image);
+		fRegistry.put(descriptor, entry);
+		fDescriptors.put(image, descriptor);
+		return entry;
 	}
 
 	private void hookDisplay() {
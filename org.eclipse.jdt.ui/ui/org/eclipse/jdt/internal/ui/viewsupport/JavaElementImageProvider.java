@@ -80,6 +80,7 @@ public class JavaElementImageProvider {
 	}
 
 	private ImageDescriptorRegistry fRegistry;
+	private boolean fReleaseImagesOnDispose;
 
 	public JavaElementImageProvider() {
 		fRegistry= null; // lazy initialization
@@ -94,12 +95,41 @@ public class JavaElementImageProvider {
 	 * @return return the image or <code>null</code>
 	 */
 	public Image getImageLabel(Object element, int flags) {
-		return getImageLabel(computeDescriptor(element, flags));
+		return getImageLabel(element, computeDescriptor(element, flags));
 	}
 
-	private Image getImageLabel(ImageDescriptor descriptor){
-		if (descriptor == null)
+	/**
+	 * Sets whether the images of this provider are released when it is disposed. By default,
+	 * images live as long as the workbench. Released images which are no longer used by any
+	 * other owner may be disposed, so this must only be enabled by clients which dispose this
+	 * provider once their viewer no longer shows its images.
+	 *
+	 * @param release <code>true</code> if the images are only used until this provider is disposed
+	 * @see ImageDescriptorRegistry#get(ImageDescriptor, Object, Object)
+	 * @since 3.7.1
+	 */
+	public void setReleaseImagesOnDispose(boolean release) {
+		fReleaseImagesOnDispose= release;
+	}
+
+	/**
+	 * Returns the image of an element for a descriptor. If
+	 * {@link #setReleaseImagesOnDispose(boolean)} is enabled, the element holds the image until it
+	 * gets another image from this provider, or until this provider is disposed.
+	 *
+	 * @param element the element shown with the image
+	 * @param descriptor the image descriptor or <code>null</code>
+	 * @return the image or <code>null</code>
+	 * @since 3.7.1
+	 */
+	Image getImageLabel(Object element, ImageDescriptor descriptor) {
+		if (descriptor == null) {
+			if (fReleaseImagesOnDispose && fRegistry != null)
+				fRegistry.release(this, element);
 			return null;
+		}
+		if (fReleaseImagesOnDispose)
+			return getRegistry().get(descriptor, this, element);
 		return getRegistry().get(descriptor);
 	}
 
@@ -349,6 +379,8 @@ public class JavaElementImageProvider {
 	}
 
 	public void dispose() {
+		if (fRegistry != null)
+			fRegistry.release(this);
 	}
 
 	// ---- Methods to compute the adornments flags ---------------------------------
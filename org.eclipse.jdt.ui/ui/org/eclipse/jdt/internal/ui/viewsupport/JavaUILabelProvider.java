@@ -30,6 +30,8 @@ import org.eclipse.jface.viewers.StyledCellLabelProvider;
 import org.eclipse.jface.viewers.StyledString;
 import org.eclipse.jface.viewers.DelegatingStyledCellLabelProvider.IStyledLabelProvider;
 
+import org.eclipse.jdt.core.IJavaElement;
+
 import org.eclipse.jdt.ui.JavaElementLabels;
 
 public class JavaUILabelProvider implements ILabelProvider, IColorProvider, IStyledLabelProvider {
@@ -44,6 +46,9 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	private int fImageFlags;
 	private long fTextFlags;
 
+	private DeferredJavaElementLabels fDeferredLabels;
+	private boolean fReleaseImagesOnDispose;
+
 	/**
 	 * Creates a new label provider with default flags.
 	 */
@@ -73,6 +78,8 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 			fLabelDecorators= new ArrayList<ILabelDecorator>(2);
 		}
 		fLabelDecorators.add(decorator);
+		if (fReleaseImagesOnDispose && decorator instanceof TreeHierarchyLayoutProblemsDecorator)
+			((TreeHierarchyLayoutProblemsDecorator) decorator).setReleaseImagesOnDispose(true);
 	}
 
 	/**
@@ -81,6 +88,8 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	 */
 	public final void setTextFlags(long textFlags) {
 		fTextFlags= textFlags;
+		if (fDeferredLabels != null)
+			fDeferredLabels.clear();
 	}
 
 	/**
@@ -89,6 +98,54 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	 */
 	public final void setImageFlags(int imageFlags) {
 		fImageFlags= imageFlags;
+		if (fDeferredLabels != null)
+			fDeferredLabels.clear();
+	}
+
+	/**
+	 * Sets whether the labels of binary members whose class file is not open are computed in the
+	 * background. While the labels of such an element are computed, a placeholder showing the
+	 * name of the element is returned, and a label provider changed event is fired for the element
+	 * when its labels are ready. Must be called in the UI thread.
+	 *
+	 * @param inBackground <code>true</code> to compute the labels in the background
+	 * @since 3.7.1
+	 */
+	public final void setComputeInBackground(boolean inBackground) {
+		if (inBackground == (fDeferredLabels != null))
+			return;
+		if (inBackground) {
+			fDeferredLabels= new DeferredJavaElementLabels(this);
+		} else {
+			fDeferredLabels.dispose();
+			fDeferredLabels= null;
+		}
+	}
+
+	/**
+	 * Sets whether the images of this label provider are released when it is disposed. See
+	 * {@link JavaElementImageProvider#setReleaseImagesOnDispose(boolean)}. This also applies to the
+	 * problem overlays of {@link TreeHierarchyLayoutProblemsDecorator}s added to this provider.
+	 *
+	 * @param release <code>true</code> if the images are only used until this provider is disposed
+	 * @since 3.7.1
+	 */
+	public final void setReleaseImagesOnDispose(boolean release) {
+		fReleaseImagesOnDispose= release;
+		fImageLabelProvider.setReleaseImagesOnDispose(release);
+		if (fLabelDecorators != null) {
+			for (int i= 0; i < fLabelDecorators.size(); i++) {
+				ILabelDecorator decorator= fLabelDecorators.get(i);
+				if (decorator instanceof TreeHierarchyLayoutProblemsDecorator)
+					((TreeHierarchyLayoutProblemsDecorator) decorator).setReleaseImagesOnDispose(release);
+			}
+		}
+	}
+
+	private DeferredJavaElementLabels.Labels getDeferredLabels(Object element) {
+		if (fDeferredLabels == null || !(element instanceof IJavaElement))
+			return null;
+		return fDeferredLabels.getLabels((IJavaElement) element, evaluateTextFlags(element), evaluateImageFlags(element));
 	}
 
 	/**
@@ -141,6 +198,10 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	 * @see ILabelProvider#getImage
 	 */
 	public Image getImage(Object element) {
+		DeferredJavaElementLabels.Labels labels= getDeferredLabels(element);
+		if (labels != null)
+			return decorateImage(fImageLabelProvider.getImageLabel(element, labels.getImageDescriptor()), element);
+
 		Image result= fImageLabelProvider.getImageLabel(element, evaluateImageFlags(element));
 		if (result == null && (element instanceof IStorage)) {
 			result= fStorageLabelProvider.getImage(element);
@@ -167,6 +228,10 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	 * @see ILabelProvider#getText
 	 */
 	public String getText(Object element) {
+		DeferredJavaElementLabels.Labels labels= getDeferredLabels(element);
+		if (labels != null)
+			return decorateText(labels.getText(), element);
+
 		String result= JavaElementLabels.getTextLabel(element, evaluateTextFlags(element));
 		if (result.length() == 0 && (element instanceof IStorage)) {
 			result= fStorageLabelProvider.getText(element);
@@ -175,7 +240,14 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 	}
 
 	public StyledString getStyledText(Object element) {
-		StyledString string= JavaElementLabels.getStyledTextLabel(element, (evaluateTextFlags(element) | JavaElementLabels.COLORIZE));
+		DeferredJavaElementLabels.Labels labels= getDeferredLabels(element);
+		StyledString string;
+		if (labels != null) {
+			string= new StyledString();
+			string.append(labels.getStyledText()); // the cached string must not be modified
+		} else {
+			string= JavaElementLabels.getStyledTextLabel(element, (evaluateTextFlags(element) | JavaElementLabels.COLORIZE));
+		}
 		if (string.length() == 0 && (element instanceof IStorage)) {
 			string= new StyledString(fStorageLabelProvider.getText(element));
 		}
@@ -199,6 +271,10 @@ public class JavaUILabelProvider implements ILabelProvider, IColorProvider, ISty
 		}
 		fStorageLabelProvider.dispose();
 		fImageLabelProvider.dispose();
+		if (fDeferredLabels != null) {
+			fDeferredLabels.dispose();
+			fDeferredLabels= null;
+		}
 	}
 
 	/* (non-Javadoc)
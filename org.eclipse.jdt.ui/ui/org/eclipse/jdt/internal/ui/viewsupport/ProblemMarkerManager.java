@@ -110,16 +110,39 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 
 	private UIJob fNotifierJob;
 
+	private final ProblemSeverityIndex fSeverityIndex;
+
 	public ProblemMarkerManager() {
 		fListeners= new ListenerList();
 		fResourcesWithMarkerChanges= new HashSet<IResource>();
 		fResourcesWithAnnotationChanges= new HashSet<IResource>();
+		fSeverityIndex= new ProblemSeverityIndex();
+	}
+
+	/**
+	 * Returns the maximal severity of the problem markers on and below a resource, like
+	 * <code>resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth)</code>. While listeners
+	 * are registered, the severity is looked up in an index maintained from the resource deltas,
+	 * so that the markers below containers are not visited again for every query.
+	 *
+	 * @param resource an accessible resource
+	 * @param depth the depth, one of the <code>IResource.DEPTH_*</code> constants
+	 * @return the maximal severity or <code>-1</code> if there are no problem markers
+	 * @throws CoreException if the markers could not be accessed
+	 * @since 3.7.1
+	 */
+	public int findMaxProblemSeverity(IResource resource, int depth) throws CoreException {
+		if (fListeners.isEmpty()) // not listening to resource changes
+			return resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+		return fSeverityIndex.getMaxSeverity(resource, depth);
 	}
 
 	/*
 	 * @see IResourceChangeListener#resourceChanged
 	 */
 	public void resourceChanged(IResourceChangeEvent event) {
+		fSeverityIndex.update(event);
+
 		HashSet<IResource> changedElements= new HashSet<IResource>();
 
 		try {
@@ -194,6 +217,7 @@ public class ProblemMarkerManager implements IResourceChangeListener, IAnnotatio
 		if (fListeners.isEmpty()) {
 			JavaPlugin.getWorkspace().removeResourceChangeListener(this);
 			JavaPlugin.getDefault().getCompilationUnitDocumentProvider().removeGlobalAnnotationModelListener(this);
+			fSeverityIndex.clear();
 		}
 	}
 
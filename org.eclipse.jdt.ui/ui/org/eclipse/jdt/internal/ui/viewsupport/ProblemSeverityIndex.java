@@ -0,0 +1,235 @@
+/*******************************************************************************
+ * Copyright (c) 2011 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.jdt.internal.ui.viewsupport;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.runtime.CoreException;
+
+import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IMarkerDelta;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IWorkspaceRoot;
+
+import org.eclipse.jdt.internal.ui.JavaPlugin;
+
+/**
+ * Index of the maximal severity of the problem markers of the resources in the workspace, so that
+ * the severity of a container can be looked up without visiting the markers of all resources
+ * below it.
+ * <p>
+ * For each resource the index stores the severity of its own markers and, for each severity, how
+ * many resources with that severity are directly in the resource and how many are below it. The
+ * counts are updated bottom-up from the resource deltas whenever the own severity of a resource
+ * changes. A project is indexed with a single marker search when it is first queried, and dropped
+ * from the index when it is closed, opened, added or removed.
+ * </p>
+ * <p>
+ * The index is only up to date while it receives all resource change events, see
+ * {@link ProblemMarkerManager}.
+ * </p>
+ *
+ * @since 3.7.1
+ */
+final class ProblemSeverityIndex {
+
+	private static final int NO_SEVERITY= -1;
+	private static final int SEVERITIES= IMarker.SEVERITY_ERROR + 1;
+
+	private static final class Node {
+		int fOwn= NO_SEVERITY;
+		final int[] fShallow= new int[SEVERITIES]; // the node and its children
+		final int[] fDeep= new int[SEVERITIES]; // the node and all its descendants
+
+		boolean isEmpty() {
+			return fOwn == NO_SEVERITY && getMax(fDeep) == NO_SEVERITY;
+		}
+	}
+
+	private final Map<IProject, Map<IResource, Node>> fProjects= new HashMap<IProject, Map<IResource, Node>>();
+
+	/**
+	 * Returns the maximal severity of the problem markers on and below a resource. The result is
+	 * the same as of <code>resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth)</code>.
+	 *
+	 * @param resource an accessible resource
+	 * @param depth the depth, one of the <code>IResource.DEPTH_*</code> constants
+	 * @return the maximal severity or <code>-1</code> if there are no problem markers
+	 * @throws CoreException if the markers of the project could not be indexed
+	 */
+	public synchronized int getMaxSeverity(IResource resource, int depth) throws CoreException {
+		if (resource.getType() == IResource.ROOT) {
+			// the root itself is not indexed
+			if (depth != IResource.DEPTH_INFINITE)
+				return resource.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+			int max= resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+			IProject[] projects= ((IWorkspaceRoot) resource).getProjects();
+			for (int i= 0; i < projects.length && max != IMarker.SEVERITY_ERROR; i++) {
+				if (projects[i].isAccessible())
+					max= Math.max(max, getMaxSeverity(projects[i], IResource.DEPTH_INFINITE));
+			}
+			return max;
+		}
+
+		Node node= getNodes(resource.getProject()).get(resource);
+		if (node == null)
+			return NO_SEVERITY;
+		switch (depth) {
+			case IResource.DEPTH_ZERO:
+				return node.fOwn;
+			case IResource.DEPTH_ONE:
+				return getMax(node.fShallow);
+			default:
+				return getMax(node.fDeep);
+		}
+	}
+
+	/**
+	 * Updates the index from a resource change event.
+	 *
+	 * @param event the resource change event
+	 */
+	public synchronized void update(IResourceChangeEvent event) {
+		if (fProjects.isEmpty())
+			return;
+		if (event.getType() == IResourceChangeEvent.PRE_CLOSE || event.getType() == IResourceChangeEvent.PRE_DELETE) {
+			if (event.getResource() instanceof IProject)
+				fProjects.remove(event.getResource());
+			return;
+		}
+		IResourceDelta delta= event.getDelta();
+		if (delta == null)
+			return;
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta child) throws CoreException {
+					return updateNode(child);
+				}
+			});
+		} catch (CoreException e) {
+			JavaPlugin.log(e);
+			fProjects.clear();
+		}
+	}
+
+	/**
+	 * Drops the index. Must be called when resource change events are no longer received.
+	 */
+	public synchronized void clear() {
+		fProjects.clear();
+	}
+
+	private boolean updateNode(IResourceDelta delta) throws CoreException {
+		IResource resource= delta.getResource();
+		int type= resource.getType();
+		if (type == IResource.ROOT)
+			return true;
+
+		Map<IResource, Node> nodes= fProjects.get(resource.getProject());
+		if (nodes == null)
+			return false; // not indexed yet
+
+		int kind= delta.getKind();
+		if (type == IResource.PROJECT && (kind != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.OPEN) != 0)) {
+			fProjects.remove(resource);
+			return false;
+		}
+
+		if (kind == IResourceDelta.REMOVED) {
+			setOwnSeverity(nodes, resource, NO_SEVERITY);
+		} else if (kind == IResourceDelta.ADDED || hasProblemMarkerDelta(delta)) {
+			setOwnSeverity(nodes, resource, resource.exists() ? resource.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO) : NO_SEVERITY);
+		}
+		return true;
+	}
+
+	private static boolean hasProblemMarkerDelta(IResourceDelta delta) {
+		if ((delta.getFlags() & IResourceDelta.MARKERS) == 0)
+			return false;
+		IMarkerDelta[] markerDeltas= delta.getMarkerDeltas();
+		for (int i= 0; i < markerDeltas.length; i++) {
+			if (markerDeltas[i].isSubtypeOf(IMarker.PROBLEM))
+				return true;
+		}
+		return false;
+	}
+
+	private Map<IResource, Node> getNodes(IProject project) throws CoreException {
+		Map<IResource, Node> nodes= fProjects.get(project);
+		if (nodes == null) {
+			nodes= new HashMap<IResource, Node>();
+			Map<IResource, Integer> ownSeverities= new HashMap<IResource, Integer>();
+			IMarker[] markers= project.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+			for (int i= 0; i < markers.length; i++) {
+				int severity= markers[i].getAttribute(IMarker.SEVERITY, NO_SEVERITY);
+				if (severity < 0 || severity >= SEVERITIES)
+					continue;
+				Integer own= ownSeverities.get(markers[i].getResource());
+				if (own == null || own.intValue() < severity)
+					ownSeverities.put(markers[i].getResource(), new Integer(severity));
+			}
+			for (Map.Entry<IResource, Integer> entry : ownSeverities.entrySet()) {
+				setOwnSeverity(nodes, entry.getKey(), entry.getValue().intValue());
+			}
+			fProjects.put(project, nodes);
+		}
+		return nodes;
+	}
+
+	private static void setOwnSeverity(Map<IResource, Node> nodes, IResource resource, int severity) {
+		Node node= nodes.get(resource);
+		int old= node != null ? node.fOwn : NO_SEVERITY;
+		if (old == severity)
+			return;
+		if (node == null) {
+			node= new Node();
+			nodes.put(resource, node);
+		}
+		node.fOwn= severity;
+
+		IResource current= resource;
+		int level= 0;
+		while (current != null) {
+			Node ancestor= current == resource ? node : nodes.get(current);
+			if (ancestor == null) {
+				ancestor= new Node();
+				nodes.put(current, ancestor);
+			}
+			if (old != NO_SEVERITY) {
+				ancestor.fDeep[old]--;
+				if (level < 2)
+					ancestor.fShallow[old]--;
+			}
+			if (severity != NO_SEVERITY) {
+				ancestor.fDeep[severity]++;
+				if (level < 2)
+					ancestor.fShallow[severity]++;
+			}
+			if (ancestor.isEmpty())
+				nodes.remove(current);
+			current= current.getType() == IResource.PROJECT ? null : current.getParent();
+			level++;
+		}
+	}
+
+	private static int getMax(int[] counts) {
+		for (int severity= SEVERITIES - 1; severity >= 0; severity--) {
+			if (counts[severity] > 0)
+				return severity;
+		}
+		return NO_SEVERITY;
+	}
+}
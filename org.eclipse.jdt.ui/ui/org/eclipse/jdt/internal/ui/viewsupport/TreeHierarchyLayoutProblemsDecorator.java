@@ -10,11 +10,18 @@
  *******************************************************************************/
 package org.eclipse.jdt.internal.ui.viewsupport;
 
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+
+import org.eclipse.jface.resource.ImageDescriptor;
+
 import org.eclipse.jdt.core.IPackageFragment;
 
 import org.eclipse.jdt.ui.JavaElementImageDescriptor;
 import org.eclipse.jdt.ui.ProblemsLabelDecorator;
 
+import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.browsing.LogicalPackage;
 
 /**
@@ -30,6 +37,7 @@ import org.eclipse.jdt.internal.ui.browsing.LogicalPackage;
 public class TreeHierarchyLayoutProblemsDecorator extends ProblemsLabelDecorator {
 
 	private boolean fIsFlatLayout;
+	private boolean fReleaseImagesOnDispose;
 
 	public TreeHierarchyLayoutProblemsDecorator() {
 		this(false);
@@ -74,4 +82,47 @@ public class TreeHierarchyLayoutProblemsDecorator extends ProblemsLabelDecorator
 		fIsFlatLayout= state;
 	}
 
+	/**
+	 * Sets whether the decorated images are released when this decorator is disposed. An element
+	 * holds its decorated image until it gets another one, so the error ticks of elements whose
+	 * problems changed can be disposed. This must only be enabled by clients which dispose this
+	 * decorator once their viewer no longer shows its images.
+	 *
+	 * @param release <code>true</code> if the images are only used until this decorator is disposed
+	 * @see ImageDescriptorRegistry#get(ImageDescriptor, Object, Object)
+	 * @since 3.7.1
+	 */
+	public void setReleaseImagesOnDispose(boolean release) {
+		fReleaseImagesOnDispose= release;
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.ui.ProblemsLabelDecorator#decorateImage(org.eclipse.swt.graphics.Image, java.lang.Object)
+	 */
+	@Override
+	public Image decorateImage(Image image, Object obj) {
+		if (!fReleaseImagesOnDispose)
+			return super.decorateImage(image, obj);
+
+		ImageDescriptorRegistry registry= JavaPlugin.getImageDescriptorRegistry();
+		int adornmentFlags= image != null ? computeAdornmentFlags(obj) : 0;
+		if (adornmentFlags == 0) {
+			registry.release(this, obj);
+			return image;
+		}
+		Rectangle bounds= image.getBounds();
+		ImageDescriptor baseImage= registry.getDescriptor(image);
+		return registry.get(new JavaElementImageDescriptor(baseImage, adornmentFlags, new Point(bounds.width, bounds.height)), this, obj);
+	}
+
+	/* (non-Javadoc)
+	 * @see org.eclipse.jdt.ui.ProblemsLabelDecorator#dispose()
+	 */
+	@Override
+	public void dispose() {
+		super.dispose();
+		if (fReleaseImagesOnDispose)
+			JavaPlugin.getImageDescriptorRegistry().release(this);
+	}
+
 }
@@ -54,7 +54,6 @@ import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.JavaPluginImages;
 import org.eclipse.jdt.internal.ui.viewsupport.IProblemChangedListener;
 import org.eclipse.jdt.internal.ui.viewsupport.ImageDescriptorRegistry;
-import org.eclipse.jdt.internal.ui.viewsupport.ImageImageDescriptor;
 
 /**
  * LabelDecorator that decorates an element's image with error and warning overlays that
@@ -162,7 +161,7 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 
 		int adornmentFlags= computeAdornmentFlags(obj);
 		if (adornmentFlags != 0) {
-			ImageDescriptor baseImage= new ImageImageDescriptor(image);
+			ImageDescriptor baseImage= getRegistry().getDescriptor(image);
 			Rectangle bounds= image.getBounds();
 			return getRegistry().get(new JavaElementImageDescriptor(baseImage, adornmentFlags, new Point(bounds.width, bounds.height)));
 		}
@@ -250,7 +249,7 @@ public class ProblemsLabelDecorator implements ILabelDecorator, ILightweightLabe
 					return ERRORTICK_BUILDPATH_ERROR;
 				}
 			}
-			severity= res.findMaxProblemSeverity(IMarker.PROBLEM, true, depth);
+			severity= JavaPlugin.getDefault().getProblemMarkerManager().findMaxProblemSeverity(res, depth);
 		} else {
 			IMarker[] markers= res.findMarkers(IMarker.PROBLEM, true, depth);
 			if (markers != null && markers.length > 0) {
@@ -131,6 +131,9 @@ public class JarPackageData {
 	// Add directory entries to the jar
 	private boolean fIncludeDirectoryEntries;
 
+	// Reuse the unchanged entries of the previously exported jar
+	private boolean fIncrementalExport;
+
 	// Projects for which to store refactoring information
 	private IProject[] fRefactoringProjects= {};
 
@@ -1047,6 +1050,37 @@ public class JarPackageData {
 		fIncludeDirectoryEntries = includeDirectoryEntries;
 	}
 
+	/**
+	 * Tells whether the export reuses the unchanged entries of the previously exported JAR.
+	 * <p>
+	 * An incremental export keeps an index of the exported entries and copies the
+	 * entries whose source did not change since the last export from the previous JAR
+	 * instead of compressing them again. The index is kept next to the description
+	 * file, or in the state location of the plug-in if no description location is set.
+	 * </p>
+	 *
+	 * @return <code>true</code> if the export is incremental
+	 *
+	 * @see #getDescriptionLocation()
+	 * @since 3.8
+	 */
+	public boolean isIncrementalExport() {
+		return fIncrementalExport;
+	}
+
+	/**
+	 * Sets the option to reuse the unchanged entries of the previously exported JAR.
+	 *
+	 * @param incremental <code>true</code> to export incrementally, <code>false</code>
+	 *            to always write all entries
+	 *
+	 * @see #isIncrementalExport()
+	 * @since 3.8
+	 */
+	public void setIncrementalExport(boolean incremental) {
+		fIncrementalExport= incremental;
+	}
+
 	/**
 	 * Returns the projects for which refactoring information should be stored.
 	 * <p>
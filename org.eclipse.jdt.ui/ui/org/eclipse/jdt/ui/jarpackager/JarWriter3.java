@@ -14,6 +14,7 @@ package org.eclipse.jdt.ui.jarpackager;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -29,7 +30,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.jar.JarEntry;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 
@@ -45,6 +45,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Platform;
 
 import org.eclipse.core.resources.IContainer;
 import org.eclipse.core.resources.IFile;
@@ -59,6 +60,8 @@ import org.eclipse.ltk.core.refactoring.RefactoringDescriptorProxy;
 import org.eclipse.jdt.internal.corext.util.Messages;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
+import org.eclipse.jdt.internal.ui.jarpackager.JarExportIndex;
+import org.eclipse.jdt.internal.ui.jarpackager.JarOutputPipeline;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerMessages;
 import org.eclipse.jdt.internal.ui.jarpackager.JarPackagerUtil;
 import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
@@ -75,9 +78,13 @@ import org.eclipse.jdt.internal.ui.viewsupport.BasicElementLabels;
  */
 public class JarWriter3 {
 
+	private static final boolean DEBUG= "true".equalsIgnoreCase(Platform.getDebugOption("org.eclipse.jdt.ui/debug/JarExport"));  //$NON-NLS-1$//$NON-NLS-2$
+
 	private Set<String> fDirectories= new HashSet<String>();
 
-	private JarOutputStream fJarOutputStream;
+	private JarOutputPipeline fJarOutputStream;
+
+	private JarExportIndex fExportIndex;
 
 	private JarPackageData fJarPackage;
 
@@ -100,12 +107,18 @@ public class JarWriter3 {
 		if (!canCreateJar(parent))
 			throw new OperationCanceledException();
 
+		fExportIndex= JarExportIndex.create(fJarPackage);
+		if (fExportIndex != null)
+			fExportIndex.open();
+
+		boolean success= false;
 		try {
-			if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported()) {
-				Manifest manifest= fJarPackage.getManifestProvider().create(fJarPackage);
-				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())), manifest);
-			} else
-				fJarOutputStream= new JarOutputStream(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())));
+			Manifest manifest= null;
+			if (fJarPackage.usesManifest() && fJarPackage.areGeneratedFilesExported())
+				manifest= fJarPackage.getManifestProvider().create(fJarPackage);
+			// entries are deflated in parallel while the next resources are read
+			int workerCount= fJarPackage.isCompressed() ? Runtime.getRuntime().availableProcessors() : 0;
+			fJarOutputStream= new JarOutputPipeline(new BufferedOutputStream(new FileOutputStream(fJarPackage.getAbsoluteJarLocation().toFile())), manifest, workerCount);
 			String comment= jarPackage.getComment();
 			if (comment != null)
 				fJarOutputStream.setComment(comment);
@@ -115,8 +128,25 @@ public class JarWriter3 {
 				addDirectories(metaPath);
 				addHistory(fJarPackage, new Path(JarPackagerUtil.getRefactoringsEntry()), new NullProgressMonitor());
 			}
+			success= true;
 		} catch (IOException exception) {
 			throw JarPackagerUtil.createCoreException(exception.getLocalizedMessage(), exception);
+		} finally {
+			if (!success) {
+				if (fJarOutputStream != null) {
+					try {
+						fJarOutputStream.close();
+					} catch (IOException e) {
+						// Do nothing
+					}
+					fJarOutputStream= null;
+				}
+				// moves the previous JAR back in place
+				if (fExportIndex != null) {
+					fExportIndex.close(false);
+					fExportIndex= null;
+				}
+			}
 		}
 	}
 	
@@ -159,7 +189,7 @@ public class JarWriter3 {
 		}
 
 		for (int i= directories.size() - 1; i >= 0; --i) {
-			fJarOutputStream.putNextEntry(directories.get(i));
+			fJarOutputStream.putEntry(directories.get(i), new ByteArrayInputStream(new byte[0]));
 		}
 	}
 
@@ -207,7 +237,7 @@ public class JarWriter3 {
 		}
 
 		for (int i= directories.size() - 1; i >= 0; --i) {
-			fJarOutputStream.putNextEntry(directories.get(i));
+			fJarOutputStream.putEntry(directories.get(i), new ByteArrayInputStream(new byte[0]));
 		}
 	}
 
@@ -225,6 +255,20 @@ public class JarWriter3 {
 		JarEntry newEntry= new JarEntry(path.toString().replace(File.separatorChar, '/'));
 		byte[] readBuffer= new byte[4096];
 
+		long lastModified= System.currentTimeMillis();
+		String stamp= null;
+		URI locationURI= resource.getLocationURI();
+		if (locationURI != null) {
+			IFileInfo info= EFS.getStore(locationURI).fetchInfo();
+			if (info.exists()) {
+				lastModified= info.getLastModified();
+				stamp= lastModified + "/" + info.getLength(); //$NON-NLS-1$
+			}
+		}
+
+		if (addUnchangedEntry(newEntry.getName(), stamp))
+			return;
+
 		if (fJarPackage.isCompressed())
 			newEntry.setMethod(ZipEntry.DEFLATED);
 			// Entry is filled automatically.
@@ -233,14 +277,6 @@ public class JarWriter3 {
 			JarPackagerUtil.calculateCrcAndSize(newEntry, resource.getContents(false), readBuffer);
 		}
 
-		long lastModified= System.currentTimeMillis();
-		URI locationURI= resource.getLocationURI();
-		if (locationURI != null) {
-			IFileInfo info= EFS.getStore(locationURI).fetchInfo();
-			if (info.exists())
-				lastModified= info.getLastModified();
-		}
-
 		// Set modification time
 		newEntry.setTime(lastModified);
 
@@ -261,26 +297,65 @@ public class JarWriter3 {
 	 * @since 3.4
 	 */
 	protected void addEntry(JarEntry entry, InputStream content) throws IOException {
-		byte[] readBuffer= new byte[4096];
 		try {
-			fJarOutputStream.putNextEntry(entry);
-			int count;
-			while ((count= content.read(readBuffer, 0, readBuffer.length)) != -1)
-				fJarOutputStream.write(readBuffer, 0, count);
+			fJarOutputStream.putEntry(entry, content);
 		} finally  {
 			if (content != null)
 				content.close();
-
-			/*
-			 * Commented out because some JREs throw an NPE if a stream
-			 * is closed twice. This works because
-			 * a) putNextEntry closes the previous entry
-			 * b) closing the stream closes the last entry
-			 */
-			// fJarOutputStream.closeEntry();
 		}
 	}
 
+	/**
+	 * Writes an entry whose content is already compressed with the method of the entry, e.g. an
+	 * entry copied from another archive. The content is written as is, without inflating and
+	 * deflating it again.
+	 *
+	 * @param entry the entry to write, its method, CRC and uncompressed size must be set
+	 * @param compressedContent the compressed content
+	 *
+	 * @throws IOException If an I/O error occurred
+	 *
+	 * @since 3.8
+	 */
+	protected void addRawEntry(JarEntry entry, byte[] compressedContent) throws IOException {
+		fJarOutputStream.putRawEntry(entry, compressedContent);
+	}
+
+	/**
+	 * Copies the entry with the given path from the previously exported JAR if the export is
+	 * incremental and the source of the entry did not change since that export.
+	 *
+	 * @param path the path of the entry inside the archive
+	 * @param stamp a stamp of the source of the entry, e.g. its modification time and size, or
+	 *            <code>null</code> if the source has no stamp
+	 * @return <code>true</code> if the entry has been copied, <code>false</code> if the caller
+	 *         has to write it
+	 *
+	 * @throws IOException If an I/O error occurred
+	 *
+	 * @see JarPackageData#isIncrementalExport()
+	 * @since 3.8
+	 */
+	protected boolean addUnchangedEntry(String path, String stamp) throws IOException {
+		if (fExportIndex == null)
+			return false;
+		ZipEntry previousEntry= fExportIndex.getUnchangedEntry(path, stamp);
+		if (previousEntry == null)
+			return false;
+		byte[] content= fExportIndex.readUnchangedContent(previousEntry);
+		if (content == null)
+			return false;
+
+		JarEntry newEntry= new JarEntry(path);
+		newEntry.setMethod(previousEntry.getMethod());
+		newEntry.setCrc(previousEntry.getCrc());
+		newEntry.setSize(previousEntry.getSize());
+		newEntry.setCompressedSize(content.length);
+		newEntry.setTime(previousEntry.getTime());
+		addRawEntry(newEntry, content);
+		return true;
+	}
+
 	/**
 	 * Creates a new JAR file entry containing the refactoring history.
 	 *
@@ -382,13 +457,26 @@ public class JarWriter3 {
 	 *             used to return information in the status object.
 	 */
 	public void close() throws CoreException {
-		if (fJarOutputStream != null)
-			try {
+		boolean success= false;
+		try {
+			if (fJarOutputStream != null) {
 				fJarOutputStream.close();
-				registerInWorkspaceIfNeeded();
-			} catch (IOException ex) {
-				throw JarPackagerUtil.createCoreException(ex.getLocalizedMessage(), ex);
+				if (DEBUG) {
+					String reused= fExportIndex != null ? ", " + fExportIndex.getReusedEntries() + " reused from previous export" : ""; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+					System.out.println("JarExport > " + fJarPackage.getAbsoluteJarLocation().lastSegment() + ": " + fJarOutputStream.getThroughputReport() + reused); //$NON-NLS-1$ //$NON-NLS-2$
+				}
+				success= true;
+			}
+		} catch (IOException ex) {
+			throw JarPackagerUtil.createCoreException(ex.getLocalizedMessage(), ex);
+		} finally {
+			if (fExportIndex != null) {
+				fExportIndex.close(success);
+				fExportIndex= null;
 			}
+		}
+		if (success)
+			registerInWorkspaceIfNeeded();
 	}
 
 	private void registerInWorkspaceIfNeeded() {
@@ -471,10 +559,7 @@ public class JarWriter3 {
 		entry.setTime(System.currentTimeMillis());
 		final InputStream stream= new BufferedInputStream(new FileInputStream(file));
 		try {
-			fJarOutputStream.putNextEntry(entry);
-			int count;
-			while ((count= stream.read(buffer, 0, buffer.length)) != -1)
-				fJarOutputStream.write(buffer, 0, count);
+			fJarOutputStream.putEntry(entry, stream);
 		} finally {
 			try {
 				stream.close();
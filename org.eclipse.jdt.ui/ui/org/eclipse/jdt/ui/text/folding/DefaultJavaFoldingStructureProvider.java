@@ -56,6 +56,7 @@ import org.eclipse.jdt.core.IParent;
 import org.eclipse.jdt.core.ISourceRange;
 import org.eclipse.jdt.core.ISourceReference;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeRoot;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.eclipse.jdt.core.SourceRange;
@@ -64,9 +65,13 @@ import org.eclipse.jdt.core.compiler.IProblem;
 import org.eclipse.jdt.core.compiler.IScanner;
 import org.eclipse.jdt.core.compiler.ITerminalSymbols;
 import org.eclipse.jdt.core.compiler.InvalidInputException;
+import org.eclipse.jdt.core.dom.Comment;
 import org.eclipse.jdt.core.dom.CompilationUnit;
+import org.eclipse.jdt.core.dom.ImportDeclaration;
+import org.eclipse.jdt.core.dom.PackageDeclaration;
 
 import org.eclipse.jdt.ui.PreferenceConstants;
+import org.eclipse.jdt.ui.SharedASTProvider;
 
 import org.eclipse.jdt.internal.ui.JavaPlugin;
 import org.eclipse.jdt.internal.ui.actions.SelectionConverter;
@@ -102,6 +107,23 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		private LinkedHashMap<JavaProjectionAnnotation, Position> fMap= new LinkedHashMap<JavaProjectionAnnotation, Position>();
 		private IScanner fScanner;
 
+		/**
+		 * The AST the comments are taken from, or <code>null</code> to scan the source for comments.
+		 * @since 3.7.1
+		 */
+		private CompilationUnit fAST;
+		private int[] fCommentStarts;
+		private int[] fCommentEnds;
+		private boolean[] fIsLineComment;
+
+		/**
+		 * The nested members whose folding regions are updated, or <code>null</code> to update all
+		 * folding regions.
+		 * @since 3.7.1
+		 */
+		private Set<IJavaElement> fChangedMembers;
+		private Set<IJavaElement> fChangedMemberParents;
+
 		private FoldingStructureComputationContext(IDocument document, ProjectionAnnotationModel model, boolean allowCollapsing, IScanner scanner) {
 			Assert.isNotNull(document);
 			Assert.isNotNull(model);
@@ -111,6 +133,124 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			fScanner= scanner;
 		}
 
+		/**
+		 * Takes the comments from the given AST instead of scanning the source.
+		 *
+		 * @param ast the AST of the input, consistent with its Java elements
+		 * @since 3.7.1
+		 */
+		private void setAST(CompilationUnit ast) {
+			List<?> comments= ast.getCommentList();
+			if (comments == null)
+				return;
+			int size= comments.size();
+			fCommentStarts= new int[size];
+			fCommentEnds= new int[size];
+			fIsLineComment= new boolean[size];
+			for (int i= 0; i < size; i++) {
+				Comment comment= (Comment) comments.get(i);
+				fCommentStarts[i]= comment.getStartPosition();
+				fCommentEnds[i]= comment.getStartPosition() + comment.getLength();
+				fIsLineComment[i]= comment.isLineComment();
+			}
+			fAST= ast;
+		}
+
+		private boolean hasAST() {
+			return fAST != null;
+		}
+
+		/**
+		 * Returns the index of the comment starting at the given offset.
+		 *
+		 * @param offset the offset
+		 * @return the index of the comment or <code>-1</code> if no comment starts at the offset
+		 * @since 3.7.1
+		 */
+		private int getCommentIndex(int offset) {
+			int index= Arrays.binarySearch(fCommentStarts, offset);
+			return index >= 0 ? index : -1;
+		}
+
+		/**
+		 * Returns the offset of the first character which is not white space in the document.
+		 *
+		 * @param offset the offset to start at
+		 * @param end the end offset to stop at
+		 * @return the offset of the first non white space character, or <code>end</code>
+		 * @since 3.7.1
+		 */
+		private int skipWhitespace(int offset, int end) {
+			try {
+				while (offset < end && Character.isWhitespace(fDocument.getChar(offset)))
+					offset++;
+			} catch (BadLocationException e) {
+				// concurrent modification, stop at the offset
+			}
+			return offset;
+		}
+
+		/**
+		 * Restricts the update to the folding regions of the given nested members, of their
+		 * descendants and of the elements which are not nested members.
+		 *
+		 * @param changedMembers the nested members whose source changed
+		 * @since 3.7.1
+		 */
+		private void setChangedMembers(Set<IJavaElement> changedMembers) {
+			fChangedMembers= new HashSet<IJavaElement>();
+			fChangedMemberParents= new HashSet<IJavaElement>();
+			for (Iterator<IJavaElement> iter= changedMembers.iterator(); iter.hasNext();)
+				addChangedMember(iter.next());
+		}
+
+		/**
+		 * Adds a nested member whose folding regions are updated.
+		 *
+		 * @param member the nested member
+		 * @since 3.7.1
+		 */
+		private void addChangedMember(IJavaElement member) {
+			fChangedMembers.add(member);
+			IJavaElement parent= member.getParent();
+			while (parent != null && fChangedMemberParents.add(parent))
+				parent= parent.getParent();
+		}
+
+		private boolean isIncremental() {
+			return fChangedMembers != null;
+		}
+
+		/**
+		 * Returns whether the folding regions of the given element are updated.
+		 *
+		 * @param element the element
+		 * @return <code>true</code> if the regions of the element are computed
+		 * @since 3.7.1
+		 */
+		private boolean isUpdated(IJavaElement element) {
+			return fChangedMembers == null || !isNestedMember(element) || isInChangedMember(element);
+		}
+
+		/**
+		 * Returns whether folding regions of descendants of the given element are updated.
+		 *
+		 * @param element the element
+		 * @return <code>true</code> if the children of the element must be visited
+		 * @since 3.7.1
+		 */
+		private boolean hasUpdatedDescendants(IJavaElement element) {
+			return fChangedMembers == null || fChangedMemberParents.contains(element) || isInChangedMember(element);
+		}
+
+		private boolean isInChangedMember(IJavaElement element) {
+			for (IJavaElement current= element; current != null; current= current.getParent()) {
+				if (fChangedMembers.contains(current))
+					return true;
+			}
+			return false;
+		}
+
 		private void setFirstType(IType type) {
 			if (hasFirstType())
 				throw new IllegalStateException();
@@ -353,12 +493,24 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			IJavaElementDelta delta= findElement(fInput, e.getDelta());
 			if (delta != null && (delta.getFlags() & (IJavaElementDelta.F_CONTENT | IJavaElementDelta.F_CHILDREN)) != 0) {
 
-				if (shouldIgnoreDelta(e.getDelta().getCompilationUnitAST(), delta))
+				CompilationUnit ast= e.getDelta().getCompilationUnitAST();
+				if (shouldIgnoreDelta(ast, delta))
 					return;
 
 				fUpdatingCount++;
 				try {
-					update(createContext(false));
+					FoldingStructureComputationContext ctx= createContext(false, ast);
+					if (ctx != null && ctx.hasAST()) {
+						/*
+						 * Deltas with an AST come from a reconcile and are fine-grained. Edits of
+						 * bodies and of leading comments are only reported as content change of the
+						 * compilation unit, without a changed member: update everything in that case.
+						 */
+						Set<IJavaElement> changedMembers= new HashSet<IJavaElement>();
+						if (collectChangedMembers(delta, changedMembers) && !changedMembers.isEmpty())
+							ctx.setChangedMembers(changedMembers);
+					}
+					update(ctx);
 				} finally {
 					fUpdatingCount--;
 				}
@@ -418,6 +570,31 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 			return false;
 		}
 
+		/**
+		 * Collects the nested members whose source changed. Other members keep their folding
+		 * regions, whose positions are updated with the document.
+		 *
+		 * @param delta the delta of the input or of one of its descendants
+		 * @param changedMembers the set to add the changed members to
+		 * @return <code>false</code> if elements have been added or removed, and the whole
+		 *         folding structure must be updated
+		 * @since 3.7.1
+		 */
+		private boolean collectChangedMembers(IJavaElementDelta delta, Set<IJavaElement> changedMembers) {
+			if (delta.getKind() != IJavaElementDelta.CHANGED)
+				return false;
+			if (isNestedMember(delta.getElement()) && (delta.getFlags() & ~IJavaElementDelta.F_CHILDREN) != 0) {
+				changedMembers.add(delta.getElement());
+				return true;
+			}
+			IJavaElementDelta[] children= delta.getAffectedChildren();
+			for (int i= 0; i < children.length; i++) {
+				if (!collectChangedMembers(children[i], changedMembers))
+					return false;
+			}
+			return true;
+		}
+
 		private IJavaElementDelta findElement(IJavaElement target, IJavaElementDelta delta) {
 
 			if (delta == null || target == null)
@@ -838,10 +1015,13 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (fInput == null)
 			return null;
 
-		return createContext(true);
+		CompilationUnit ast= null;
+		if (fInput instanceof ITypeRoot)
+			ast= SharedASTProvider.getAST((ITypeRoot) fInput, SharedASTProvider.WAIT_NO, null);
+		return createContext(true, ast);
 	}
 
-	private FoldingStructureComputationContext createContext(boolean allowCollapse) {
+	private FoldingStructureComputationContext createContext(boolean allowCollapse, CompilationUnit ast) {
 		if (!isInstalled())
 			return null;
 		ProjectionAnnotationModel model= getModel();
@@ -855,7 +1035,10 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		if (fUpdatingCount == 1)
 			scanner= fSharedScanner; // reuse scanner
 
-		return new FoldingStructureComputationContext(doc, model, allowCollapse, scanner);
+		FoldingStructureComputationContext ctx= new FoldingStructureComputationContext(doc, model, allowCollapse, scanner);
+		if (ast != null && fInput.equals(ast.getTypeRoot()))
+			ctx.setAST(ast);
+		return ctx;
 	}
 
 	private IJavaElement getInputElement() {
@@ -881,9 +1064,20 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		List<JavaProjectionAnnotation> deletions= new ArrayList<JavaProjectionAnnotation>();
 		List<JavaProjectionAnnotation> updates= new ArrayList<JavaProjectionAnnotation>();
 
+		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
+		if (ctx.isIncremental()) {
+			try {
+				collectMembersWithChangedComments(((IParent) fInput).getChildren(), oldStructure, ctx);
+			} catch (JavaModelException x) {
+				ctx.fChangedMembers= null; // update everything
+			}
+		}
 		computeFoldingStructure(ctx);
 		Map<JavaProjectionAnnotation, Position> newStructure= ctx.fMap;
-		Map<IJavaElement, List<Tuple>> oldStructure= computeCurrentStructure(ctx);
+		for (Iterator<IJavaElement> iter= oldStructure.keySet().iterator(); iter.hasNext();) {
+			if (!ctx.isUpdated(iter.next()))
+				iter.remove(); // not recomputed, keep
+		}
 
 		Iterator<JavaProjectionAnnotation> e= newStructure.keySet().iterator();
 		while (e.hasNext()) {
@@ -951,19 +1145,72 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		Annotation[] changedArray= updates.toArray(new Annotation[updates.size()]);
 		ctx.getModel().modifyAnnotations(deletedArray, additions, changedArray);
 
-		ctx.fScanner.setSource(null);
+		if (ctx.fScanner != null)
+			ctx.fScanner.setSource(null);
     }
 
+	/**
+	 * Adds the nested members whose leading comments do not match their comment folding regions
+	 * any more to the changed members. Reconcile deltas do not report changes of leading comments.
+	 *
+	 * @param elements the elements to check
+	 * @param oldStructure the current folding structure
+	 * @param ctx the incremental folding context, with an AST
+	 * @throws JavaModelException if the children of an element cannot be accessed
+	 * @since 3.7.1
+	 */
+	private void collectMembersWithChangedComments(IJavaElement[] elements, Map<IJavaElement, List<Tuple>> oldStructure, FoldingStructureComputationContext ctx) throws JavaModelException {
+		for (int i= 0; i < elements.length; i++) {
+			IJavaElement element= elements[i];
+			if (isNestedMember(element)) {
+				if (ctx.isUpdated(element))
+					continue; // recomputed anyway
+				if (hasChangedComments((IMember) element, oldStructure.get(element), ctx)) {
+					ctx.addChangedMember(element);
+					continue;
+				}
+			}
+			if (element instanceof IParent)
+				collectMembersWithChangedComments(((IParent) element).getChildren(), oldStructure, ctx);
+		}
+	}
+
+	private boolean hasChangedComments(IMember member, List<Tuple> annotations, FoldingStructureComputationContext ctx) throws JavaModelException {
+		ISourceRange range= member.getSourceRange();
+		if (!SourceRange.isAvailable(range))
+			return true;
+		List<IRegion> comments= new ArrayList<IRegion>();
+		computeCommentRegions(ctx, range.getOffset(), range.getOffset() + range.getLength(), comments);
+		Iterator<IRegion> iter= comments.iterator();
+		if (annotations != null) {
+			for (int i= 0; i < annotations.size(); i++) {
+				Tuple tuple= annotations.get(i);
+				if (!tuple.annotation.isComment())
+					continue;
+				IRegion aligned= iter.hasNext() ? alignRegion(iter.next(), ctx) : null;
+				if (aligned == null || tuple.position.getOffset() != aligned.getOffset() || tuple.position.getLength() != aligned.getLength())
+					return true;
+			}
+		}
+		while (iter.hasNext()) {
+			if (alignRegion(iter.next(), ctx) != null)
+				return true;
+		}
+		return false;
+	}
+
 	private void computeFoldingStructure(FoldingStructureComputationContext ctx) {
 		IParent parent= (IParent) fInput;
 		try {
 			if (!(fInput instanceof ISourceReference))
 				return;
-			String source= ((ISourceReference)fInput).getSource();
-			if (source == null)
-				return;
+			if (!ctx.hasAST()) {
+				String source= ((ISourceReference)fInput).getSource();
+				if (source == null)
+					return;
 
-			ctx.getScanner().setSource(source.toCharArray());
+				ctx.getScanner().setSource(source.toCharArray());
+			}
 			computeFoldingStructure(parent.getChildren(), ctx);
 		} catch (JavaModelException x) {
 		}
@@ -973,9 +1220,10 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		for (int i= 0; i < elements.length; i++) {
 			IJavaElement element= elements[i];
 
-			computeFoldingStructure(element, ctx);
+			if (ctx.isUpdated(element))
+				computeFoldingStructure(element, ctx);
 
-			if (element instanceof IParent) {
+			if (element instanceof IParent && ctx.hasUpdatedDescendants(element)) {
 				IParent parent= (IParent) element;
 				computeFoldingStructure(parent.getChildren(), ctx);
 			}
@@ -1079,6 +1327,19 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return type.getDeclaringType() != null;
 	}
 
+	/**
+	 * Returns <code>true</code> if <code>element</code> is a member which is not a top-level type.
+	 *
+	 * @param element the element to test
+	 * @return <code>true</code> if <code>element</code> is a nested member
+	 * @since 3.7.1
+	 */
+	private static boolean isNestedMember(IJavaElement element) {
+		if (!(element instanceof IMember))
+			return false;
+		return element.getElementType() != IJavaElement.TYPE || ((IType) element).getDeclaringType() != null;
+	}
+
 	/**
 	 * Computes the projection ranges for a given <code>ISourceReference</code>. More than one
 	 * range or none at all may be returned. If there are no foldable regions, an empty array is
@@ -1114,6 +1375,13 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 				}
 
 				final int shift= range.getOffset();
+				if (ctx.hasAST()) {
+					int end= shift + range.getLength();
+					int start= computeCommentRegions(ctx, shift, end, regions);
+					regions.add(new Region(start, end - start));
+					return regions.toArray(new IRegion[regions.size()]);
+				}
+
 				IScanner scanner= ctx.getScanner();
 				scanner.resetTo(shift, shift + range.getLength());
 
@@ -1157,6 +1425,8 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		int start= 0;
 		int end= range.getOffset();
 
+		if (ctx.hasAST())
+			return computeHeaderComment(ctx, end);
 
 		/* code adapted from CommentFormattingStrategy:
 		 * scan the header content up to the first type. Once a comment is
@@ -1194,6 +1464,78 @@ public class DefaultJavaFoldingStructureProvider implements IJavaFoldingStructur
 		return null;
 	}
 
+	/**
+	 * Computes the regions of the block comments at the start of a source range from the comments
+	 * of the AST.
+	 *
+	 * @param ctx the folding context, with an AST
+	 * @param offset the start of the source range
+	 * @param end the end of the source range
+	 * @param regions the list to add the comment regions to
+	 * @return the offset of the first character after the leading comments which is not white space
+	 * @since 3.7.1
+	 */
+	private static int computeCommentRegions(FoldingStructureComputationContext ctx, int offset, int end, List<IRegion> regions) {
+		int start= ctx.skipWhitespace(offset, end);
+		for (int i= ctx.getCommentIndex(start); i != -1 && ctx.fCommentEnds[i] <= end; i= ctx.getCommentIndex(start)) {
+			if (!ctx.fIsLineComment[i])
+				regions.add(new Region(start, ctx.fCommentEnds[i] - start));
+			start= ctx.skipWhitespace(ctx.fCommentEnds[i], end);
+		}
+		return start;
+	}
+
+	/**
+	 * Computes the header comment from the comments of the AST. Like the scanner, this takes the
+	 * comments before the first type up to the first package or import declaration following the
+	 * first comment.
+	 *
+	 * @param ctx the folding context, with an AST
+	 * @param end the offset of the first type
+	 * @return the header comment region or <code>null</code>
+	 * @since 3.7.1
+	 */
+	private IRegion computeHeaderComment(FoldingStructureComputationContext ctx, int end) {
+		int headerStart= -1;
+		int headerEnd= -1;
+		int stop= end;
+		for (int i= 0; i < ctx.fCommentStarts.length && ctx.fCommentStarts[i] < stop; i++) {
+			if (headerStart == -1) {
+				headerStart= ctx.fCommentStarts[i];
+				stop= Math.min(end, getDeclarationStartAfter(ctx.fAST, headerStart));
+			}
+			headerEnd= ctx.fCommentEnds[i] - 1;
+		}
+
+		if (headerEnd != -1) {
+			return new Region(headerStart, headerEnd - headerStart);
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the start of the first package or import declaration after an offset. For the
+	 * package declaration, this is the start of its name, so that its javadoc and annotations
+	 * precede it like the <code>package</code> keyword.
+	 *
+	 * @param ast the AST
+	 * @param offset the offset
+	 * @return the start of the declaration or {@link Integer#MAX_VALUE} if there is none
+	 * @since 3.7.1
+	 */
+	private static int getDeclarationStartAfter(CompilationUnit ast, int offset) {
+		PackageDeclaration packageDeclaration= ast.getPackage();
+		if (packageDeclaration != null && packageDeclaration.getName().getStartPosition() > offset)
+			return packageDeclaration.getName().getStartPosition();
+		List<?> imports= ast.imports();
+		for (int i= 0; i < imports.size(); i++) {
+			int importStart= ((ImportDeclaration) imports.get(i)).getStartPosition();
+			if (importStart > offset)
+				return importStart;
+		}
+		return Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Creates a comment folding position from an
 	 * {@link #alignRegion(IRegion, DefaultJavaFoldingStructureProvider.FoldingStructureComputationContext) aligned}